@@ -80,6 +80,13 @@ public class Agenda {
         return new ArrayList<>(items);
     }
 
+    /**
+     * @return the number of meetings in the agenda
+     */
+    public int size() {
+        return items.size();
+    }
+
     public record AgendaItem(LocalDate day, LocalTime start, LocalTime end, String title) {
         // validate if end is after start
         public AgendaItem {
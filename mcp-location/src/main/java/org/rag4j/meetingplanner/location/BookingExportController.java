@@ -0,0 +1,77 @@
+package org.rag4j.meetingplanner.location;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.rag4j.meetingplanner.location.model.BookingCursor;
+import org.rag4j.meetingplanner.location.model.BookingInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Exports bookings as newline delimited JSON for reporting. Bookings are written one by one to the response in
+ * date order, so the export uses the same amount of memory for ten or ten million bookings.
+ * <p>
+ * Paging uses a keyset: pass the date, start time, room and location of the last received booking as
+ * {@code after=date,start,room,location} to continue with the next page.
+ */
+@RestController
+public class BookingExportController {
+    private static final Logger logger = LoggerFactory.getLogger(BookingExportController.class);
+
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final LocationService locationService;
+    private final ObjectWriter bookingWriter;
+
+    public BookingExportController(LocationService locationService, ObjectMapper objectMapper) {
+        this.locationService = locationService;
+        this.bookingWriter = objectMapper.writerFor(BookingInfo.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    @GetMapping("/bookings/export")
+    public ResponseEntity<StreamingResponseBody> exportBookings(@RequestParam(required = false) String after,
+                                                                @RequestParam(required = false) Integer limit) {
+        BookingCursor cursor;
+        try {
+            cursor = after == null || after.isBlank() ? null : BookingCursor.parse(after);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid export cursor {}: {}", after, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        if (limit != null && limit < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        logger.info("Exporting bookings after {} with limit {}", cursor, limit);
+
+        StreamingResponseBody body = outputStream -> {
+            try (Stream<BookingInfo> bookings = locationService.streamBookingsAfter(cursor);
+                 JsonGenerator generator = bookingWriter.createGenerator(outputStream)) {
+                generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+                generator.setRootValueSeparator(null);
+
+                Iterator<BookingInfo> iterator = (limit != null ? bookings.limit(limit) : bookings).iterator();
+                while (iterator.hasNext()) {
+                    bookingWriter.writeValue(generator, iterator.next());
+                    generator.writeRaw('\n');
+                }
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(APPLICATION_NDJSON)
+                .body(body);
+    }
+}
@@ -1,9 +1,11 @@
 package org.rag4j.meetingplanner.location;
 
+import org.rag4j.meetingplanner.location.partition.PartitionedLocationService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.tool.ToolCallbackProvider;
 import org.springframework.ai.tool.method.MethodToolCallbackProvider;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
@@ -19,7 +21,10 @@ public class LocationMcpSseApp {
     }
 
     @Bean
-    public ToolCallbackProvider locationTools(LocationService locationService) {
-        return MethodToolCallbackProvider.builder().toolObjects(locationService).build();
+    public ToolCallbackProvider locationTools(LocationService locationService,
+                                              ObjectProvider<PartitionedLocationService> partitionedLocationService) {
+        // When locations are partitioned, the tools route calls to the node owning the location
+        Object tools = partitionedLocationService.getIfAvailable();
+        return MethodToolCallbackProvider.builder().toolObjects(tools != null ? tools : locationService).build();
     }
 }
@@ -1,7 +1,8 @@
 package org.rag4j.meetingplanner.location;
 
-import org.rag4j.meetingplanner.common.model.Agenda;
 import org.rag4j.meetingplanner.location.model.*;
+import org.rag4j.meetingplanner.location.store.Booking;
+import org.rag4j.meetingplanner.location.store.BookingStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.tool.annotation.Tool;
@@ -11,7 +12,8 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.YearMonth;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 @Service
 public class LocationService {
@@ -20,9 +22,14 @@ public class LocationService {
     private final Map<String, Location> locations = new HashMap<>();
     private final Map<String, Map<String, Room>> locationRooms = new HashMap<>();
 
-    public LocationService() {
+    private final BookingStore bookingStore;
+
+    public LocationService(BookingStore bookingStore) {
+        this.bookingStore = bookingStore;
         initializeLocations();
-        addSampleBookings();
+        if (bookingStore.countBookingsByLocation().isEmpty()) {
+            addSampleBookings();
+        }
     }
 
     @Tool(
@@ -48,8 +55,8 @@ public class LocationService {
         // Return the room with the lowest capacity that matches the request
         Optional<Room> bestAvailableRoom = availableRooms.values().stream()
                 .filter(room -> room.capacity() >= request.requestedNumberOfPeople())
-                .filter(room -> room.agenda().checkAvailability(request.date(), request.startTime(),
-                        request.startTime().plusMinutes(request.durationInMinutes())))
+                .filter(room -> bookingStore.isAvailable(room.locationId(), room.roomId(), request.date(),
+                        request.startTime(), request.startTime().plusMinutes(request.durationInMinutes())))
                 .min(Comparator.comparingInt(Room::capacity));
 
         RoomAvailableResponse response;
@@ -80,15 +87,13 @@ public class LocationService {
             return new BookRoomResponse(request.locationId(), request.roomId(), false, "You requested an unknown room");
         }
 
-        boolean b = room.agenda().checkAvailability(request.date(), request.startTime(), request.startTime().plusMinutes(request.durationInMinutes()));
+        boolean b = bookingStore.book(new Booking(room.locationId(), room.roomId(), request.date(), request.startTime(),
+                request.startTime().plusMinutes(request.durationInMinutes()),
+                String.format("Reference %s - Description %s", request.reference(), request.description())));
         if (!b) {
             return new BookRoomResponse(request.locationId(), request.roomId(), false, "No capacity at the requested time");
         }
 
-        room.agenda().bookMeeting(request.date(),
-                request.startTime(),
-                request.startTime().plusMinutes(request.durationInMinutes()),
-                String.format("Reference %s - Description %s", request.reference(), request.description()));
         BookRoomResponse bookRoomResponse = new BookRoomResponse(request.locationId(), request.roomId(), true, String.format("Booking confirmed for %s", request.reference()));
         logger.info("Booking confirmed for location {}", bookRoomResponse);
         return bookRoomResponse;
@@ -99,93 +104,93 @@ public class LocationService {
         locations.put("luminis", new Location("luminis", "Luminis", "Business meeting rooms across different " +
                 "locations in the Netherlands."));
         Map<String, Room> roomsLuminis = new HashMap<>();
-        roomsLuminis.put("room-a", new Room("luminis", "room-a", 4, new Agenda()));
-        roomsLuminis.put("room-b", new Room("luminis", "room-b", 8, new Agenda()));
-        roomsLuminis.put("room-c", new Room("luminis", "room-c", 12, new Agenda()));
+        roomsLuminis.put("room-a", new Room("luminis", "room-a", 4));
+        roomsLuminis.put("room-b", new Room("luminis", "room-b", 8));
+        roomsLuminis.put("room-c", new Room("luminis", "room-c", 12));
         locationRooms.put("luminis", roomsLuminis);
 
         // Like Home
         locations.put("like-home", new Location("like-home", "Meeting like Home", "Homely settings for a relaxing " +
                 "meeting."));
         Map<String, Room> roomsLikeHome = new HashMap<>();
-        roomsLikeHome.put("living", new Room("like-home", "living", 6, new Agenda()));
-        roomsLikeHome.put("kitchen", new Room("like-home", "kitchen", 10, new Agenda()));
-        roomsLikeHome.put("garden", new Room("like-home", "garden", 5, new Agenda()));
+        roomsLikeHome.put("living", new Room("like-home", "living", 6));
+        roomsLikeHome.put("kitchen", new Room("like-home", "kitchen", 10));
+        roomsLikeHome.put("garden", new Room("like-home", "garden", 5));
         locationRooms.put("like-home", roomsLikeHome);
 
         // Meet Nature
         locations.put("meet-nature", new Location("meet-nature", "Meeting in Nature", "Combine meetings with outdoor " +
                 "activities."));
         Map<String, Room> roomsNature = new HashMap<>();
-        roomsNature.put("forest", new Room("meet-nature", "forest", 8, new Agenda()));
-        roomsNature.put("lake", new Room("meet-nature", "lake", 14, new Agenda()));
-        roomsNature.put("meadow", new Room("meet-nature", "meadow", 6, new Agenda()));
+        roomsNature.put("forest", new Room("meet-nature", "forest", 8));
+        roomsNature.put("lake", new Room("meet-nature", "lake", 14));
+        roomsNature.put("meadow", new Room("meet-nature", "meadow", 6));
         locationRooms.put("meet-nature", roomsNature);
 
         // TechHub
         locations.put("techhub", new Location("techhub", "TechHub", "Modern tech-focused meeting spaces."));
         Map<String, Room> roomsTechHub = new HashMap<>();
-        roomsTechHub.put("alpha", new Room("techhub", "alpha", 5, new Agenda()));
-        roomsTechHub.put("beta", new Room("techhub", "beta", 9, new Agenda()));
-        roomsTechHub.put("gamma", new Room("techhub", "gamma", 15, new Agenda()));
+        roomsTechHub.put("alpha", new Room("techhub", "alpha", 5));
+        roomsTechHub.put("beta", new Room("techhub", "beta", 9));
+        roomsTechHub.put("gamma", new Room("techhub", "gamma", 15));
         locationRooms.put("techhub", roomsTechHub);
 
         // CityView
         locations.put("cityview", new Location("cityview", "CityView", "Panoramic city views for inspiring meetings."));
         Map<String, Room> roomsCityView = new HashMap<>();
-        roomsCityView.put("sky", new Room("cityview", "sky", 7, new Agenda()));
-        roomsCityView.put("cloud", new Room("cityview", "cloud", 12, new Agenda()));
-        roomsCityView.put("sun", new Room("cityview", "sun", 20, new Agenda()));
+        roomsCityView.put("sky", new Room("cityview", "sky", 7));
+        roomsCityView.put("cloud", new Room("cityview", "cloud", 12));
+        roomsCityView.put("sun", new Room("cityview", "sun", 20));
         locationRooms.put("cityview", roomsCityView);
 
         // GreenSpace
         locations.put("greenspace", new Location("greenspace", "GreenSpace", "Eco-friendly meeting rooms surrounded " +
                 "by plants."));
         Map<String, Room> roomsGreenSpace = new HashMap<>();
-        roomsGreenSpace.put("ivy", new Room("greenspace", "ivy", 4, new Agenda()));
-        roomsGreenSpace.put("fern", new Room("greenspace", "fern", 8, new Agenda()));
-        roomsGreenSpace.put("moss", new Room("greenspace", "moss", 10, new Agenda()));
+        roomsGreenSpace.put("ivy", new Room("greenspace", "ivy", 4));
+        roomsGreenSpace.put("fern", new Room("greenspace", "fern", 8));
+        roomsGreenSpace.put("moss", new Room("greenspace", "moss", 10));
         locationRooms.put("greenspace", roomsGreenSpace);
 
         // Harbor
         locations.put("harbor", new Location("harbor", "Harbor", "Meetings with a view of the water and ships."));
         Map<String, Room> roomsHarbor = new HashMap<>();
-        roomsHarbor.put("dock", new Room("harbor", "dock", 6, new Agenda()));
-        roomsHarbor.put("pier", new Room("harbor", "pier", 11, new Agenda()));
-        roomsHarbor.put("cabin", new Room("harbor", "cabin", 8, new Agenda()));
+        roomsHarbor.put("dock", new Room("harbor", "dock", 6));
+        roomsHarbor.put("pier", new Room("harbor", "pier", 11));
+        roomsHarbor.put("cabin", new Room("harbor", "cabin", 8));
         locationRooms.put("harbor", roomsHarbor);
 
         // Library
         locations.put("library", new Location("library", "Library", "Quiet spaces for focused meetings."));
         Map<String, Room> roomsLibrary = new HashMap<>();
-        roomsLibrary.put("study", new Room("library", "study", 3, new Agenda()));
-        roomsLibrary.put("archive", new Room("library", "archive", 7, new Agenda()));
-        roomsLibrary.put("reading", new Room("library", "reading", 10, new Agenda()));
+        roomsLibrary.put("study", new Room("library", "study", 3));
+        roomsLibrary.put("archive", new Room("library", "archive", 7));
+        roomsLibrary.put("reading", new Room("library", "reading", 10));
         locationRooms.put("library", roomsLibrary);
 
         // Loft
         locations.put("loft", new Location("loft", "Loft", "Trendy loft-style meeting rooms."));
         Map<String, Room> roomsLoft = new HashMap<>();
-        roomsLoft.put("brick", new Room("loft", "brick", 5, new Agenda()));
-        roomsLoft.put("beam", new Room("loft", "beam", 9, new Agenda()));
-        roomsLoft.put("glass", new Room("loft", "glass", 13, new Agenda()));
+        roomsLoft.put("brick", new Room("loft", "brick", 5));
+        roomsLoft.put("beam", new Room("loft", "beam", 9));
+        roomsLoft.put("glass", new Room("loft", "glass", 13));
         locationRooms.put("loft", roomsLoft);
 
         // Villa
         locations.put("villa", new Location("villa", "Villa", "Luxurious villa for exclusive meetings."));
         Map<String, Room> roomsVilla = new HashMap<>();
-        roomsVilla.put("salon", new Room("villa", "salon", 8, new Agenda()));
-        roomsVilla.put("terrace", new Room("villa", "terrace", 16, new Agenda()));
-        roomsVilla.put("suite", new Room("villa", "suite", 6, new Agenda()));
+        roomsVilla.put("salon", new Room("villa", "salon", 8));
+        roomsVilla.put("terrace", new Room("villa", "terrace", 16));
+        roomsVilla.put("suite", new Room("villa", "suite", 6));
         locationRooms.put("villa", roomsVilla);
 
         // Campus
         locations.put("campus", new Location("campus", "Campus", "Academic-style meeting rooms for workshops and " +
                 "seminars."));
         Map<String, Room> roomsCampus = new HashMap<>();
-        roomsCampus.put("lab", new Room("campus", "lab", 10, new Agenda()));
-        roomsCampus.put("hall", new Room("campus", "hall", 18, new Agenda()));
-        roomsCampus.put("class", new Room("campus", "class", 7, new Agenda()));
+        roomsCampus.put("lab", new Room("campus", "lab", 10));
+        roomsCampus.put("hall", new Room("campus", "hall", 18));
+        roomsCampus.put("class", new Room("campus", "class", 7));
         locationRooms.put("campus", roomsCampus);
     }
     
@@ -207,50 +212,55 @@ public class LocationService {
         // Current week bookings for better weekly calendar view
         
         // Monday bookings
-        locationRooms.get("luminis").get("room-a").agenda()
-                .bookMeeting(currentMonday, LocalTime.of(9, 0), LocalTime.of(10, 30), "Monday Team Stand-up");
-        locationRooms.get("techhub").get("alpha").agenda()
-                .bookMeeting(currentMonday, LocalTime.of(14, 0), LocalTime.of(15, 30), "Code Review Monday");
+        addSampleBooking("luminis", "room-a",
+                currentMonday, LocalTime.of(9, 0), LocalTime.of(10, 30), "Monday Team Stand-up");
+        addSampleBooking("techhub", "alpha",
+                currentMonday, LocalTime.of(14, 0), LocalTime.of(15, 30), "Code Review Monday");
                 
         // Tuesday bookings  
-        locationRooms.get("luminis").get("room-b").agenda()
-                .bookMeeting(currentTuesday, LocalTime.of(10, 0), LocalTime.of(11, 30), "Sprint Planning");
-        locationRooms.get("like-home").get("living").agenda()
-                .bookMeeting(currentTuesday, LocalTime.of(15, 0), LocalTime.of(16, 0), "Casual Coffee Meeting");
+        addSampleBooking("luminis", "room-b",
+                currentTuesday, LocalTime.of(10, 0), LocalTime.of(11, 30), "Sprint Planning");
+        addSampleBooking("like-home", "living",
+                currentTuesday, LocalTime.of(15, 0), LocalTime.of(16, 0), "Casual Coffee Meeting");
                 
         // Wednesday bookings
-        locationRooms.get("cityview").get("sky").agenda()
-                .bookMeeting(currentWednesday, LocalTime.of(9, 30), LocalTime.of(11, 0), "Midweek Strategy");
-        locationRooms.get("greenspace").get("ivy").agenda()
-                .bookMeeting(currentWednesday, LocalTime.of(13, 0), LocalTime.of(14, 0), "Green Meeting");
+        addSampleBooking("cityview", "sky",
+                currentWednesday, LocalTime.of(9, 30), LocalTime.of(11, 0), "Midweek Strategy");
+        addSampleBooking("greenspace", "ivy",
+                currentWednesday, LocalTime.of(13, 0), LocalTime.of(14, 0), "Green Meeting");
                 
         // Thursday bookings
-        locationRooms.get("techhub").get("beta").agenda()
-                .bookMeeting(currentThursday, LocalTime.of(11, 0), LocalTime.of(12, 30), "Architecture Discussion");
-        locationRooms.get("harbor").get("dock").agenda()
-                .bookMeeting(currentThursday, LocalTime.of(14, 30), LocalTime.of(16, 0), "Waterfront Meeting");
+        addSampleBooking("techhub", "beta",
+                currentThursday, LocalTime.of(11, 0), LocalTime.of(12, 30), "Architecture Discussion");
+        addSampleBooking("harbor", "dock",
+                currentThursday, LocalTime.of(14, 30), LocalTime.of(16, 0), "Waterfront Meeting");
                 
         // Friday bookings
-        locationRooms.get("luminis").get("room-c").agenda()
-                .bookMeeting(currentFriday, LocalTime.of(10, 0), LocalTime.of(11, 30), "Friday Client Presentation");
-        locationRooms.get("villa").get("salon").agenda()
-                .bookMeeting(currentFriday, LocalTime.of(15, 0), LocalTime.of(17, 0), "End of Week VIP Meeting");
+        addSampleBooking("luminis", "room-c",
+                currentFriday, LocalTime.of(10, 0), LocalTime.of(11, 30), "Friday Client Presentation");
+        addSampleBooking("villa", "salon",
+                currentFriday, LocalTime.of(15, 0), LocalTime.of(17, 0), "End of Week VIP Meeting");
                 
         // Some bookings for today/yesterday/tomorrow for variety
-        locationRooms.get("cityview").get("cloud").agenda()
-                .bookMeeting(today, LocalTime.of(16, 0), LocalTime.of(17, 0), "Today's Executive Briefing");
-        locationRooms.get("library").get("study").agenda()
-                .bookMeeting(yesterday, LocalTime.of(10, 0), LocalTime.of(11, 0), "Yesterday's Focus Session");
-        locationRooms.get("loft").get("brick").agenda()
-                .bookMeeting(tomorrow, LocalTime.of(14, 0), LocalTime.of(15, 30), "Tomorrow's Brainstorm");
+        addSampleBooking("cityview", "cloud",
+                today, LocalTime.of(16, 0), LocalTime.of(17, 0), "Today's Executive Briefing");
+        addSampleBooking("library", "study",
+                yesterday, LocalTime.of(10, 0), LocalTime.of(11, 0), "Yesterday's Focus Session");
+        addSampleBooking("loft", "brick",
+                tomorrow, LocalTime.of(14, 0), LocalTime.of(15, 30), "Tomorrow's Brainstorm");
                 
         // Next week bookings
-        locationRooms.get("campus").get("lab").agenda()
-                .bookMeeting(nextWeek, LocalTime.of(9, 30), LocalTime.of(11, 30), "Next Week Research Workshop");
-        locationRooms.get("like-home").get("kitchen").agenda()
-                .bookMeeting(nextWeek.plusDays(1), LocalTime.of(13, 0), LocalTime.of(15, 0), "Team Lunch & Learn");
-        locationRooms.get("techhub").get("gamma").agenda()
-                .bookMeeting(nextWeek.plusDays(2), LocalTime.of(10, 0), LocalTime.of(12, 0), "All Hands Meeting");
+        addSampleBooking("campus", "lab",
+                nextWeek, LocalTime.of(9, 30), LocalTime.of(11, 30), "Next Week Research Workshop");
+        addSampleBooking("like-home", "kitchen",
+                nextWeek.plusDays(1), LocalTime.of(13, 0), LocalTime.of(15, 0), "Team Lunch & Learn");
+        addSampleBooking("techhub", "gamma",
+                nextWeek.plusDays(2), LocalTime.of(10, 0), LocalTime.of(12, 0), "All Hands Meeting");
+    }
+
+    private void addSampleBooking(String locationId, String roomId, LocalDate day, LocalTime start, LocalTime end,
+                                  String title) {
+        bookingStore.book(new Booking(locationId, roomId, day, start, end, title));
     }
 
     // Non-tool methods for web UI functionality
@@ -259,45 +269,25 @@ public class LocationService {
      * Get all bookings across all locations
      */
     public List<BookingInfo> getAllBookings() {
-        List<BookingInfo> allBookings = new ArrayList<>();
-        
-        for (Map.Entry<String, Location> locationEntry : locations.entrySet()) {
-            String locationId = locationEntry.getKey();
-            Location location = locationEntry.getValue();
-            Map<String, Room> rooms = locationRooms.get(locationId);
-            
-            for (Room room : rooms.values()) {
-                List<Agenda.AgendaItem> meetings = room.agenda().getMeetings();
-                for (Agenda.AgendaItem meeting : meetings) {
-                    allBookings.add(new BookingInfo(
-                            locationId,
-                            location.name(),
-                            room.roomId(),
-                            meeting.day(),
-                            meeting.start(),
-                            meeting.end(),
-                            meeting.title()
-                    ));
-                }
-            }
-        }
-        
-        return allBookings.stream()
-                .sorted((b1, b2) -> {
-                    int dateComparison = b1.date().compareTo(b2.date());
-                    if (dateComparison != 0) return dateComparison;
-                    return b1.startTime().compareTo(b2.startTime());
-                })
-                .collect(Collectors.toList());
+        return toBookingInfo(bookingStore.findBookings(null, null, null));
     }
-    
+
+    /**
+     * Stream bookings in date order, starting right after the provided cursor. The stream reads directly from the
+     * booking store, nothing is copied or sorted, so callers can export any number of bookings in constant memory.
+     * The stream must be closed by the caller.
+     * @param after the last booking already seen, or null to start at the first booking
+     * @return lazy stream of bookings following the cursor
+     */
+    public Stream<BookingInfo> streamBookingsAfter(BookingCursor after) {
+        return bookingStore.findBookingsAfter(after).filter(this::isServed).map(this::toBookingInfo);
+    }
+
     /**
      * Get bookings for a specific location
      */
     public List<BookingInfo> getBookingsForLocation(String locationId) {
-        return getAllBookings().stream()
-                .filter(booking -> booking.locationId().equals(locationId))
-                .collect(Collectors.toList());
+        return toBookingInfo(bookingStore.findBookings(locationId, null, null));
     }
     
     /**
@@ -305,15 +295,14 @@ public class LocationService {
      */
     public List<LocationBookingStats> getLocationBookingStats() {
         List<LocationBookingStats> stats = new ArrayList<>();
-        
+        Map<String, Long> bookingCounts = bookingStore.countBookingsByLocation();
+
         for (Map.Entry<String, Location> locationEntry : locations.entrySet()) {
             String locationId = locationEntry.getKey();
             Location location = locationEntry.getValue();
             Map<String, Room> rooms = locationRooms.get(locationId);
             
-            int totalBookings = rooms.values().stream()
-                    .mapToInt(room -> room.agenda().getMeetings().size())
-                    .sum();
+            int totalBookings = bookingCounts.getOrDefault(locationId, 0L).intValue();
             
             stats.add(new LocationBookingStats(
                     locationId,
@@ -332,26 +321,61 @@ public class LocationService {
      */
     public List<BookingInfo> getBookingsForWeek(String locationId, LocalDate weekStart) {
         LocalDate weekEnd = weekStart.plusDays(6);
-        return getBookingsForLocation(locationId).stream()
-                .filter(booking -> !booking.date().isBefore(weekStart) && !booking.date().isAfter(weekEnd))
-                .collect(Collectors.toList());
+        return toBookingInfo(bookingStore.findBookings(locationId, weekStart, weekEnd));
     }
     
     /**
      * Get bookings for a specific month
      */
     public List<BookingInfo> getBookingsForMonth(YearMonth month) {
-        LocalDate monthStart = month.atDay(1);
-        LocalDate monthEnd = month.atEndOfMonth();
-        return getAllBookings().stream()
-                .filter(booking -> !booking.date().isBefore(monthStart) && !booking.date().isAfter(monthEnd))
-                .collect(Collectors.toList());
+        return toBookingInfo(bookingStore.findBookings(null, month.atDay(1), month.atEndOfMonth()));
     }
-    
+
+    /**
+     * Get the number of bookings per room for a location
+     */
+    public Map<String, Long> getBookingCountsForRooms(String locationId) {
+        return locations.containsKey(locationId) ? bookingStore.countBookingsByRoom(locationId) : Map.of();
+    }
+
+    /**
+     * Drop the locations and rooms this server is not responsible for. Used when locations are partitioned across
+     * multiple servers. Their bookings stay in the booking store but are no longer listed, so they are served again
+     * when this server owns the location after the nodes of the cluster change.
+     */
+    public void retainLocations(Predicate<String> owned) {
+        List<String> dropped = locations.keySet().stream().filter(owned.negate()).toList();
+        for (String locationId : dropped) {
+            locations.remove(locationId);
+            locationRooms.remove(locationId);
+        }
+    }
+
     /**
      * Get all rooms for a location
      */
     public Map<String, Room> getRoomsForLocation(String locationId) {
         return locationRooms.getOrDefault(locationId, new HashMap<>());
     }
+
+    private List<BookingInfo> toBookingInfo(List<Booking> bookings) {
+        return bookings.stream().filter(this::isServed).map(this::toBookingInfo).toList();
+    }
+
+    private boolean isServed(Booking booking) {
+        return locations.containsKey(booking.locationId());
+    }
+
+    private BookingInfo toBookingInfo(Booking booking) {
+        Location location = locations.get(booking.locationId());
+        return new BookingInfo(
+                booking.locationId(),
+                location != null ? location.name() : booking.locationId(),
+                booking.roomId(),
+                booking.date(),
+                booking.startTime(),
+                booking.endTime(),
+                booking.title()
+        );
+    }
 }
@@ -75,6 +75,7 @@ public class McpDocumentationController {
         model.addAttribute("location", location);
         model.addAttribute("bookings", bookings);
         model.addAttribute("rooms", locationService.getRoomsForLocation(locationId));
+        model.addAttribute("bookingsPerRoom", locationService.getBookingCountsForRooms(locationId));
         
         return "location-bookings";
     }
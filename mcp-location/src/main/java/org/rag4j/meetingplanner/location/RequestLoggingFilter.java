@@ -1,40 +0,0 @@
-package org.rag4j.meetingplanner.location;
-
-import jakarta.servlet.FilterChain;
-import jakarta.servlet.ServletException;
-import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.stereotype.Component;
-import org.springframework.web.filter.OncePerRequestFilter;
-
-import java.io.IOException;
-
-@Component
-public class RequestLoggingFilter extends OncePerRequestFilter {
-
-    @Override
-    protected void doFilterInternal(HttpServletRequest request,
-                                    HttpServletResponse response,
-                                    FilterChain filterChain)
-            throws ServletException, IOException {
-
-        String path = request.getRequestURI();
-
-        // Only log for the interesting paths
-        if (path.startsWith("/sse") || path.startsWith("/mcp/")) {
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-
-            if (authentication != null && authentication.isAuthenticated()) {
-                String username = authentication.getName();
-                logger.info("🔒 Authenticated request to " + path + " by user: " + username);
-            } else {
-                logger.warn("🚫 Unauthenticated request to " + path);
-            }
-        }
-
-        filterChain.doFilter(request, response);
-    }
-
-}
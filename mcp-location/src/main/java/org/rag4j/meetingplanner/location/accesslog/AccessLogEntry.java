@@ -0,0 +1,74 @@
+package org.rag4j.meetingplanner.location.accesslog;
+
+import java.time.Instant;
+
+/**
+ * One handled request in the access log.
+ *
+ * @param timestamp      epoch millis at which the request arrived
+ * @param method         the http method
+ * @param path           the request path without the query string
+ * @param query          the query string, or null when there is none
+ * @param status         the response status
+ * @param durationMicros time spent handling the request
+ * @param user           the authenticated user, or null for anonymous requests
+ * @param error          class name of the exception that ended the request, or null
+ */
+public record AccessLogEntry(long timestamp, String method, String path, String query, int status,
+                             long durationMicros, String user, String error) {
+
+    /**
+     * Errors and rejected requests are always logged, regardless of sampling and rate limits.
+     */
+    public boolean isError() {
+        return status >= 400 || error != null;
+    }
+
+    /**
+     * Appends the entry as a single line of json.
+     */
+    public void appendJson(StringBuilder line) {
+        line.append("{\"ts\":\"").append(Instant.ofEpochMilli(timestamp)).append('"');
+        line.append(",\"method\":");
+        appendString(line, method);
+        line.append(",\"path\":");
+        appendString(line, path);
+        if (query != null) {
+            line.append(",\"query\":");
+            appendString(line, query);
+        }
+        line.append(",\"status\":").append(status);
+        line.append(",\"durationMicros\":").append(durationMicros);
+        if (user != null) {
+            line.append(",\"user\":");
+            appendString(line, user);
+        }
+        if (error != null) {
+            line.append(",\"error\":");
+            appendString(line, error);
+        }
+        line.append("}\n");
+    }
+
+    static void appendString(StringBuilder line, String value) {
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\t' -> line.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+                }
+            }
+        }
+        line.append('"');
+    }
+}
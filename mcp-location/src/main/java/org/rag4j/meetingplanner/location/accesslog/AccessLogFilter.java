@@ -0,0 +1,69 @@
+package org.rag4j.meetingplanner.location.accesslog;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Records every request in the access log. Runs before Spring Security, so requests that are rejected as
+ * unauthenticated are logged as well. The security context is cleared when the security filters are done, the user
+ * is therefore read from the request attribute in which the bearer token filter stores the context.
+ * <p>
+ * The request thread only decides whether to log and hands the entry to the {@link AccessLogWriter}.
+ */
+public class AccessLogFilter extends OncePerRequestFilter {
+    private final AccessLogWriter writer;
+    private final AccessLogSampler sampler;
+
+    public AccessLogFilter(AccessLogWriter writer, AccessLogSampler sampler) {
+        this.writer = writer;
+        this.sampler = sampler;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long timestamp = System.currentTimeMillis();
+        long start = System.nanoTime();
+        Throwable failure = null;
+        try {
+            filterChain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            int status = failure != null ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus();
+            String path = request.getRequestURI();
+            if (sampler.shouldLog(path, status >= 400 || failure != null)) {
+                writer.append(new AccessLogEntry(
+                        timestamp,
+                        request.getMethod(),
+                        path,
+                        request.getQueryString(),
+                        status,
+                        (System.nanoTime() - start) / 1000,
+                        authenticatedUser(request),
+                        failure != null ? failure.getClass().getName() : null
+                ));
+            }
+        }
+    }
+
+    private static String authenticatedUser(HttpServletRequest request) {
+        Object context = request.getAttribute(RequestAttributeSecurityContextRepository.DEFAULT_REQUEST_ATTR_NAME);
+        if (context instanceof SecurityContext securityContext) {
+            Authentication authentication = securityContext.getAuthentication();
+            if (authentication != null && authentication.isAuthenticated()) {
+                return authentication.getName();
+            }
+        }
+        return null;
+    }
+}
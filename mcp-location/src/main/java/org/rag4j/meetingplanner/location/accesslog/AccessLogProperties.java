@@ -0,0 +1,43 @@
+package org.rag4j.meetingplanner.location.accesslog;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Configuration of the access log. Errors are always written, other requests are sampled and rate limited.
+ *
+ * @param enabled       whether requests are logged
+ * @param file          the file to write to, rolled over to {@code file.1}, {@code file.2}, ... when full
+ * @param maxFileSize   size at which the file is rolled over
+ * @param maxHistory    number of rolled over files to keep
+ * @param bufferSize    number of entries the ring buffer holds, rounded up to a power of two
+ * @param drainInterval how long the writer sleeps when the buffer is empty
+ * @param sampleRate    fraction of successful requests to log, between 0 and 1
+ * @param rateLimits    path prefix mapped to the maximum number of successful requests logged per second
+ */
+@ConfigurationProperties(prefix = "location.access-log")
+public record AccessLogProperties(Boolean enabled, String file, DataSize maxFileSize, Integer maxHistory,
+                                 Integer bufferSize, Duration drainInterval, Double sampleRate,
+                                 Map<String, Integer> rateLimits) {
+
+    public AccessLogProperties {
+        enabled = enabled == null || enabled;
+        file = file == null ? "logs/access.log" : file;
+        maxFileSize = maxFileSize == null ? DataSize.ofMegabytes(10) : maxFileSize;
+        maxHistory = maxHistory == null ? 5 : maxHistory;
+        bufferSize = bufferSize == null ? 8192 : bufferSize;
+        drainInterval = drainInterval == null ? Duration.ofMillis(50) : drainInterval;
+        sampleRate = sampleRate == null ? 1.0 : sampleRate;
+        rateLimits = rateLimits == null ? Map.of() : Map.copyOf(rateLimits);
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("Access log sample rate must be between 0 and 1: " + sampleRate);
+        }
+        if (bufferSize < 2) {
+            throw new IllegalArgumentException("Access log buffer size must be at least 2: " + bufferSize);
+        }
+        bufferSize = Integer.highestOneBit(bufferSize - 1) << 1;
+    }
+}
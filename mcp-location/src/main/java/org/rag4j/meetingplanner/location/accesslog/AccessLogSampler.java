@@ -0,0 +1,86 @@
+package org.rag4j.meetingplanner.location.accesslog;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides which requests make it into the access log. Errors always do. Other requests are first sampled, then
+ * limited per path prefix to a number of entries per second. The longest matching prefix wins.
+ * <p>
+ * Both checks are lock-free, so the decision costs a random number and at most one compare-and-set.
+ */
+public class AccessLogSampler {
+    private final double sampleRate;
+    private final List<PathRateLimit> rateLimits;
+    private final LongSupplier clock;
+
+    public AccessLogSampler(double sampleRate, Map<String, Integer> rateLimits) {
+        this(sampleRate, rateLimits, System::currentTimeMillis);
+    }
+
+    AccessLogSampler(double sampleRate, Map<String, Integer> rateLimits, LongSupplier clock) {
+        this.sampleRate = sampleRate;
+        this.rateLimits = rateLimits.entrySet().stream()
+                .map(limit -> new PathRateLimit(limit.getKey(), limit.getValue()))
+                .sorted(Comparator.comparingInt((PathRateLimit limit) -> limit.prefix().length()).reversed())
+                .toList();
+        this.clock = clock;
+    }
+
+    /**
+     * @return true when the request should be written to the access log
+     */
+    public boolean shouldLog(String path, boolean error) {
+        if (error) {
+            return true;
+        }
+        if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return false;
+        }
+        for (PathRateLimit rateLimit : rateLimits) {
+            if (path.startsWith(rateLimit.prefix())) {
+                return rateLimit.tryAcquire(clock.getAsLong() / 1000);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Fixed one second window, the current second and the count within it share a single atomic long.
+     */
+    private record PathRateLimit(String prefix, int perSecond, AtomicLong window) {
+        private static final int COUNT_BITS = 24;
+        private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+        PathRateLimit(String prefix, int perSecond) {
+            this(prefix, perSecond, new AtomicLong());
+            if (perSecond < 0 || perSecond > COUNT_MASK) {
+                throw new IllegalArgumentException("Invalid rate limit for " + prefix + ": " + perSecond);
+            }
+        }
+
+        boolean tryAcquire(long second) {
+            if (perSecond == 0) {
+                return false;
+            }
+            while (true) {
+                long current = window.get();
+                long next;
+                if (current >>> COUNT_BITS != second) {
+                    next = second << COUNT_BITS | 1;
+                } else if ((current & COUNT_MASK) >= perSecond) {
+                    return false;
+                } else {
+                    next = current + 1;
+                }
+                if (window.compareAndSet(current, next)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
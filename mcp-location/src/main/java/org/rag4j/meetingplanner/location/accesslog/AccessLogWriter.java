@@ -0,0 +1,207 @@
+package org.rag4j.meetingplanner.location.accesslog;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes access log entries to a rolling file from a background thread. Request threads only put entries on a
+ * lock-free ring buffer; formatting and file io happen on the writer thread.
+ * <p>
+ * When the ring buffer is full, successful requests are dropped and counted, the count is written to the log so
+ * gaps are visible. Errors are never dropped, they go to an unbounded overflow queue that the writer empties
+ * before the ring buffer.
+ */
+public class AccessLogWriter implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(AccessLogWriter.class);
+
+    private final AccessLogRingBuffer ringBuffer;
+    private final Queue<AccessLogEntry> errorOverflow = new ConcurrentLinkedQueue<>();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final Path file;
+    private final long maxFileSize;
+    private final int maxHistory;
+    private final long drainIntervalNanos;
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    // Only touched by the writer thread
+    private final StringBuilder line = new StringBuilder(256);
+    private OutputStream output;
+    private long fileSize;
+
+    public AccessLogWriter(Path file, long maxFileSize, int maxHistory, int bufferSize, Duration drainInterval) {
+        this.ringBuffer = new AccessLogRingBuffer(bufferSize);
+        this.file = file;
+        this.maxFileSize = maxFileSize;
+        this.maxHistory = maxHistory;
+        this.drainIntervalNanos = drainInterval.toNanos();
+        openFile();
+        this.writerThread = Thread.ofPlatform().name("access-log-writer").daemon().start(this::run);
+        logger.info("Writing access log to {}", file.toAbsolutePath());
+    }
+
+    /**
+     * Queues an entry for writing, never blocks.
+     */
+    public void append(AccessLogEntry entry) {
+        if (ringBuffer.offer(entry)) {
+            return;
+        }
+        if (entry.isError()) {
+            errorOverflow.add(entry);
+        } else {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return number of entries dropped because the ring buffer was full
+     */
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    private void run() {
+        while (running) {
+            if (drain() == 0) {
+                flush();
+                LockSupport.parkNanos(drainIntervalNanos);
+            }
+        }
+    }
+
+    /**
+     * Writes everything that is queued at this moment.
+     * @return the number of entries written
+     */
+    private int drain() {
+        int written = 0;
+        AccessLogEntry entry;
+        while ((entry = errorOverflow.poll()) != null) {
+            write(entry);
+            written++;
+        }
+        // Bounded by the capacity so a steady stream of requests cannot starve the overflow queue
+        for (int i = 0; i < ringBuffer.capacity() && (entry = ringBuffer.poll()) != null; i++) {
+            write(entry);
+            written++;
+        }
+        long droppedSinceLastDrain = dropped.getAndSet(0);
+        if (droppedSinceLastDrain > 0) {
+            line.setLength(0);
+            line.append("{\"ts\":\"").append(Instant.now()).append("\",\"dropped\":")
+                    .append(droppedSinceLastDrain).append("}\n");
+            writeLine();
+        }
+        return written;
+    }
+
+    private void write(AccessLogEntry entry) {
+        line.setLength(0);
+        entry.appendJson(line);
+        writeLine();
+    }
+
+    private void writeLine() {
+        if (output == null) {
+            return;
+        }
+        byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+        try {
+            if (fileSize > 0 && fileSize + bytes.length > maxFileSize) {
+                rollOver();
+            }
+            output.write(bytes);
+            fileSize += bytes.length;
+        } catch (IOException e) {
+            logger.warn("Could not write to access log {}: {}", file, e.getMessage());
+        }
+    }
+
+    private void flush() {
+        if (output == null) {
+            return;
+        }
+        try {
+            output.flush();
+        } catch (IOException e) {
+            logger.warn("Could not flush access log {}: {}", file, e.getMessage());
+        }
+    }
+
+    private void rollOver() throws IOException {
+        output.close();
+        Files.deleteIfExists(rolledFile(maxHistory));
+        for (int i = maxHistory - 1; i >= 1; i--) {
+            Path rolled = rolledFile(i);
+            if (Files.exists(rolled)) {
+                Files.move(rolled, rolledFile(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (maxHistory > 0) {
+            Files.move(file, rolledFile(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.delete(file);
+        }
+        openFile();
+    }
+
+    private Path rolledFile(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    private void openFile() {
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            output = new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND), 64 * 1024);
+            fileSize = Files.size(file);
+        } catch (IOException e) {
+            logger.error("Could not open access log {}, requests are not logged: {}", file, e.getMessage());
+            output = null;
+        }
+    }
+
+    /**
+     * Stops the writer thread after writing all queued entries.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        while (drain() > 0) {
+            // Entries appended while the writer thread stopped
+        }
+        flush();
+        if (output != null) {
+            try {
+                output.close();
+            } catch (IOException e) {
+                logger.warn("Could not close access log {}: {}", file, e.getMessage());
+            }
+        }
+    }
+}
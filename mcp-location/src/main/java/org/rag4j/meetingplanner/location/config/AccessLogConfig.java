@@ -0,0 +1,40 @@
+package org.rag4j.meetingplanner.location.config;
+
+import org.rag4j.meetingplanner.location.accesslog.AccessLogFilter;
+import org.rag4j.meetingplanner.location.accesslog.AccessLogProperties;
+import org.rag4j.meetingplanner.location.accesslog.AccessLogSampler;
+import org.rag4j.meetingplanner.location.accesslog.AccessLogWriter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * Registers the access log filter in front of the Spring Security filters, see {@link AccessLogProperties} for the
+ * sampling and rate limit options.
+ */
+@Configuration
+@EnableConfigurationProperties(AccessLogProperties.class)
+@ConditionalOnProperty(prefix = "location.access-log", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class AccessLogConfig {
+
+    @Bean(destroyMethod = "close")
+    public AccessLogWriter accessLogWriter(AccessLogProperties properties) {
+        return new AccessLogWriter(Path.of(properties.file()), properties.maxFileSize().toBytes(),
+                properties.maxHistory(), properties.bufferSize(), properties.drainInterval());
+    }
+
+    @Bean
+    public FilterRegistrationBean<AccessLogFilter> accessLogFilter(AccessLogWriter accessLogWriter,
+                                                                  AccessLogProperties properties) {
+        AccessLogSampler sampler = new AccessLogSampler(properties.sampleRate(), properties.rateLimits());
+        FilterRegistrationBean<AccessLogFilter> registration =
+                new FilterRegistrationBean<>(new AccessLogFilter(accessLogWriter, sampler));
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        return registration;
+    }
+}
@@ -0,0 +1,30 @@
+package org.rag4j.meetingplanner.location.config;
+
+import org.rag4j.meetingplanner.location.store.BookingStore;
+import org.rag4j.meetingplanner.location.store.InMemoryBookingStore;
+import org.rag4j.meetingplanner.location.store.JdbcBookingStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Selects where bookings are stored with {@code location.booking-store.type}: {@code memory} (default) or
+ * {@code jdbc} for an embedded H2 database.
+ */
+@Configuration
+public class BookingStoreConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "location.booking-store", name = "type", havingValue = "memory",
+            matchIfMissing = true)
+    public BookingStore inMemoryBookingStore() {
+        return new InMemoryBookingStore();
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "location.booking-store", name = "type", havingValue = "jdbc")
+    public BookingStore jdbcBookingStore(@Value("${location.booking-store.jdbc-url}") String jdbcUrl) {
+        return new JdbcBookingStore(jdbcUrl);
+    }
+}
@@ -16,7 +16,8 @@ public class MCPServerSecurityConfiguration {
                 .authorizeHttpRequests(authorize -> authorize
                         .requestMatchers(
                                 "/sse",
-                                "/mcp/**"
+                                "/mcp/**",
+                                "/partition/**"
                         ).authenticated()
                         .anyRequest().permitAll()
                 )
@@ -0,0 +1,37 @@
+package org.rag4j.meetingplanner.location.config;
+
+import org.rag4j.meetingplanner.location.LocationService;
+import org.rag4j.meetingplanner.location.partition.*;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.client.RestClient;
+
+/**
+ * Wires the partitioning layer when {@code location.partition.enabled} is set. Without it, the server owns all
+ * locations and exposes the {@link LocationService} tools directly.
+ */
+@Configuration
+@EnableConfigurationProperties(PartitionProperties.class)
+@ConditionalOnProperty(prefix = "location.partition", name = "enabled", havingValue = "true")
+public class PartitionConfig {
+
+    @Bean
+    public ConsistentHashRing consistentHashRing(PartitionProperties properties) {
+        return new ConsistentHashRing(properties.nodes().keySet(), properties.virtualNodes());
+    }
+
+    @Bean
+    public PartitionPeerClient partitionPeerClient(RestClient.Builder restClientBuilder, PartitionProperties properties) {
+        return new PartitionPeerClient(restClientBuilder, properties.nodes());
+    }
+
+    @Bean(destroyMethod = "close")
+    public PartitionedLocationService partitionedLocationService(LocationService locationService,
+                                                                 PartitionPeerClient partitionPeerClient,
+                                                                 ConsistentHashRing consistentHashRing,
+                                                                 PartitionProperties properties) {
+        return new PartitionedLocationService(locationService, partitionPeerClient, consistentHashRing, properties);
+    }
+}
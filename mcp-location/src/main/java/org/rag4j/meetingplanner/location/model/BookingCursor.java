@@ -0,0 +1,53 @@
+package org.rag4j.meetingplanner.location.model;
+
+import org.rag4j.meetingplanner.location.store.Booking;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Keyset position in the ordered list of bookings. A cursor points at a booking by its full sort key: date, start
+ * time, room and location. Rooms with the same id at different locations can have a booking at the same time, so
+ * without the location a page would skip the bookings of the other locations.
+ * <p>
+ * The textual form is {@code date,start,room,location}, for example {@code 2025-06-10,09:00,room-a,luminis}.
+ */
+public record BookingCursor(LocalDate date, LocalTime startTime, String roomId, String locationId) {
+
+    public BookingCursor {
+        if (date == null || startTime == null || roomId == null || roomId.isBlank() || locationId == null
+                || locationId.isBlank()) {
+            throw new IllegalArgumentException("Cursor requires a date, start time, room and location");
+        }
+    }
+
+    /**
+     * Parses a cursor in the format {@code date,start,room,location}.
+     * @param value the textual cursor
+     * @return the parsed cursor
+     * @throws IllegalArgumentException when the value is not a valid cursor
+     */
+    public static BookingCursor parse(String value) {
+        String[] parts = value.split(",");
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Cursor must have the format date,start,room,location: " + value);
+        }
+        try {
+            return new BookingCursor(
+                    LocalDate.parse(parts[0].trim()),
+                    LocalTime.parse(parts[1].trim()),
+                    parts[2].trim(),
+                    parts[3].trim()
+            );
+        } catch (java.time.format.DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor contains an invalid date or time: " + value, e);
+        }
+    }
+
+    /**
+     * Returns a booking that sorts at the position of this cursor, used as the bound for range lookups.
+     */
+    public Booking asProbe() {
+        return new Booking(locationId, roomId, date, startTime, null, null);
+    }
+}
@@ -1,6 +1,4 @@
 package org.rag4j.meetingplanner.location.model;
 
-import org.rag4j.meetingplanner.common.model.Agenda;
-
-public record Room(String locationId, String roomId, int capacity, Agenda agenda) {
+public record Room(String locationId, String roomId, int capacity) {
 }
@@ -0,0 +1,37 @@
+package org.rag4j.meetingplanner.location.partition;
+
+import org.rag4j.meetingplanner.location.LocationService;
+import org.rag4j.meetingplanner.location.model.*;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Endpoints used by the other nodes of a partitioned cluster. They only operate on the locations owned by this
+ * node and never forward a call, which prevents routing loops between nodes.
+ */
+@RestController
+@RequestMapping("/partition")
+@ConditionalOnProperty(prefix = "location.partition", name = "enabled", havingValue = "true")
+public class PartitionController {
+
+    private final LocationService locationService;
+
+    public PartitionController(LocationService locationService) {
+        this.locationService = locationService;
+    }
+
+    @GetMapping("/locations")
+    public LocationResponse locations() {
+        return locationService.getAllLocations();
+    }
+
+    @PostMapping("/check-room-availability")
+    public RoomAvailableResponse checkRoomAvailability(@RequestBody RoomAvailableRequest request) {
+        return locationService.checkRoomAvailability(request);
+    }
+
+    @PostMapping("/book-room")
+    public BookRoomResponse bookRoom(@RequestBody BookRoomRequest request) {
+        return locationService.bookRoom(request);
+    }
+}
@@ -0,0 +1,63 @@
+package org.rag4j.meetingplanner.location.partition;
+
+import org.rag4j.meetingplanner.location.model.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.client.RestClient;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Calls the partition endpoints of the other nodes in the cluster. The bearer token of the original caller is
+ * passed on, so peers apply the same security as for a direct call.
+ */
+public class PartitionPeerClient {
+    private final Map<String, RestClient> peers = new HashMap<>();
+
+    public PartitionPeerClient(RestClient.Builder restClientBuilder, Map<String, String> nodes) {
+        nodes.forEach((nodeId, baseUrl) -> peers.put(nodeId, restClientBuilder.clone().baseUrl(baseUrl).build()));
+    }
+
+    public List<Location> getLocations(String nodeId, String bearerToken) {
+        LocationResponse response = peer(nodeId).get()
+                .uri("/partition/locations")
+                .headers(headers -> authorize(headers, bearerToken))
+                .retrieve()
+                .body(LocationResponse.class);
+        return response != null ? response.locations() : List.of();
+    }
+
+    public RoomAvailableResponse checkRoomAvailability(String nodeId, RoomAvailableRequest request,
+                                                       String bearerToken) {
+        return peer(nodeId).post()
+                .uri("/partition/check-room-availability")
+                .headers(headers -> authorize(headers, bearerToken))
+                .body(request)
+                .retrieve()
+                .body(RoomAvailableResponse.class);
+    }
+
+    public BookRoomResponse bookRoom(String nodeId, BookRoomRequest request, String bearerToken) {
+        return peer(nodeId).post()
+                .uri("/partition/book-room")
+                .headers(headers -> authorize(headers, bearerToken))
+                .body(request)
+                .retrieve()
+                .body(BookRoomResponse.class);
+    }
+
+    private RestClient peer(String nodeId) {
+        RestClient client = peers.get(nodeId);
+        if (client == null) {
+            throw new IllegalArgumentException("Unknown partition node " + nodeId);
+        }
+        return client;
+    }
+
+    private static void authorize(HttpHeaders headers, String bearerToken) {
+        if (bearerToken != null) {
+            headers.setBearerAuth(bearerToken);
+        }
+    }
+}
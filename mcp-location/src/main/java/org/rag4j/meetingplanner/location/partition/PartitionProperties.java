@@ -0,0 +1,28 @@
+package org.rag4j.meetingplanner.location.partition;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.Map;
+
+/**
+ * Configuration of the partitioned location server. Every node in the cluster is configured with the same list of
+ * nodes, each node owns the locations that hash to its part of the ring.
+ *
+ * @param enabled      whether locations are partitioned across nodes
+ * @param nodeId       id of this node, must be one of the keys in {@code nodes}
+ * @param nodes        all nodes in the cluster, node id mapped to the base url of the node
+ * @param virtualNodes number of points per node on the hash ring, more points give a more even spread
+ */
+@ConfigurationProperties(prefix = "location.partition")
+public record PartitionProperties(boolean enabled, String nodeId, Map<String, String> nodes, int virtualNodes) {
+
+    public PartitionProperties {
+        nodes = nodes == null ? Map.of() : Map.copyOf(nodes);
+        if (virtualNodes <= 0) {
+            virtualNodes = 128;
+        }
+        if (enabled && (nodeId == null || !nodes.containsKey(nodeId))) {
+            throw new IllegalArgumentException("Partitioning requires a node id that is part of the configured nodes");
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package org.rag4j.meetingplanner.location.partition;
+
+import org.rag4j.meetingplanner.location.LocationService;
+import org.rag4j.meetingplanner.location.model.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.server.resource.authentication.AbstractOAuth2TokenAuthenticationToken;
+import org.springframework.web.client.RestClientException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Routing facade exposing the location tools of a partitioned cluster. Calls for locations owned by this node are
+ * handled by the local {@link LocationService}, calls for other locations are forwarded to the owning node. Queries
+ * spanning all locations are sent to every node in parallel and the results are merged.
+ * <p>
+ * Closing the service waits for the requests to other nodes that are still running and stops their threads.
+ */
+public class PartitionedLocationService implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(PartitionedLocationService.class);
+
+    private final LocationService localService;
+    private final PartitionPeerClient peerClient;
+    private final ConsistentHashRing ring;
+    private final String nodeId;
+    private final List<String> peerIds;
+    private final ExecutorService scatterExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public PartitionedLocationService(LocationService localService, PartitionPeerClient peerClient,
+                                      ConsistentHashRing ring, PartitionProperties properties) {
+        this.localService = localService;
+        this.peerClient = peerClient;
+        this.ring = ring;
+        this.nodeId = properties.nodeId();
+        this.peerIds = properties.nodes().keySet().stream()
+                .filter(id -> !id.equals(nodeId))
+                .sorted()
+                .toList();
+
+        // This node only keeps the agendas of the locations it owns
+        localService.retainLocations(this::isOwned);
+        logger.info("Partition node {} owns locations {}", nodeId,
+                localService.getAllLocations().locations().stream().map(Location::id).sorted().toList());
+    }
+
+    @Tool(
+            name = "all-locations",
+            description = "Get all available meeting locations."
+    )
+    public LocationResponse getAllLocations() {
+        String bearerToken = currentBearerToken();
+
+        Map<String, CompletableFuture<List<Location>>> remoteLocations = new LinkedHashMap<>();
+        for (String peerId : peerIds) {
+            remoteLocations.put(peerId, CompletableFuture.supplyAsync(
+                    () -> peerClient.getLocations(peerId, bearerToken), scatterExecutor));
+        }
+
+        List<Location> locations = new ArrayList<>(localService.getAllLocations().locations());
+        remoteLocations.forEach((peerId, future) -> {
+            try {
+                locations.addAll(future.join());
+            } catch (RuntimeException e) {
+                logger.warn("Could not fetch locations from partition node {}: {}", peerId, e.getMessage());
+            }
+        });
+
+        return new LocationResponse(locations);
+    }
+
+    @Tool(
+            name = "check-room-availability",
+            description = "Check room availability for a specific location, date, time, duration and number of people."
+    )
+    public RoomAvailableResponse checkRoomAvailability(RoomAvailableRequest request) {
+        String owner = ring.ownerOf(request.locationId());
+        if (owner.equals(nodeId)) {
+            return localService.checkRoomAvailability(request);
+        }
+
+        logger.info("Forwarding room availability check for {} to partition node {}", request.locationId(), owner);
+        try {
+            return peerClient.checkRoomAvailability(owner, request, currentBearerToken());
+        } catch (RestClientException e) {
+            logger.warn("Partition node {} failed to check availability: {}", owner, e.getMessage());
+            return new RoomAvailableResponse(request.locationId(), false, null, null, null, 0);
+        }
+    }
+
+    @Tool(
+            name = "book-room",
+            description = "Book a room at a specific location on a day and time."
+    )
+    public BookRoomResponse bookRoom(BookRoomRequest request) {
+        String owner = ring.ownerOf(request.locationId());
+        if (owner.equals(nodeId)) {
+            return localService.bookRoom(request);
+        }
+
+        logger.info("Forwarding room booking for {} to partition node {}", request.locationId(), owner);
+        try {
+            return peerClient.bookRoom(owner, request, currentBearerToken());
+        } catch (RestClientException e) {
+            logger.warn("Partition node {} failed to book room: {}", owner, e.getMessage());
+            return new BookRoomResponse(request.locationId(), request.roomId(), false,
+                    "The location is temporarily unavailable, please try again later");
+        }
+    }
+
+    public boolean isOwned(String locationId) {
+        return ring.ownerOf(locationId).equals(nodeId);
+    }
+
+    private static String currentBearerToken() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication instanceof AbstractOAuth2TokenAuthenticationToken<?> tokenAuthentication) {
+            return tokenAuthentication.getToken().getTokenValue();
+        }
+        return null;
+    }
+
+    @Override
+    public void close() {
+        scatterExecutor.close();
+    }
+}
@@ -0,0 +1,26 @@
+package org.rag4j.meetingplanner.location.store;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Comparator;
+
+/**
+ * A booked time slot of a room as kept by a {@link BookingStore}.
+ */
+public record Booking(
+        String locationId,
+        String roomId,
+        LocalDate date,
+        LocalTime startTime,
+        LocalTime endTime,
+        String title
+) {
+    /**
+     * Order of bookings by date, start time, room and location. A room cannot have two bookings starting at the
+     * same time, so this order is unique and can be used as a keyset for pagination.
+     */
+    public static final Comparator<Booking> KEY_ORDER = Comparator.comparing(Booking::date)
+            .thenComparing(Booking::startTime)
+            .thenComparing(Booking::roomId)
+            .thenComparing(Booking::locationId);
+}
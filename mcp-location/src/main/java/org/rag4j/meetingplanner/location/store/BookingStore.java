@@ -0,0 +1,52 @@
+package org.rag4j.meetingplanner.location.store;
+
+import org.rag4j.meetingplanner.location.model.BookingCursor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Storage of room bookings. Implementations decide where the agendas of the rooms live, the
+ * {@link org.rag4j.meetingplanner.location.LocationService} only knows about locations and rooms.
+ */
+public interface BookingStore {
+
+    /**
+     * Checks if the room has no booking overlapping with the provided time slot.
+     */
+    boolean isAvailable(String locationId, String roomId, LocalDate date, LocalTime startTime, LocalTime endTime);
+
+    /**
+     * Stores the booking when the room is still available, the check and the insert are atomic.
+     * @return true if the booking was stored, false if it overlaps with an existing booking
+     */
+    boolean book(Booking booking);
+
+    /**
+     * Streams all bookings in {@link Booking#KEY_ORDER} starting right after the cursor. The stream is lazy and
+     * may hold resources, callers must close it.
+     * @param after the last booking already seen, or null to start at the first booking
+     */
+    Stream<Booking> findBookingsAfter(BookingCursor after);
+
+    /**
+     * Finds bookings in {@link Booking#KEY_ORDER} within a range of days.
+     * @param locationId only return bookings of this location, or null for all locations
+     * @param from first day to include, or null for no lower bound
+     * @param to last day to include, or null for no upper bound
+     */
+    List<Booking> findBookings(String locationId, LocalDate from, LocalDate to);
+
+    /**
+     * Counts the bookings of every location that has at least one booking.
+     */
+    Map<String, Long> countBookingsByLocation();
+
+    /**
+     * Counts the bookings of every room of a location that has at least one booking.
+     */
+    Map<String, Long> countBookingsByRoom(String locationId);
+}
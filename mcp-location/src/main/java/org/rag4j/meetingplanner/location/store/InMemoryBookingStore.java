@@ -0,0 +1,106 @@
+package org.rag4j.meetingplanner.location.store;
+
+import org.rag4j.meetingplanner.common.model.Agenda;
+import org.rag4j.meetingplanner.location.model.BookingCursor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Keeps bookings in memory, an {@link Agenda} per room for the availability checks and a sorted index of all
+ * bookings for range queries. Bookings are lost when the server stops.
+ */
+public class InMemoryBookingStore implements BookingStore {
+    // Agenda per location, per room
+    private final Map<String, Map<String, Agenda>> agendas = new ConcurrentHashMap<>();
+
+    // Bookings of all rooms kept in date order, so listings and exports do not have to collect and sort the agendas
+    private final NavigableSet<Booking> bookingIndex = new ConcurrentSkipListSet<>(Booking.KEY_ORDER);
+
+    @Override
+    public boolean isAvailable(String locationId, String roomId, LocalDate date, LocalTime startTime,
+                               LocalTime endTime) {
+        Agenda agenda = agenda(locationId, roomId);
+        synchronized (agenda) {
+            return agenda.checkAvailability(date, startTime, endTime);
+        }
+    }
+
+    @Override
+    public boolean book(Booking booking) {
+        Agenda agenda = agenda(booking.locationId(), booking.roomId());
+        synchronized (agenda) {
+            if (!agenda.checkAvailability(booking.date(), booking.startTime(), booking.endTime())) {
+                return false;
+            }
+            agenda.bookMeeting(booking.date(), booking.startTime(), booking.endTime(), booking.title());
+            bookingIndex.add(booking);
+            return true;
+        }
+    }
+
+    @Override
+    public Stream<Booking> findBookingsAfter(BookingCursor after) {
+        NavigableSet<Booking> bookings = after == null ? bookingIndex : bookingIndex.tailSet(after.asProbe(), false);
+        return bookings.stream();
+    }
+
+    @Override
+    public List<Booking> findBookings(String locationId, LocalDate from, LocalDate to) {
+        NavigableSet<Booking> bookings = bookingIndex;
+        if (from != null) {
+            bookings = bookings.tailSet(startOfDay(from), true);
+        }
+        if (to != null) {
+            bookings = bookings.headSet(startOfDay(to.plusDays(1)), false);
+        }
+        return bookings.stream()
+                .filter(booking -> locationId == null || booking.locationId().equals(locationId))
+                .toList();
+    }
+
+    @Override
+    public Map<String, Long> countBookingsByLocation() {
+        Map<String, Long> counts = new TreeMap<>();
+        agendas.forEach((locationId, rooms) -> {
+            long total = rooms.values().stream().mapToLong(InMemoryBookingStore::size).sum();
+            if (total > 0) {
+                counts.put(locationId, total);
+            }
+        });
+        return counts;
+    }
+
+    @Override
+    public Map<String, Long> countBookingsByRoom(String locationId) {
+        return agendas.getOrDefault(locationId, Map.of()).entrySet().stream()
+                .filter(entry -> size(entry.getValue()) > 0)
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> size(entry.getValue())));
+    }
+
+    private Agenda agenda(String locationId, String roomId) {
+        return agendas.computeIfAbsent(locationId, id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(roomId, id -> new Agenda());
+    }
+
+    private static long size(Agenda agenda) {
+        synchronized (agenda) {
+            return agenda.size();
+        }
+    }
+
+    /**
+     * Probe that sorts before every booking on the given day, used as a bound for range lookups in the index
+     */
+    private static Booking startOfDay(LocalDate day) {
+        return new Booking(null, "", day, LocalTime.MIN, null, null);
+    }
+}
@@ -0,0 +1,319 @@
+package org.rag4j.meetingplanner.location.store;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.rag4j.meetingplanner.location.model.BookingCursor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Keeps bookings in an embedded H2 database, usually a file, so bookings survive a restart.
+ * <p>
+ * The table is clustered on the keyset order (date, start, room, location), which serves the ordered exports and
+ * date range queries. A covering index on (location, room, date, start, end) answers the availability check from
+ * the index alone: equality on location, room and date and a range predicate on the start time. The index on
+ * (location, date, start, room) serves the week and month overviews of a single location.
+ */
+public class JdbcBookingStore implements BookingStore, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(JdbcBookingStore.class);
+
+    private static final String COLUMNS = "location_id, room_id, booking_date, start_time, end_time, title";
+    private static final String KEY_ORDER = "booking_date, start_time, room_id, location_id";
+
+    private final JdbcConnectionPool connectionPool;
+
+    // Serializes the check-and-insert per room, other rooms can be booked concurrently
+    private final Map<String, Object> roomLocks = new ConcurrentHashMap<>();
+
+    public JdbcBookingStore(String jdbcUrl) {
+        this.connectionPool = JdbcConnectionPool.create(jdbcUrl, "sa", "");
+        createSchema();
+        logger.info("Using booking store at {}", jdbcUrl);
+    }
+
+    private void createSchema() {
+        try (Connection connection = connectionPool.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    CREATE TABLE IF NOT EXISTS booking (
+                        location_id VARCHAR(64) NOT NULL,
+                        room_id VARCHAR(64) NOT NULL,
+                        booking_date DATE NOT NULL,
+                        start_time TIME NOT NULL,
+                        end_time TIME NOT NULL,
+                        title VARCHAR,
+                        PRIMARY KEY (booking_date, start_time, room_id, location_id)
+                    )""");
+            widenTitle(statement);
+            statement.execute("""
+                    CREATE INDEX IF NOT EXISTS booking_room_day
+                        ON booking (location_id, room_id, booking_date, start_time, end_time)""");
+            statement.execute("""
+                    CREATE INDEX IF NOT EXISTS booking_location_day
+                        ON booking (location_id, booking_date, start_time, room_id)""");
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not create the booking schema", e);
+        }
+    }
+
+    /**
+     * Titles come from the agent and have no length limit in the other stores. Files created with a title of at
+     * most 1024 characters get the column without a limit.
+     */
+    private static void widenTitle(Statement statement) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery("""
+                SELECT CHARACTER_MAXIMUM_LENGTH FROM INFORMATION_SCHEMA.COLUMNS
+                WHERE TABLE_NAME = 'BOOKING' AND COLUMN_NAME = 'TITLE'""")) {
+            if (!resultSet.next() || resultSet.getLong(1) != 1024) {
+                return;
+            }
+        }
+        logger.info("Removing the length limit of booking titles");
+        statement.execute("ALTER TABLE booking ALTER COLUMN title SET DATA TYPE VARCHAR");
+    }
+
+    @Override
+    public boolean isAvailable(String locationId, String roomId, LocalDate date, LocalTime startTime,
+                               LocalTime endTime) {
+        try (Connection connection = connectionPool.getConnection()) {
+            return isAvailable(connection, locationId, roomId, date, startTime, endTime);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not check availability of room " + roomId, e);
+        }
+    }
+
+    private boolean isAvailable(Connection connection, String locationId, String roomId, LocalDate date,
+                                LocalTime startTime, LocalTime endTime) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("""
+                SELECT 1 FROM booking
+                WHERE location_id = ? AND room_id = ? AND booking_date = ? AND start_time < ? AND end_time > ?
+                LIMIT 1""")) {
+            statement.setString(1, locationId);
+            statement.setString(2, roomId);
+            statement.setObject(3, date);
+            statement.setObject(4, endTime);
+            statement.setObject(5, startTime);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return !resultSet.next();
+            }
+        }
+    }
+
+    @Override
+    public boolean book(Booking booking) {
+        Object roomLock = roomLocks.computeIfAbsent(booking.locationId() + "/" + booking.roomId(), key -> new Object());
+        synchronized (roomLock) {
+            try (Connection connection = connectionPool.getConnection()) {
+                if (!isAvailable(connection, booking.locationId(), booking.roomId(), booking.date(),
+                        booking.startTime(), booking.endTime())) {
+                    return false;
+                }
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "INSERT INTO booking (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?)")) {
+                    statement.setString(1, booking.locationId());
+                    statement.setString(2, booking.roomId());
+                    statement.setObject(3, booking.date());
+                    statement.setObject(4, booking.startTime());
+                    statement.setObject(5, booking.endTime());
+                    statement.setString(6, booking.title());
+                    statement.executeUpdate();
+                }
+                return true;
+            } catch (SQLException e) {
+                throw new IllegalStateException("Could not book room " + booking.roomId(), e);
+            }
+        }
+    }
+
+    @Override
+    public Stream<Booking> findBookingsAfter(BookingCursor after) {
+        String sql = "SELECT " + COLUMNS + " FROM booking";
+        if (after != null) {
+            // The date predicate gives the start of the index range, the row value skips the rows of that day
+            // up to and including the cursor
+            sql += " WHERE booking_date >= ? AND (" + KEY_ORDER + ") > (?, ?, ?, ?)";
+        }
+        sql += " ORDER BY " + KEY_ORDER;
+
+        Connection connection = null;
+        PreparedStatement statement = null;
+        try {
+            connection = connectionPool.getConnection();
+            try (Statement settings = connection.createStatement()) {
+                // Read rows from the index while the stream is consumed instead of materializing the whole result
+                settings.execute("SET LAZY_QUERY_EXECUTION TRUE");
+            }
+            statement = connection.prepareStatement(sql);
+            if (after != null) {
+                statement.setObject(1, after.date());
+                statement.setObject(2, after.date());
+                statement.setObject(3, after.startTime());
+                statement.setString(4, after.roomId());
+                statement.setString(5, after.locationId());
+            }
+            ResultSet resultSet = statement.executeQuery();
+            Connection streamConnection = connection;
+            PreparedStatement streamStatement = statement;
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new BookingIterator(resultSet),
+                            Spliterator.ORDERED | Spliterator.NONNULL), false)
+                    .onClose(() -> closeQuietly(streamStatement, streamConnection));
+        } catch (SQLException e) {
+            closeQuietly(statement, connection);
+            throw new IllegalStateException("Could not query bookings", e);
+        }
+    }
+
+    @Override
+    public List<Booking> findBookings(String locationId, LocalDate from, LocalDate to) {
+        StringBuilder sql = new StringBuilder("SELECT " + COLUMNS + " FROM booking WHERE 1 = 1");
+        List<Object> parameters = new ArrayList<>();
+        if (locationId != null) {
+            sql.append(" AND location_id = ?");
+            parameters.add(locationId);
+        }
+        if (from != null) {
+            sql.append(" AND booking_date >= ?");
+            parameters.add(from);
+        }
+        if (to != null) {
+            sql.append(" AND booking_date <= ?");
+            parameters.add(to);
+        }
+        sql.append(" ORDER BY ").append(KEY_ORDER);
+
+        try (Connection connection = connectionPool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+            List<Booking> bookings = new ArrayList<>();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    bookings.add(toBooking(resultSet));
+                }
+            }
+            return bookings;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not query bookings", e);
+        }
+    }
+
+    @Override
+    public Map<String, Long> countBookingsByLocation() {
+        return count("SELECT location_id, COUNT(*) FROM booking GROUP BY location_id ORDER BY location_id", null);
+    }
+
+    @Override
+    public Map<String, Long> countBookingsByRoom(String locationId) {
+        return count("SELECT room_id, COUNT(*) FROM booking WHERE location_id = ? GROUP BY room_id", locationId);
+    }
+
+    private Map<String, Long> count(String sql, String locationId) {
+        try (Connection connection = connectionPool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            if (locationId != null) {
+                statement.setString(1, locationId);
+            }
+            Map<String, Long> counts = new LinkedHashMap<>();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    counts.put(resultSet.getString(1), resultSet.getLong(2));
+                }
+            }
+            return counts;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not count bookings", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        connectionPool.dispose();
+    }
+
+    private static Booking toBooking(ResultSet resultSet) throws SQLException {
+        return new Booking(
+                resultSet.getString(1),
+                resultSet.getString(2),
+                resultSet.getObject(3, LocalDate.class),
+                resultSet.getObject(4, LocalTime.class),
+                resultSet.getObject(5, LocalTime.class),
+                resultSet.getString(6)
+        );
+    }
+
+    /**
+     * Closes the statement with its result set and hands the connection back to the pool, with lazy query execution
+     * switched off again so the next user of the connection gets the default settings.
+     */
+    private static void closeQuietly(Statement statement, Connection connection) {
+        try (connection) {
+            try (statement) {
+                // Closes the result set before the setting changes
+            } finally {
+                if (connection != null) {
+                    try (Statement settings = connection.createStatement()) {
+                        settings.execute("SET LAZY_QUERY_EXECUTION FALSE");
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            logger.warn("Could not close booking store connection: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reads bookings from an open result set one row at a time.
+     */
+    private static class BookingIterator implements Iterator<Booking> {
+        private final ResultSet resultSet;
+        private Boolean hasNext;
+
+        BookingIterator(ResultSet resultSet) {
+            this.resultSet = resultSet;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (hasNext == null) {
+                try {
+                    hasNext = resultSet.next();
+                } catch (SQLException e) {
+                    throw new IllegalStateException("Could not read bookings", e);
+                }
+            }
+            return hasNext;
+        }
+
+        @Override
+        public Booking next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            hasNext = null;
+            try {
+                return toBooking(resultSet);
+            } catch (SQLException e) {
+                throw new IllegalStateException("Could not read bookings", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package org.rag4j.meetingplanner.location;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.rag4j.meetingplanner.location.model.BookRoomRequest;
+import org.rag4j.meetingplanner.location.model.BookingCursor;
+import org.rag4j.meetingplanner.location.model.BookingInfo;
+import org.rag4j.meetingplanner.location.store.Booking;
+import org.rag4j.meetingplanner.location.store.InMemoryBookingStore;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocationServiceTest {
+
+    private LocationService locationService;
+
+    @BeforeEach
+    void setUp() {
+        locationService = new LocationService(new InMemoryBookingStore());
+    }
+
+    @Test
+    @DisplayName("All bookings are returned in date, start time and room order")
+    void allBookingsAreSorted() {
+        List<BookingInfo> bookings = locationService.getAllBookings();
+        assertFalse(bookings.isEmpty());
+        for (int i = 1; i < bookings.size(); i++) {
+            assertTrue(Booking.KEY_ORDER.compare(toBooking(bookings.get(i - 1)), toBooking(bookings.get(i))) < 0);
+        }
+    }
+
+    @Test
+    @DisplayName("Booking a room adds the booking to the listing")
+    void bookedRoomAppearsInListing() {
+        LocalDate day = LocalDate.of(2030, 1, 15);
+        locationService.bookRoom(new BookRoomRequest("luminis", "room-a", day, LocalTime.of(9, 0), 60,
+                "REF-1", "Planning"));
+
+        List<BookingInfo> bookings = locationService.streamBookingsAfter(
+                new BookingCursor(day.minusDays(1), LocalTime.MIN, "a", "a")).toList();
+        assertEquals(1, bookings.size());
+        assertEquals("room-a", bookings.getFirst().roomId());
+        assertEquals(LocalTime.of(10, 0), bookings.getFirst().endTime());
+    }
+
+    @Test
+    @DisplayName("Paging with the cursor of the last booking returns every booking exactly once")
+    void keysetPagingVisitsEveryBookingOnce() {
+        List<BookingInfo> expected = locationService.getAllBookings();
+
+        List<BookingInfo> paged = new ArrayList<>();
+        BookingCursor cursor = null;
+        while (true) {
+            List<BookingInfo> page = locationService.streamBookingsAfter(cursor).limit(3).toList();
+            if (page.isEmpty()) {
+                break;
+            }
+            paged.addAll(page);
+            BookingInfo last = page.getLast();
+            cursor = new BookingCursor(last.date(), last.startTime(), last.roomId(), last.locationId());
+        }
+
+        assertEquals(expected, paged);
+    }
+
+    @Test
+    @DisplayName("Booking stats count the bookings per location and per room")
+    void bookingStatsCountBookings() {
+        LocalDate day = LocalDate.of(2030, 1, 15);
+        locationService.bookRoom(new BookRoomRequest("library", "archive", day, LocalTime.of(9, 0), 60,
+                "REF-1", "Planning"));
+        locationService.bookRoom(new BookRoomRequest("library", "archive", day, LocalTime.of(11, 0), 60,
+                "REF-2", "Review"));
+
+        assertEquals(2L, locationService.getBookingCountsForRooms("library").get("archive"));
+        int libraryBookings = locationService.getLocationBookingStats().stream()
+                .filter(stats -> stats.locationId().equals("library"))
+                .findFirst()
+                .orElseThrow()
+                .totalBookings();
+        assertEquals(locationService.getBookingsForLocation("library").size(), libraryBookings);
+    }
+
+    @Test
+    @DisplayName("Cursor parses date, start time, room and location")
+    void cursorParsesTextualForm() {
+        BookingCursor cursor = BookingCursor.parse("2025-06-10,09:30,room-a,luminis");
+        assertEquals(LocalDate.of(2025, 6, 10), cursor.date());
+        assertEquals(LocalTime.of(9, 30), cursor.startTime());
+        assertEquals("room-a", cursor.roomId());
+        assertEquals("luminis", cursor.locationId());
+
+        assertThrows(IllegalArgumentException.class, () -> BookingCursor.parse("2025-06-10,09:30,room-a"));
+        assertThrows(IllegalArgumentException.class, () -> BookingCursor.parse("2025-06-10,09:30,room-a, "));
+        assertThrows(IllegalArgumentException.class, () -> BookingCursor.parse("tomorrow,09:30,room-a,luminis"));
+    }
+
+    private static Booking toBooking(BookingInfo booking) {
+        return new Booking(booking.locationId(), booking.roomId(), booking.date(), booking.startTime(),
+                booking.endTime(), booking.title());
+    }
+}
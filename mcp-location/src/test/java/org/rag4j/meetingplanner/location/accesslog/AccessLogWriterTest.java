@@ -0,0 +1,116 @@
+package org.rag4j.meetingplanner.location.accesslog;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccessLogWriterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Entries from many threads all arrive in the ring buffer")
+    void ringBufferKeepsConcurrentEntries() throws Exception {
+        AccessLogRingBuffer ringBuffer = new AccessLogRingBuffer(1 << 16);
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int thread = 0; thread < 8; thread++) {
+                executor.submit(() -> IntStream.range(0, 5_000)
+                        .forEach(i -> assertTrue(ringBuffer.offer(entry("/mcp/message", 200)))));
+            }
+        }
+
+        int count = 0;
+        while (ringBuffer.poll() != null) {
+            count++;
+        }
+        assertEquals(40_000, count);
+
+        AccessLogRingBuffer small = new AccessLogRingBuffer(2);
+        assertTrue(small.offer(entry("/", 200)));
+        assertTrue(small.offer(entry("/", 200)));
+        assertFalse(small.offer(entry("/", 200)));
+    }
+
+    @Test
+    @DisplayName("A full ring buffer drops successful requests but keeps errors")
+    void fullBufferKeepsErrors() throws IOException {
+        Path file = directory.resolve("access.log");
+        // A long drain interval keeps the writer asleep while the buffer fills up
+        AccessLogWriter writer = new AccessLogWriter(file, 1 << 20, 1, 4, Duration.ofSeconds(10));
+        for (int i = 0; i < 100; i++) {
+            writer.append(entry("/mcp/message", i % 10 == 0 ? 500 : 200));
+        }
+        writer.close();
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(10, lines.stream().filter(line -> line.contains("\"status\":500")).count());
+        assertTrue(lines.stream().anyMatch(line -> line.contains("\"dropped\":")));
+    }
+
+    @Test
+    @DisplayName("The log file is rolled over when it reaches its maximum size")
+    void rollsOverFiles() throws IOException {
+        Path file = directory.resolve("access.log");
+        AccessLogWriter writer = new AccessLogWriter(file, 1_000, 2, 1024, Duration.ofMillis(1));
+        for (int i = 0; i < 100; i++) {
+            writer.append(entry("/locations/" + i, 200));
+        }
+        writer.close();
+
+        assertTrue(Files.size(file) <= 1_000);
+        assertTrue(Files.exists(directory.resolve("access.log.1")));
+        assertTrue(Files.exists(directory.resolve("access.log.2")));
+        assertFalse(Files.exists(directory.resolve("access.log.3")));
+        assertTrue(Files.readString(file).contains("\"path\":\"/locations/99\""));
+    }
+
+    @Test
+    @DisplayName("Sampling and rate limits never apply to errors")
+    void samplerAlwaysLogsErrors() {
+        AtomicLong now = new AtomicLong(1_000);
+        AccessLogSampler sampler = new AccessLogSampler(1.0, Map.of("/sse", 2, "/", 100), now::get);
+
+        assertTrue(sampler.shouldLog("/sse", false));
+        assertTrue(sampler.shouldLog("/sse", false));
+        assertFalse(sampler.shouldLog("/sse", false));
+        assertTrue(sampler.shouldLog("/sse", true));
+        assertTrue(sampler.shouldLog("/locations", false));
+
+        now.addAndGet(1_000);
+        assertTrue(sampler.shouldLog("/sse", false));
+
+        AccessLogSampler nothingSampled = new AccessLogSampler(0.0, Map.of());
+        assertFalse(nothingSampled.shouldLog("/mcp/message", false));
+        assertTrue(nothingSampled.shouldLog("/mcp/message", true));
+    }
+
+    @Test
+    @DisplayName("Entries are written as json lines")
+    void writesJson() {
+        StringBuilder line = new StringBuilder();
+        new AccessLogEntry(0, "GET", "/bookings/export", "after=\"x\"", 200, 42, "jettro", null)
+                .appendJson(line);
+
+        assertEquals("{\"ts\":\"1970-01-01T00:00:00Z\",\"method\":\"GET\",\"path\":\"/bookings/export\","
+                + "\"query\":\"after=\\\"x\\\"\",\"status\":200,\"durationMicros\":42,\"user\":\"jettro\"}\n",
+                line.toString());
+    }
+
+    private static AccessLogEntry entry(String path, int status) {
+        return new AccessLogEntry(System.currentTimeMillis(), "POST", path, null, status, 10, null, null);
+    }
+}
@@ -0,0 +1,71 @@
+package org.rag4j.meetingplanner.location.partition;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.rag4j.meetingplanner.location.LocationService;
+import org.rag4j.meetingplanner.location.model.BookingInfo;
+import org.rag4j.meetingplanner.location.store.JdbcBookingStore;
+import org.springframework.web.client.RestClient;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Partitions a location server that keeps its bookings in an H2 file and restarts it with other cluster nodes.
+ */
+class PartitionedBookingStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("A node keeps the stored bookings of locations it does not own and serves them once it owns them")
+    void keepsBookingsOfOtherLocations() {
+        String jdbcUrl = "jdbc:h2:file:" + directory.resolve("bookings");
+        Map<String, Long> stored;
+        try (JdbcBookingStore store = new JdbcBookingStore(jdbcUrl)) {
+            LocationService locationService = new LocationService(store);
+            stored = store.countBookingsByLocation();
+            try (PartitionedLocationService partitioned = partition(locationService, "node-1", "node-2")) {
+                List<BookingInfo> listed = locationService.getAllBookings();
+                assertFalse(listed.isEmpty());
+                assertTrue(listed.stream().allMatch(booking -> partitioned.isOwned(booking.locationId())));
+                try (Stream<BookingInfo> exported = locationService.streamBookingsAfter(null)) {
+                    assertEquals(listed, exported.toList());
+                }
+                assertTrue(listed.size() < total(stored), "Node 2 owns some of the sample bookings");
+            }
+            assertEquals(stored, store.countBookingsByLocation());
+        }
+
+        // Node 2 left the cluster, node 1 now owns every location
+        try (JdbcBookingStore store = new JdbcBookingStore(jdbcUrl)) {
+            LocationService locationService = new LocationService(store);
+            try (PartitionedLocationService ignored = partition(locationService, "node-1")) {
+                assertEquals(stored, store.countBookingsByLocation());
+                assertEquals(total(stored), locationService.getAllBookings().size());
+            }
+        }
+    }
+
+    private static PartitionedLocationService partition(LocationService locationService, String nodeId,
+                                                        String... otherNodeIds) {
+        Map<String, String> nodes = new HashMap<>(Map.of(nodeId, "http://localhost:1"));
+        for (String otherNodeId : otherNodeIds) {
+            nodes.put(otherNodeId, "http://localhost:1");
+        }
+        PartitionProperties properties = new PartitionProperties(true, nodeId, nodes, 0);
+        return new PartitionedLocationService(locationService, new PartitionPeerClient(RestClient.builder(), nodes),
+                new ConsistentHashRing(nodes.keySet(), properties.virtualNodes()), properties);
+    }
+
+    private static long total(Map<String, Long> counts) {
+        return counts.values().stream().mapToLong(Long::longValue).sum();
+    }
+}
@@ -0,0 +1,152 @@
+package org.rag4j.meetingplanner.location.partition;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.rag4j.meetingplanner.location.LocationMcpSseApp;
+import org.rag4j.meetingplanner.location.LocationService;
+import org.rag4j.meetingplanner.location.model.BookRoomRequest;
+import org.rag4j.meetingplanner.location.model.BookRoomResponse;
+import org.rag4j.meetingplanner.location.model.Location;
+import org.rag4j.meetingplanner.location.model.RoomAvailableRequest;
+import org.rag4j.meetingplanner.location.model.RoomAvailableResponse;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs three partitioned location servers on localhost and checks that every node routes calls to the owner.
+ */
+class PartitionedLocationServiceTest {
+    private static final List<String> NODE_IDS = List.of("node-1", "node-2", "node-3");
+
+    private static final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+    private static KeyPair keyPair;
+
+    @BeforeAll
+    static void startNodes() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        keyPair = generator.generateKeyPair();
+        JwtDecoder jwtDecoder = NimbusJwtDecoder.withPublicKey((RSAPublicKey) keyPair.getPublic()).build();
+
+        List<String> arguments = new ArrayList<>();
+        arguments.add("--location.partition.enabled=true");
+        arguments.add("--spring.main.banner-mode=off");
+        List<Integer> ports = new ArrayList<>();
+        for (String nodeId : NODE_IDS) {
+            int port = freePort();
+            ports.add(port);
+            arguments.add("--location.partition.nodes." + nodeId + "=http://localhost:" + port);
+        }
+
+        for (int i = 0; i < NODE_IDS.size(); i++) {
+            List<String> nodeArguments = new ArrayList<>(arguments);
+            nodeArguments.add("--location.partition.node-id=" + NODE_IDS.get(i));
+            nodeArguments.add("--server.port=" + ports.get(i));
+            nodes.add(new SpringApplicationBuilder(LocationMcpSseApp.class)
+                    .initializers(context -> context.getBeanFactory().registerSingleton("jwtDecoder", jwtDecoder))
+                    .run(nodeArguments.toArray(String[]::new)));
+        }
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        nodes.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @BeforeEach
+    void authenticate() throws Exception {
+        SignedJWT signedJwt = new SignedJWT(new JWSHeader(JWSAlgorithm.RS256), new JWTClaimsSet.Builder()
+                .subject("partition-test")
+                .issueTime(new Date())
+                .expirationTime(Date.from(Instant.now().plusSeconds(300)))
+                .build());
+        signedJwt.sign(new RSASSASigner(keyPair.getPrivate()));
+
+        Jwt jwt = nodes.getFirst().getBean(JwtDecoder.class).decode(signedJwt.serialize());
+        SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticationToken(jwt));
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Every location is owned by exactly one node and all-locations gathers them from all nodes")
+    void allLocationsAreGatheredFromAllNodes() {
+        List<String> ownedLocations = nodes.stream()
+                .flatMap(node -> node.getBean(LocationService.class).getAllLocations().locations().stream())
+                .map(Location::id)
+                .toList();
+        assertEquals(11, ownedLocations.size());
+        assertEquals(11, Set.copyOf(ownedLocations).size());
+
+        for (ConfigurableApplicationContext node : nodes) {
+            Set<String> gathered = node.getBean(PartitionedLocationService.class).getAllLocations().locations()
+                    .stream()
+                    .map(Location::id)
+                    .collect(Collectors.toSet());
+            assertEquals(Set.copyOf(ownedLocations), gathered);
+        }
+    }
+
+    @Test
+    @DisplayName("Bookings for a location owned by another node are forwarded to that node")
+    void bookingIsForwardedToOwner() {
+        PartitionedLocationService router = nodes.getFirst().getBean(PartitionedLocationService.class);
+        String remoteLocation = nodes.getLast().getBean(LocationService.class).getAllLocations().locations()
+                .getFirst().id();
+        String roomId = nodes.getLast().getBean(LocationService.class).getRoomsForLocation(remoteLocation)
+                .keySet().iterator().next();
+        assertFalse(router.isOwned(remoteLocation));
+
+        LocalDate day = LocalDate.of(2031, 3, 4);
+        BookRoomResponse booked = router.bookRoom(new BookRoomRequest(remoteLocation, roomId, day,
+                LocalTime.of(9, 0), 60, "REF-42", "Partitioned booking"));
+        assertTrue(booked.success(), booked.message());
+
+        assertTrue(nodes.getLast().getBean(LocationService.class).getBookingsForLocation(remoteLocation).stream()
+                .anyMatch(booking -> booking.date().equals(day) && booking.roomId().equals(roomId)));
+        assertTrue(nodes.getFirst().getBean(LocationService.class).getBookingsForLocation(remoteLocation).isEmpty());
+
+        RoomAvailableResponse availability = router.checkRoomAvailability(new RoomAvailableRequest(remoteLocation, 1,
+                day, LocalTime.of(9, 0), 60));
+        assertNotEquals(roomId, availability.roomId());
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
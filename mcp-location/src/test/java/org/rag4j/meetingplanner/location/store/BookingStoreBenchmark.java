@@ -0,0 +1,125 @@
+package org.rag4j.meetingplanner.location.store;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.rag4j.meetingplanner.location.model.BookingCursor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares the in-memory and the H2 booking store with one million bookings: 100 locations with 10 rooms each,
+ * four bookings per room per day for 250 days.
+ * <p>
+ * Run with:
+ * <pre>
+ * mvn -pl mcp-location test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath org.rag4j.meetingplanner.location.store.BookingStoreBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingStoreBenchmark {
+    private static final int LOCATIONS = 100;
+    private static final int ROOMS_PER_LOCATION = 10;
+    private static final int DAYS = 250;
+    private static final int[] SLOT_HOURS = {9, 11, 13, 15};
+    private static final LocalDate FIRST_DAY = LocalDate.of(2030, 1, 1);
+
+    @Param({"memory", "jdbc"})
+    public String storeType;
+
+    private BookingStore store;
+    private Path databaseDirectory;
+
+    @Setup(Level.Trial)
+    public void fillStore() throws IOException {
+        if (storeType.equals("jdbc")) {
+            databaseDirectory = Files.createTempDirectory("booking-benchmark");
+            store = new JdbcBookingStore("jdbc:h2:file:" + databaseDirectory.resolve("bookings"));
+        } else {
+            store = new InMemoryBookingStore();
+        }
+
+        for (int day = 0; day < DAYS; day++) {
+            for (int location = 0; location < LOCATIONS; location++) {
+                for (int room = 0; room < ROOMS_PER_LOCATION; room++) {
+                    for (int hour : SLOT_HOURS) {
+                        store.book(new Booking(locationId(location), roomId(room), FIRST_DAY.plusDays(day),
+                                LocalTime.of(hour, 0), LocalTime.of(hour + 1, 0), "Benchmark meeting"));
+                    }
+                }
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void closeStore() throws Exception {
+        if (store instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+        if (databaseDirectory != null) {
+            try (Stream<Path> files = Files.walk(databaseDirectory)) {
+                files.sorted(java.util.Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean checkAvailability() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int hour = 9 + random.nextInt(8);
+        return store.isAvailable(locationId(random.nextInt(LOCATIONS)), roomId(random.nextInt(ROOMS_PER_LOCATION)),
+                FIRST_DAY.plusDays(random.nextInt(DAYS)), LocalTime.of(hour, 30), LocalTime.of(hour + 1, 0));
+    }
+
+    @Benchmark
+    public int weekOfLocation() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalDate weekStart = FIRST_DAY.plusDays(random.nextInt(DAYS - 7));
+        return store.findBookings(locationId(random.nextInt(LOCATIONS)), weekStart, weekStart.plusDays(6)).size();
+    }
+
+    @Benchmark
+    public void exportPage(Blackhole blackhole) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        BookingCursor cursor = new BookingCursor(FIRST_DAY.plusDays(random.nextInt(DAYS)), LocalTime.of(11, 0),
+                roomId(random.nextInt(ROOMS_PER_LOCATION)), locationId(random.nextInt(LOCATIONS)));
+        try (Stream<Booking> bookings = store.findBookingsAfter(cursor)) {
+            bookings.limit(100).forEach(blackhole::consume);
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int bookingStats() {
+        return store.countBookingsByLocation().size();
+    }
+
+    private static String locationId(int location) {
+        return "location-" + location;
+    }
+
+    private static String roomId(int room) {
+        return "room-" + room;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BookingStoreBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,142 @@
+package org.rag4j.meetingplanner.location.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.rag4j.meetingplanner.location.model.BookingCursor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the same checks against every {@link BookingStore} implementation.
+ */
+class BookingStoreTest {
+    private static final LocalDate DAY = LocalDate.of(2030, 5, 6);
+
+    static Stream<Supplier<BookingStore>> stores() {
+        return Stream.of(
+                InMemoryBookingStore::new,
+                () -> new JdbcBookingStore("jdbc:h2:mem:" + UUID.randomUUID())
+        );
+    }
+
+    private final List<AutoCloseable> openStores = new ArrayList<>();
+
+    @AfterEach
+    void closeStores() throws Exception {
+        for (AutoCloseable store : openStores) {
+            store.close();
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("stores")
+    @DisplayName("A booking blocks overlapping time slots of the same room only")
+    void bookingBlocksOverlappingSlots(Supplier<BookingStore> storeSupplier) {
+        BookingStore store = open(storeSupplier);
+        assertTrue(store.book(booking("luminis", "room-a", DAY, 9, 10)));
+
+        assertFalse(store.isAvailable("luminis", "room-a", DAY, LocalTime.of(9, 30), LocalTime.of(10, 30)));
+        assertFalse(store.isAvailable("luminis", "room-a", DAY, LocalTime.of(8, 0), LocalTime.of(11, 0)));
+        assertTrue(store.isAvailable("luminis", "room-a", DAY, LocalTime.of(10, 0), LocalTime.of(11, 0)));
+        assertTrue(store.isAvailable("luminis", "room-a", DAY, LocalTime.of(8, 0), LocalTime.of(9, 0)));
+        assertTrue(store.isAvailable("luminis", "room-b", DAY, LocalTime.of(9, 0), LocalTime.of(10, 0)));
+        assertTrue(store.isAvailable("luminis", "room-a", DAY.plusDays(1), LocalTime.of(9, 0), LocalTime.of(10, 0)));
+
+        assertFalse(store.book(booking("luminis", "room-a", DAY, 9, 11)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("stores")
+    @DisplayName("Range queries and cursors return bookings in key order")
+    void rangeQueriesReturnBookingsInKeyOrder(Supplier<BookingStore> storeSupplier) {
+        BookingStore store = open(storeSupplier);
+        Booking late = booking("luminis", "room-a", DAY, 14, 15);
+        Booking early = booking("techhub", "alpha", DAY, 9, 10);
+        Booking sameSlot = booking("luminis", "room-b", DAY, 9, 10);
+        Booking nextDay = booking("luminis", "room-a", DAY.plusDays(1), 9, 10);
+        List.of(late, nextDay, early, sameSlot).forEach(store::book);
+
+        assertEquals(List.of(early, sameSlot, late, nextDay), store.findBookings(null, null, null));
+        assertEquals(List.of(sameSlot, late), store.findBookings("luminis", DAY, DAY));
+        assertEquals(List.of(nextDay), store.findBookings(null, DAY.plusDays(1), null));
+
+        try (Stream<Booking> bookings = store.findBookingsAfter(null)) {
+            assertEquals(List.of(early, sameSlot, late, nextDay), bookings.toList());
+        }
+        try (Stream<Booking> bookings = store.findBookingsAfter(
+                new BookingCursor(DAY, LocalTime.of(9, 0), "room-b", "luminis"))) {
+            assertEquals(List.of(late, nextDay), bookings.toList());
+        }
+        try (Stream<Booking> bookings = store.findBookingsAfter(
+                new BookingCursor(DAY, LocalTime.of(9, 0), "alpha", "techhub"))) {
+            assertEquals(List.of(sameSlot, late, nextDay), bookings.toList());
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("stores")
+    @DisplayName("A cursor tells apart rooms with the same id at different locations")
+    void cursorIncludesLocation(Supplier<BookingStore> storeSupplier) {
+        BookingStore store = open(storeSupplier);
+        Booking luminis = booking("luminis", "alpha", DAY, 9, 10);
+        Booking techhub = booking("techhub", "alpha", DAY, 9, 10);
+        store.book(techhub);
+        store.book(luminis);
+
+        try (Stream<Booking> bookings = store.findBookingsAfter(
+                new BookingCursor(DAY, LocalTime.of(9, 0), "alpha", "luminis"))) {
+            assertEquals(List.of(techhub), bookings.toList());
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("stores")
+    @DisplayName("Long titles are stored in full")
+    void longTitles(Supplier<BookingStore> storeSupplier) {
+        BookingStore store = open(storeSupplier);
+        Booking booking = new Booking("luminis", "room-a", DAY, LocalTime.of(9, 0), LocalTime.of(10, 0),
+                "Reference REF-1 - Description " + "planning ".repeat(500));
+
+        assertTrue(store.book(booking));
+        assertEquals(List.of(booking), store.findBookings("luminis", DAY, DAY));
+    }
+
+    @ParameterizedTest
+    @MethodSource("stores")
+    @DisplayName("Stats count bookings per location and room")
+    void stats(Supplier<BookingStore> storeSupplier) {
+        BookingStore store = open(storeSupplier);
+        store.book(booking("luminis", "room-a", DAY, 9, 10));
+        store.book(booking("luminis", "room-a", DAY, 10, 11));
+        store.book(booking("luminis", "room-b", DAY, 9, 10));
+        store.book(booking("techhub", "alpha", DAY, 9, 10));
+
+        assertEquals(Map.of("luminis", 3L, "techhub", 1L), store.countBookingsByLocation());
+        assertEquals(Map.of("room-a", 2L, "room-b", 1L), store.countBookingsByRoom("luminis"));
+        assertEquals(Map.of(), store.countBookingsByRoom("like-home"));
+    }
+
+    private BookingStore open(Supplier<BookingStore> storeSupplier) {
+        BookingStore store = storeSupplier.get();
+        if (store instanceof AutoCloseable closeable) {
+            openStores.add(closeable);
+        }
+        return store;
+    }
+
+    private static Booking booking(String locationId, String roomId, LocalDate day, int startHour, int endHour) {
+        return new Booking(locationId, roomId, day, LocalTime.of(startHour, 0), LocalTime.of(endHour, 0),
+                "Meeting in " + roomId);
+    }
+}
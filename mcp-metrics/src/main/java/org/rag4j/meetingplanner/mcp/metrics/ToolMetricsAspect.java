@@ -0,0 +1,91 @@
+package org.rag4j.meetingplanner.mcp.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.ai.tool.annotation.Tool;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures every Spring AI {@link Tool} method: a timer with a percentile histogram, a counter for calls that end in
+ * an exception and a gauge with the number of calls in progress. All meters are tagged with the tool name
+ * and the class that implements it, so a partitioned facade and the local service it delegates to are reported
+ * separately. Tools that the agents of a server call through the Spring proxy are measured like calls from an MCP
+ * client.
+ * <p>
+ * The histogram buckets are exported to Prometheus, percentiles are calculated there with {@code histogram_quantile},
+ * which also works when aggregating over multiple servers. Meters are created once per method, a call only does a
+ * map lookup, two increments and records the duration.
+ * <p>
+ * Both MCP servers depend on this module, {@link ToolMetricsAutoConfiguration} registers the aspect, so the servers
+ * report the same meters.
+ */
+@Aspect
+public class ToolMetricsAspect {
+    public static final String TIMER_NAME = "mcp.tool.calls";
+    public static final String ERROR_COUNTER_NAME = "mcp.tool.errors";
+    public static final String IN_FLIGHT_GAUGE_NAME = "mcp.tool.in.flight";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Method, ToolMeters> metersByMethod = new ConcurrentHashMap<>();
+
+    public ToolMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("@annotation(tool)")
+    public Object measure(ProceedingJoinPoint joinPoint, Tool tool) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        ToolMeters meters = metersByMethod.computeIfAbsent(method, key -> createMeters(key, tool));
+
+        meters.inFlight().incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            meters.errors().increment();
+            throw e;
+        } finally {
+            meters.timer().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            meters.inFlight().decrementAndGet();
+        }
+    }
+
+    private ToolMeters createMeters(Method method, Tool tool) {
+        String toolName = tool.name().isEmpty() ? method.getName() : tool.name();
+        Tags tags = Tags.of("tool", toolName, "class", method.getDeclaringClass().getSimpleName());
+
+        Timer timer = Timer.builder(TIMER_NAME)
+                .description("Duration of MCP tool calls")
+                .tags(tags)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(meterRegistry);
+        Counter errors = Counter.builder(ERROR_COUNTER_NAME)
+                .description("MCP tool calls that ended in an exception")
+                .tags(tags)
+                .register(meterRegistry);
+        AtomicInteger inFlight = new AtomicInteger();
+        Gauge.builder(IN_FLIGHT_GAUGE_NAME, inFlight, AtomicInteger::get)
+                .description("MCP tool calls in progress")
+                .tags(tags)
+                .register(meterRegistry);
+        return new ToolMeters(timer, errors, inFlight);
+    }
+
+    private record ToolMeters(Timer timer, Counter errors, AtomicInteger inFlight) {
+    }
+}
@@ -0,0 +1,17 @@
+package org.rag4j.meetingplanner.mcp.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Registers the {@link ToolMetricsAspect} in every application that has this module on the classpath.
+ */
+@AutoConfiguration
+public class ToolMetricsAutoConfiguration {
+
+    @Bean
+    public ToolMetricsAspect toolMetricsAspect(MeterRegistry meterRegistry) {
+        return new ToolMetricsAspect(meterRegistry);
+    }
+}
@@ -0,0 +1,120 @@
+package org.rag4j.meetingplanner.mcp.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ToolMetricsAspectTest {
+    private PrometheusMeterRegistry meterRegistry;
+    private SampleTools target;
+    private SampleTools tools;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        target = new SampleTools();
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(target);
+        proxyFactory.addAspect(new ToolMetricsAspect(meterRegistry));
+        tools = proxyFactory.getProxy();
+    }
+
+    @Test
+    @DisplayName("Tool calls are timed per tool name")
+    void timesToolCalls() {
+        tools.bookRoom();
+        tools.bookRoom();
+        tools.allLocations();
+
+        assertEquals(2, timer("book-room").count());
+        assertEquals(1, timer("allLocations").count());
+        assertNull(meterRegistry.find(ToolMetricsAspect.TIMER_NAME).tag("tool", "notATool").timer());
+    }
+
+    @Test
+    @DisplayName("Failing tool calls are counted as errors and still timed")
+    void countsErrors() {
+        assertThrows(IllegalStateException.class, () -> tools.failing());
+
+        assertEquals(1, timer("failing").count());
+        assertEquals(1, meterRegistry.get(ToolMetricsAspect.ERROR_COUNTER_NAME).tag("tool", "failing").counter()
+                .count());
+    }
+
+    @Test
+    @DisplayName("The gauge shows the calls in progress")
+    void tracksCallsInFlight() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        target.latches.set(new CountDownLatch[]{started, release});
+        Thread call = Thread.ofVirtual().start(() -> tools.blocking());
+        started.await();
+
+        assertEquals(1, inFlight());
+        release.countDown();
+        call.join();
+        assertEquals(0, inFlight());
+    }
+
+    @Test
+    @DisplayName("Histogram buckets for percentiles are published for prometheus")
+    void publishesHistogram() {
+        tools.bookRoom();
+
+        String scrape = meterRegistry.scrape();
+        assertTrue(scrape.contains("# TYPE mcp_tool_calls_seconds histogram"), scrape);
+        assertTrue(scrape.contains(
+                "mcp_tool_calls_seconds_bucket{class=\"SampleTools\",tool=\"book-room\",le=\"+Inf\"} 1"), scrape);
+    }
+
+    private Timer timer(String tool) {
+        return meterRegistry.get(ToolMetricsAspect.TIMER_NAME).tag("tool", tool).timer();
+    }
+
+    private double inFlight() {
+        return meterRegistry.get(ToolMetricsAspect.IN_FLIGHT_GAUGE_NAME).tag("tool", "blocking").gauge().value();
+    }
+
+    static class SampleTools {
+        final AtomicReference<CountDownLatch[]> latches = new AtomicReference<>();
+
+        @Tool(name = "book-room", description = "Books a room")
+        public String bookRoom() {
+            return "booked";
+        }
+
+        @Tool(description = "Lists all locations")
+        public String allLocations() {
+            return "locations";
+        }
+
+        @Tool(description = "Always fails")
+        public String failing() {
+            throw new IllegalStateException("Tool failed");
+        }
+
+        @Tool(description = "Waits until released")
+        public void blocking() {
+            CountDownLatch[] startedAndRelease = latches.get();
+            startedAndRelease[0].countDown();
+            try {
+                startedAndRelease[1].await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        public String notATool() {
+            return "not measured";
+        }
+    }
+}
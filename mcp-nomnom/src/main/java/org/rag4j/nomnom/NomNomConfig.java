@@ -1,5 +1,9 @@
 package org.rag4j.nomnom;
 
+import org.rag4j.nomnom.products.store.embedding.EmbeddingProperties;
+import org.rag4j.nomnom.products.store.embedding.HashedNGramEmbeddingModel;
+import org.rag4j.nomnom.products.store.hnsw.HnswVectorStore;
+import org.rag4j.nomnom.products.store.mapped.MappedVectorStore;
 import org.springframework.ai.document.MetadataMode;
 import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.openai.OpenAiEmbeddingModel;
@@ -7,23 +11,44 @@ import org.springframework.ai.openai.OpenAiEmbeddingOptions;
 import org.springframework.ai.openai.api.OpenAiApi;
 import org.springframework.ai.vectorstore.SimpleVectorStore;
 import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
+@EnableConfigurationProperties({VectorStoreProperties.class, EmbeddingProperties.class})
 public class NomNomConfig {
 
     @Bean
-    public VectorStore vectorStore(OpenAiApi openAiApi) {
-        OpenAiEmbeddingOptions options = OpenAiEmbeddingOptions.builder()
-                .model(OpenAiApi.EmbeddingModel.TEXT_EMBEDDING_3_SMALL.getValue())
-                .build();
-        EmbeddingModel embeddingModel = new OpenAiEmbeddingModel(openAiApi, MetadataMode.EMBED, options);
+    public VectorStore vectorStore(ObjectProvider<OpenAiApi> openAiApi, EmbeddingProperties embeddingProperties,
+                                   VectorStoreProperties properties) {
+        EmbeddingModel embeddingModel = switch (embeddingProperties.provider()) {
+            case OPENAI -> new OpenAiEmbeddingModel(openAiApi.getObject(), MetadataMode.EMBED,
+                    OpenAiEmbeddingOptions.builder()
+                            .model(OpenAiApi.EmbeddingModel.TEXT_EMBEDDING_3_SMALL.getValue())
+                            .build());
+            case HASHED -> new HashedNGramEmbeddingModel(embeddingProperties.dimensions());
+        };
 
-        return SimpleVectorStore.builder(embeddingModel).build();
+        return switch (properties.type()) {
+            case MAPPED -> MappedVectorStore.builder(embeddingModel)
+                    .encoding(properties.encoding())
+                    .quantized(properties.quantized())
+                    .rerankFactor(properties.rerankFactor())
+                    .build();
+            case SIMPLE -> SimpleVectorStore.builder(embeddingModel).build();
+            case HNSW -> HnswVectorStore.builder(embeddingModel)
+                    .m(properties.m())
+                    .efConstruction(properties.efConstruction())
+                    .efSearch(properties.efSearch())
+                    .build();
+        };
     }
 
     @Bean
+    @ConditionalOnProperty(name = "nomnom.embedding.provider", havingValue = "openai", matchIfMissing = true)
     public OpenAiApi openAiApi() {
         // read api keu y from environment variable OPENAI_API_KEY
         String apiKey = System.getenv("OPENAI_API_KEY");
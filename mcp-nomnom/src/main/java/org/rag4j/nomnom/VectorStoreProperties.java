@@ -0,0 +1,36 @@
+package org.rag4j.nomnom;
+
+import org.rag4j.nomnom.products.store.mapped.VectorEncoding;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration of the vector store for the product search.
+ *
+ * @param type           {@code mapped} compares the query with every product in a memory mapped file,
+ *                       {@code simple} does the same on the heap, {@code hnsw} searches a graph and is meant for
+ *                       large catalogs
+ * @param encoding       how the {@code mapped} store keeps the vectors: {@code float32} or {@code float16}
+ * @param quantized      whether the {@code mapped} store also keeps the vectors as int8 and scores those first
+ * @param rerankFactor   the candidates per requested product that a quantized search ranks by the exact vectors
+ * @param m              the number of neighbours per node of the HNSW graph
+ * @param efConstruction the HNSW candidate list size while adding products
+ * @param efSearch       the HNSW candidate list size while searching, higher finds more of the best matches
+ */
+@ConfigurationProperties(prefix = "nomnom.vector-store")
+public record VectorStoreProperties(Type type, VectorEncoding encoding, Boolean quantized, Integer rerankFactor,
+                                    Integer m, Integer efConstruction, Integer efSearch) {
+
+    public VectorStoreProperties {
+        type = type == null ? Type.MAPPED : type;
+        encoding = encoding == null ? VectorEncoding.FLOAT32 : encoding;
+        quantized = quantized != null && quantized;
+        rerankFactor = rerankFactor == null ? 4 : rerankFactor;
+        m = m == null ? 16 : m;
+        efConstruction = efConstruction == null ? 200 : efConstruction;
+        efSearch = efSearch == null ? 64 : efSearch;
+    }
+
+    public enum Type {
+        MAPPED, SIMPLE, HNSW
+    }
+}
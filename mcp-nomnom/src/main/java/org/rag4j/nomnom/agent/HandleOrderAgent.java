@@ -7,8 +7,10 @@ import org.rag4j.nomnom.orders.OrderService;
 import org.rag4j.nomnom.orders.model.OrderStatus;
 import org.rag4j.nomnom.products.MenuService;
 import org.slf4j.Logger;
+import org.springframework.beans.factory.ObjectProvider;
 
 import java.util.Arrays;
+import java.util.Optional;
 
 import static org.rag4j.nomnom.agent.LlmModel.BALANCED;
 import static org.rag4j.nomnom.agent.LlmModel.BEST;
@@ -19,10 +21,13 @@ public class HandleOrderAgent {
 
     private final MenuService menuService;
     private final OrderService orderService;
+    private final OrderTextParser orderTextParser;
 
-    public HandleOrderAgent(MenuService menuService, OrderService orderService) {
+    public HandleOrderAgent(MenuService menuService, OrderService orderService,
+                            ObjectProvider<OrderTextParser> orderTextParser) {
         this.menuService = menuService;
         this.orderService = orderService;
+        this.orderTextParser = orderTextParser.getIfAvailable();
     }
 
     @Action(description = "Receive an order request from a user.")
@@ -31,12 +36,17 @@ public class HandleOrderAgent {
 
         var orderDetails = userInput.message();
 
-        var items = ai.withLlmByRole(BEST.getModelName())
+        // A plain list like "5 coffee, 5 cookies" is read by rules, the model is only asked for other texts
+        Optional<OrderItemsList> parsedItems = orderTextParser != null
+                ? orderTextParser.parse(orderDetails)
+                : Optional.empty();
+        var items = parsedItems.orElseGet(() -> ai.withLlmByRole(BEST.getModelName())
                 .withToolObject(menuService)
                 .createObject(String.format("""
                                  You will be given a request for a food order.
                                  The text contains what the customer wants to order.
                                  Extract the items from the request, use tools to find the best matching product.
+                                 Look up all items with one call of findBestMatchingProducts.
                                  In some cases, the result is an alternative product that is similar to the requested one.
                                  Replace the requested product with the best matching product from the menu.
                                  Return the list of order items with product and quantity.
@@ -48,7 +58,7 @@ public class HandleOrderAgent {
                                 
                                 """,
                         orderDetails
-                ).trim(), OrderItemsList.class);
+                ).trim(), OrderItemsList.class));
 
         logger.info("Found items: {}", items.printOrderItems());
 
@@ -0,0 +1,21 @@
+package org.rag4j.nomnom.agent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.rag4j.nomnom.products.store.ProductNameMatcher;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Creates the rule based parser for order texts, see {@code nomnom.order-parser}. Without the parser, set
+ * {@code enabled: false}, every order text goes to the language model.
+ */
+@Configuration
+public class OrderParserConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "nomnom.order-parser.enabled", havingValue = "true", matchIfMissing = true)
+    public OrderTextParser orderTextParser(ProductNameMatcher productNameMatcher, MeterRegistry meterRegistry) {
+        return new OrderTextParser(productNameMatcher::matchNames, meterRegistry);
+    }
+}
@@ -0,0 +1,159 @@
+package org.rag4j.nomnom.agent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.rag4j.nomnom.agent.model.OrderItem;
+import org.rag4j.nomnom.agent.model.OrderItemsList;
+import org.rag4j.nomnom.products.model.ProductMatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads orders that are only a list of quantities and products, like "5 coffee, 5 cookies" or "2x pizza and a tea",
+ * without a language model. The text is split on commas, semicolons, new lines, "and", "&" and "+", and every part
+ * must be a quantity and a product name in either order: "3 sandwiches", "sandwich x3", "two teas". A polite start
+ * like "please" or "I'd like" and a closing "please" or "thanks" are allowed.
+ * <p>
+ * The names are resolved with one lookup on the names, plural forms and aliases of the products. Only when every part
+ * is a quantity and a name and every name is a product, the items are returned. A name that needs a fuzzy or
+ * semantic match, like a typo or "coffee without milk", leaves the text to the language model, which also keeps the
+ * wishes around the product as a note. The result is counted in {@value #PARSE_COUNTER_NAME}, tagged with
+ * {@code result}: {@code parsed}, {@code unparsed} for text that is not a plain list or {@code unresolved} for names
+ * that are not a product.
+ */
+public class OrderTextParser {
+    private static final Logger logger = LoggerFactory.getLogger(OrderTextParser.class);
+
+    public static final String PARSE_COUNTER_NAME = "nomnom.order.parse";
+
+    static final int MAX_QUANTITY = 1000;
+
+    private static final Pattern SEPARATOR = Pattern.compile(
+            "\\s*(?:[,;\\n&+]|\\band\\b)\\s*", Pattern.CASE_INSENSITIVE);
+    private static final Pattern POLITE_START = Pattern.compile(
+            "^(?:(?:please|hi|hello)\\b[,!]?\\s*)*(?:(?:i|we)(?:'d| would) like(?: to order)?|(?:can|could) (?:i|we) "
+                    + "(?:get|have|order)|(?:i|we) (?:want|need)|order)?\\b\\s*:?\\s*",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern POLITE_END = Pattern.compile(
+            "[\\s,]*(?:\\b(?:please|thanks|thank you)\\b)?[\\s.!?]*$", Pattern.CASE_INSENSITIVE);
+    private static final String NAME = "(?<name>\\p{L}[\\p{L}\\p{M}' -]*?)";
+    private static final Pattern QUANTITY_FIRST = Pattern.compile(
+            "^(?:(?<digits>\\d+)(?:\\s*[x×*]\\s+|[x×*]\\s*|\\s+)|(?<word>\\p{L}+)\\s+)" + NAME + "$",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern QUANTITY_LAST = Pattern.compile(
+            "^" + NAME + "\\s*(?:[x×*:]\\s*|\\s)(?<digits>\\d+)$", Pattern.CASE_INSENSITIVE);
+    private static final Map<String, Integer> NUMBERS = Map.ofEntries(
+            Map.entry("a", 1), Map.entry("an", 1), Map.entry("one", 1), Map.entry("two", 2), Map.entry("three", 3),
+            Map.entry("four", 4), Map.entry("five", 5), Map.entry("six", 6), Map.entry("seven", 7),
+            Map.entry("eight", 8), Map.entry("nine", 9), Map.entry("ten", 10), Map.entry("eleven", 11),
+            Map.entry("twelve", 12), Map.entry("dozen", 12));
+
+    private final Function<List<String>, List<ProductMatch>> productLookup;
+    private final Counter parsed;
+    private final Counter unparsed;
+    private final Counter unresolved;
+
+    /**
+     * @param productLookup finds the product with each name, in the same order, without a similarity search; see
+     *                      {@link org.rag4j.nomnom.products.store.ProductNameMatcher#matchNames}
+     */
+    public OrderTextParser(Function<List<String>, List<ProductMatch>> productLookup, MeterRegistry meterRegistry) {
+        this.productLookup = productLookup;
+        this.parsed = parses(meterRegistry, "parsed");
+        this.unparsed = parses(meterRegistry, "unparsed");
+        this.unresolved = parses(meterRegistry, "unresolved");
+    }
+
+    private static Counter parses(MeterRegistry meterRegistry, String result) {
+        return Counter.builder(PARSE_COUNTER_NAME)
+                .description("Order texts read by the rule based parser, parsed ones skip the language model")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * The items of the order, or empty when the text needs the language model.
+     */
+    public Optional<OrderItemsList> parse(String text) {
+        List<Part> parts = split(text);
+        if (parts.isEmpty()) {
+            unparsed.increment();
+            return Optional.empty();
+        }
+        List<ProductMatch> matches = productLookup.apply(parts.stream().map(Part::name).toList());
+        OrderItem[] items = new OrderItem[parts.size()];
+        for (int i = 0; i < items.length; i++) {
+            ProductMatch match = matches.get(i);
+            if (match.product() == null) {
+                logger.info("No product named {} in order text, using the language model", parts.get(i).name());
+                unresolved.increment();
+                return Optional.empty();
+            }
+            items[i] = new OrderItem(match.product(), parts.get(i).quantity());
+        }
+        parsed.increment();
+        return Optional.of(new OrderItemsList(items, null));
+    }
+
+    /**
+     * The quantities and names in the text, or no parts when a part of the text is something else.
+     */
+    static List<Part> split(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        String list = POLITE_START.matcher(text.strip()).replaceFirst("");
+        list = POLITE_END.matcher(list).replaceFirst("");
+        if (list.isEmpty()) {
+            return List.of();
+        }
+        List<Part> parts = new ArrayList<>();
+        for (String element : SEPARATOR.split(list)) {
+            if (element.isEmpty()) {
+                continue;
+            }
+            Part part = part(element);
+            if (part == null) {
+                return List.of();
+            }
+            parts.add(part);
+        }
+        return parts;
+    }
+
+    private static Part part(String element) {
+        Matcher matcher = QUANTITY_FIRST.matcher(element);
+        if (!matcher.matches()) {
+            matcher = QUANTITY_LAST.matcher(element);
+            if (!matcher.matches()) {
+                return null;
+            }
+        }
+        Integer quantity = quantity(matcher);
+        String name = matcher.group("name").strip();
+        if (quantity == null || quantity <= 0 || quantity > MAX_QUANTITY || name.isEmpty()) {
+            return null;
+        }
+        return new Part(quantity, name);
+    }
+
+    private static Integer quantity(Matcher matcher) {
+        String digits = matcher.group("digits");
+        if (digits != null) {
+            return digits.length() > 4 ? null : Integer.valueOf(digits);
+        }
+        return NUMBERS.get(matcher.group("word").toLowerCase(Locale.ROOT));
+    }
+
+    record Part(int quantity, String name) {
+    }
+}
@@ -0,0 +1,354 @@
+package org.rag4j.nomnom.orders;
+
+import org.rag4j.nomnom.orders.model.Order;
+import org.rag4j.nomnom.orders.model.OrderItem;
+import org.rag4j.nomnom.orders.model.OrderStatus;
+import org.rag4j.nomnom.products.model.Category;
+import org.rag4j.nomnom.products.model.Product;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running order totals, kept up to date on every order change so reports do not scan the orders. Totals are kept
+ * for all orders, per status, per location and in a rollup over delivery days. Each of those slices counts orders
+ * per status and sales per product id and per category.
+ * <p>
+ * The delivery day rollup is a Fenwick tree: slice {@code i} holds the totals of the {@code i & -i} days up to day
+ * {@code i}. A change updates the slices on the path up the tree and a date range report merges the slices of two
+ * prefixes, both about 16 slices for any range, so a report over a year costs the same as one over a day.
+ * <p>
+ * The {@link OrderService} calls {@link #add}, {@link #replace} and {@link #remove} while holding the map entry of
+ * the order. The counters are {@link LongAdder}s, so changes to different orders do not contend. A report reads the
+ * counters one by one, it can include half of a change that happens at the same time; once the change is done the
+ * totals are exact. Revenue is counted in cents, so adding and removing orders does not accumulate rounding errors.
+ */
+class OrderAnalytics {
+    private final Slice overall = new Slice();
+    private final Map<OrderStatus, Slice> byStatus = new EnumMap<>(OrderStatus.class);
+    private final ConcurrentNavigableMap<String, Slice> byLocation = new ConcurrentSkipListMap<>();
+    private final DailyRollup byDeliveryDate = new DailyRollup();
+
+    OrderAnalytics() {
+        for (OrderStatus status : OrderStatus.values()) {
+            byStatus.put(status, new Slice());
+        }
+    }
+
+    void add(Order order) {
+        apply(order, 1);
+    }
+
+    void remove(Order order) {
+        apply(order, -1);
+    }
+
+    void replace(Order previous, Order updated) {
+        if (onlyStatusChanged(previous, updated)) {
+            // Status transitions are the most common change, they only move one order between two status counters
+            for (Slice slice : slicesOf(updated)) {
+                slice.ordersByStatus.get(updated.status()).increment();
+                slice.ordersByStatus.get(previous.status()).decrement();
+            }
+            OrderSales sales = OrderSales.of(updated);
+            byStatus.get(updated.status()).apply(updated.status(), sales, 1);
+            byStatus.get(previous.status()).apply(previous.status(), sales, -1);
+            return;
+        }
+        apply(updated, 1);
+        apply(previous, -1);
+    }
+
+    /**
+     * Totals of all orders.
+     */
+    SalesAggregator overall() {
+        return overall.addTo(new SalesAggregator(), 1);
+    }
+
+    /**
+     * Totals of the orders with a status.
+     */
+    SalesAggregator withStatus(OrderStatus status) {
+        return byStatus.get(status).addTo(new SalesAggregator(), 1);
+    }
+
+    /**
+     * Totals of the orders delivered between the dates, both inclusive.
+     */
+    SalesAggregator deliveredBetween(LocalDate startDate, LocalDate endDate) {
+        SalesAggregator sales = new SalesAggregator();
+        if (!startDate.isAfter(endDate)) {
+            byDeliveryDate.addRange(startDate, endDate, sales);
+        }
+        return sales;
+    }
+
+    /**
+     * Totals of the orders for a location, the name is matched ignoring case.
+     */
+    SalesAggregator atLocation(String location) {
+        SalesAggregator sales = new SalesAggregator();
+        byLocation.forEach((name, slice) -> {
+            if (name.equalsIgnoreCase(location)) {
+                slice.addTo(sales, 1);
+            }
+        });
+        return sales;
+    }
+
+    /**
+     * Revenue per location, locations without orders are left out.
+     */
+    Map<String, Double> revenueByLocation() {
+        Map<String, Double> revenue = new LinkedHashMap<>();
+        byLocation.forEach((location, slice) -> {
+            if (slice.orderCount() > 0) {
+                revenue.put(location, slice.revenueCents.sum() / 100.0);
+            }
+        });
+        return revenue;
+    }
+
+    /**
+     * Number of orders per location, locations without orders are left out.
+     */
+    Map<String, Long> orderCountByLocation() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        byLocation.forEach((location, slice) -> {
+            long orderCount = slice.orderCount();
+            if (orderCount > 0) {
+                counts.put(location, orderCount);
+            }
+        });
+        return counts;
+    }
+
+    /**
+     * The distinct location names of the orders in alphabetical order, locations without orders are left out.
+     */
+    List<String> locations() {
+        List<String> locations = new ArrayList<>();
+        byLocation.forEach((location, slice) -> {
+            if (slice.orderCount() > 0) {
+                locations.add(location);
+            }
+        });
+        return locations;
+    }
+
+    double totalRevenue() {
+        return overall.revenueCents.sum() / 100.0;
+    }
+
+    private void apply(Order order, int sign) {
+        OrderSales sales = OrderSales.of(order);
+        for (Slice slice : slicesOf(order)) {
+            slice.apply(order.status(), sales, sign);
+        }
+        byStatus.get(order.status()).apply(order.status(), sales, sign);
+    }
+
+    private List<Slice> slicesOf(Order order) {
+        List<Slice> slices = new ArrayList<>(20);
+        slices.add(overall);
+        slices.add(byLocation.computeIfAbsent(order.location(), location -> new Slice()));
+        byDeliveryDate.collectSlices(order.deliveryDate(), slices);
+        return slices;
+    }
+
+    private static boolean onlyStatusChanged(Order previous, Order updated) {
+        return previous.location().equals(updated.location())
+                && previous.deliveryDate().equals(updated.deliveryDate())
+                && previous.items().equals(updated.items());
+    }
+
+    private static long cents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    /**
+     * Sales of one order, summed per product id and per category.
+     */
+    private record OrderSales(long items, long revenueCents, Map<String, ProductSales> products,
+                              Map<Category, Sales> categories) {
+
+        static OrderSales of(Order order) {
+            long items = 0;
+            long revenueCents = 0;
+            Map<String, ProductSales> products = new LinkedHashMap<>();
+            Map<Category, Sales> categories = new EnumMap<>(Category.class);
+            for (OrderItem item : order.items()) {
+                long itemCents = cents(item.getTotalPrice());
+                items += item.quantity();
+                revenueCents += itemCents;
+                products.merge(item.product().id(), new ProductSales(item.product(),
+                        new Sales(item.quantity(), itemCents)), ProductSales::plus);
+                categories.merge(item.product().category(), new Sales(item.quantity(), itemCents), Sales::plus);
+            }
+            return new OrderSales(items, revenueCents, products, categories);
+        }
+    }
+
+    private record Sales(long quantity, long revenueCents) {
+        Sales plus(Sales other) {
+            return new Sales(quantity + other.quantity, revenueCents + other.revenueCents);
+        }
+    }
+
+    private record ProductSales(Product product, Sales sales) {
+        ProductSales plus(ProductSales other) {
+            return new ProductSales(product, sales.plus(other.sales));
+        }
+    }
+
+    /**
+     * Counters for quantity, distinct orders and revenue of a product or category.
+     */
+    private static class SalesCounters {
+        final LongAdder quantity = new LongAdder();
+        final LongAdder orders = new LongAdder();
+        final LongAdder revenueCents = new LongAdder();
+
+        void apply(Sales sales, int sign) {
+            quantity.add(sign * sales.quantity());
+            orders.add(sign);
+            revenueCents.add(sign * sales.revenueCents());
+        }
+    }
+
+    /**
+     * Counters of a product id and the product as it was last added, which reports show.
+     */
+    private static class ProductCounters extends SalesCounters {
+        volatile Product product;
+
+        ProductCounters(Product product) {
+            this.product = product;
+        }
+
+        void apply(ProductSales sales, int sign) {
+            if (sign > 0) {
+                product = sales.product();
+            }
+            apply(sales.sales(), sign);
+        }
+    }
+
+    /**
+     * Running totals of a group of orders.
+     */
+    private static class Slice {
+        final Map<OrderStatus, LongAdder> ordersByStatus = new EnumMap<>(OrderStatus.class);
+        final LongAdder items = new LongAdder();
+        final LongAdder revenueCents = new LongAdder();
+        final ConcurrentMap<String, ProductCounters> products = new ConcurrentHashMap<>();
+        final Map<Category, SalesCounters> categories = new EnumMap<>(Category.class);
+
+        Slice() {
+            // Filled up front, so the enum maps are only read after construction
+            for (OrderStatus status : OrderStatus.values()) {
+                ordersByStatus.put(status, new LongAdder());
+            }
+            for (Category category : Category.values()) {
+                categories.put(category, new SalesCounters());
+            }
+        }
+
+        void apply(OrderStatus status, OrderSales sales, int sign) {
+            ordersByStatus.get(status).add(sign);
+            items.add(sign * sales.items());
+            revenueCents.add(sign * sales.revenueCents());
+            sales.products().forEach((productId, productSales) -> products
+                    .computeIfAbsent(productId, key -> new ProductCounters(productSales.product()))
+                    .apply(productSales, sign));
+            sales.categories().forEach((category, categorySales) ->
+                    categories.get(category).apply(categorySales, sign));
+        }
+
+        long orderCount() {
+            long count = 0;
+            for (LongAdder orders : ordersByStatus.values()) {
+                count += orders.sum();
+            }
+            return count;
+        }
+
+        /**
+         * Adds the totals to the aggregator, a sign of -1 subtracts them.
+         */
+        SalesAggregator addTo(SalesAggregator sales, int sign) {
+            ordersByStatus.forEach((status, orders) -> sales.addOrders(status, sign * orders.sum()));
+            sales.addItems(sign * items.sum(), sign * revenueCents.sum() / 100.0);
+            products.forEach((productId, counters) -> sales.addProductSales(counters.product,
+                    (int) (sign * counters.quantity.sum()), (int) (sign * counters.orders.sum()),
+                    sign * counters.revenueCents.sum() / 100.0));
+            categories.forEach((category, counters) -> sales.addCategorySales(category,
+                    (int) (sign * counters.quantity.sum()), (int) (sign * counters.orders.sum()),
+                    sign * counters.revenueCents.sum() / 100.0));
+            return sales;
+        }
+    }
+
+    /**
+     * Fenwick tree of slices over delivery days from 2000-01-01 up to 2179. The slices are created on first use,
+     * days without orders cost nothing. Delivery days outside that period get a slice per day.
+     */
+    private static class DailyRollup {
+        private static final long FIRST_DAY = LocalDate.of(2000, 1, 1).toEpochDay();
+        private static final int DAYS = 1 << 16;
+
+        private final ConcurrentMap<Integer, Slice> tree = new ConcurrentHashMap<>();
+        private final ConcurrentNavigableMap<LocalDate, Slice> outsideTree = new ConcurrentSkipListMap<>();
+
+        /**
+         * Adds the slices that include the day: the path from the day up to the root of the tree.
+         */
+        void collectSlices(LocalDate day, List<Slice> slices) {
+            long index = indexOf(day);
+            if (index < 1 || index > DAYS) {
+                slices.add(outsideTree.computeIfAbsent(day, key -> new Slice()));
+                return;
+            }
+            for (int node = (int) index; node <= DAYS; node += node & -node) {
+                slices.add(tree.computeIfAbsent(node, key -> new Slice()));
+            }
+        }
+
+        /**
+         * Adds the totals of the days from start up to and including end, as the difference of two prefixes.
+         */
+        void addRange(LocalDate startDate, LocalDate endDate, SalesAggregator sales) {
+            outsideTree.subMap(startDate, true, endDate, true).values().forEach(slice -> slice.addTo(sales, 1));
+
+            int from = (int) Math.clamp(indexOf(startDate), 1, DAYS + 1);
+            int to = (int) Math.clamp(indexOf(endDate), 0, DAYS);
+            if (from <= to) {
+                addPrefix(to, sales, 1);
+                addPrefix(from - 1, sales, -1);
+            }
+        }
+
+        private void addPrefix(int index, SalesAggregator sales, int sign) {
+            for (int node = index; node > 0; node -= node & -node) {
+                Slice slice = tree.get(node);
+                if (slice != null) {
+                    slice.addTo(sales, sign);
+                }
+            }
+        }
+
+        private static long indexOf(LocalDate day) {
+            return day.toEpochDay() - FIRST_DAY + 1;
+        }
+    }
+}
@@ -0,0 +1,528 @@
+package org.rag4j.nomnom.orders;
+
+import org.rag4j.nomnom.orders.model.Order;
+import org.rag4j.nomnom.orders.model.OrderItem;
+import org.rag4j.nomnom.orders.model.OrderStatus;
+import org.rag4j.nomnom.products.model.Category;
+import org.rag4j.nomnom.products.model.Product;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Column store copy of the orders for ad hoc analytics that the running totals of {@link OrderAnalytics} do not
+ * cover, like totals per location for a date range. Every order is a row in primitive arrays: delivery epoch day,
+ * order timestamp in epoch seconds, location code, status ordinal and revenue in cents. The items of an order are
+ * consecutive rows in item arrays with a product code, quantity and revenue. Locations and products are replaced by
+ * codes from a dictionary, so a scan is a loop over arrays without following references.
+ * <p>
+ * Scans of fewer rows than the parallel threshold run on the calling thread and collect one set of totals. Larger
+ * scans are a fork-join reduction: the rows are split in halves down to chunks of {@value #CHUNK_SIZE} rows, each
+ * chunk collects its own partial totals and the halves merge their totals when they join. The scans run in the pool
+ * set with {@link #useParallelism}, the common pool by default.
+ * <p>
+ * Rows are appended and deleted rows are marked, the arrays are compacted when more than half of the rows are
+ * deleted. Changes hold the lock of the store and publish a new {@link Snapshot} when done. A scan reads one
+ * snapshot; the arrays of a snapshot are never reallocated, a status change or delete that happens during the scan
+ * can be seen or not.
+ */
+class OrderColumns {
+    static final int CHUNK_SIZE = 16_384;
+    static final int DEFAULT_PARALLEL_THRESHOLD = 4 * CHUNK_SIZE;
+    private static final byte DELETED = -1;
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+    private static final Category[] CATEGORIES = Category.values();
+
+    // Guarded by this
+    private final Map<String, Integer> rowsByOrderId = new HashMap<>();
+    private final Map<String, Integer> locationCodes = new HashMap<>();
+    private final Map<Product, Integer> productCodes = new HashMap<>();
+    private Columns columns = new Columns(1024, 4096, 16, 64);
+    private int rowCount;
+    private int itemCount;
+    private int deletedRows;
+    private int locationCount;
+    private int productCount;
+
+    private volatile Snapshot snapshot = new Snapshot(columns, 0, 0, 0);
+    private volatile Parallelism parallelism = new Parallelism(ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD);
+
+    /**
+     * Runs scans of at least the threshold number of rows in parallel in the pool.
+     */
+    void useParallelism(ForkJoinPool pool, int parallelThreshold) {
+        parallelism = new Parallelism(pool, parallelThreshold);
+    }
+
+    synchronized void add(Order order) {
+        append(order);
+        publish();
+    }
+
+    synchronized void remove(Order order) {
+        delete(order.orderId());
+        compactIfSparse();
+        publish();
+    }
+
+    synchronized void replace(Order previous, Order updated) {
+        Integer row = rowsByOrderId.get(previous.orderId());
+        if (row != null && onlyStatusChanged(previous, updated)) {
+            columns.status[row] = (byte) updated.status().ordinal();
+        } else {
+            delete(previous.orderId());
+            append(updated);
+            compactIfSparse();
+        }
+        publish();
+    }
+
+    /**
+     * Totals of the orders delivered between the dates, both inclusive, optionally only for one location. The
+     * location name is matched ignoring case.
+     */
+    SalesAggregator aggregate(LocalDate startDate, LocalDate endDate, String location) {
+        Snapshot current = snapshot;
+        Columns data = current.columns();
+        int fromDay = (int) startDate.toEpochDay();
+        int toDay = (int) endDate.toEpochDay();
+        boolean[] locations = location == null ? null : matchingLocations(current, location);
+
+        Totals totals = scan(current, () -> new Totals(current.productCount()), (partial, from, to) -> {
+            for (int row = from; row < to; row++) {
+                byte status = data.status[row];
+                int day = data.deliveryDay[row];
+                if (status == DELETED || day < fromDay || day > toDay
+                        || (locations != null && !locations[data.location[row]])) {
+                    continue;
+                }
+                partial.addOrder(data, row, status);
+            }
+        }, Totals::merge);
+        return totals.toAggregator(data.products);
+    }
+
+    /**
+     * Number of orders and revenue in cents per location for the orders delivered between the dates, both
+     * inclusive. Locations without orders in the range are left out.
+     */
+    Map<String, LocationTotals> totalsByLocation(LocalDate startDate, LocalDate endDate) {
+        Snapshot current = snapshot;
+        Columns data = current.columns();
+        int fromDay = (int) startDate.toEpochDay();
+        int toDay = (int) endDate.toEpochDay();
+
+        long[] totals = scan(current, () -> new long[2 * current.locationCount()], (partial, from, to) -> {
+            for (int row = from; row < to; row++) {
+                int day = data.deliveryDay[row];
+                if (data.status[row] != DELETED && day >= fromDay && day <= toDay) {
+                    int location = data.location[row];
+                    partial[2 * location]++;
+                    partial[2 * location + 1] += data.revenueCents[row];
+                }
+            }
+        }, OrderColumns::sum);
+
+        Map<String, LocationTotals> result = new LinkedHashMap<>();
+        for (int location = 0; location < current.locationCount(); location++) {
+            if (totals[2 * location] > 0) {
+                result.put(data.locations[location],
+                        new LocationTotals(totals[2 * location], totals[2 * location + 1]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Ids of the orders with a total of at least the amount in cents, highest total first and newest first for
+     * equal totals.
+     */
+    List<String> orderIdsWithMinRevenue(long minRevenueCents) {
+        Snapshot current = snapshot;
+        Columns data = current.columns();
+        Parallelism settings = parallelism;
+        IntStream rows = IntStream.range(0, current.rowCount());
+        if (current.rowCount() < settings.threshold()) {
+            return sortedOrderIds(data, rows, minRevenueCents);
+        }
+        return settings.pool().submit(() -> sortedOrderIds(data, rows.parallel(), minRevenueCents)).join();
+    }
+
+    private static List<String> sortedOrderIds(Columns data, IntStream rows, long minRevenueCents) {
+        return rows.filter(row -> data.status[row] != DELETED && data.revenueCents[row] >= minRevenueCents)
+                .boxed()
+                .sorted(Comparator.<Integer>comparingLong(row -> data.revenueCents[row])
+                        .thenComparingLong(row -> data.orderTimestamp[row])
+                        .reversed())
+                .map(row -> data.orderId[row])
+                .toList();
+    }
+
+    record LocationTotals(long orders, long revenueCents) {
+    }
+
+    private boolean[] matchingLocations(Snapshot current, String location) {
+        boolean[] matches = new boolean[current.locationCount()];
+        for (int code = 0; code < matches.length; code++) {
+            matches[code] = current.columns().locations[code].equalsIgnoreCase(location);
+        }
+        return matches;
+    }
+
+    /**
+     * Scans the rows of the snapshot, as a fork-join reduction over chunks when there are enough rows.
+     */
+    private <T> T scan(Snapshot current, Supplier<T> newPartial, ChunkScan<T> chunkScan, BinaryOperator<T> merge) {
+        Parallelism settings = parallelism;
+        int rows = current.rowCount();
+        if (rows < settings.threshold()) {
+            T totals = newPartial.get();
+            chunkScan.scan(totals, 0, rows);
+            return totals;
+        }
+        return settings.pool().invoke(new ScanTask<>(newPartial, chunkScan, merge, 0, rows));
+    }
+
+    private static long[] sum(long[] left, long[] right) {
+        for (int i = 0; i < left.length; i++) {
+            left[i] += right[i];
+        }
+        return left;
+    }
+
+    private void append(Order order) {
+        List<OrderItem> items = order.items();
+        columns = columns.ensureCapacity(rowCount + 1, itemCount + items.size(), locationCount + 1,
+                productCount + items.size());
+        int row = rowCount++;
+        columns.orderId[row] = order.orderId();
+        columns.deliveryDay[row] = (int) order.deliveryDate().toEpochDay();
+        columns.orderTimestamp[row] = order.orderTimestamp().toEpochSecond(ZoneOffset.UTC);
+        columns.location[row] = locationCode(order.location());
+        columns.status[row] = (byte) order.status().ordinal();
+        columns.revenueCents[row] = cents(order.totalAmount());
+        columns.firstItem[row] = itemCount;
+        columns.itemLines[row] = items.size();
+        for (OrderItem item : items) {
+            int itemRow = itemCount++;
+            columns.itemProduct[itemRow] = productCode(item.product());
+            columns.itemQuantity[itemRow] = item.quantity();
+            columns.itemRevenueCents[itemRow] = cents(item.getTotalPrice());
+        }
+        rowsByOrderId.put(order.orderId(), row);
+    }
+
+    private void delete(String orderId) {
+        Integer row = rowsByOrderId.remove(orderId);
+        if (row != null) {
+            columns.status[row] = DELETED;
+            deletedRows++;
+        }
+    }
+
+    /**
+     * Copies the rows that are not deleted to new arrays, scans that still read the old arrays are not affected.
+     */
+    private void compactIfSparse() {
+        if (deletedRows < 1024 || deletedRows * 2 < rowCount) {
+            return;
+        }
+        Columns old = columns;
+        Columns compacted = new Columns(Math.max(1024, rowCount - deletedRows), Math.max(4096, itemCount),
+                old.locations.length, old.products.length);
+        System.arraycopy(old.locations, 0, compacted.locations, 0, locationCount);
+        System.arraycopy(old.products, 0, compacted.products, 0, productCount);
+        System.arraycopy(old.productCategory, 0, compacted.productCategory, 0, productCount);
+        int rows = 0;
+        int items = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if (old.status[row] == DELETED) {
+                continue;
+            }
+            compacted.orderId[rows] = old.orderId[row];
+            compacted.deliveryDay[rows] = old.deliveryDay[row];
+            compacted.orderTimestamp[rows] = old.orderTimestamp[row];
+            compacted.location[rows] = old.location[row];
+            compacted.status[rows] = old.status[row];
+            compacted.revenueCents[rows] = old.revenueCents[row];
+            compacted.firstItem[rows] = items;
+            compacted.itemLines[rows] = old.itemLines[row];
+            int lines = old.itemLines[row];
+            System.arraycopy(old.itemProduct, old.firstItem[row], compacted.itemProduct, items, lines);
+            System.arraycopy(old.itemQuantity, old.firstItem[row], compacted.itemQuantity, items, lines);
+            System.arraycopy(old.itemRevenueCents, old.firstItem[row], compacted.itemRevenueCents, items, lines);
+            rowsByOrderId.put(old.orderId[row], rows);
+            items += lines;
+            rows++;
+        }
+        columns = compacted;
+        rowCount = rows;
+        itemCount = items;
+        deletedRows = 0;
+    }
+
+    private void publish() {
+        snapshot = new Snapshot(columns, rowCount, locationCount, productCount);
+    }
+
+    private int locationCode(String location) {
+        Integer code = locationCodes.get(location);
+        if (code == null) {
+            code = locationCount++;
+            columns.locations[code] = location;
+            locationCodes.put(location, code);
+        }
+        return code;
+    }
+
+    private int productCode(Product product) {
+        Integer code = productCodes.get(product);
+        if (code == null) {
+            code = productCount++;
+            columns.products[code] = product;
+            columns.productCategory[code] = (byte) (product.category() != null ? product.category().ordinal() : -1);
+            productCodes.put(product, code);
+        }
+        return code;
+    }
+
+    private static boolean onlyStatusChanged(Order previous, Order updated) {
+        return previous.location().equals(updated.location())
+                && previous.deliveryDate().equals(updated.deliveryDate())
+                && previous.orderTimestamp().equals(updated.orderTimestamp())
+                && previous.totalAmount() == updated.totalAmount()
+                && previous.items().equals(updated.items());
+    }
+
+    private static long cents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    @FunctionalInterface
+    private interface ChunkScan<T> {
+        void scan(T partial, int fromRow, int toRow);
+    }
+
+    private record Parallelism(ForkJoinPool pool, int threshold) {
+    }
+
+    /**
+     * Scans a range of rows: a chunk directly, a larger range by forking the first half and scanning the second
+     * half itself. The partial totals of the halves are merged, so a scan merges once per chunk.
+     */
+    private static final class ScanTask<T> extends RecursiveTask<T> {
+        private final Supplier<T> newPartial;
+        private final ChunkScan<T> chunkScan;
+        private final BinaryOperator<T> merge;
+        private final int fromRow;
+        private final int toRow;
+
+        ScanTask(Supplier<T> newPartial, ChunkScan<T> chunkScan, BinaryOperator<T> merge, int fromRow, int toRow) {
+            this.newPartial = newPartial;
+            this.chunkScan = chunkScan;
+            this.merge = merge;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+        }
+
+        @Override
+        protected T compute() {
+            if (toRow - fromRow <= CHUNK_SIZE) {
+                T partial = newPartial.get();
+                chunkScan.scan(partial, fromRow, toRow);
+                return partial;
+            }
+            // Split on a chunk boundary, so every chunk but the last has the full size
+            int chunks = (toRow - fromRow + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            int middle = fromRow + chunks / 2 * CHUNK_SIZE;
+            ScanTask<T> first = new ScanTask<>(newPartial, chunkScan, merge, fromRow, middle);
+            first.fork();
+            T second = new ScanTask<>(newPartial, chunkScan, merge, middle, toRow).compute();
+            return merge.apply(first.join(), second);
+        }
+    }
+
+    /**
+     * The arrays with the published number of rows, locations and products.
+     */
+    private record Snapshot(Columns columns, int rowCount, int locationCount, int productCount) {
+    }
+
+    /**
+     * The column arrays, rows beyond the published row count are not in use yet.
+     */
+    private static final class Columns {
+        final String[] orderId;
+        final int[] deliveryDay;
+        final long[] orderTimestamp;
+        final int[] location;
+        final byte[] status;
+        final long[] revenueCents;
+        final int[] firstItem;
+        final int[] itemLines;
+
+        final int[] itemProduct;
+        final int[] itemQuantity;
+        final long[] itemRevenueCents;
+
+        final String[] locations;
+        final Product[] products;
+        final byte[] productCategory;
+
+        Columns(int rows, int items, int locations, int products) {
+            this(new String[rows], new int[rows], new long[rows], new int[rows], new byte[rows], new long[rows],
+                    new int[rows], new int[rows], new int[items], new int[items], new long[items],
+                    new String[locations], new Product[products], new byte[products]);
+        }
+
+        private Columns(String[] orderId, int[] deliveryDay, long[] orderTimestamp, int[] location, byte[] status,
+                        long[] revenueCents, int[] firstItem, int[] itemLines, int[] itemProduct,
+                        int[] itemQuantity, long[] itemRevenueCents, String[] locations, Product[] products,
+                        byte[] productCategory) {
+            this.orderId = orderId;
+            this.deliveryDay = deliveryDay;
+            this.orderTimestamp = orderTimestamp;
+            this.location = location;
+            this.status = status;
+            this.revenueCents = revenueCents;
+            this.firstItem = firstItem;
+            this.itemLines = itemLines;
+            this.itemProduct = itemProduct;
+            this.itemQuantity = itemQuantity;
+            this.itemRevenueCents = itemRevenueCents;
+            this.locations = locations;
+            this.products = products;
+            this.productCategory = productCategory;
+        }
+
+        /**
+         * Returns these columns when they are large enough, otherwise copies of the columns with double the size.
+         */
+        Columns ensureCapacity(int rows, int items, int locationCount, int productCount) {
+            if (rows <= orderId.length && items <= itemProduct.length && locationCount <= locations.length
+                    && productCount <= products.length) {
+                return this;
+            }
+            int rowCapacity = grow(orderId.length, rows);
+            int itemCapacity = grow(itemProduct.length, items);
+            int productCapacity = grow(products.length, productCount);
+            return new Columns(
+                    Arrays.copyOf(orderId, rowCapacity),
+                    Arrays.copyOf(deliveryDay, rowCapacity),
+                    Arrays.copyOf(orderTimestamp, rowCapacity),
+                    Arrays.copyOf(location, rowCapacity),
+                    Arrays.copyOf(status, rowCapacity),
+                    Arrays.copyOf(revenueCents, rowCapacity),
+                    Arrays.copyOf(firstItem, rowCapacity),
+                    Arrays.copyOf(itemLines, rowCapacity),
+                    Arrays.copyOf(itemProduct, itemCapacity),
+                    Arrays.copyOf(itemQuantity, itemCapacity),
+                    Arrays.copyOf(itemRevenueCents, itemCapacity),
+                    Arrays.copyOf(locations, grow(locations.length, locationCount)),
+                    Arrays.copyOf(products, productCapacity),
+                    Arrays.copyOf(productCategory, productCapacity));
+        }
+
+        private static int grow(int capacity, int needed) {
+            return needed <= capacity ? capacity : Math.max(capacity * 2, needed);
+        }
+    }
+
+    /**
+     * Partial totals of one chunk, indexed by status ordinal, product code and category ordinal.
+     */
+    private static final class Totals {
+        final long[] statusCounts = new long[STATUSES.length];
+        long items;
+        long revenueCents;
+        final long[] productQuantity;
+        final long[] productOrders;
+        final long[] productRevenueCents;
+        final int[] productLastRow;
+        final long[] categoryQuantity = new long[CATEGORIES.length];
+        final long[] categoryOrders = new long[CATEGORIES.length];
+        final long[] categoryRevenueCents = new long[CATEGORIES.length];
+        final int[] categoryLastRow = new int[CATEGORIES.length];
+
+        Totals(int products) {
+            productQuantity = new long[products];
+            productOrders = new long[products];
+            productRevenueCents = new long[products];
+            productLastRow = new int[products];
+            Arrays.fill(productLastRow, -1);
+            Arrays.fill(categoryLastRow, -1);
+        }
+
+        void addOrder(Columns data, int row, byte status) {
+            statusCounts[status]++;
+            revenueCents += data.revenueCents[row];
+            int end = data.firstItem[row] + data.itemLines[row];
+            for (int item = data.firstItem[row]; item < end; item++) {
+                int product = data.itemProduct[item];
+                int quantity = data.itemQuantity[item];
+                long itemCents = data.itemRevenueCents[item];
+                items += quantity;
+
+                productQuantity[product] += quantity;
+                productRevenueCents[product] += itemCents;
+                if (productLastRow[product] != row) {
+                    productLastRow[product] = row;
+                    productOrders[product]++;
+                }
+
+                int category = data.productCategory[product];
+                if (category >= 0) {
+                    categoryQuantity[category] += quantity;
+                    categoryRevenueCents[category] += itemCents;
+                    if (categoryLastRow[category] != row) {
+                        categoryLastRow[category] = row;
+                        categoryOrders[category]++;
+                    }
+                }
+            }
+        }
+
+        Totals merge(Totals other) {
+            sum(statusCounts, other.statusCounts);
+            items += other.items;
+            revenueCents += other.revenueCents;
+            sum(productQuantity, other.productQuantity);
+            sum(productOrders, other.productOrders);
+            sum(productRevenueCents, other.productRevenueCents);
+            sum(categoryQuantity, other.categoryQuantity);
+            sum(categoryOrders, other.categoryOrders);
+            sum(categoryRevenueCents, other.categoryRevenueCents);
+            return this;
+        }
+
+        SalesAggregator toAggregator(Product[] products) {
+            SalesAggregator sales = new SalesAggregator();
+            for (int status = 0; status < STATUSES.length; status++) {
+                sales.addOrders(STATUSES[status], statusCounts[status]);
+            }
+            sales.addItems(items, revenueCents / 100.0);
+            for (int product = 0; product < productOrders.length; product++) {
+                if (productOrders[product] > 0) {
+                    sales.addProductSales(products[product], (int) productQuantity[product],
+                            (int) productOrders[product], productRevenueCents[product] / 100.0);
+                }
+            }
+            for (int category = 0; category < CATEGORIES.length; category++) {
+                sales.addCategorySales(CATEGORIES[category], (int) categoryQuantity[category],
+                        (int) categoryOrders[category], categoryRevenueCents[category] / 100.0);
+            }
+            return sales;
+        }
+    }
+}
@@ -2,12 +2,15 @@ package org.rag4j.nomnom.orders;
 
 import org.rag4j.nomnom.orders.model.*;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -28,57 +31,54 @@ public class OrderController {
     }
     
     /**
-     * Display all orders with optional filtering.
+     * Display a page of orders with optional filtering. A page cursor that cannot be read is a bad request.
      */
     @GetMapping
     public String listOrders(
             @RequestParam(required = false) String location,
             @RequestParam(required = false) OrderStatus status,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "50") int size,
             Model model
     ) {
-        List<Order> orders;
+        OrderService.OrderFilter filter;
         String filterDescription = "All Orders";
         
         // Apply filters
         if (location != null && !location.isBlank()) {
-            orders = orderService.getOrdersByLocation(location);
+            filter = OrderService.OrderFilter.byLocation(location);
             filterDescription = "Orders for " + location;
         } else if (status != null) {
-            orders = orderService.getOrdersByStatus(status);
+            filter = OrderService.OrderFilter.byStatus(status);
             filterDescription = status.getDisplayName() + " Orders";
         } else if (date != null) {
-            orders = orderService.getOrdersByDeliveryDate(date);
+            filter = OrderService.OrderFilter.byDeliveryDate(date);
             filterDescription = "Orders for " + date;
         } else {
-            orders = orderService.getAllOrdersSorted();
+            filter = OrderService.OrderFilter.all();
         }
         
-        // Get unique locations for filter dropdown
-        List<String> locations = orderService.getAllOrders().stream()
-                .map(Order::location)
-                .distinct()
-                .sorted()
-                .toList();
-        
-        // Calculate summary statistics
-        double totalRevenue = orders.stream()
-                .mapToDouble(Order::totalAmount)
-                .sum();
-        
-        int totalItems = orders.stream()
-                .mapToInt(Order::getTotalItemCount)
-                .sum();
+        int pageSize = Math.clamp(size, 1, 500);
+        OrderPage page;
+        try {
+            page = orderService.getOrderPage(filter, after, pageSize);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
         
-        model.addAttribute("orders", orders);
+        model.addAttribute("orders", page.orders());
+        model.addAttribute("page", page);
         model.addAttribute("filterDescription", filterDescription);
-        model.addAttribute("locations", locations);
+        model.addAttribute("locations", orderService.getLocations());
         model.addAttribute("statuses", OrderStatus.values());
-        model.addAttribute("totalRevenue", totalRevenue);
-        model.addAttribute("totalItems", totalItems);
+        model.addAttribute("totalOrders", page.totalOrders());
+        model.addAttribute("totalRevenue", page.totalRevenue());
+        model.addAttribute("totalItems", page.totalItems());
         model.addAttribute("selectedLocation", location);
         model.addAttribute("selectedStatus", status);
         model.addAttribute("selectedDate", date);
+        model.addAttribute("size", pageSize);
         
         return "orders/list";
     }
@@ -149,39 +149,38 @@ public class OrderController {
      * Display analytics by location.
      */
     @GetMapping("/analytics/location/{location}")
-    public String locationAnalytics(@PathVariable String location, Model model) {
+    public String locationAnalytics(
+            @PathVariable String location,
+            @RequestParam(required = false) Integer delivered,
+            Model model
+    ) {
         OrderService.LocationStatistics stats = orderService.getLocationStatistics(location);
         List<Order> locationOrders = orderService.getOrdersByLocation(location);
         
         // Get most popular products for this location
-        List<ProductSalesReport> popularProducts = orderService.getAllOrders().stream()
-                .filter(order -> order.location().equalsIgnoreCase(location))
-                .flatMap(order -> order.items().stream())
-                .collect(java.util.stream.Collectors.groupingBy(
-                        OrderItem::product,
-                        java.util.stream.Collectors.summingInt(OrderItem::quantity)
-                ))
-                .entrySet().stream()
-                .map(entry -> new ProductSalesReport(
-                        entry.getKey(),
-                        entry.getValue(),
-                        (int) locationOrders.stream()
-                                .filter(o -> o.containsProduct(entry.getKey().id()))
-                                .count(),
-                        entry.getValue() * entry.getKey().price()
-                ))
-                .sorted()
-                .limit(10)
-                .toList();
+        List<ProductSalesReport> popularProducts = orderService.getMostPopularProductsForLocation(location, 10);
         
         model.addAttribute("location", location);
         model.addAttribute("stats", stats);
         model.addAttribute("orders", locationOrders);
         model.addAttribute("popularProducts", popularProducts);
+        model.addAttribute("readyOrders", locationOrders.stream()
+                .filter(order -> order.status() == OrderStatus.READY)
+                .count());
+        model.addAttribute("delivered", delivered);
         
         return "orders/location-analytics";
     }
     
+    /**
+     * Mark the ready orders of a location as delivered.
+     */
+    @PostMapping("/analytics/location/{location}/deliver")
+    public String deliverReadyOrders(@PathVariable String location) {
+        int delivered = orderService.deliverReadyOrders(location);
+        return "redirect:/orders/analytics/location/{location}?delivered=" + delivered;
+    }
+    
     /**
      * Display orders by status with counts.
      */
@@ -208,8 +207,10 @@ public class OrderController {
             Model model
     ) {
         List<ProductSalesReport> popularProducts = orderService.getMostPopularProducts(limit);
+        List<ProductSalesReport> trendingProducts = orderService.getTrendingProducts(limit);
         
         model.addAttribute("popularProducts", popularProducts);
+        model.addAttribute("trendingProducts", trendingProducts);
         model.addAttribute("limit", limit);
         
         return "orders/popular-products";
@@ -31,6 +31,10 @@ public class OrderDataInitializer implements ApplicationRunner {
     
     @Override
     public void run(ApplicationArguments args) {
+        if (orderService.getOrderCount() > 0) {
+            logger.info("Orders restored from the order log: {}, skipping sample data", orderService.getOrderCount());
+            return;
+        }
         logger.info("Initializing sample order data...");
         createSampleOrders();
         logger.info("Sample order data initialized. Total orders: {}", orderService.getOrderCount());
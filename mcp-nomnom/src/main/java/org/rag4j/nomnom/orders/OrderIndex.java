@@ -0,0 +1,234 @@
+package org.rag4j.nomnom.orders;
+
+import org.rag4j.nomnom.orders.model.Order;
+import org.rag4j.nomnom.orders.model.OrderStatus;
+import org.rag4j.nomnom.products.model.Category;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Collectors;
+
+/**
+ * Secondary indexes on the stored orders. Every index holds {@link OrderKey}s sorted by order timestamp, the
+ * {@link OrderService} resolves the keys to the current version of the order. A lookup therefore costs the size of
+ * the result instead of a scan over all orders.
+ * <p>
+ * The indexes are concurrent. The order service calls {@link #add}, {@link #replace} and {@link #remove} while
+ * holding the map entry of the order, so changes to the same order are applied one after the other. Posting lists
+ * are created and removed inside a compute on their map, an add never ends up in a list that is being removed.
+ */
+class OrderIndex {
+    private final NavigableSet<OrderKey> byOrderTimestamp = new ConcurrentSkipListSet<>();
+    private final NavigableSet<DeliveryKey> byDeliveryDate = new ConcurrentSkipListSet<>();
+    private final Map<OrderStatus, NavigableSet<OrderKey>> byStatus = new EnumMap<>(OrderStatus.class);
+    private final ConcurrentMap<String, NavigableSet<OrderKey>> byLocation = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, NavigableSet<OrderKey>> byProduct = new ConcurrentHashMap<>();
+    private final Map<Category, NavigableSet<OrderKey>> byCategory = new EnumMap<>(Category.class);
+
+    OrderIndex() {
+        // The enum maps are filled up front and never change, so they can be read without locking
+        for (OrderStatus status : OrderStatus.values()) {
+            byStatus.put(status, new ConcurrentSkipListSet<>());
+        }
+        for (Category category : Category.values()) {
+            byCategory.put(category, new ConcurrentSkipListSet<>());
+        }
+    }
+
+    void add(Order order) {
+        OrderKey key = OrderKey.of(order);
+        byOrderTimestamp.add(key);
+        byDeliveryDate.add(DeliveryKey.of(order));
+        byStatus.get(order.status()).add(key);
+        addPosting(byLocation, locationKey(order.location()), key);
+        for (String productId : productIds(order)) {
+            addPosting(byProduct, productId, key);
+        }
+        for (Category category : categories(order)) {
+            byCategory.get(category).add(key);
+        }
+    }
+
+    void remove(Order order) {
+        removeExcept(order, null);
+    }
+
+    /**
+     * Moves an order to the entries of its new version. The new entries are added before the old ones are removed
+     * and entries that both versions share are left alone, so readers never miss the order in an index it stays in.
+     */
+    void replace(Order previous, Order updated) {
+        add(updated);
+        removeExcept(previous, updated);
+    }
+
+    /**
+     * Removes the entries of an order, except the ones the kept version of the order also has.
+     */
+    private void removeExcept(Order order, Order kept) {
+        OrderKey key = OrderKey.of(order);
+        boolean sameKey = kept != null && key.equals(OrderKey.of(kept));
+        if (!sameKey) {
+            byOrderTimestamp.remove(key);
+        }
+        DeliveryKey deliveryKey = DeliveryKey.of(order);
+        if (!sameKey || !deliveryKey.equals(DeliveryKey.of(kept))) {
+            byDeliveryDate.remove(deliveryKey);
+        }
+        if (!sameKey || order.status() != kept.status()) {
+            byStatus.get(order.status()).remove(key);
+        }
+        String location = locationKey(order.location());
+        if (!sameKey || !location.equals(locationKey(kept.location()))) {
+            removePosting(byLocation, location, key);
+        }
+        Set<String> keptProducts = sameKey ? productIds(kept) : Set.of();
+        for (String productId : productIds(order)) {
+            if (!keptProducts.contains(productId)) {
+                removePosting(byProduct, productId, key);
+            }
+        }
+        Set<Category> keptCategories = sameKey ? categories(kept) : Set.of();
+        for (Category category : categories(order)) {
+            if (!keptCategories.contains(category)) {
+                byCategory.get(category).remove(key);
+            }
+        }
+    }
+
+    /**
+     * All orders, oldest first.
+     */
+    NavigableSet<OrderKey> all() {
+        return byOrderTimestamp;
+    }
+
+    /**
+     * Orders placed from {@code from} up to, but not including, {@code to}, oldest first.
+     */
+    NavigableSet<OrderKey> orderedBetween(LocalDateTime from, LocalDateTime to) {
+        return byOrderTimestamp.subSet(OrderKey.first(from), true, OrderKey.first(to), false);
+    }
+
+    /**
+     * Orders delivered from {@code from} up to and including {@code to}, by delivery date and then order timestamp.
+     */
+    NavigableSet<DeliveryKey> deliveredBetween(LocalDate from, LocalDate to) {
+        return byDeliveryDate.subSet(DeliveryKey.first(from), true, DeliveryKey.first(to.plusDays(1)), false);
+    }
+
+    NavigableSet<OrderKey> withStatus(OrderStatus status) {
+        return byStatus.get(status);
+    }
+
+    NavigableSet<OrderKey> atLocation(String location) {
+        return byLocation.getOrDefault(locationKey(location), emptySet());
+    }
+
+    NavigableSet<OrderKey> containingProduct(String productId) {
+        return byProduct.getOrDefault(productId, emptySet());
+    }
+
+    NavigableSet<OrderKey> containingCategory(String categoryName) {
+        for (Category category : Category.values()) {
+            if (category.name().equalsIgnoreCase(categoryName)) {
+                return byCategory.get(category);
+            }
+        }
+        return emptySet();
+    }
+
+    private static NavigableSet<OrderKey> emptySet() {
+        return Collections.emptyNavigableSet();
+    }
+
+    private static void addPosting(ConcurrentMap<String, NavigableSet<OrderKey>> postings, String value, OrderKey key) {
+        postings.compute(value, (ignored, orderKeys) -> {
+            NavigableSet<OrderKey> result = orderKeys != null ? orderKeys : new ConcurrentSkipListSet<>();
+            result.add(key);
+            return result;
+        });
+    }
+
+    private static void removePosting(ConcurrentMap<String, NavigableSet<OrderKey>> postings, String value,
+                                      OrderKey key) {
+        postings.computeIfPresent(value, (ignored, orderKeys) -> {
+            orderKeys.remove(key);
+            return orderKeys.isEmpty() ? null : orderKeys;
+        });
+    }
+
+    private static String locationKey(String location) {
+        return location.toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> productIds(Order order) {
+        return order.items().stream()
+                .map(item -> item.product().id())
+                .collect(Collectors.toSet());
+    }
+
+    private static Set<Category> categories(Order order) {
+        return order.items().stream()
+                .map(item -> item.product().category())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(() -> EnumSet.noneOf(Category.class)));
+    }
+
+    /**
+     * Position of an order in the timestamp ordered indexes.
+     */
+    record OrderKey(LocalDateTime orderTimestamp, String orderId) implements Comparable<OrderKey> {
+        private static final Comparator<OrderKey> ORDER = Comparator.comparing(OrderKey::orderTimestamp)
+                .thenComparing(OrderKey::orderId);
+
+        static OrderKey of(Order order) {
+            return new OrderKey(order.orderTimestamp(), order.orderId());
+        }
+
+        /**
+         * Sorts before every order placed at the timestamp.
+         */
+        static OrderKey first(LocalDateTime orderTimestamp) {
+            return new OrderKey(orderTimestamp, "");
+        }
+
+        @Override
+        public int compareTo(OrderKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    /**
+     * Position of an order in the delivery date index.
+     */
+    record DeliveryKey(LocalDate deliveryDate, OrderKey orderKey) implements Comparable<DeliveryKey> {
+        private static final Comparator<DeliveryKey> ORDER = Comparator.comparing(DeliveryKey::deliveryDate)
+                .thenComparing(DeliveryKey::orderKey);
+
+        static DeliveryKey of(Order order) {
+            return new DeliveryKey(order.deliveryDate(), OrderKey.of(order));
+        }
+
+        static DeliveryKey first(LocalDate deliveryDate) {
+            return new DeliveryKey(deliveryDate, OrderKey.first(LocalDateTime.MIN));
+        }
+
+        @Override
+        public int compareTo(DeliveryKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+}
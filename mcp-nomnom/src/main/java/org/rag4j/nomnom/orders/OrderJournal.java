@@ -0,0 +1,33 @@
+package org.rag4j.nomnom.orders;
+
+import org.rag4j.nomnom.orders.model.Order;
+import org.rag4j.nomnom.orders.model.OrderStatus;
+
+/**
+ * Receives every change to the stored orders, in the order the changes are applied. The {@link OrderService} calls
+ * the journal while holding the map entry of the order, implementations must not block.
+ */
+public interface OrderJournal {
+    OrderJournal NONE = new OrderJournal() {
+        @Override
+        public void stored(Order order) {
+        }
+
+        @Override
+        public void statusChanged(String orderId, OrderStatus status) {
+        }
+
+        @Override
+        public void deleted(String orderId) {
+        }
+    };
+
+    /**
+     * A new order, or a new version of an existing order.
+     */
+    void stored(Order order);
+
+    void statusChanged(String orderId, OrderStatus status);
+
+    void deleted(String orderId);
+}
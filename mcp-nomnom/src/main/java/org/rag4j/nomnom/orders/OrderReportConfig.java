@@ -0,0 +1,24 @@
+package org.rag4j.nomnom.orders;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Creates the fork-join pool for report scans and hands it to the order service, see {@code nomnom.reports}.
+ */
+@Configuration
+@EnableConfigurationProperties(OrderReportProperties.class)
+public class OrderReportConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool orderReportPool(OrderReportProperties properties, OrderService orderService) {
+        ForkJoinPool pool = properties.parallelism() > 0
+                ? new ForkJoinPool(properties.parallelism())
+                : ForkJoinPool.commonPool();
+        orderService.setReportParallelism(pool, properties.parallelThreshold());
+        return pool;
+    }
+}
@@ -0,0 +1,24 @@
+package org.rag4j.nomnom.orders;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration of the report scans over the column store.
+ *
+ * @param parallelism       threads that scan the orders of one report, 0 uses the common fork-join pool
+ * @param parallelThreshold number of orders from which a scan runs in parallel, smaller scans use one thread
+ */
+@ConfigurationProperties(prefix = "nomnom.reports")
+public record OrderReportProperties(Integer parallelism, Integer parallelThreshold) {
+
+    public OrderReportProperties {
+        parallelism = parallelism == null ? 0 : parallelism;
+        parallelThreshold = parallelThreshold == null ? OrderColumns.DEFAULT_PARALLEL_THRESHOLD : parallelThreshold;
+        if (parallelism < 0) {
+            throw new IllegalArgumentException("Report parallelism must be at least 0: " + parallelism);
+        }
+        if (parallelThreshold < 1) {
+            throw new IllegalArgumentException("Report parallel threshold must be at least 1: " + parallelThreshold);
+        }
+    }
+}
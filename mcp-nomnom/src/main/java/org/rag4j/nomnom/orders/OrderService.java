@@ -1,16 +1,20 @@
 package org.rag4j.nomnom.orders;
 
 import org.rag4j.nomnom.orders.model.*;
-import org.rag4j.nomnom.products.model.Product;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.time.Clock;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 /**
  * Service for managing orders with storage, filtering, and reporting capabilities.
@@ -21,13 +25,108 @@ public class OrderService {
     
     // In-memory storage for orders (thread-safe)
     private final Map<String, Order> orders = new ConcurrentHashMap<>();
+
+    // Secondary indexes, running totals and the column store, only changed while holding the map entry of the order
+    private final OrderIndex index = new OrderIndex();
+    private final OrderAnalytics analytics = new OrderAnalytics();
+    private final OrderColumns columns = new OrderColumns();
+    private final TopProducts topProducts;
+    private volatile OrderJournal journal = OrderJournal.NONE;
+    
+    public OrderService() {
+        this(Clock.systemDefaultZone());
+    }
+    
+    /**
+     * Creates the service with the clock that decides which orders were placed in the last seven days.
+     */
+    OrderService(Clock clock) {
+        this.topProducts = new TopProducts(clock);
+    }
+    
+    /**
+     * Set the journal that records every change from now on.
+     */
+    public void setJournal(OrderJournal journal) {
+        this.journal = journal;
+    }
+    
+    /**
+     * Set the pool for report scans over the column store and the number of orders from which a scan runs in
+     * parallel in that pool. Smaller scans run on the calling thread.
+     */
+    public void setReportParallelism(ForkJoinPool pool, int parallelThreshold) {
+        if (parallelThreshold < 1) {
+            throw new IllegalArgumentException("Parallel threshold must be at least 1: " + parallelThreshold);
+        }
+        columns.useParallelism(pool, parallelThreshold);
+    }
     
     /**
      * Store a new order in the system.
      */
     public Order storeOrder(Order order) {
         logger.info("Storing order: {} for location: {}", order.orderId(), order.location());
-        orders.put(order.orderId(), order);
+        store(order);
+        return order;
+    }
+    
+    /**
+     * Store a batch of new orders, for imports. An order with the id of a stored order is not stored, the stored
+     * order stays as it is; the ids of those orders are returned. Logs one line for the batch instead of one per
+     * order.
+     */
+    public Set<String> storeNewOrders(Collection<Order> batch) {
+        Set<String> existing = new HashSet<>();
+        inTimestampOrder(batch).forEachOrdered(order -> {
+            if (orders.computeIfAbsent(order.orderId(), orderId -> added(order)) != order) {
+                existing.add(order.orderId());
+            }
+        });
+        logger.info("Stored a batch of {} new orders", batch.size() - existing.size());
+        return existing;
+    }
+    
+    /**
+     * Store orders restored from a journal, without writing them to the journal again.
+     */
+    public void restoreOrders(Collection<Order> restored) {
+        if (journal != OrderJournal.NONE) {
+            throw new IllegalStateException("Orders must be restored before the journal is set");
+        }
+        inTimestampOrder(restored).forEachOrdered(this::store);
+        logger.info("Restored {} orders", restored.size());
+    }
+    
+    private static Stream<Order> inTimestampOrder(Collection<Order> batch) {
+        // In timestamp order the index inserts hit neighbouring positions of the skip lists, which is much faster
+        // than random order
+        return batch.stream().sorted(Comparator.comparing(Order::orderTimestamp).thenComparing(Order::orderId));
+    }
+    
+    private void store(Order order) {
+        orders.compute(order.orderId(), (orderId, existingOrder) -> {
+            if (existingOrder == null) {
+                return added(order);
+            }
+            index.replace(existingOrder, order);
+            analytics.replace(existingOrder, order);
+            columns.replace(existingOrder, order);
+            topProducts.replace(existingOrder, order);
+            journal.stored(order);
+            return order;
+        });
+    }
+    
+    /**
+     * Adds a new order to the indexes and totals, called while holding its map entry.
+     */
+    private Order added(Order order) {
+        index.add(order);
+        analytics.add(order);
+        columns.add(order);
+        topProducts.add(order);
+        journal.stored(order);
         return order;
     }
     
@@ -62,10 +161,72 @@ public class OrderService {
     }
     
     /**
-     * Update order status.
+     * Update order status. Setting the status the order already has leaves the order as it is.
+     *
+     * @throws IllegalStateException when the order may not change to the new status, see
+     *                               {@link OrderStatus#canChangeTo(OrderStatus)}
      */
     public Optional<Order> updateOrderStatus(String orderId, OrderStatus newStatus) {
-        return getOrderById(orderId).map(existingOrder -> {
+        return updateOrderStatus(orderId, null, newStatus);
+    }
+    
+    /**
+     * Update order status only when the order still has the expected status, for callers that decided on the change
+     * after reading the order. A null expected status accepts any status. Returns empty when the order does not
+     * exist or its status changed in the meantime.
+     *
+     * @throws IllegalStateException when the order may not change to the new status
+     */
+    public Optional<Order> updateOrderStatus(String orderId, OrderStatus expectedStatus, OrderStatus newStatus) {
+        Optional<StatusChange> change = changeStatus(orderId, expectedStatus, newStatus, null);
+        if (change.filter(StatusChange::changed).isPresent()) {
+            logger.info("Updated order {} status to {}", orderId, newStatus);
+        }
+        return change.map(StatusChange::order);
+    }
+    
+    /**
+     * Mark all ready orders for a location as delivered, the location is matched ignoring case. The orders of the
+     * location are checked against the ready orders, so orders at other locations are not visited. Each order is
+     * changed on its own, other updates keep going while this runs and an order that changed in the meantime is
+     * skipped.
+     *
+     * @return the number of delivered orders
+     */
+    public int deliverReadyOrders(String location) {
+        int delivered = 0;
+        NavigableSet<OrderIndex.OrderKey> ready = index.withStatus(OrderStatus.READY);
+        for (OrderIndex.OrderKey key : index.atLocation(location)) {
+            if (ready.contains(key)
+                    && changeStatus(key.orderId(), OrderStatus.READY, OrderStatus.DELIVERED, location).isPresent()) {
+                delivered++;
+            }
+        }
+        logger.info("Delivered {} ready orders for location {}", delivered, location);
+        return delivered;
+    }
+    
+    /**
+     * Changes the status within the map entry of the order, so the check of the current status and the change
+     * are one step. A null expected status or location accepts any. Empty when the order does not exist or does not
+     * have the expected status or location.
+     */
+    private Optional<StatusChange> changeStatus(String orderId, OrderStatus expectedStatus, OrderStatus newStatus,
+                                         String location) {
+        StatusChange[] change = new StatusChange[1];
+        orders.computeIfPresent(orderId, (id, existingOrder) -> {
+            if (expectedStatus != null && existingOrder.status() != expectedStatus
+                    || location != null && !existingOrder.location().equalsIgnoreCase(location)) {
+                return existingOrder;
+            }
+            if (existingOrder.status() == newStatus) {
+                change[0] = new StatusChange(existingOrder, false);
+                return existingOrder;
+            }
+            if (!existingOrder.status().canChangeTo(newStatus)) {
+                throw new IllegalStateException("Order %s cannot change from %s to %s"
+                        .formatted(orderId, existingOrder.status(), newStatus));
+            }
             Order updatedOrder = new Order(
                     existingOrder.orderId(),
                     existingOrder.location(),
@@ -76,21 +237,41 @@ public class OrderService {
                     newStatus,
                     existingOrder.totalAmount()
             );
-            orders.put(orderId, updatedOrder);
-            logger.info("Updated order {} status to {}", orderId, newStatus);
+            index.replace(existingOrder, updatedOrder);
+            analytics.replace(existingOrder, updatedOrder);
+            columns.replace(existingOrder, updatedOrder);
+            topProducts.replace(existingOrder, updatedOrder);
+            journal.statusChanged(orderId, newStatus);
+            change[0] = new StatusChange(updatedOrder, true);
             return updatedOrder;
         });
+        return Optional.ofNullable(change[0]);
+    }
+    
+    /**
+     * The order after a status change, not changed when it already had the new status.
+     */
+    private record StatusChange(Order order, boolean changed) {
     }
     
     /**
      * Delete an order by ID.
      */
     public boolean deleteOrder(String orderId) {
-        boolean removed = orders.remove(orderId) != null;
-        if (removed) {
+        boolean[] removed = new boolean[1];
+        orders.computeIfPresent(orderId, (id, existingOrder) -> {
+            index.remove(existingOrder);
+            analytics.remove(existingOrder);
+            columns.remove(existingOrder);
+            topProducts.remove(existingOrder);
+            journal.deleted(orderId);
+            removed[0] = true;
+            return null;
+        });
+        if (removed[0]) {
             logger.info("Deleted order: {}", orderId);
         }
-        return removed;
+        return removed[0];
     }
     
     // ===== LISTING AND FILTERING =====
@@ -106,9 +287,7 @@ public class OrderService {
      * Get orders sorted by date (newest first).
      */
     public List<Order> getAllOrdersSorted() {
-        return orders.values().stream()
-                .sorted(Comparator.comparing(Order::orderTimestamp).reversed())
-                .toList();
+        return resolve(index.all().descendingSet(), order -> true);
     }
     
     /**
@@ -116,181 +295,254 @@ public class OrderService {
      */
     public List<Order> getOrdersByDateRange(LocalDate startDate, LocalDate endDate) {
         logger.info("Filtering orders by date range: {} to {}", startDate, endDate);
-        return orders.values().stream()
-                .filter(order -> !order.deliveryDate().isBefore(startDate) 
-                        && !order.deliveryDate().isAfter(endDate))
-                .sorted(Comparator.comparing(Order::deliveryDate))
-                .toList();
+        if (startDate.isAfter(endDate)) {
+            return List.of();
+        }
+        return resolve(index.deliveredBetween(startDate, endDate).stream().map(OrderIndex.DeliveryKey::orderKey)
+                        .toList(),
+                order -> !order.deliveryDate().isBefore(startDate) && !order.deliveryDate().isAfter(endDate));
     }
     
     /**
      * Filter orders by specific delivery date.
      */
     public List<Order> getOrdersByDeliveryDate(LocalDate date) {
-        return orders.values().stream()
-                .filter(order -> order.deliveryDate().equals(date))
-                .sorted(Comparator.comparing(Order::orderTimestamp))
-                .toList();
+        return resolve(index.deliveredBetween(date, date).stream().map(OrderIndex.DeliveryKey::orderKey).toList(),
+                order -> order.deliveryDate().equals(date));
     }
     
     /**
      * Filter orders by order date (timestamp).
      */
     public List<Order> getOrdersByOrderDate(LocalDate date) {
-        return orders.values().stream()
-                .filter(order -> order.orderTimestamp().toLocalDate().equals(date))
-                .sorted(Comparator.comparing(Order::orderTimestamp))
-                .toList();
+        return resolve(index.orderedBetween(date.atStartOfDay(), date.plusDays(1).atStartOfDay()), order -> true);
     }
     
     /**
      * Filter orders by location.
      */
     public List<Order> getOrdersByLocation(String location) {
-        return orders.values().stream()
-                .filter(order -> order.location().equalsIgnoreCase(location))
-                .sorted(Comparator.comparing(Order::orderTimestamp).reversed())
-                .toList();
+        return resolve(index.atLocation(location).descendingSet(),
+                order -> order.location().equalsIgnoreCase(location));
     }
     
     /**
      * Filter orders by status.
      */
     public List<Order> getOrdersByStatus(OrderStatus status) {
-        return orders.values().stream()
-                .filter(order -> order.status() == status)
-                .sorted(Comparator.comparing(Order::orderTimestamp).reversed())
-                .toList();
+        return resolve(index.withStatus(status).descendingSet(), order -> order.status() == status);
     }
     
     /**
      * Filter orders containing a specific product.
      */
     public List<Order> getOrdersContainingProduct(String productId) {
-        return orders.values().stream()
-                .filter(order -> order.containsProduct(productId))
-                .sorted(Comparator.comparing(Order::orderTimestamp).reversed())
-                .toList();
+        return resolve(index.containingProduct(productId).descendingSet(), order -> order.containsProduct(productId));
     }
     
     /**
      * Filter orders containing products from a specific category.
      */
     public List<Order> getOrdersContainingCategory(String categoryName) {
-        return orders.values().stream()
-                .filter(order -> order.containsCategory(categoryName))
-                .sorted(Comparator.comparing(Order::orderTimestamp).reversed())
-                .toList();
+        return resolve(index.containingCategory(categoryName).descendingSet(),
+                order -> order.containsCategory(categoryName));
+    }
+    
+    /**
+     * Looks up the current version of the orders in an index. An order can change between reading the index and
+     * the lookup, the check drops orders that no longer match the filter.
+     */
+    private List<Order> resolve(Collection<OrderIndex.OrderKey> keys, Predicate<Order> stillMatches) {
+        List<Order> result = new ArrayList<>();
+        for (OrderIndex.OrderKey key : keys) {
+            Order order = resolve(key, stillMatches);
+            if (order != null) {
+                result.add(order);
+            }
+        }
+        return result;
+    }
+    
+    private Order resolve(OrderIndex.OrderKey key, Predicate<Order> stillMatches) {
+        Order order = orders.get(key.orderId());
+        if (order != null && order.orderTimestamp().equals(key.orderTimestamp()) && stillMatches.test(order)) {
+            return order;
+        }
+        return null;
+    }
+    
+    // ===== PAGING =====
+    
+    /**
+     * Get a page of orders, newest first. Pages are found by position in the sorted indexes: the cursor holds the
+     * order timestamp and id of the last order of the previous page, so a page costs the same at any depth and
+     * orders stored in the meantime do not shift the pages. The totals come from the running totals.
+     *
+     * @param after the {@link OrderPage#nextCursor()} of the previous page, or null or blank for the first page
+     * @throws IllegalArgumentException when the cursor cannot be read
+     */
+    public OrderPage getOrderPage(OrderFilter filter, String after, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+        OrderIndex.OrderKey before = after != null && !after.isBlank() ? parseCursor(after) : null;
+        List<Order> page;
+        SalesAggregator totals;
+        if (filter.location() != null) {
+            String location = filter.location();
+            page = newestFirst(index.atLocation(location), before, Function.identity(),
+                    order -> order.location().equalsIgnoreCase(location), size + 1);
+            totals = analytics.atLocation(location);
+        } else if (filter.status() != null) {
+            OrderStatus status = filter.status();
+            page = newestFirst(index.withStatus(status), before, Function.identity(),
+                    order -> order.status() == status, size + 1);
+            totals = analytics.withStatus(status);
+        } else if (filter.deliveryDate() != null) {
+            LocalDate date = filter.deliveryDate();
+            page = newestFirst(index.deliveredBetween(date, date),
+                    before != null ? new OrderIndex.DeliveryKey(date, before) : null, OrderIndex.DeliveryKey::orderKey,
+                    order -> order.deliveryDate().equals(date), size + 1);
+            totals = analytics.deliveredBetween(date, date);
+        } else {
+            page = newestFirst(index.all(), before, Function.identity(), order -> true, size + 1);
+            totals = analytics.overall();
+        }
+        
+        // One order more than the page size was read to find out if there is a next page
+        String nextCursor = null;
+        if (page.size() > size) {
+            page = page.subList(0, size);
+            nextCursor = cursorOf(page.getLast());
+        }
+        return new OrderPage(page, nextCursor, totals.orderCount(), totals.itemCount(), totals.revenue());
+    }
+    
+    /**
+     * The matching orders in an index from newest to oldest, starting below the key of the previous page.
+     */
+    private <K> List<Order> newestFirst(NavigableSet<K> keys, K before, Function<K, OrderIndex.OrderKey> orderKey,
+                                        Predicate<Order> stillMatches, int limit) {
+        NavigableSet<K> older = before != null ? keys.headSet(before, false) : keys;
+        List<Order> result = new ArrayList<>(limit);
+        Iterator<K> iterator = older.descendingIterator();
+        while (result.size() < limit && iterator.hasNext()) {
+            Order order = resolve(orderKey.apply(iterator.next()), stillMatches);
+            if (order != null) {
+                result.add(order);
+            }
+        }
+        return result;
+    }
+    
+    private static String cursorOf(Order order) {
+        return order.orderTimestamp() + "_" + order.orderId();
+    }
+    
+    private static OrderIndex.OrderKey parseCursor(String cursor) {
+        int separator = cursor.indexOf('_');
+        try {
+            if (separator > 0) {
+                return new OrderIndex.OrderKey(LocalDateTime.parse(cursor.substring(0, separator)),
+                        cursor.substring(separator + 1));
+            }
+        } catch (DateTimeParseException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid page cursor: " + cursor);
+    }
+    
+    /**
+     * Get the distinct locations of the orders, sorted by name.
+     */
+    public List<String> getLocations() {
+        return analytics.locations();
+    }
+    
+    /**
+     * Selects the orders of a page: all orders or the orders of one location, status or delivery date. The location
+     * is matched ignoring case.
+     */
+    public record OrderFilter(String location, OrderStatus status, LocalDate deliveryDate) {
+        
+        public OrderFilter {
+            if ((location != null ? 1 : 0) + (status != null ? 1 : 0) + (deliveryDate != null ? 1 : 0) > 1) {
+                throw new IllegalArgumentException("Filter on one of location, status or delivery date");
+            }
+        }
+        
+        public static OrderFilter all() {
+            return new OrderFilter(null, null, null);
+        }
+        
+        public static OrderFilter byLocation(String location) {
+            return new OrderFilter(location, null, null);
+        }
+        
+        public static OrderFilter byStatus(OrderStatus status) {
+            return new OrderFilter(null, status, null);
+        }
+        
+        public static OrderFilter byDeliveryDate(LocalDate deliveryDate) {
+            return new OrderFilter(null, null, deliveryDate);
+        }
     }
     
     /**
      * Get orders with minimum total amount.
      */
     public List<Order> getOrdersWithMinAmount(double minAmount) {
-        return orders.values().stream()
-                .filter(order -> order.totalAmount() >= minAmount)
-                .sorted(Comparator.comparing(Order::totalAmount).reversed())
-                .toList();
+        // The columns hold rounded cents, rounding the minimum down keeps every match, the check drops the extras
+        List<Order> result = new ArrayList<>();
+        for (String orderId : columns.orderIdsWithMinRevenue((long) Math.floor(minAmount * 100))) {
+            Order order = orders.get(orderId);
+            if (order != null && order.totalAmount() >= minAmount) {
+                result.add(order);
+            }
+        }
+        return result;
     }
     
     // ===== REPORTING AND ANALYTICS =====
+    // Reports read the running totals of OrderAnalytics, their cost depends on the number of products, categories
+    // and days in the report, not on the number of orders. Combinations the running totals do not cover scan the
+    // primitive columns of OrderColumns as one fork-join reduction, see setReportParallelism.
     
     /**
      * Generate comprehensive summary report for all orders.
      */
     public OrderSummaryReport generateSummaryReport() {
-        return generateSummaryReport(getAllOrders());
+        return generateSummaryReport(analytics.overall(), null, null);
     }
     
     /**
      * Generate summary report for a specific date range.
      */
     public OrderSummaryReport generateSummaryReportForDateRange(LocalDate startDate, LocalDate endDate) {
-        List<Order> filteredOrders = getOrdersByDateRange(startDate, endDate);
-        return generateSummaryReport(filteredOrders, startDate, endDate);
+        return generateSummaryReport(analytics.deliveredBetween(startDate, endDate), startDate, endDate);
     }
     
     /**
-     * Generate summary report for a list of orders.
+     * Generate summary report for the orders of a location in a date range.
      */
-    private OrderSummaryReport generateSummaryReport(List<Order> orderList) {
-        return generateSummaryReport(orderList, null, null);
+    public OrderSummaryReport generateSummaryReportForLocation(String location, LocalDate startDate,
+                                                               LocalDate endDate) {
+        return generateSummaryReport(columns.aggregate(startDate, endDate, location), startDate, endDate);
     }
     
     /**
-     * Generate summary report for a list of orders with date range.
+     * Generate summary report from collected totals with date range.
      */
-    private OrderSummaryReport generateSummaryReport(List<Order> orderList, LocalDate startDate, LocalDate endDate) {
-        logger.info("Generating summary report for {} orders", orderList.size());
-        
-        int totalOrders = orderList.size();
-        
-        if (totalOrders == 0) {
-            return new OrderSummaryReport(
-                    0, 0, 0.0, 0.0, 0.0, 
-                    startDate, endDate, 
-                    List.of(), List.of(),
-                    new OrderSummaryReport.OrdersByStatus(0, 0, 0, 0, 0, 0)
-            );
-        }
-        
-        // Calculate totals
-        int totalItemsSold = orderList.stream()
-                .mapToInt(Order::getTotalItemCount)
-                .sum();
-        
-        double totalRevenue = orderList.stream()
-                .mapToDouble(Order::totalAmount)
-                .sum();
-        
-        double averageOrderValue = totalRevenue / totalOrders;
-        double averageItemsPerOrder = (double) totalItemsSold / totalOrders;
-        
-        // Orders by status
-        OrderSummaryReport.OrdersByStatus ordersByStatus = new OrderSummaryReport.OrdersByStatus(
-                (int) orderList.stream().filter(o -> o.status() == OrderStatus.PENDING).count(),
-                (int) orderList.stream().filter(o -> o.status() == OrderStatus.CONFIRMED).count(),
-                (int) orderList.stream().filter(o -> o.status() == OrderStatus.PROCESSING).count(),
-                (int) orderList.stream().filter(o -> o.status() == OrderStatus.READY).count(),
-                (int) orderList.stream().filter(o -> o.status() == OrderStatus.DELIVERED).count(),
-                (int) orderList.stream().filter(o -> o.status() == OrderStatus.CANCELLED).count()
-        );
-        
-        // Top products and category breakdown
-        List<ProductSalesReport> topProducts = generateProductSalesReports(orderList)
-                .stream()
-                .sorted()
-                .limit(10)
-                .toList();
-        
-        List<CategorySalesReport> categoryBreakdown = generateCategorySalesReports(orderList)
-                .stream()
-                .sorted()
-                .toList();
-        
-        return new OrderSummaryReport(
-                totalOrders,
-                totalItemsSold,
-                totalRevenue,
-                averageOrderValue,
-                averageItemsPerOrder,
-                startDate,
-                endDate,
-                topProducts,
-                categoryBreakdown,
-                ordersByStatus
-        );
+    private OrderSummaryReport generateSummaryReport(SalesAggregator sales, LocalDate startDate, LocalDate endDate) {
+        logger.info("Generating summary report for {} orders", sales.orderCount());
+        return sales.summaryReport(startDate, endDate);
     }
     
     /**
      * Get most popular products across all orders.
      */
     public List<ProductSalesReport> getMostPopularProducts(int limit) {
-        return generateProductSalesReports(getAllOrders())
-                .stream()
-                .sorted()
-                .limit(limit)
-                .toList();
+        return topProducts.overall(limit);
     }
     
     /**
@@ -298,50 +550,28 @@ public class OrderService {
      */
     public List<ProductSalesReport> getMostPopularProductsForDateRange(
             LocalDate startDate, LocalDate endDate, int limit) {
-        List<Order> filteredOrders = getOrdersByDateRange(startDate, endDate);
-        return generateProductSalesReports(filteredOrders)
-                .stream()
-                .sorted()
-                .limit(limit)
-                .toList();
+        return mostPopular(analytics.deliveredBetween(startDate, endDate), limit);
     }
     
     /**
-     * Generate product sales reports from a list of orders.
+     * Get most popular products for a location.
      */
-    private List<ProductSalesReport> generateProductSalesReports(List<Order> orderList) {
-        // Group items by product
-        Map<Product, List<OrderItem>> itemsByProduct = orderList.stream()
-                .flatMap(order -> order.items().stream())
-                .collect(Collectors.groupingBy(OrderItem::product));
-        
-        // Generate reports
-        return itemsByProduct.entrySet().stream()
-                .map(entry -> {
-                    Product product = entry.getKey();
-                    List<OrderItem> items = entry.getValue();
-                    
-                    int totalQuantity = items.stream()
-                            .mapToInt(OrderItem::quantity)
-                            .sum();
-                    
-                    double totalRevenue = items.stream()
-                            .mapToDouble(OrderItem::getTotalPrice)
-                            .sum();
-                    
-                    // Count distinct orders containing this product
-                    Set<String> distinctOrders = orderList.stream()
-                            .filter(order -> order.containsProduct(product.id()))
-                            .map(Order::orderId)
-                            .collect(Collectors.toSet());
-                    
-                    return new ProductSalesReport(
-                            product,
-                            totalQuantity,
-                            distinctOrders.size(),
-                            totalRevenue
-                    );
-                })
+    public List<ProductSalesReport> getMostPopularProductsForLocation(String location, int limit) {
+        return topProducts.atLocation(location, limit);
+    }
+    
+    /**
+     * Get most popular products of the orders placed in the last seven days.
+     */
+    public List<ProductSalesReport> getTrendingProducts(int limit) {
+        return topProducts.recent(limit);
+    }
+    
+    private List<ProductSalesReport> mostPopular(SalesAggregator sales, int limit) {
+        return sales.productReports()
+                .stream()
+                .sorted()
+                .limit(limit)
                 .toList();
     }
     
@@ -349,7 +579,7 @@ public class OrderService {
      * Generate category sales reports.
      */
     public List<CategorySalesReport> getCategorySalesReports() {
-        return generateCategorySalesReports(getAllOrders());
+        return analytics.overall().categoryReports();
     }
     
     /**
@@ -357,113 +587,71 @@ public class OrderService {
      */
     public List<CategorySalesReport> getCategorySalesReportsForDateRange(
             LocalDate startDate, LocalDate endDate) {
-        List<Order> filteredOrders = getOrdersByDateRange(startDate, endDate);
-        return generateCategorySalesReports(filteredOrders);
-    }
-    
-    /**
-     * Generate category sales reports from a list of orders.
-     */
-    private List<CategorySalesReport> generateCategorySalesReports(List<Order> orderList) {
-        // Group items by category
-        Map<String, List<OrderItem>> itemsByCategory = orderList.stream()
-                .flatMap(order -> order.items().stream())
-                .collect(Collectors.groupingBy(item -> item.product().category().name()));
-        
-        // Generate reports
-        return itemsByCategory.entrySet().stream()
-                .map(entry -> {
-                    String categoryName = entry.getKey();
-                    List<OrderItem> items = entry.getValue();
-                    
-                    int totalQuantity = items.stream()
-                            .mapToInt(OrderItem::quantity)
-                            .sum();
-                    
-                    double totalRevenue = items.stream()
-                            .mapToDouble(OrderItem::getTotalPrice)
-                            .sum();
-                    
-                    // Count distinct orders and unique products
-                    Set<String> distinctOrders = orderList.stream()
-                            .filter(order -> order.containsCategory(categoryName))
-                            .map(Order::orderId)
-                            .collect(Collectors.toSet());
-                    
-                    Set<String> uniqueProducts = items.stream()
-                            .map(item -> item.product().id())
-                            .collect(Collectors.toSet());
-                    
-                    return new CategorySalesReport(
-                            categoryName,
-                            totalQuantity,
-                            distinctOrders.size(),
-                            uniqueProducts.size(),
-                            totalRevenue
-                    );
-                })
-                .sorted()
-                .toList();
+        return analytics.deliveredBetween(startDate, endDate).categoryReports();
     }
     
     /**
      * Get total revenue for all orders.
      */
     public double getTotalRevenue() {
-        return orders.values().stream()
-                .mapToDouble(Order::totalAmount)
-                .sum();
+        return analytics.totalRevenue();
     }
     
     /**
      * Get total revenue for a date range.
      */
     public double getTotalRevenueForDateRange(LocalDate startDate, LocalDate endDate) {
-        return getOrdersByDateRange(startDate, endDate).stream()
-                .mapToDouble(Order::totalAmount)
-                .sum();
+        return analytics.deliveredBetween(startDate, endDate).revenue();
     }
     
     /**
      * Get total revenue by location.
      */
     public Map<String, Double> getRevenueByLocation() {
-        return orders.values().stream()
-                .collect(Collectors.groupingBy(
-                        Order::location,
-                        Collectors.summingDouble(Order::totalAmount)
-                ));
+        return analytics.revenueByLocation();
     }
     
     /**
      * Get order count by location.
      */
     public Map<String, Long> getOrderCountByLocation() {
-        return orders.values().stream()
-                .collect(Collectors.groupingBy(
-                        Order::location,
-                        Collectors.counting()
-                ));
+        return analytics.orderCountByLocation();
+    }
+    
+    /**
+     * Get total revenue by location for a date range.
+     */
+    public Map<String, Double> getRevenueByLocationForDateRange(LocalDate startDate, LocalDate endDate) {
+        Map<String, Double> revenue = new LinkedHashMap<>();
+        columns.totalsByLocation(startDate, endDate)
+                .forEach((location, totals) -> revenue.put(location, totals.revenueCents() / 100.0));
+        return revenue;
+    }
+    
+    /**
+     * Get order count by location for a date range.
+     */
+    public Map<String, Long> getOrderCountByLocationForDateRange(LocalDate startDate, LocalDate endDate) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        columns.totalsByLocation(startDate, endDate)
+                .forEach((location, totals) -> counts.put(location, totals.orders()));
+        return counts;
     }
     
     /**
      * Get statistics for a specific location.
      */
     public LocationStatistics getLocationStatistics(String location) {
-        List<Order> locationOrders = getOrdersByLocation(location);
+        SalesAggregator sales = analytics.atLocation(location);
         
-        if (locationOrders.isEmpty()) {
+        if (sales.orderCount() == 0) {
             return new LocationStatistics(location, 0, 0.0, 0.0, 0);
         }
         
-        int orderCount = locationOrders.size();
-        double totalRevenue = locationOrders.stream()
-                .mapToDouble(Order::totalAmount)
-                .sum();
+        int orderCount = (int) sales.orderCount();
+        double totalRevenue = sales.revenue();
         double averageOrderValue = totalRevenue / orderCount;
-        int totalItems = locationOrders.stream()
-                .mapToInt(Order::getTotalItemCount)
-                .sum();
+        int totalItems = (int) sales.itemCount();
         
         return new LocationStatistics(location, orderCount, totalRevenue, averageOrderValue, totalItems);
     }
@@ -484,7 +672,16 @@ public class OrderService {
      */
     public void clearAllOrders() {
         logger.warn("Clearing all orders from the system");
-        orders.clear();
+        for (String orderId : orders.keySet()) {
+            orders.computeIfPresent(orderId, (id, existingOrder) -> {
+                index.remove(existingOrder);
+                analytics.remove(existingOrder);
+                columns.remove(existingOrder);
+                topProducts.remove(existingOrder);
+                journal.deleted(id);
+                return null;
+            });
+        }
     }
     
     /**
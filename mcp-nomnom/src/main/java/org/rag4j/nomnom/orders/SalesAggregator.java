@@ -0,0 +1,228 @@
+package org.rag4j.nomnom.orders;
+
+import org.rag4j.nomnom.orders.model.CategorySalesReport;
+import org.rag4j.nomnom.orders.model.Order;
+import org.rag4j.nomnom.orders.model.OrderItem;
+import org.rag4j.nomnom.orders.model.OrderStatus;
+import org.rag4j.nomnom.orders.model.OrderSummaryReport;
+import org.rag4j.nomnom.orders.model.ProductSalesReport;
+import org.rag4j.nomnom.products.model.Category;
+import org.rag4j.nomnom.products.model.Product;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Collects order totals and product and category sales in a single pass over the orders. Every product id gets a
+ * slot and every category is addressed by its ordinal, the totals are kept in primitive arrays indexed by slot. A
+ * product that changed its price or description keeps its slot and is reported as it was last added.
+ * <p>
+ * Distinct orders are counted without sets: each order gets a sequence number, a product or category counts the
+ * order when the last order it was seen in has a different number. Totals that were already counted elsewhere, like
+ * the running totals of {@link OrderAnalytics}, are added with the {@code add...} methods that take counts.
+ * Not thread-safe, use one aggregator per report.
+ */
+class SalesAggregator {
+    private static final Category[] CATEGORIES = Category.values();
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    private long orderCount;
+    private long itemCount;
+    private double revenue;
+    private final long[] statusCounts = new long[STATUSES.length];
+
+    private final Map<String, Integer> productSlots = new HashMap<>();
+    private final List<Product> products = new ArrayList<>();
+    private int[] productQuantity = new int[16];
+    private double[] productRevenue = new double[16];
+    private int[] productOrders = new int[16];
+    private int[] productLastOrder = new int[16];
+
+    private final int[] categoryQuantity = new int[CATEGORIES.length];
+    private final double[] categoryRevenue = new double[CATEGORIES.length];
+    private final int[] categoryOrders = new int[CATEGORIES.length];
+    private final int[] categoryLastOrder = new int[CATEGORIES.length];
+
+    private int orderSequence;
+
+    static SalesAggregator of(Iterable<Order> orders) {
+        SalesAggregator aggregator = new SalesAggregator();
+        for (Order order : orders) {
+            aggregator.add(order);
+        }
+        return aggregator;
+    }
+
+    void add(Order order) {
+        orderCount++;
+        revenue += order.totalAmount();
+        statusCounts[order.status().ordinal()]++;
+
+        int orderNumber = ++orderSequence;
+        for (OrderItem item : order.items()) {
+            Product product = item.product();
+            double itemRevenue = item.getTotalPrice();
+            itemCount += item.quantity();
+
+            int slot = slotOf(product, true);
+            productQuantity[slot] += item.quantity();
+            productRevenue[slot] += itemRevenue;
+            if (productLastOrder[slot] != orderNumber) {
+                productLastOrder[slot] = orderNumber;
+                productOrders[slot]++;
+            }
+
+            int category = product.category().ordinal();
+            categoryQuantity[category] += item.quantity();
+            categoryRevenue[category] += itemRevenue;
+            if (categoryLastOrder[category] != orderNumber) {
+                categoryLastOrder[category] = orderNumber;
+                categoryOrders[category]++;
+            }
+        }
+    }
+
+    void addOrders(OrderStatus status, long orders) {
+        orderCount += orders;
+        statusCounts[status.ordinal()] += orders;
+    }
+
+    void addItems(long items, double itemRevenue) {
+        itemCount += items;
+        revenue += itemRevenue;
+    }
+
+    void addProductSales(Product product, int quantity, int orders, double sales) {
+        // Subtracted totals do not change the product that is shown
+        int slot = slotOf(product, orders > 0);
+        productQuantity[slot] += quantity;
+        productOrders[slot] += orders;
+        productRevenue[slot] += sales;
+    }
+
+    void addCategorySales(Category category, int quantity, int orders, double sales) {
+        categoryQuantity[category.ordinal()] += quantity;
+        categoryOrders[category.ordinal()] += orders;
+        categoryRevenue[category.ordinal()] += sales;
+    }
+
+    long orderCount() {
+        return orderCount;
+    }
+
+    long itemCount() {
+        return itemCount;
+    }
+
+    double revenue() {
+        return revenue;
+    }
+
+    /**
+     * Summary of all collected orders with the ten best selling products.
+     */
+    OrderSummaryReport summaryReport(LocalDate startDate, LocalDate endDate) {
+        if (orderCount == 0) {
+            return new OrderSummaryReport(
+                    0, 0, 0.0, 0.0, 0.0,
+                    startDate, endDate,
+                    List.of(), List.of(),
+                    new OrderSummaryReport.OrdersByStatus(0, 0, 0, 0, 0, 0)
+            );
+        }
+
+        List<ProductSalesReport> topProducts = productReports()
+                .stream()
+                .sorted()
+                .limit(10)
+                .toList();
+
+        return new OrderSummaryReport(
+                (int) orderCount,
+                (int) itemCount,
+                revenue,
+                revenue / orderCount,
+                (double) itemCount / orderCount,
+                startDate,
+                endDate,
+                topProducts,
+                categoryReports(),
+                new OrderSummaryReport.OrdersByStatus(
+                        (int) statusCounts[OrderStatus.PENDING.ordinal()],
+                        (int) statusCounts[OrderStatus.CONFIRMED.ordinal()],
+                        (int) statusCounts[OrderStatus.PROCESSING.ordinal()],
+                        (int) statusCounts[OrderStatus.READY.ordinal()],
+                        (int) statusCounts[OrderStatus.DELIVERED.ordinal()],
+                        (int) statusCounts[OrderStatus.CANCELLED.ordinal()]
+                )
+        );
+    }
+
+    /**
+     * Sales per product, unsorted.
+     */
+    List<ProductSalesReport> productReports() {
+        List<ProductSalesReport> reports = new ArrayList<>(products.size());
+        for (int slot = 0; slot < products.size(); slot++) {
+            if (productOrders[slot] > 0) {
+                reports.add(new ProductSalesReport(products.get(slot), productQuantity[slot], productOrders[slot],
+                        productRevenue[slot]));
+            }
+        }
+        return reports;
+    }
+
+    /**
+     * Sales per category that has sold anything, sorted by revenue.
+     */
+    List<CategorySalesReport> categoryReports() {
+        List<Set<String>> productIdsByCategory = new ArrayList<>(CATEGORIES.length);
+        for (int category = 0; category < CATEGORIES.length; category++) {
+            productIdsByCategory.add(new HashSet<>());
+        }
+        for (int slot = 0; slot < products.size(); slot++) {
+            if (productOrders[slot] > 0) {
+                Product product = products.get(slot);
+                productIdsByCategory.get(product.category().ordinal()).add(product.id());
+            }
+        }
+
+        List<CategorySalesReport> reports = new ArrayList<>();
+        for (int category = 0; category < CATEGORIES.length; category++) {
+            if (categoryOrders[category] > 0) {
+                reports.add(new CategorySalesReport(CATEGORIES[category].name(), categoryQuantity[category],
+                        categoryOrders[category], productIdsByCategory.get(category).size(),
+                        categoryRevenue[category]));
+            }
+        }
+        reports.sort(null);
+        return reports;
+    }
+
+    private int slotOf(Product product, boolean shown) {
+        Integer slot = productSlots.get(product.id());
+        if (slot != null) {
+            if (shown) {
+                products.set(slot, product);
+            }
+            return slot;
+        }
+        int newSlot = products.size();
+        products.add(product);
+        productSlots.put(product.id(), newSlot);
+        if (newSlot == productQuantity.length) {
+            int capacity = newSlot * 2;
+            productQuantity = Arrays.copyOf(productQuantity, capacity);
+            productRevenue = Arrays.copyOf(productRevenue, capacity);
+            productOrders = Arrays.copyOf(productOrders, capacity);
+            productLastOrder = Arrays.copyOf(productLastOrder, capacity);
+        }
+        return newSlot;
+    }
+}
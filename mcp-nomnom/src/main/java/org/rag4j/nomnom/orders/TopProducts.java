@@ -0,0 +1,236 @@
+package org.rag4j.nomnom.orders;
+
+import org.rag4j.nomnom.orders.model.Order;
+import org.rag4j.nomnom.orders.model.OrderItem;
+import org.rag4j.nomnom.orders.model.ProductSalesReport;
+import org.rag4j.nomnom.products.model.Product;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Products ranked by quantity sold and counted per product id, kept up to date on every order change. A top N list
+ * reads the first N entries of a ranking instead of building a report for every product and sorting them. There is
+ * a ranking for all orders, one per location and one for the orders placed in the last seven days.
+ * <p>
+ * The ranking of the last seven days is kept next to the sales of each day in it, in a ring of buckets indexed by
+ * day. When the window moves on, the sales of the days that dropped out are subtracted from the ranking, so a read
+ * never merges the days and days drop out without a background task. Orders placed before the window, or after
+ * today when they were stored, are not counted in it; when they change, only the overall and location rankings
+ * follow. Each day keeps the ids of its counted orders, so only those are subtracted again.
+ * <p>
+ * The counts are exact, also after deletes and changed orders, so the lists match the sales reports.
+ */
+class TopProducts {
+    private static final int WINDOW_DAYS = 7;
+
+    private static final Comparator<Entry> BY_QUANTITY = Comparator
+            .comparingLong((Entry entry) -> entry.sales().quantity()).reversed()
+            .thenComparing(entry -> entry.product().id());
+
+    private final Clock clock;
+    private final Ranking overall = new Ranking();
+    private final ConcurrentMap<String, Ranking> byLocation = new ConcurrentHashMap<>();
+    private final RecentWindow recentDays = new RecentWindow();
+
+    TopProducts(Clock clock) {
+        this.clock = clock;
+    }
+
+    void add(Order order) {
+        apply(order, 1);
+    }
+
+    void remove(Order order) {
+        apply(order, -1);
+    }
+
+    void replace(Order previous, Order updated) {
+        if (previous.items().equals(updated.items()) && previous.location().equals(updated.location())
+                && previous.orderTimestamp().toLocalDate().equals(updated.orderTimestamp().toLocalDate())) {
+            // A status change does not change the quantities
+            return;
+        }
+        apply(previous, -1);
+        apply(updated, 1);
+    }
+
+    /**
+     * The best selling products of all orders.
+     */
+    List<ProductSalesReport> overall(int limit) {
+        return overall.top(limit);
+    }
+
+    /**
+     * The best selling products for a location, the name is matched ignoring case.
+     */
+    List<ProductSalesReport> atLocation(String location, int limit) {
+        Ranking ranking = byLocation.get(locationKey(location));
+        return ranking != null ? ranking.top(limit) : List.of();
+    }
+
+    /**
+     * The best selling products of the orders placed in the last seven days, today included.
+     */
+    List<ProductSalesReport> recent(int limit) {
+        return recentDays.top(LocalDate.now(clock).toEpochDay(), limit);
+    }
+
+    private void apply(Order order, int sign) {
+        Map<String, Entry> sales = salesOf(order);
+        overall.apply(sales, sign);
+        byLocation.computeIfAbsent(locationKey(order.location()), location -> new Ranking()).apply(sales, sign);
+        recentDays.apply(LocalDate.now(clock).toEpochDay(), order.orderTimestamp().toLocalDate().toEpochDay(),
+                order.orderId(), sales, sign);
+    }
+
+    /**
+     * The sales of an order per product id, a product that is in the order twice is counted once.
+     */
+    private static Map<String, Entry> salesOf(Order order) {
+        Map<String, Entry> sales = new LinkedHashMap<>();
+        for (OrderItem item : order.items()) {
+            Entry entry = new Entry(item.product(),
+                    new Sales(item.quantity(), 1, Math.round(item.getTotalPrice() * 100)));
+            sales.merge(item.product().id(), entry, (current, added) -> new Entry(current.product(),
+                    new Sales(current.sales().quantity() + added.sales().quantity(), 1,
+                            current.sales().revenueCents() + added.sales().revenueCents())));
+        }
+        return sales;
+    }
+
+    private static String locationKey(String location) {
+        return location.toLowerCase(Locale.ROOT);
+    }
+
+    private record Sales(long quantity, long orders, long revenueCents) {
+        Sales plus(Sales other, int sign) {
+            return new Sales(quantity + sign * other.quantity, orders + sign * other.orders,
+                    revenueCents + sign * other.revenueCents);
+        }
+    }
+
+    /**
+     * Sales of a product id. Added sales bring the product they were stored with, so a product that changed its
+     * price or description is shown as it was last ordered.
+     */
+    private record Entry(Product product, Sales sales) {
+        Entry plus(Entry other, int sign) {
+            return new Entry(sign > 0 ? other.product : product, sales.plus(other.sales, sign));
+        }
+
+        ProductSalesReport toReport() {
+            return new ProductSalesReport(product, (int) sales.quantity(), (int) sales.orders(),
+                    sales.revenueCents() / 100.0);
+        }
+    }
+
+    private record DayBucket(long day, Map<String, Entry> sales, Set<String> orderIds) {
+    }
+
+    /**
+     * The ranking of the last seven days and the sales of each of those days. Days that left the window are
+     * subtracted from the ranking on the next change or read, which costs at most the products of seven days.
+     */
+    private static final class RecentWindow {
+        private final DayBucket[] days = new DayBucket[WINDOW_DAYS];
+        private final Ranking ranking = new Ranking();
+
+        synchronized void apply(long today, long day, String orderId, Map<String, Entry> sales, int sign) {
+            dropDaysOutside(today);
+            if (day <= today - WINDOW_DAYS || day > today) {
+                return;
+            }
+            int slot = (int) Math.floorMod(day, (long) WINDOW_DAYS);
+            if (days[slot] == null) {
+                days[slot] = new DayBucket(day, new HashMap<>(), new HashSet<>());
+            }
+            Set<String> counted = days[slot].orderIds();
+            if (sign > 0 ? !counted.add(orderId) : !counted.remove(orderId)) {
+                // Added twice, or not counted because it was stored before or after the window
+                return;
+            }
+            Map<String, Entry> daySales = days[slot].sales();
+            sales.forEach((productId, productSales) -> {
+                Entry current = daySales.get(productId);
+                Entry updated = current != null ? current.plus(productSales, sign) : productSales;
+                if (updated.sales().orders() > 0) {
+                    daySales.put(productId, updated);
+                } else {
+                    daySales.remove(productId);
+                }
+            });
+            ranking.apply(sales, sign);
+        }
+
+        synchronized List<ProductSalesReport> top(long today, int limit) {
+            dropDaysOutside(today);
+            return ranking.top(limit);
+        }
+
+        /**
+         * After this the days in the ring are all in the window, so each day of the window has its own slot.
+         */
+        private void dropDaysOutside(long today) {
+            for (int slot = 0; slot < WINDOW_DAYS; slot++) {
+                DayBucket bucket = days[slot];
+                if (bucket != null && (bucket.day() <= today - WINDOW_DAYS || bucket.day() > today)) {
+                    ranking.apply(bucket.sales(), -1);
+                    days[slot] = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Sales per product and the same entries sorted by quantity. A change moves the entries of the products in the
+     * order, a read walks the sorted entries from the start.
+     */
+    private static final class Ranking {
+        private final Map<String, Entry> entries = new HashMap<>();
+        private final NavigableSet<Entry> ranked = new TreeSet<>(BY_QUANTITY);
+
+        synchronized void apply(Map<String, Entry> sales, int sign) {
+            sales.forEach((productId, productSales) -> {
+                Entry current = entries.get(productId);
+                Entry updated = productSales;
+                if (current != null) {
+                    ranked.remove(current);
+                    updated = current.plus(productSales, sign);
+                } else if (sign < 0) {
+                    return;
+                }
+                if (updated.sales().orders() > 0) {
+                    entries.put(productId, updated);
+                    ranked.add(updated);
+                } else {
+                    entries.remove(productId);
+                }
+            });
+        }
+
+        synchronized List<ProductSalesReport> top(int limit) {
+            List<ProductSalesReport> top = new ArrayList<>(Math.min(limit, ranked.size()));
+            Iterator<Entry> iterator = ranked.iterator();
+            while (top.size() < limit && iterator.hasNext()) {
+                top.add(iterator.next().toReport());
+            }
+            return top;
+        }
+    }
+}
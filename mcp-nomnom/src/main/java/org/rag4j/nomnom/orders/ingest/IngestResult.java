@@ -0,0 +1,30 @@
+package org.rag4j.nomnom.orders.ingest;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk order import. Rows that fail validation or have the id of an order that is already stored are
+ * skipped and reported with their row number, the first {@value OrderIngestService#MAX_REPORTED_ERRORS} of them are
+ * listed. When the body is not valid JSON the import stops at that point, the orders read before it are stored and
+ * {@code failure} describes the problem.
+ */
+public record IngestResult(
+        long rows,
+        long stored,
+        long rejected,
+        List<RowError> errors,
+        String failure,
+        long durationMillis,
+        double rowsPerSecond
+) {
+
+    public IngestResult {
+        errors = List.copyOf(errors);
+    }
+
+    /**
+     * A row that was not stored, rows are numbered from 1.
+     */
+    public record RowError(long row, String message) {
+    }
+}
@@ -0,0 +1,34 @@
+package org.rag4j.nomnom.orders.ingest;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Imports orders in bulk, for example to backfill historical orders. The body is a JSON array of orders or newline
+ * delimited JSON with an order per line, it is read while it arrives so the size of the import is not limited by
+ * memory. See {@link OrderIngestService} for the format of an order.
+ */
+@RestController
+public class OrderIngestController {
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    private final OrderIngestService ingestService;
+
+    public OrderIngestController(OrderIngestService ingestService) {
+        this.ingestService = ingestService;
+    }
+
+    @PostMapping(path = "/orders/ingest", consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<IngestResult> ingest(InputStream body) throws IOException {
+        IngestResult result = ingestService.ingest(body);
+        if (result.failure() != null) {
+            return ResponseEntity.badRequest().body(result);
+        }
+        return ResponseEntity.ok(result);
+    }
+}
@@ -0,0 +1,309 @@
+package org.rag4j.nomnom.orders.ingest;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.rag4j.nomnom.orders.OrderService;
+import org.rag4j.nomnom.orders.model.Order;
+import org.rag4j.nomnom.orders.model.OrderItem;
+import org.rag4j.nomnom.orders.model.OrderStatus;
+import org.rag4j.nomnom.products.catalog.ProductCatalog;
+import org.rag4j.nomnom.products.model.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Reads orders from a JSON array or from newline delimited JSON with the Jackson streaming parser and stores them in
+ * batches. An order looks like:
+ * <pre>{@code
+ * {"orderId": "h-1001", "location": "Luminis Utrecht", "deliveryDate": "2024-03-12",
+ *  "orderTimestamp": "2024-03-11T16:20:00", "status": "DELIVERED", "note": "Team lunch",
+ *  "items": [{"productId": "4", "productName": "Sandwich", "quantity": 12}]}
+ * }</pre>
+ * Only the location, delivery date and items are required. A missing order id is generated, the order timestamp
+ * defaults to the start of the delivery date and the status to {@code DELIVERED}, as imports are meant for orders
+ * from the past. An import only adds orders: a row with the id of a stored order, or of an earlier row, is rejected
+ * and the stored order is left as it is.
+ * <p>
+ * Products are looked up in the {@link ProductCatalog} by id, not by a similarity search. When the item also has a
+ * product name that is not the name of the product with the id, the name picks the product: exports from before the
+ * product ids were unique used one id for several products. Prices come from the catalog.
+ */
+@Service
+public class OrderIngestService {
+    private static final Logger logger = LoggerFactory.getLogger(OrderIngestService.class);
+
+    static final int BATCH_SIZE = 1000;
+    static final int MAX_REPORTED_ERRORS = 100;
+
+    private final OrderService orderService;
+    private final ObjectMapper objectMapper;
+    private final ProductCatalog catalog;
+
+    public OrderIngestService(OrderService orderService, ProductCatalog catalog, ObjectMapper objectMapper) {
+        this.orderService = orderService;
+        this.catalog = catalog;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Reads and stores the orders in the body. Stops at the end of the body or of the JSON array.
+     */
+    public IngestResult ingest(InputStream body) throws IOException {
+        long start = System.nanoTime();
+        Ingest ingest = new Ingest();
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                token = parser.nextToken();
+            }
+            while (token != null && token != JsonToken.END_ARRAY) {
+                ingest.rows++;
+                if (token == JsonToken.START_OBJECT) {
+                    ingest.add(readRow(parser));
+                } else {
+                    parser.skipChildren();
+                    ingest.reject("Expected an order object but found " + token);
+                }
+                token = parser.nextToken();
+            }
+        } catch (JsonProcessingException e) {
+            ingest.failure = "Invalid JSON after row %d: %s".formatted(ingest.rows, e.getOriginalMessage());
+        }
+        ingest.flush();
+        ingest.errors.sort(Comparator.comparingLong(IngestResult.RowError::row));
+
+        long nanos = System.nanoTime() - start;
+        double rowsPerSecond = nanos > 0 ? ingest.rows * 1_000_000_000.0 / nanos : 0;
+        logger.info("Ingested {} rows in {} ms ({} rows/s): {} stored, {} rejected", ingest.rows, nanos / 1_000_000,
+                Math.round(rowsPerSecond), ingest.stored, ingest.rejected);
+        return new IngestResult(ingest.rows, ingest.stored, ingest.rejected, ingest.errors, ingest.failure,
+                nanos / 1_000_000, rowsPerSecond);
+    }
+
+    /**
+     * Reads the fields of an order object, the parser is on its start. Values are kept as text and checked when
+     * the order is created, so a wrong value does not stop the parsing of the row.
+     */
+    private Row readRow(JsonParser parser) throws IOException {
+        Row row = new Row();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "orderId" -> row.orderId = text(parser);
+                case "location" -> row.location = text(parser);
+                case "deliveryDate" -> row.deliveryDate = text(parser);
+                case "orderTimestamp" -> row.orderTimestamp = text(parser);
+                case "status" -> row.status = text(parser);
+                case "note" -> row.note = text(parser);
+                case "items" -> {
+                    if (value == JsonToken.START_ARRAY) {
+                        row.items = readItems(parser);
+                    } else {
+                        parser.skipChildren();
+                        row.invalid = "Items must be an array";
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        return row;
+    }
+
+    private List<Item> readItems(JsonParser parser) throws IOException {
+        List<Item> items = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            Item item = new Item();
+            if (token == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    parser.nextToken();
+                    switch (field) {
+                        case "productId" -> item.productId = text(parser);
+                        case "productName" -> item.productName = text(parser);
+                        case "quantity" -> item.quantity = text(parser);
+                        default -> parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+            items.add(item);
+        }
+        return items;
+    }
+
+    /**
+     * The value as text, objects and arrays are skipped and read as null.
+     */
+    private static String text(JsonParser parser) throws IOException {
+        if (parser.currentToken().isStructStart()) {
+            parser.skipChildren();
+            return null;
+        }
+        return parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getText();
+    }
+
+    private Order toOrder(Row row) {
+        if (row.invalid != null) {
+            throw new IllegalArgumentException(row.invalid);
+        }
+        if (row.deliveryDate == null) {
+            throw new IllegalArgumentException("Delivery date is required");
+        }
+        LocalDate deliveryDate = parse("delivery date", row.deliveryDate, LocalDate::parse);
+        LocalDateTime orderTimestamp = row.orderTimestamp != null
+                ? parse("order timestamp", row.orderTimestamp, LocalDateTime::parse)
+                : deliveryDate.atStartOfDay();
+        OrderStatus status = OrderStatus.DELIVERED;
+        if (row.status != null) {
+            try {
+                status = OrderStatus.valueOf(row.status.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown status: " + row.status);
+            }
+        }
+        List<OrderItem> items = new ArrayList<>(row.items.size());
+        for (Item item : row.items) {
+            items.add(new OrderItem(productOf(item), quantityOf(item)));
+        }
+        String orderId = row.orderId != null ? row.orderId : UUID.randomUUID().toString();
+        return Order.create(orderId, row.location, deliveryDate, orderTimestamp, items, row.note, status);
+    }
+
+    private Product productOf(Item item) {
+        if (item.productId != null) {
+            Product product = catalog.findById(item.productId);
+            if (product != null && (item.productName == null || product.name().equalsIgnoreCase(item.productName))) {
+                return product;
+            }
+            Product named = item.productName != null ? catalog.findByName(item.productName) : null;
+            if (named != null) {
+                return named;
+            }
+            if (product != null) {
+                throw new IllegalArgumentException("Product id %s is %s, not %s"
+                        .formatted(item.productId, product.name(), item.productName));
+            }
+            throw new IllegalArgumentException("Unknown product id: " + item.productId);
+        }
+        if (item.productName != null) {
+            Product product = catalog.findByName(item.productName);
+            if (product != null) {
+                return product;
+            }
+            throw new IllegalArgumentException("Unknown product: " + item.productName);
+        }
+        throw new IllegalArgumentException("Item without product id or name");
+    }
+
+    private static int quantityOf(Item item) {
+        try {
+            return Integer.parseInt(item.quantity);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid quantity: " + item.quantity);
+        }
+    }
+
+    private static <T> T parse(String name, String value, Function<String, T> parser) {
+        try {
+            return parser.apply(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid %s: %s".formatted(name, value));
+        }
+    }
+
+    /**
+     * Fields of an order as read from the JSON.
+     */
+    private static final class Row {
+        String orderId;
+        String location;
+        String deliveryDate;
+        String orderTimestamp;
+        String status;
+        String note;
+        List<Item> items = List.of();
+        String invalid;
+    }
+
+    private static final class Item {
+        String productId;
+        String productName;
+        String quantity;
+    }
+
+    /**
+     * Progress of one import: the batch that is filled and the counts for the result.
+     */
+    private final class Ingest {
+        final List<Order> batch = new ArrayList<>(BATCH_SIZE);
+        final Map<String, Long> batchRows = new HashMap<>();
+        final List<IngestResult.RowError> errors = new ArrayList<>();
+        long rows;
+        long stored;
+        long rejected;
+        String failure;
+
+        void add(Row row) {
+            Order order;
+            try {
+                order = toOrder(row);
+            } catch (IllegalArgumentException e) {
+                reject(e.getMessage());
+                return;
+            }
+            if (batchRows.putIfAbsent(order.orderId(), rows) != null) {
+                reject("Order id %s is already in the import".formatted(order.orderId()));
+                return;
+            }
+            batch.add(order);
+            if (batch.size() == BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        void reject(String message) {
+            reject(rows, message);
+        }
+
+        void reject(long row, String message) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new IngestResult.RowError(row, message));
+            }
+        }
+
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            Set<String> existing = orderService.storeNewOrders(batch);
+            stored += batch.size() - existing.size();
+            for (String orderId : existing) {
+                reject(batchRows.get(orderId), "Order %s already exists".formatted(orderId));
+            }
+            batch.clear();
+            batchRows.clear();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package org.rag4j.nomnom.orders.log;
+
+import org.rag4j.nomnom.orders.model.Order;
+import org.rag4j.nomnom.orders.model.OrderStatus;
+
+/**
+ * A change to the stored orders as written to the order log. Every event sets state instead of describing a
+ * difference, so replaying an event on a newer version of the order gives the same result.
+ */
+sealed interface OrderEvent {
+
+    String orderId();
+
+    /**
+     * An order was created or replaced.
+     */
+    record Stored(Order order) implements OrderEvent {
+        @Override
+        public String orderId() {
+            return order.orderId();
+        }
+    }
+
+    record StatusChanged(String orderId, OrderStatus status) implements OrderEvent {
+    }
+
+    record Deleted(String orderId) implements OrderEvent {
+    }
+}
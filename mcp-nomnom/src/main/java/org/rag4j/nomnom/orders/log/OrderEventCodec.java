@@ -0,0 +1,360 @@
+package org.rag4j.nomnom.orders.log;
+
+import org.rag4j.nomnom.orders.model.Order;
+import org.rag4j.nomnom.orders.model.OrderItem;
+import org.rag4j.nomnom.orders.model.OrderStatus;
+import org.rag4j.nomnom.products.model.Category;
+import org.rag4j.nomnom.products.model.Product;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary format of the order log. A file is a sequence of frames: the length of the body as an int, the body and
+ * a CRC32C of the body. The body starts with a type byte.
+ * <p>
+ * Products are written once per file as a product frame with a code, items refer to the code. Numbers are written
+ * as variable length integers, an order with two items takes about 80 bytes plus the length of its texts.
+ * <p>
+ * Reading is done in two steps so the events can be decoded in parallel: {@link #scan} walks the frame lengths,
+ * decodes the product frames and returns the positions of the event frames; {@link #decode} decodes one event
+ * frame and can be called from any thread.
+ */
+final class OrderEventCodec {
+    private static final byte PRODUCT = 1;
+    private static final byte STORED = 2;
+    private static final byte STATUS_CHANGED = 3;
+    private static final byte DELETED = 4;
+
+    private static final int FRAME_OVERHEAD = 2 * Integer.BYTES;
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+    private static final Category[] CATEGORIES = Category.values();
+
+    private OrderEventCodec() {
+    }
+
+    /**
+     * Positions of the event frames in a file and the products defined in it. Reading stopped at
+     * {@code validLength}, which is shorter than the file when the last frame was not completely written or a
+     * frame failed its checksum.
+     */
+    record Frames(int[] offsets, int[] lengths, Product[] products, int validLength) {
+
+        int size() {
+            return offsets.length;
+        }
+    }
+
+    /**
+     * Walks the frames of a file. Product frames are decoded, event frames are only located.
+     */
+    static Frames scan(ByteBuffer data) {
+        List<Product> products = new ArrayList<>();
+        int[] offsets = new int[1024];
+        int[] lengths = new int[1024];
+        int events = 0;
+        int position = 0;
+        int limit = data.limit();
+        while (position + FRAME_OVERHEAD + 1 <= limit) {
+            int length = data.getInt(position);
+            if (length < 1 || length > limit - position - FRAME_OVERHEAD) {
+                break;
+            }
+            int body = position + Integer.BYTES;
+            if (data.get(body) == PRODUCT) {
+                if (!checksumMatches(data, body, length)) {
+                    break;
+                }
+                Reader reader = new Reader(data, body + 1);
+                int code = reader.varInt();
+                if (code != products.size()) {
+                    break;
+                }
+                products.add(readProduct(reader));
+            } else {
+                if (events == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, events * 2);
+                    lengths = Arrays.copyOf(lengths, events * 2);
+                }
+                offsets[events] = body;
+                lengths[events] = length;
+                events++;
+            }
+            position = body + length + Integer.BYTES;
+        }
+        return new Frames(Arrays.copyOf(offsets, events), Arrays.copyOf(lengths, events),
+                products.toArray(Product[]::new), position);
+    }
+
+    /**
+     * Decodes an event frame found by {@link #scan}.
+     *
+     * @return the event, or null when the frame is corrupt
+     */
+    static OrderEvent decode(ByteBuffer data, int offset, int length, Product[] products) {
+        if (!checksumMatches(data, offset, length)) {
+            return null;
+        }
+        try {
+            Reader reader = new Reader(data, offset + 1);
+            return switch (data.get(offset)) {
+                case STORED -> new OrderEvent.Stored(readOrder(reader, products));
+                case STATUS_CHANGED -> new OrderEvent.StatusChanged(reader.string(), STATUSES[reader.readByte()]);
+                case DELETED -> new OrderEvent.Deleted(reader.string());
+                default -> null;
+            };
+        } catch (RuntimeException e) {
+            // Out of bounds codes or values the order does not accept
+            return null;
+        }
+    }
+
+    private static boolean checksumMatches(ByteBuffer data, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(data.slice(offset, length));
+        return (int) crc.getValue() == data.getInt(offset + length);
+    }
+
+    private static Product readProduct(Reader reader) {
+        String id = reader.string();
+        String name = reader.string();
+        String description = reader.nullableString();
+        double price = reader.readDouble();
+        int category = reader.readByte();
+        return new Product(id, name, description, price, category < 0 ? null : CATEGORIES[category]);
+    }
+
+    private static Order readOrder(Reader reader, Product[] products) {
+        String orderId = reader.string();
+        String location = reader.string();
+        LocalDate deliveryDate = LocalDate.ofEpochDay(reader.zigZagLong());
+        LocalDateTime orderTimestamp = LocalDateTime.ofEpochSecond(reader.zigZagLong(), reader.varInt(),
+                ZoneOffset.UTC);
+        String note = reader.nullableString();
+        OrderStatus status = STATUSES[reader.readByte()];
+        double totalAmount = reader.readDouble();
+        int itemCount = reader.varInt();
+        List<OrderItem> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            Product product = products[reader.varInt()];
+            items.add(new OrderItem(product, (int) reader.zigZagLong()));
+        }
+        return new Order(orderId, location, deliveryDate, orderTimestamp, items, note, status, totalAmount);
+    }
+
+    /**
+     * Writes events to a buffer. Keeps the product codes of the file that is written, call {@link #newFile} when
+     * starting another file. Not thread-safe.
+     */
+    static final class Writer {
+        private final Map<Product, Integer> productCodes = new HashMap<>();
+        private byte[] bytes = new byte[64 * 1024];
+        private int size;
+
+        void newFile() {
+            productCodes.clear();
+        }
+
+        void write(OrderEvent event) {
+            switch (event) {
+                case OrderEvent.Stored stored -> writeStored(stored.order());
+                case OrderEvent.StatusChanged changed -> {
+                    int body = startFrame(STATUS_CHANGED);
+                    writeString(changed.orderId());
+                    writeByte(changed.status().ordinal());
+                    endFrame(body);
+                }
+                case OrderEvent.Deleted deleted -> {
+                    int body = startFrame(DELETED);
+                    writeString(deleted.orderId());
+                    endFrame(body);
+                }
+            }
+        }
+
+        ByteBuffer buffer() {
+            return ByteBuffer.wrap(bytes, 0, size);
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        private void writeStored(Order order) {
+            for (OrderItem item : order.items()) {
+                if (!productCodes.containsKey(item.product())) {
+                    writeProduct(item.product());
+                }
+            }
+            int body = startFrame(STORED);
+            writeString(order.orderId());
+            writeString(order.location());
+            writeZigZag(order.deliveryDate().toEpochDay());
+            writeZigZag(order.orderTimestamp().toEpochSecond(ZoneOffset.UTC));
+            writeVarLong(order.orderTimestamp().getNano());
+            writeNullableString(order.note());
+            writeByte(order.status().ordinal());
+            writeDouble(order.totalAmount());
+            writeVarLong(order.items().size());
+            for (OrderItem item : order.items()) {
+                writeVarLong(productCodes.get(item.product()));
+                writeZigZag(item.quantity());
+            }
+            endFrame(body);
+        }
+
+        private void writeProduct(Product product) {
+            int code = productCodes.size();
+            productCodes.put(product, code);
+            int body = startFrame(PRODUCT);
+            writeVarLong(code);
+            writeString(product.id());
+            writeString(product.name());
+            writeNullableString(product.description());
+            writeDouble(product.price());
+            writeByte(product.category() != null ? product.category().ordinal() : -1);
+            endFrame(body);
+        }
+
+        private int startFrame(byte type) {
+            ensureCapacity(Integer.BYTES + 1);
+            size += Integer.BYTES;
+            int body = size;
+            bytes[size++] = type;
+            return body;
+        }
+
+        private void endFrame(int body) {
+            int length = size - body;
+            ByteBuffer.wrap(bytes).putInt(body - Integer.BYTES, length);
+            CRC32C crc = new CRC32C();
+            crc.update(bytes, body, length);
+            ensureCapacity(Integer.BYTES);
+            ByteBuffer.wrap(bytes).putInt(size, (int) crc.getValue());
+            size += Integer.BYTES;
+        }
+
+        private void writeByte(int value) {
+            ensureCapacity(1);
+            bytes[size++] = (byte) value;
+        }
+
+        private void writeDouble(double value) {
+            ensureCapacity(Double.BYTES);
+            ByteBuffer.wrap(bytes).putDouble(size, value);
+            size += Double.BYTES;
+        }
+
+        private void writeZigZag(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        private void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        private void writeString(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(utf8.length);
+            ensureCapacity(utf8.length);
+            System.arraycopy(utf8, 0, bytes, size, utf8.length);
+            size += utf8.length;
+        }
+
+        /**
+         * Writes the length plus one, so zero can stand for null.
+         */
+        private void writeNullableString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(utf8.length + 1L);
+            ensureCapacity(utf8.length);
+            System.arraycopy(utf8, 0, bytes, size, utf8.length);
+            size += utf8.length;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+
+    /**
+     * Reads values from a position in a buffer, with absolute gets so buffers can be shared between threads.
+     */
+    private static final class Reader {
+        private final ByteBuffer data;
+        private int position;
+
+        Reader(ByteBuffer data, int position) {
+            this.data = data;
+            this.position = position;
+        }
+
+        int readByte() {
+            return data.get(position++);
+        }
+
+        double readDouble() {
+            double value = data.getDouble(position);
+            position += Double.BYTES;
+            return value;
+        }
+
+        int varInt() {
+            return Math.toIntExact(varLong());
+        }
+
+        long varLong() {
+            long value = 0;
+            int shift = 0;
+            byte current;
+            do {
+                current = data.get(position++);
+                value |= (long) (current & 0x7F) << shift;
+                shift += 7;
+            } while (current < 0 && shift < 64);
+            return value;
+        }
+
+        long zigZagLong() {
+            long value = varLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        String string() {
+            int length = varInt();
+            return text(length);
+        }
+
+        String nullableString() {
+            int length = varInt();
+            return length == 0 ? null : text(length - 1);
+        }
+
+        private String text(int length) {
+            byte[] utf8 = new byte[length];
+            data.get(position, utf8);
+            position += length;
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+    }
+}
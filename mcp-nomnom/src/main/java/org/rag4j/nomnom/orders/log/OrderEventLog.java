@@ -0,0 +1,436 @@
+package org.rag4j.nomnom.orders.log;
+
+import org.rag4j.nomnom.orders.OrderJournal;
+import org.rag4j.nomnom.orders.OrderService;
+import org.rag4j.nomnom.orders.model.Order;
+import org.rag4j.nomnom.orders.model.OrderItem;
+import org.rag4j.nomnom.orders.model.OrderStatus;
+import org.rag4j.nomnom.products.model.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of the order changes, so the orders survive a restart. On start the orders are restored from the
+ * latest snapshot and the log files written after it; from then on every change the {@link OrderService} reports
+ * is queued and written by a background thread.
+ * <p>
+ * The writer takes everything that is queued, up to the batch size, writes it and forces it to disk with one
+ * fsync, so under load many changes share an fsync. A change is durable once its batch is forced, usually within
+ * milliseconds; the order service does not wait for that.
+ * <p>
+ * Every start begins a new log file. After {@code snapshotEvery} events the writer starts another log file, writes
+ * all orders to a snapshot and removes the files the snapshot replaces. The writer keeps the orders as the written
+ * events leave them, so the snapshot holds exactly the events of the files it replaces; the order service queues an
+ * event before the changed order is in its map, so the snapshot is not read from there. Changes made while the
+ * snapshot is written go to the new log file; the events set state, so replaying them on top of the snapshot gives
+ * the same orders.
+ * <p>
+ * A batch that cannot be written is written again to a new log file. When that fails too, the changes are only
+ * kept in memory and the writer takes a snapshot after the next batch, which makes them durable once it succeeds.
+ * <p>
+ * Restoring maps each file, locates the frames and decodes them in parallel, then applies the events in order to
+ * the restored orders. A file that ends in a partly written frame is read up to that frame. The products of the
+ * restored orders pass the product migration, which gives products of old orders their current id; the next
+ * snapshot holds the migrated products.
+ */
+public class OrderEventLog implements OrderJournal, SmartLifecycle {
+    private static final Logger logger = LoggerFactory.getLogger(OrderEventLog.class);
+    private static final Pattern LOG_FILE = Pattern.compile("orders-(\\d+)\\.log");
+    private static final Pattern SNAPSHOT_FILE = Pattern.compile("snapshot-(\\d+)\\.bin");
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+    private static final int SNAPSHOT_BUFFER_SIZE = 1024 * 1024;
+
+    private final OrderService orderService;
+    private final Path directory;
+    private final int maxBatchSize;
+    private final int snapshotEvery;
+    private final UnaryOperator<Product> productMigration;
+    private final BlockingQueue<OrderEvent> queue = new LinkedBlockingQueue<>();
+    private volatile boolean running;
+    private Thread writerThread;
+
+    // Only touched by the writer thread, after start
+    private final OrderEventCodec.Writer writer = new OrderEventCodec.Writer();
+    private FileChannel channel;
+    private long segment;
+    private long eventsSinceSnapshot;
+    private final Map<String, Order> written = new HashMap<>();
+
+    public OrderEventLog(OrderService orderService, Path directory, int maxBatchSize, int snapshotEvery) {
+        this(orderService, directory, maxBatchSize, snapshotEvery, UnaryOperator.identity());
+    }
+
+    /**
+     * @param productMigration returns the product to use for a product of a restored order
+     */
+    public OrderEventLog(OrderService orderService, Path directory, int maxBatchSize, int snapshotEvery,
+                         UnaryOperator<Product> productMigration) {
+        this.orderService = orderService;
+        this.directory = directory;
+        this.maxBatchSize = maxBatchSize;
+        this.snapshotEvery = snapshotEvery;
+        this.productMigration = productMigration;
+    }
+
+    @Override
+    public void start() {
+        try {
+            Files.createDirectories(directory);
+            replay();
+            openSegment(segment + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the order log in " + directory.toAbsolutePath(), e);
+        }
+        orderService.setJournal(this);
+        running = true;
+        writerThread = Thread.ofPlatform().name("order-log-writer").start(this::run);
+        logger.info("Writing order log to {}", directory.toAbsolutePath());
+    }
+
+    /**
+     * Stops journaling and returns after everything that was queued is written.
+     */
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        orderService.setJournal(OrderJournal.NONE);
+        running = false;
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        closeSegment();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Starts before the web server and the application runners, so requests and the sample data see the restored
+     * orders, and stops after the web server.
+     */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    @Override
+    public void stored(Order order) {
+        queue.add(new OrderEvent.Stored(order));
+    }
+
+    @Override
+    public void statusChanged(String orderId, OrderStatus status) {
+        queue.add(new OrderEvent.StatusChanged(orderId, status));
+    }
+
+    @Override
+    public void deleted(String orderId) {
+        queue.add(new OrderEvent.Deleted(orderId));
+    }
+
+    private void run() {
+        List<OrderEvent> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                OrderEvent first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                write(batch);
+                batch.clear();
+                if (eventsSinceSnapshot >= snapshotEvery) {
+                    snapshot();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void write(List<OrderEvent> batch) {
+        batch.forEach(event -> apply(event, written));
+        eventsSinceSnapshot += batch.size();
+        try {
+            writeBatch(batch);
+        } catch (IOException e) {
+            logger.warn("Could not write {} order events to order log file {}, writing them to a new file: {}",
+                    batch.size(), logName(segment), e.getMessage());
+            // The file can end in a partial frame now, the events that made it are written again after it
+            try {
+                openSegment(segment + 1);
+                writeBatch(batch);
+            } catch (IOException retryFailure) {
+                logger.error("Could not write {} order events to the order log, the changes are not durable until "
+                        + "the next snapshot: {}", batch.size(), retryFailure.getMessage());
+                eventsSinceSnapshot = Math.max(eventsSinceSnapshot, snapshotEvery);
+                closeSegment();
+            }
+        }
+    }
+
+    private void writeBatch(List<OrderEvent> batch) throws IOException {
+        if (channel == null) {
+            openSegment(segment + 1);
+        }
+        writer.clear();
+        batch.forEach(writer::write);
+        ByteBuffer buffer = writer.buffer();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+    }
+
+    /**
+     * Writes all orders to a snapshot that replaces the log files written so far. The snapshot is written to a
+     * temporary file and renamed when complete, a crash while writing leaves the previous files in place.
+     */
+    private void snapshot() {
+        long start = System.nanoTime();
+        try {
+            openSegment(segment + 1);
+            Collection<Order> orders = written.values();
+            Path snapshot = directory.resolve(snapshotName(segment));
+            Path temporary = directory.resolve(snapshotName(segment) + ".tmp");
+            OrderEventCodec.Writer snapshotWriter = new OrderEventCodec.Writer();
+            try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                for (Order order : orders) {
+                    snapshotWriter.write(new OrderEvent.Stored(order));
+                    if (snapshotWriter.buffer().remaining() >= SNAPSHOT_BUFFER_SIZE) {
+                        writeFully(out, snapshotWriter);
+                    }
+                }
+                writeFully(out, snapshotWriter);
+                out.force(true);
+            }
+            Files.move(temporary, snapshot, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            removeFilesBefore(segment);
+            eventsSinceSnapshot = 0;
+            logger.info("Wrote snapshot of {} orders in {} ms", orders.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (IOException e) {
+            logger.error("Could not write order log snapshot: {}", e.getMessage());
+        }
+    }
+
+    private static void writeFully(FileChannel out, OrderEventCodec.Writer snapshotWriter) throws IOException {
+        ByteBuffer buffer = snapshotWriter.buffer();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        snapshotWriter.clear();
+    }
+
+    private void removeFilesBefore(long firstKept) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                long number = fileNumber(file);
+                // Temporary files are left behind by snapshots that did not complete
+                if ((number >= 0 && number < firstKept) || file.getFileName().toString().endsWith(".tmp")) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private void openSegment(long number) throws IOException {
+        closeSegment();
+        segment = number;
+        channel = FileChannel.open(directory.resolve(logName(number)), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        writer.newFile();
+    }
+
+    private void closeSegment() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("Could not close order log file {}: {}", logName(segment), e.getMessage());
+        }
+        channel = null;
+    }
+
+    /**
+     * Restores the orders from the latest snapshot and the log files after it.
+     */
+    private void replay() throws IOException {
+        long start = System.nanoTime();
+        List<Path> files = filesToReplay();
+        Map<String, Order> orders = new HashMap<>();
+        long events = 0;
+        long bytes = 0;
+        for (Path file : files) {
+            ReplayedFile replayed = replayFile(file, orders);
+            events += replayed.events();
+            bytes += replayed.bytes();
+            if (LOG_FILE.matcher(file.getFileName().toString()).matches()) {
+                eventsSinceSnapshot += replayed.events();
+            }
+            segment = Math.max(segment, fileNumber(file));
+        }
+        long decoded = System.nanoTime();
+        int migrated = migrateProducts(orders);
+        if (migrated > 0) {
+            logger.info("Changed the product ids of {} restored orders to the ids of the product catalog", migrated);
+        }
+        orderService.restoreOrders(orders.values());
+        written.putAll(orders);
+        long restored = System.nanoTime();
+
+        double decodeSeconds = (decoded - start) / 1e9;
+        logger.info("Replayed {} order events ({} KB) from {} files in {} ms, {} events/s on {} threads; "
+                        + "restoring {} orders took {} ms",
+                events, bytes / 1024, files.size(), TimeUnit.NANOSECONDS.toMillis(decoded - start),
+                decodeSeconds > 0 ? Math.round(events / decodeSeconds) : events,
+                ForkJoinPool.getCommonPoolParallelism() + 1, orders.size(),
+                TimeUnit.NANOSECONDS.toMillis(restored - decoded));
+    }
+
+    private List<Path> filesToReplay() throws IOException {
+        List<Path> snapshots;
+        List<Path> logs;
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> all = files.sorted(Comparator.comparingLong(OrderEventLog::fileNumber)).toList();
+            snapshots = all.stream().filter(file -> SNAPSHOT_FILE.matcher(file.getFileName().toString()).matches())
+                    .toList();
+            logs = all.stream().filter(file -> LOG_FILE.matcher(file.getFileName().toString()).matches()).toList();
+        }
+        long firstLog = snapshots.isEmpty() ? 0 : fileNumber(snapshots.getLast());
+        List<Path> replay = new ArrayList<>();
+        if (!snapshots.isEmpty()) {
+            replay.add(snapshots.getLast());
+        }
+        logs.stream().filter(file -> fileNumber(file) >= firstLog).forEach(replay::add);
+        return replay;
+    }
+
+    private ReplayedFile replayFile(Path file, Map<String, Order> orders) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = in.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Order log file is larger than 2 GB: " + file);
+            }
+            MappedByteBuffer data = in.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            OrderEventCodec.Frames frames = OrderEventCodec.scan(data);
+            OrderEvent[] events = new OrderEvent[frames.size()];
+            IntStream.range(0, frames.size()).parallel().forEach(i ->
+                    events[i] = OrderEventCodec.decode(data, frames.offsets()[i], frames.lengths()[i],
+                            frames.products()));
+
+            int applied = 0;
+            for (OrderEvent event : events) {
+                if (event == null) {
+                    logger.warn("Order log file {} is corrupt after {} events, ignoring the rest of the file",
+                            file.getFileName(), applied);
+                    break;
+                }
+                apply(event, orders);
+                applied++;
+            }
+            if (frames.validLength() < size) {
+                logger.warn("Ignoring {} bytes at the end of order log file {}, the last write was incomplete",
+                        size - frames.validLength(), file.getFileName());
+            }
+            return new ReplayedFile(applied, size);
+        }
+    }
+
+    /**
+     * Replaces the orders with a product the migration changes, returns the number of changed orders. The totals of
+     * the orders stay as they were stored.
+     */
+    private int migrateProducts(Map<String, Order> orders) {
+        int migrated = 0;
+        for (Map.Entry<String, Order> entry : orders.entrySet()) {
+            Order order = entry.getValue();
+            List<OrderItem> items = new ArrayList<>(order.items().size());
+            boolean changed = false;
+            for (OrderItem item : order.items()) {
+                Product product = productMigration.apply(item.product());
+                changed |= !product.equals(item.product());
+                items.add(product.equals(item.product()) ? item : new OrderItem(product, item.quantity()));
+            }
+            if (changed) {
+                entry.setValue(new Order(order.orderId(), order.location(), order.deliveryDate(),
+                        order.orderTimestamp(), items, order.note(), order.status(), order.totalAmount()));
+                migrated++;
+            }
+        }
+        return migrated;
+    }
+
+    private static void apply(OrderEvent event, Map<String, Order> orders) {
+        switch (event) {
+            case OrderEvent.Stored stored -> orders.put(stored.orderId(), stored.order());
+            case OrderEvent.StatusChanged changed -> orders.computeIfPresent(changed.orderId(), (id, order) ->
+                    new Order(order.orderId(), order.location(), order.deliveryDate(), order.orderTimestamp(),
+                            order.items(), order.note(), changed.status(), order.totalAmount()));
+            case OrderEvent.Deleted deleted -> orders.remove(deleted.orderId());
+        }
+    }
+
+    private record ReplayedFile(long events, long bytes) {
+    }
+
+    private static String logName(long number) {
+        return "orders-%010d.log".formatted(number);
+    }
+
+    private static String snapshotName(long number) {
+        return "snapshot-%010d.bin".formatted(number);
+    }
+
+    /**
+     * The number of a log or snapshot file, -1 for other files.
+     */
+    private static long fileNumber(Path file) {
+        String name = file.getFileName().toString();
+        for (Pattern pattern : List.of(LOG_FILE, SNAPSHOT_FILE)) {
+            Matcher matcher = pattern.matcher(name);
+            if (matcher.matches()) {
+                return Long.parseLong(matcher.group(1));
+            }
+        }
+        return -1;
+    }
+}
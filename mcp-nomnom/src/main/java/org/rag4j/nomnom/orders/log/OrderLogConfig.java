@@ -0,0 +1,27 @@
+package org.rag4j.nomnom.orders.log;
+
+import org.rag4j.nomnom.orders.OrderService;
+import org.rag4j.nomnom.products.catalog.ProductCatalog;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * Persists the orders in the order log, unless {@code nomnom.order-log.enabled} is false. Restored orders get the
+ * product ids of the product catalog.
+ */
+@Configuration
+@EnableConfigurationProperties(OrderLogProperties.class)
+public class OrderLogConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "nomnom.order-log", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public OrderEventLog orderEventLog(OrderService orderService, OrderLogProperties properties,
+                                       ProductCatalog catalog) {
+        return new OrderEventLog(orderService, Path.of(properties.directory()), properties.maxBatchSize(),
+                properties.snapshotEvery(), catalog::withCurrentId);
+    }
+}
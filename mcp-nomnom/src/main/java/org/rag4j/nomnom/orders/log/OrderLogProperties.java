@@ -0,0 +1,28 @@
+package org.rag4j.nomnom.orders.log;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration of the order log.
+ *
+ * @param enabled       whether orders are written to the log and restored from it at startup
+ * @param directory     the directory for the log files and snapshots
+ * @param maxBatchSize  maximum number of events written with one fsync
+ * @param snapshotEvery number of events after which the orders are written to a snapshot and older files removed
+ */
+@ConfigurationProperties(prefix = "nomnom.order-log")
+public record OrderLogProperties(Boolean enabled, String directory, Integer maxBatchSize, Integer snapshotEvery) {
+
+    public OrderLogProperties {
+        enabled = enabled == null || enabled;
+        directory = directory == null ? "data/order-log" : directory;
+        maxBatchSize = maxBatchSize == null ? 4096 : maxBatchSize;
+        snapshotEvery = snapshotEvery == null ? 100_000 : snapshotEvery;
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Order log batch size must be at least 1: " + maxBatchSize);
+        }
+        if (snapshotEvery < 1) {
+            throw new IllegalArgumentException("Order log snapshot interval must be at least 1: " + snapshotEvery);
+        }
+    }
+}
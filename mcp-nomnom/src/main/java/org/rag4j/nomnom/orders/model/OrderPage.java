@@ -0,0 +1,26 @@
+package org.rag4j.nomnom.orders.model;
+
+import java.util.List;
+
+/**
+ * A page of orders, newest first, with the totals of all orders matching the filter of the page.
+ */
+public record OrderPage(
+        List<Order> orders,
+        String nextCursor,
+        long totalOrders,
+        long totalItems,
+        double totalRevenue
+) {
+    
+    public OrderPage {
+        orders = List.copyOf(orders);
+    }
+    
+    /**
+     * Check if there are older orders after this page, {@link #nextCursor()} fetches them.
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
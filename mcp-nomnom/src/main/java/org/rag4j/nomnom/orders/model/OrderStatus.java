@@ -1,7 +1,13 @@
 package org.rag4j.nomnom.orders.model;
 
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
 /**
- * Represents the status of an order.
+ * Represents the status of an order. An order moves forward through the statuses, possibly skipping some, until it
+ * is delivered or cancelled; delivered and cancelled orders do not change anymore.
  */
 public enum OrderStatus {
     PENDING("Pending", "Order received and awaiting processing"),
@@ -11,6 +17,17 @@ public enum OrderStatus {
     DELIVERED("Delivered", "Order has been delivered"),
     CANCELLED("Cancelled", "Order has been cancelled");
     
+    private static final Map<OrderStatus, Set<OrderStatus>> TRANSITIONS = new EnumMap<>(OrderStatus.class);
+
+    static {
+        TRANSITIONS.put(PENDING, EnumSet.of(CONFIRMED, PROCESSING, READY, DELIVERED, CANCELLED));
+        TRANSITIONS.put(CONFIRMED, EnumSet.of(PROCESSING, READY, DELIVERED, CANCELLED));
+        TRANSITIONS.put(PROCESSING, EnumSet.of(READY, DELIVERED, CANCELLED));
+        TRANSITIONS.put(READY, EnumSet.of(DELIVERED, CANCELLED));
+        TRANSITIONS.put(DELIVERED, EnumSet.noneOf(OrderStatus.class));
+        TRANSITIONS.put(CANCELLED, EnumSet.noneOf(OrderStatus.class));
+    }
+
     private final String displayName;
     private final String description;
     
@@ -26,4 +43,11 @@ public enum OrderStatus {
     public String getDescription() {
         return description;
     }
+    
+    /**
+     * Check if an order with this status may change to the given status.
+     */
+    public boolean canChangeTo(OrderStatus next) {
+        return TRANSITIONS.get(this).contains(next);
+    }
 }
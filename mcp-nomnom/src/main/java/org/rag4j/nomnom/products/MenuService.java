@@ -2,6 +2,7 @@ package org.rag4j.nomnom.products;
 
 import org.rag4j.nomnom.products.model.Category;
 import org.rag4j.nomnom.products.model.Product;
+import org.rag4j.nomnom.products.model.ProductMatch;
 import org.rag4j.nomnom.products.store.ProductStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,6 +39,19 @@ public class MenuService {
         return foundProduct;
     }
 
+    @Tool(description = "Finds the best matching product for each of several provided product names in one call. "
+            + "Returns per name the product, or none, with a score: 1 is the named product, lower is a similar one.")
+    public List<ProductMatch> findBestMatchingProducts(List<String> providedNames) {
+        logger.info("Finding best matching products for provided product names: {}", providedNames);
+
+        List<ProductMatch> matches = productStore.findProductsByNames(providedNames);
+
+        matches.stream().filter(match -> match.product() == null).forEach(match ->
+                logger.info("No Exact match found for product name: {}", match.requestedName()));
+
+        return matches;
+    }
+
     public List<Category> getCategories() {
         return List.of(Category.values());
     }
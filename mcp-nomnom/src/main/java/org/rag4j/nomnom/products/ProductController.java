@@ -12,11 +12,14 @@ import org.rag4j.nomnom.agent.HandleOrderAgent;
 import org.rag4j.nomnom.agent.model.ProcessedOrder;
 import org.rag4j.nomnom.agent.model.UserMessage;
 import org.rag4j.nomnom.orders.OrderService;
+import org.rag4j.nomnom.products.catalog.ProductCatalog;
 import org.rag4j.nomnom.products.model.Product;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.Collections;
 import java.util.List;
@@ -29,10 +32,12 @@ public class ProductController {
 
     private final MenuService menuService;
     private final AgentPlatform platform;
+    private final ProductCatalog catalog;
 
-    public ProductController(MenuService menuService, AgentPlatform platform) {
+    public ProductController(MenuService menuService, AgentPlatform platform, ProductCatalog catalog) {
         this.menuService = menuService;
         this.platform = platform;
+        this.catalog = catalog;
     }
 
     @GetMapping("/search")
@@ -92,4 +97,20 @@ public class ProductController {
         logger.info("Getting all products");
         return ResponseEntity.ok(menuService.getProducts());
     }
+
+    /**
+     * Reads the product catalog again, changed products are embedded before the new products are returned. An
+     * invalid catalog file is a bad request, the current products stay in use.
+     */
+    @PostMapping("/reload")
+    public ResponseEntity<List<Product>> reloadProducts() {
+        logger.info("Reloading the product catalog");
+        try {
+            catalog.reload();
+        } catch (IllegalArgumentException e) {
+            logger.warn("Product catalog rejected: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        return ResponseEntity.ok(catalog.products());
+    }
 }
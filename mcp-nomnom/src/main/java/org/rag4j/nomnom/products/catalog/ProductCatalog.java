@@ -0,0 +1,204 @@
+package org.rag4j.nomnom.products.catalog;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.rag4j.nomnom.products.model.Category;
+import org.rag4j.nomnom.products.model.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
+
+/**
+ * The products on the menu. Queries are answered from an immutable snapshot with the products by id, by name and by
+ * category that is built once per load, so looking up a product or a category does not allocate. {@link #reload}
+ * reads the products again and replaces the snapshot in one step: a query sees either the old or the new products.
+ * <p>
+ * Product ids must be unique. Products that fail the checks are rejected and the current products stay.
+ */
+public class ProductCatalog {
+    private static final Logger logger = LoggerFactory.getLogger(ProductCatalog.class);
+
+    /**
+     * The products that come with the application, used when no file is configured.
+     */
+    public static final String DEFAULT_RESOURCE = "/catalog/products.json";
+
+    private static final TypeReference<List<Product>> PRODUCT_LIST = new TypeReference<>() {
+    };
+
+    private final String source;
+    private final Supplier<List<Product>> reader;
+    private final List<Consumer<List<Product>>> listeners = new CopyOnWriteArrayList<>();
+    private volatile Snapshot snapshot;
+    // The snapshot all listeners have seen, guarded by this
+    private Snapshot applied;
+
+    private ProductCatalog(String source, Supplier<List<Product>> reader) {
+        this.source = source;
+        this.reader = reader;
+        this.snapshot = Snapshot.of(reader.get());
+        this.applied = snapshot;
+        logger.info("Loaded {} products from {}", snapshot.products().size(), source);
+    }
+
+    /**
+     * A catalog read from a JSON array of products in the file, or from {@value #DEFAULT_RESOURCE} when the file is
+     * null.
+     */
+    public static ProductCatalog fromFile(Path file, ObjectMapper objectMapper) {
+        if (file == null) {
+            return new ProductCatalog("classpath:" + DEFAULT_RESOURCE, () -> {
+                try (InputStream in = ProductCatalog.class.getResourceAsStream(DEFAULT_RESOURCE)) {
+                    if (in == null) {
+                        throw new IllegalStateException("Resource %s is missing".formatted(DEFAULT_RESOURCE));
+                    }
+                    return objectMapper.readValue(in, PRODUCT_LIST);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Reading products from %s failed".formatted(DEFAULT_RESOURCE), e);
+                }
+            });
+        }
+        return new ProductCatalog(file.toString(), () -> {
+            try (InputStream in = Files.newInputStream(file)) {
+                return objectMapper.readValue(in, PRODUCT_LIST);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Reading products from %s failed".formatted(file), e);
+            }
+        });
+    }
+
+    /**
+     * A catalog of the products, reloading reads the same products.
+     */
+    public static ProductCatalog of(List<Product> products) {
+        return new ProductCatalog("memory", () -> products);
+    }
+
+    /**
+     * All products in the order of the file. The same list until the next reload.
+     */
+    public List<Product> products() {
+        return snapshot.products();
+    }
+
+    /**
+     * The product with the id, or null.
+     */
+    public Product findById(String id) {
+        return snapshot.byId().get(id);
+    }
+
+    /**
+     * The product with the name ignoring case, or null.
+     */
+    public Product findByName(String name) {
+        return snapshot.byName().get(name.toLowerCase(Locale.ROOT));
+    }
+
+    public List<Product> findByCategory(Category category) {
+        return snapshot.byCategory().get(category);
+    }
+
+    /**
+     * A checksum of the products, the same in every run for the same products.
+     */
+    public long fingerprint() {
+        return snapshot.fingerprint();
+    }
+
+    /**
+     * Calls the listener with the new products after every reload that changed them.
+     */
+    public void onReload(Consumer<List<Product>> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * The product of the catalog with the name of the product when that has another id, else the product itself.
+     * Orders stored before the product ids were unique refer to products by an old id; the returned product has the
+     * current id and keeps the name, description, price and category of the order.
+     */
+    public Product withCurrentId(Product product) {
+        Product current = product.name() == null ? null : findByName(product.name());
+        if (current == null || current.id().equals(product.id())) {
+            return product;
+        }
+        return new Product(current.id(), product.name(), product.description(), product.price(), product.category());
+    }
+
+    /**
+     * Reads the products again and publishes them, returns whether they changed. The listeners run until all of
+     * them succeed: after a listener failed, the next reload calls them again, even when the file did not change.
+     *
+     * @throws IllegalArgumentException when the products are not valid, the current products stay in use
+     */
+    public synchronized boolean reload() {
+        Snapshot loaded = Snapshot.of(reader.get());
+        if (loaded.fingerprint() == applied.fingerprint() && loaded.products().equals(applied.products())) {
+            logger.info("Products in {} did not change", source);
+            return false;
+        }
+        snapshot = loaded;
+        logger.info("Reloaded {} products from {}", loaded.products().size(), source);
+        for (Consumer<List<Product>> listener : listeners) {
+            listener.accept(loaded.products());
+        }
+        applied = loaded;
+        return true;
+    }
+
+    /**
+     * The products of one load with their indexes, never changed once built.
+     */
+    private record Snapshot(List<Product> products, Map<String, Product> byId, Map<String, Product> byName,
+                            Map<Category, List<Product>> byCategory, long fingerprint) {
+
+        static Snapshot of(List<Product> products) {
+            Map<String, Product> byId = new HashMap<>();
+            Map<String, Product> byName = new HashMap<>();
+            Map<Category, List<Product>> byCategory = new EnumMap<>(Category.class);
+            for (Category category : Category.values()) {
+                byCategory.put(category, new ArrayList<>());
+            }
+            for (Product product : products) {
+                if (product.id() == null || product.name() == null || product.category() == null) {
+                    throw new IllegalArgumentException("Product needs an id, a name and a category: " + product);
+                }
+                Product previous = byId.putIfAbsent(product.id(), product);
+                if (previous != null) {
+                    throw new IllegalArgumentException("Product id %s is used by %s and %s"
+                            .formatted(product.id(), previous.name(), product.name()));
+                }
+                byName.putIfAbsent(product.name().toLowerCase(Locale.ROOT), product);
+                byCategory.get(product.category()).add(product);
+            }
+            byCategory.replaceAll((category, inCategory) -> List.copyOf(inCategory));
+            return new Snapshot(List.copyOf(products), Collections.unmodifiableMap(byId),
+                    Collections.unmodifiableMap(byName), Collections.unmodifiableMap(byCategory),
+                    fingerprint(products));
+        }
+
+        private static long fingerprint(List<Product> products) {
+            CRC32C crc = new CRC32C();
+            crc.update(products.toString().getBytes(StandardCharsets.UTF_8));
+            return crc.getValue();
+        }
+    }
+}
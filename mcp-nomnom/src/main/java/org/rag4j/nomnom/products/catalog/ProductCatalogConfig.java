@@ -0,0 +1,22 @@
+package org.rag4j.nomnom.products.catalog;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * Creates the product catalog, see {@code nomnom.catalog}.
+ */
+@Configuration
+@EnableConfigurationProperties(ProductCatalogProperties.class)
+public class ProductCatalogConfig {
+
+    @Bean
+    public ProductCatalog productCatalog(ProductCatalogProperties properties, ObjectMapper objectMapper) {
+        Path file = properties.file() == null || properties.file().isBlank() ? null : Path.of(properties.file());
+        return ProductCatalog.fromFile(file, objectMapper);
+    }
+}
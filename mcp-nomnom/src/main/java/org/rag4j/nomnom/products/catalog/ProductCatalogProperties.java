@@ -0,0 +1,12 @@
+package org.rag4j.nomnom.products.catalog;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration of the product catalog.
+ *
+ * @param file the JSON file with the products, empty to use the products that come with the application
+ */
+@ConfigurationProperties(prefix = "nomnom.catalog")
+public record ProductCatalogProperties(String file) {
+}
@@ -0,0 +1,19 @@
+package org.rag4j.nomnom.products.model;
+
+/**
+ * The product found for a requested name, null when there is none. The score is 1 for the name or an alias of the
+ * product, lower for a product found by a typo of the name or by its meaning.
+ */
+public record ProductMatch(String requestedName, Product product, double score) {
+
+    public static ProductMatch none(String requestedName) {
+        return new ProductMatch(requestedName, null, 0);
+    }
+
+    /**
+     * The same product and score for another spelling of the requested name.
+     */
+    public ProductMatch forName(String requestedName) {
+        return new ProductMatch(requestedName, product, score);
+    }
+}
@@ -0,0 +1,18 @@
+package org.rag4j.nomnom.products.store;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+import java.util.List;
+
+/**
+ * A vector store that searches several queries at once: the queries are embedded with one request to the embedding
+ * model instead of one request per search.
+ */
+public interface BatchSimilaritySearch {
+
+    /**
+     * The results of each request, in the same order. The searches run in parallel.
+     */
+    List<List<Document>> similaritySearch(List<SearchRequest> requests);
+}
@@ -0,0 +1,29 @@
+package org.rag4j.nomnom.products.store;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.rag4j.nomnom.products.store.embedding.EmbeddingProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * Creates the cache in front of the product search, see {@code nomnom.product-cache}.
+ */
+@Configuration
+@EnableConfigurationProperties({ProductCacheProperties.class, EmbeddingProperties.class,
+        ProductMatcherProperties.class})
+public class ProductCacheConfig {
+
+    @Bean
+    public ProductLookupCache productLookupCache(ProductCacheProperties properties,
+                                                 EmbeddingProperties embeddingProperties,
+                                                 ProductMatcherProperties matcherProperties,
+                                                 MeterRegistry meterRegistry) {
+        Path file = properties.file() == null || properties.file().isBlank() ? null : Path.of(properties.file());
+        // The cached matches come from the name matcher and the embedding model, the order parser trusts their scores
+        String settings = embeddingProperties + " " + matcherProperties;
+        return new ProductLookupCache(properties.maxEntries(), file, settings, meterRegistry);
+    }
+}
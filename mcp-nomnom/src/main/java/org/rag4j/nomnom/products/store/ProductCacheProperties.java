@@ -0,0 +1,20 @@
+package org.rag4j.nomnom.products.store;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration of the cache for product lookups by name.
+ *
+ * @param maxEntries the number of queries kept in memory, zero turns the cache off
+ * @param file       the file that keeps the cached queries across restarts, empty to cache in memory only
+ */
+@ConfigurationProperties(prefix = "nomnom.product-cache")
+public record ProductCacheProperties(Integer maxEntries, String file) {
+
+    public ProductCacheProperties {
+        maxEntries = maxEntries == null ? 1000 : maxEntries;
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("Product cache size cannot be negative: " + maxEntries);
+        }
+    }
+}
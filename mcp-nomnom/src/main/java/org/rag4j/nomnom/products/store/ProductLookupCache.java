@@ -0,0 +1,346 @@
+package org.rag4j.nomnom.products.store;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.rag4j.nomnom.products.model.Category;
+import org.rag4j.nomnom.products.model.Product;
+import org.rag4j.nomnom.products.model.ProductMatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.zip.CRC32C;
+
+/**
+ * Remembers the product a name query resolved to, so a repeated query like "coffee" does not need an embedding
+ * request and a similarity search. Queries are compared after trimming, lower casing and collapsing whitespace.
+ * <p>
+ * The first level is an LRU map in memory with at most {@code maxEntries} queries. The optional second level is a
+ * file that keeps every resolved query across restarts: records are appended to it and only their positions are
+ * kept in memory. A query that misses the first level is read from the file and moved into the first level.
+ * <p>
+ * The file starts with a fingerprint of the catalog and of the settings it was written for. {@link #useCatalog}
+ * clears both levels when the products change, so a cached answer never refers to a product that is gone, and a file
+ * written with other settings starts empty, so its scores never come from another embedding model.
+ * <p>
+ * Lookups are counted in {@value #LOOKUPS_COUNTER_NAME}, tagged with the result: {@code memory}, {@code disk} or
+ * {@code miss}.
+ */
+public class ProductLookupCache implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ProductLookupCache.class);
+
+    public static final String LOOKUPS_COUNTER_NAME = "nomnom.product.cache.lookups";
+    public static final String SIZE_GAUGE_NAME = "nomnom.product.cache.size";
+
+    private static final int MAGIC = 0x4E504332; // NPC2, with the score of the match
+    private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES;
+    private static final Category[] CATEGORIES = Category.values();
+
+    private final int maxEntries;
+    private final Path file;
+    private final String settings;
+    private final Map<String, Cached> memory;
+    private final Counter memoryHits;
+    private final Counter diskHits;
+    private final Counter misses;
+
+    // Guarded by this
+    private FileChannel channel;
+    private final Map<String, Long> diskPositions = new HashMap<>();
+
+    /**
+     * @param maxEntries the number of queries kept in memory, zero turns the cache off
+     * @param file       the file for the second level, or null to keep the cache in memory only
+     */
+    public ProductLookupCache(int maxEntries, Path file, MeterRegistry meterRegistry) {
+        this(maxEntries, file, "", meterRegistry);
+    }
+
+    /**
+     * @param maxEntries the number of queries kept in memory, zero turns the cache off
+     * @param file       the file for the second level, or null to keep the cache in memory only
+     * @param settings   the configuration the answers depend on, a file written with other settings is not used
+     */
+    public ProductLookupCache(int maxEntries, Path file, String settings, MeterRegistry meterRegistry) {
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("Product cache size cannot be negative: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.file = maxEntries > 0 ? file : null;
+        this.settings = settings;
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+                return size() > ProductLookupCache.this.maxEntries;
+            }
+        };
+        this.memoryHits = lookups(meterRegistry, "memory");
+        this.diskHits = lookups(meterRegistry, "disk");
+        this.misses = lookups(meterRegistry, "miss");
+        Gauge.builder(SIZE_GAUGE_NAME, this, ProductLookupCache::size)
+                .description("Product name queries cached in memory")
+                .register(meterRegistry);
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String result) {
+        return Counter.builder(LOOKUPS_COUNTER_NAME)
+                .description("Product lookups by name, by the cache level that answered them")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts using the cache for a catalog. Cached answers of another catalog are dropped, when the file was
+     * written for the same products its queries are available again.
+     */
+    public synchronized void useCatalog(List<Product> products) {
+        memory.clear();
+        diskPositions.clear();
+        if (file == null) {
+            return;
+        }
+        closeFile();
+        try {
+            openFile(fingerprint(products, settings));
+        } catch (IOException e) {
+            logger.warn("Product cache file {} cannot be used, caching in memory only", file, e);
+            closeFile();
+        }
+    }
+
+    /**
+     * The match for the query, from the cache or else from the search. A query the search found nothing for is
+     * cached as well.
+     */
+    public ProductMatch lookup(String query, Function<String, ProductMatch> search) {
+        return lookupAll(List.of(query), queries -> List.of(search.apply(queries.getFirst()))).getFirst();
+    }
+
+    /**
+     * The matches for the queries in the same order, the queries that are not cached are passed to one call of the
+     * search, which returns a match for each of them. Queries that are the same after normalizing are searched once.
+     */
+    public List<ProductMatch> lookupAll(List<String> queries, Function<List<String>, List<ProductMatch>> search) {
+        if (maxEntries == 0) {
+            misses.increment(queries.size());
+            return search.apply(queries);
+        }
+        ProductMatch[] matches = new ProductMatch[queries.size()];
+        Map<String, List<Integer>> missing = new LinkedHashMap<>();
+        for (int i = 0; i < queries.size(); i++) {
+            String key = normalize(queries.get(i));
+            Cached cached = missing.containsKey(key) ? null : fromCache(key);
+            if (cached != null) {
+                matches[i] = cached.toMatch(queries.get(i));
+            } else {
+                missing.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+            }
+        }
+        if (!missing.isEmpty()) {
+            misses.increment(missing.values().stream().mapToInt(List::size).sum());
+            List<String> searched = missing.values().stream().map(positions -> queries.get(positions.getFirst()))
+                    .toList();
+            List<ProductMatch> found = search.apply(searched);
+            int next = 0;
+            for (Map.Entry<String, List<Integer>> entry : missing.entrySet()) {
+                ProductMatch match = found.get(next++);
+                store(entry.getKey(), new Cached(match.product(), match.score()));
+                for (int position : entry.getValue()) {
+                    matches[position] = match.forName(queries.get(position));
+                }
+            }
+        }
+        return Arrays.asList(matches);
+    }
+
+    public synchronized int size() {
+        return memory.size();
+    }
+
+    static String normalize(String query) {
+        return query.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private synchronized Cached fromCache(String key) {
+        Cached cached = memory.get(key);
+        if (cached != null) {
+            memoryHits.increment();
+            return cached;
+        }
+        Long position = diskPositions.get(key);
+        if (position == null) {
+            return null;
+        }
+        try {
+            cached = readRecord(position).cached();
+        } catch (IOException e) {
+            logger.warn("Reading product cache file {} failed", file, e);
+            return null;
+        }
+        memory.put(key, cached);
+        diskHits.increment();
+        return cached;
+    }
+
+    private synchronized void store(String key, Cached cached) {
+        memory.put(key, cached);
+        if (channel == null || diskPositions.containsKey(key)) {
+            return;
+        }
+        try {
+            long position = channel.size();
+            channel.write(ByteBuffer.wrap(encode(key, cached)), position);
+            diskPositions.put(key, position);
+        } catch (IOException e) {
+            logger.warn("Writing product cache file {} failed, caching in memory only", file, e);
+            closeFile();
+        }
+    }
+
+    private void openFile(long fingerprint) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (channel.size() >= HEADER_SIZE) {
+            channel.read(header, 0);
+            header.flip();
+            if (header.getInt() == MAGIC && header.getLong() == fingerprint) {
+                long valid = indexRecords();
+                channel.truncate(valid);
+                logger.info("Loaded {} cached product queries from {}", diskPositions.size(), file);
+                return;
+            }
+            logger.info("Product cache file {} was written for other products or settings, starting empty", file);
+        }
+        channel.truncate(0);
+        channel.write(header.clear().putInt(MAGIC).putLong(fingerprint).flip(), 0);
+    }
+
+    /**
+     * Reads the queries and positions of the records, returns the end of the last complete record.
+     */
+    private long indexRecords() throws IOException {
+        long position = HEADER_SIZE;
+        long size = channel.size();
+        ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+        while (position + Integer.BYTES <= size) {
+            channel.read(length.clear(), position);
+            int recordLength = length.flip().getInt();
+            if (recordLength <= 0 || position + Integer.BYTES + recordLength > size) {
+                break;
+            }
+            try {
+                diskPositions.put(readRecord(position).query(), position);
+            } catch (IOException e) {
+                // A damaged record, the file is cut off before it
+                break;
+            }
+            position += Integer.BYTES + recordLength;
+        }
+        return position;
+    }
+
+    private Record readRecord(long position) throws IOException {
+        ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+        channel.read(length, position);
+        ByteBuffer body = ByteBuffer.allocate(length.flip().getInt());
+        channel.read(body, position + Integer.BYTES);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body.array()));
+        String query = in.readUTF();
+        if (!in.readBoolean()) {
+            return new Record(query, new Cached(null, 0));
+        }
+        String id = in.readUTF();
+        String name = in.readUTF();
+        String description = in.readBoolean() ? in.readUTF() : null;
+        double price = in.readDouble();
+        int category = in.readByte();
+        double score = in.readDouble();
+        return new Record(query, new Cached(new Product(id, name, description, price,
+                category < 0 ? null : CATEGORIES[category]), score));
+    }
+
+    /**
+     * Checksum of the products and settings, the same in every run as it only depends on their text.
+     */
+    private static long fingerprint(List<Product> products, String settings) {
+        CRC32C crc = new CRC32C();
+        crc.update(products.toString().getBytes(StandardCharsets.UTF_8));
+        crc.update(settings.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    private static byte[] encode(String query, Cached cached) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0);
+        out.writeUTF(query);
+        Product product = cached.product();
+        out.writeBoolean(product != null);
+        if (product != null) {
+            out.writeUTF(product.id());
+            out.writeUTF(product.name());
+            out.writeBoolean(product.description() != null);
+            if (product.description() != null) {
+                out.writeUTF(product.description());
+            }
+            out.writeDouble(product.price());
+            out.writeByte(product.category() != null ? product.category().ordinal() : -1);
+            out.writeDouble(cached.score());
+        }
+        byte[] record = bytes.toByteArray();
+        ByteBuffer.wrap(record).putInt(0, record.length - Integer.BYTES);
+        return record;
+    }
+
+    private void closeFile() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.warn("Closing product cache file {} failed", file, e);
+            } finally {
+                channel = null;
+                diskPositions.clear();
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        closeFile();
+    }
+
+    /**
+     * A cached answer, the product is null when the search found nothing.
+     */
+    private record Cached(Product product, double score) {
+
+        ProductMatch toMatch(String query) {
+            return new ProductMatch(query, product, score);
+        }
+    }
+
+    private record Record(String query, Cached cached) {
+    }
+}
@@ -0,0 +1,19 @@
+package org.rag4j.nomnom.products.store;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Creates the matcher on product names that runs before the similarity search, see {@code nomnom.product-matcher}.
+ */
+@Configuration
+@EnableConfigurationProperties(ProductMatcherProperties.class)
+public class ProductMatcherConfig {
+
+    @Bean
+    public ProductNameMatcher productNameMatcher(ProductMatcherProperties properties, MeterRegistry meterRegistry) {
+        return new ProductNameMatcher(properties.aliases(), properties.minSimilarity(), meterRegistry);
+    }
+}
@@ -0,0 +1,21 @@
+package org.rag4j.nomnom.products.store;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuration of the lexical product matcher that runs before the similarity search.
+ *
+ * @param minSimilarity the trigram similarity from which a fuzzy match is trusted, between 0 and 1
+ * @param aliases       other names of products, by product name
+ */
+@ConfigurationProperties(prefix = "nomnom.product-matcher")
+public record ProductMatcherProperties(Double minSimilarity, Map<String, List<String>> aliases) {
+
+    public ProductMatcherProperties {
+        minSimilarity = minSimilarity == null ? 0.6 : minSimilarity;
+        aliases = aliases == null ? Map.of() : aliases;
+    }
+}
@@ -0,0 +1,288 @@
+package org.rag4j.nomnom.products.store;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.rag4j.nomnom.products.model.Product;
+import org.rag4j.nomnom.products.model.ProductMatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Matches a query on the names and aliases of the products before the similarity search is used. Most queries are
+ * the name of a product, a plural or a typo of it, and those do not need an embedding. The matcher tries, in order:
+ * <ol>
+ *     <li>{@code exact}: the query equals a name or alias, ignoring case, punctuation and extra whitespace</li>
+ *     <li>{@code stemmed}: the same after dropping plural endings, "sandwiches" matches "Sandwich"</li>
+ *     <li>{@code fuzzy}: the trigrams of the stemmed query and a name overlap enough (Dice coefficient of at least
+ *     {@code minSimilarity}) and no other product scores the same</li>
+ * </ol>
+ * Other queries go to the semantic search. Exact and stemmed matches score 1, fuzzy matches their Dice coefficient.
+ * The path that answered is counted in {@value #MATCHES_COUNTER_NAME}, tagged with {@code path}: one of the above or
+ * {@code vector}.
+ */
+public class ProductNameMatcher {
+    private static final Logger logger = LoggerFactory.getLogger(ProductNameMatcher.class);
+
+    public static final String MATCHES_COUNTER_NAME = "nomnom.product.match";
+
+    private static final Pattern NOT_A_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final Map<String, List<String>> aliases;
+    private final double minSimilarity;
+    private final Counter exactMatches;
+    private final Counter stemmedMatches;
+    private final Counter fuzzyMatches;
+    private final Counter vectorSearches;
+
+    private volatile Index index = Index.of(List.of());
+
+    /**
+     * @param aliases       other names of products, by product name
+     * @param minSimilarity the trigram similarity from which a fuzzy match is trusted, between 0 and 1
+     */
+    public ProductNameMatcher(Map<String, List<String>> aliases, double minSimilarity, MeterRegistry meterRegistry) {
+        if (minSimilarity <= 0 || minSimilarity > 1) {
+            throw new IllegalArgumentException("Minimum similarity must be above 0 and at most 1: " + minSimilarity);
+        }
+        this.aliases = aliases;
+        this.minSimilarity = minSimilarity;
+        this.exactMatches = matches(meterRegistry, "exact");
+        this.stemmedMatches = matches(meterRegistry, "stemmed");
+        this.fuzzyMatches = matches(meterRegistry, "fuzzy");
+        this.vectorSearches = matches(meterRegistry, "vector");
+    }
+
+    private static Counter matches(MeterRegistry meterRegistry, String path) {
+        return Counter.builder(MATCHES_COUNTER_NAME)
+                .description("Product searches by name, by the path that found the answer")
+                .tag("path", path)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Indexes the names and aliases of the products, replacing the products matched before.
+     */
+    public void useCatalog(List<Product> products) {
+        Map<String, List<Product>> terms = new HashMap<>();
+        for (Product product : products) {
+            List<String> names = new ArrayList<>();
+            names.add(product.name());
+            names.addAll(aliases.getOrDefault(product.name(), List.of()));
+            for (String name : names) {
+                String term = normalize(name);
+                if (!term.isEmpty()) {
+                    List<Product> matching = terms.computeIfAbsent(term, key -> new ArrayList<>());
+                    if (!matching.contains(product)) {
+                        matching.add(product);
+                    }
+                }
+            }
+        }
+        List<Term> entries = new ArrayList<>();
+        terms.forEach((term, matching) -> {
+            // A name used by several products is no answer
+            if (matching.size() == 1) {
+                entries.add(new Term(term, stem(term), matching.getFirst()));
+            }
+        });
+        index = Index.of(entries);
+        logger.info("Indexed {} product names and aliases", entries.size());
+    }
+
+    /**
+     * The match for the query, from the names when the matcher is confident and else from the semantic search.
+     */
+    public ProductMatch match(String query, Function<String, ProductMatch> semanticSearch) {
+        return matchAll(List.of(query), queries -> List.of(semanticSearch.apply(queries.getFirst()))).getFirst();
+    }
+
+    /**
+     * The matches for the queries in the same order. The queries that do not match a name are passed to one call of
+     * the semantic search, which returns a match for each of them.
+     */
+    public List<ProductMatch> matchAll(List<String> queries,
+                                       Function<List<String>, List<ProductMatch>> semanticSearch) {
+        Index current = index;
+        ProductMatch[] matches = new ProductMatch[queries.size()];
+        List<Integer> unmatched = new ArrayList<>();
+        for (int i = 0; i < queries.size(); i++) {
+            matches[i] = matchName(current, queries.get(i));
+            if (matches[i] == null) {
+                unmatched.add(i);
+            }
+        }
+        if (!unmatched.isEmpty()) {
+            vectorSearches.increment(unmatched.size());
+            List<ProductMatch> found = semanticSearch.apply(unmatched.stream().map(queries::get).toList());
+            for (int i = 0; i < unmatched.size(); i++) {
+                matches[unmatched.get(i)] = found.get(i);
+            }
+        }
+        return Arrays.asList(matches);
+    }
+
+    /**
+     * The matches for the queries in the same order, only from the exact and stemmed names and aliases. A query that
+     * would need a fuzzy or semantic match gets {@link ProductMatch#none}.
+     */
+    public List<ProductMatch> matchNames(List<String> queries) {
+        Index current = index;
+        List<ProductMatch> matches = new ArrayList<>(queries.size());
+        for (String query : queries) {
+            ProductMatch match = matchExactly(current, query, normalize(query));
+            matches.add(match != null ? match : ProductMatch.none(query));
+        }
+        return matches;
+    }
+
+    private ProductMatch matchName(Index current, String query) {
+        String term = normalize(query);
+        ProductMatch exact = matchExactly(current, query, term);
+        if (exact != null) {
+            return exact;
+        }
+        ProductMatch match = current.fuzzy(query, stem(term), minSimilarity);
+        if (match != null) {
+            logger.info("Matched product {} for query {} on its name", match.product().name(), query);
+            fuzzyMatches.increment();
+        }
+        return match;
+    }
+
+    private ProductMatch matchExactly(Index current, String query, String term) {
+        Product product = current.byTerm().get(term);
+        if (product != null) {
+            exactMatches.increment();
+            return new ProductMatch(query, product, 1);
+        }
+        product = current.byStem().get(stem(term));
+        if (product != null) {
+            stemmedMatches.increment();
+            return new ProductMatch(query, product, 1);
+        }
+        return null;
+    }
+
+    static String normalize(String text) {
+        return NOT_A_WORD.matcher(text.toLowerCase(Locale.ROOT)).replaceAll(" ").strip();
+    }
+
+    /**
+     * Drops the English plural ending of each word, a light stemmer that is enough for menu names. Words ending in
+     * "ie" end in "y" like their plural, so "cookies" and "cookie" both become "cooky".
+     */
+    static String stem(String term) {
+        String[] words = term.split(" ");
+        for (int i = 0; i < words.length; i++) {
+            words[i] = stemWord(words[i]);
+        }
+        return String.join(" ", words);
+    }
+
+    private static String stemWord(String word) {
+        if (word.length() > 4 && word.endsWith("ies")) {
+            return word.substring(0, word.length() - 3) + "y";
+        }
+        if (word.length() > 3 && word.endsWith("ie")) {
+            return word.substring(0, word.length() - 2) + "y";
+        }
+        if (word.length() > 4 && (word.endsWith("ches") || word.endsWith("shes") || word.endsWith("sses")
+                || word.endsWith("xes"))) {
+            return word.substring(0, word.length() - 2);
+        }
+        if (word.length() > 3 && word.endsWith("s") && !word.endsWith("ss") && !word.endsWith("us")) {
+            return word.substring(0, word.length() - 1);
+        }
+        return word;
+    }
+
+    /**
+     * The trigrams of the text, padded so the start and the end of the text count as well.
+     */
+    static Set<String> trigrams(String text) {
+        String padded = "  " + text + " ";
+        Set<String> trigrams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    private record Term(String term, String stemmed, Product product, Set<String> trigrams) {
+        Term(String term, String stemmed, Product product) {
+            this(term, stemmed, product, ProductNameMatcher.trigrams(stemmed));
+        }
+    }
+
+    /**
+     * The terms of one catalog, by text, by stemmed text and by trigram. Stems shared by several products are left
+     * out of {@code byStem}.
+     */
+    private record Index(List<Term> terms, Map<String, Product> byTerm, Map<String, Product> byStem,
+                         Map<String, List<Integer>> byTrigram) {
+
+        static Index of(List<Term> terms) {
+            Map<String, Product> byTerm = new HashMap<>();
+            Map<String, Product> byStem = new HashMap<>();
+            Set<String> sharedStems = new HashSet<>();
+            Map<String, List<Integer>> byTrigram = new HashMap<>();
+            for (int i = 0; i < terms.size(); i++) {
+                Term term = terms.get(i);
+                byTerm.put(term.term(), term.product());
+                Product previous = byStem.putIfAbsent(term.stemmed(), term.product());
+                if (previous != null && !previous.equals(term.product())) {
+                    sharedStems.add(term.stemmed());
+                }
+                for (String trigram : term.trigrams()) {
+                    byTrigram.computeIfAbsent(trigram, key -> new ArrayList<>()).add(i);
+                }
+            }
+            byStem.keySet().removeAll(sharedStems);
+            return new Index(List.copyOf(terms), byTerm, byStem, byTrigram);
+        }
+
+        /**
+         * The product with the highest Dice coefficient of trigrams, null when it is below the minimum or when
+         * another product scores the same.
+         */
+        ProductMatch fuzzy(String query, String stemmed, double minSimilarity) {
+            Set<String> trigrams = ProductNameMatcher.trigrams(stemmed);
+            int[] shared = new int[terms.size()];
+            for (String trigram : trigrams) {
+                for (int position : byTrigram.getOrDefault(trigram, List.of())) {
+                    shared[position]++;
+                }
+            }
+            Product best = null;
+            double bestScore = 0;
+            boolean tied = false;
+            for (int i = 0; i < shared.length; i++) {
+                if (shared[i] == 0) {
+                    continue;
+                }
+                Term term = terms.get(i);
+                double score = 2.0 * shared[i] / (trigrams.size() + term.trigrams().size());
+                if (score > bestScore) {
+                    best = term.product();
+                    bestScore = score;
+                    tied = false;
+                } else if (score == bestScore && !term.product().equals(best)) {
+                    tied = true;
+                }
+            }
+            return !tied && bestScore >= minSimilarity ? new ProductMatch(query, best, bestScore) : null;
+        }
+    }
+}
@@ -1,8 +1,13 @@
 package org.rag4j.nomnom.products.store;
 
 import jakarta.annotation.PostConstruct;
+import org.rag4j.nomnom.products.catalog.ProductCatalog;
 import org.rag4j.nomnom.products.model.Category;
 import org.rag4j.nomnom.products.model.Product;
+import org.rag4j.nomnom.products.model.ProductMatch;
+import org.rag4j.nomnom.products.store.embedding.EmbeddingProperties;
+import org.rag4j.nomnom.products.store.hnsw.HnswVectorStore;
+import org.rag4j.nomnom.products.store.mapped.MappedVectorStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.document.Document;
@@ -11,101 +16,229 @@ import org.springframework.ai.vectorstore.SimpleVectorStore;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.stereotype.Repository;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import static org.rag4j.nomnom.products.model.Category.*;
-
 @Repository
 public class ProductStore {
     private static final Logger logger = LoggerFactory.getLogger(ProductStore.class);
     private final VectorStore vectorStore;
+    private final ProductLookupCache lookupCache;
+    private final ProductNameMatcher nameMatcher;
+    private final EmbeddingProperties embeddingProperties;
+    private final ProductCatalog catalog;
+    private List<Product> indexedProducts = List.of();
 
-    public ProductStore(VectorStore vectorStore) {
+    public ProductStore(VectorStore vectorStore, ProductLookupCache lookupCache, ProductNameMatcher nameMatcher,
+                        EmbeddingProperties embeddingProperties, ProductCatalog catalog) {
         this.vectorStore = vectorStore;
+        this.lookupCache = lookupCache;
+        this.nameMatcher = nameMatcher;
+        this.embeddingProperties = embeddingProperties;
+        this.catalog = catalog;
     }
 
+    /**
+     * Finds the product that best matches the name. Repeated names are answered by the {@link ProductLookupCache},
+     * names close to a product name by the {@link ProductNameMatcher}, both without a similarity search.
+     */
     public Product findProductByName(String name) {
+        return lookupCache.lookup(name, query -> nameMatcher.match(query, this::searchProductByName)).product();
+    }
+
+    /**
+     * Finds the best matching product for each name, in the same order, like {@link #findProductByName}. The names
+     * that need a similarity search are embedded in one request and searched in parallel.
+     */
+    public List<ProductMatch> findProductsByNames(List<String> names) {
+        return lookupCache.lookupAll(names, queries -> nameMatcher.matchAll(queries, this::searchProductsByName));
+    }
+
+    private ProductMatch searchProductByName(String name) {
         logger.info("Searching for product by name: {}", name);
-        SearchRequest request = SearchRequest.builder()
+        return toMatch(name, vectorStore.similaritySearch(searchRequest(name)));
+    }
+
+    private List<ProductMatch> searchProductsByName(List<String> names) {
+        if (!(vectorStore instanceof BatchSimilaritySearch batchSearch)) {
+            return names.parallelStream().map(this::searchProductByName).toList();
+        }
+        logger.info("Searching for products by name: {}", names);
+        List<List<Document>> results = batchSearch.similaritySearch(
+                names.stream().map(ProductStore::searchRequest).toList());
+        List<ProductMatch> matches = new ArrayList<>(names.size());
+        for (int i = 0; i < names.size(); i++) {
+            matches.add(toMatch(names.get(i), results.get(i)));
+        }
+        return matches;
+    }
+
+    private static SearchRequest searchRequest(String name) {
+        return SearchRequest.builder()
                 .query(name)
                 .build();
-        List<Document> documents = vectorStore.similaritySearch(request);
+    }
+
+    private ProductMatch toMatch(String name, List<Document> documents) {
         if (documents.isEmpty()) {
-            return null;
+            return ProductMatch.none(name);
+        }
+        Document document = documents.getFirst();
+        Product foundProduct = catalog.findById((String) document.getMetadata().get("id"));
+        if (foundProduct == null) {
+            logger.warn("Found product {} for query {} is no longer in the catalog", document.getId(), name);
+            return ProductMatch.none(name);
         }
-        Map<String, Object> metadata = documents.getFirst().getMetadata();
-
-        String categoryName = (String) metadata.get("category");
-        Category category = Category.fromName(categoryName);
-
-        Product foundProduct = new Product(
-                (String) metadata.get("id"),
-                (String) metadata.get("name"),
-                (String) metadata.get("description"),
-                (Double) metadata.get("price"),
-                category
-        );
 
         logger.info("Found product: {} for query {}", foundProduct.name(), name);
 
-        return foundProduct;
+        return new ProductMatch(name, foundProduct, document.getScore() == null ? 0 : document.getScore());
     }
 
     public List<Product> getAllProducts() {
-        logger.info("Retrieving all products from vector store.");
-        return List.of(
-                new Product("1", "Chips", "Crispy potato chips.", 2.5, SNACKS),
-                new Product("2", "Cookie", "A tasty cookie", 1.0, SNACKS),
-                new Product("2", "Soda", "Carbonated soft drink.", 2.5, DRINKS),
-                new Product("2", "Coffee", "Keeps the engine running.", 1.5, DRINKS),
-                new Product("2", "Tea", "Carbonated soft drink.", 1.5, DRINKS),
-                new Product("2", "Juice", "Carbonated soft drink.", 3.0, DRINKS),
-                new Product("3", "Burger", "Juicy beef burger with cheese.", 15.0, DINER),
-                new Product("3", "Pizza", "Freshly ordered near you.", 12.5, DINER),
-                new Product("3", "Salad", "For the smaller appetite.", 9.5, DINER),
-                new Product("3", "Sushi", "Fashionable food, all fresh.", 23.0, DINER),
-                new Product("4", "Sandwich", "Have a Dutch lunch.", 5.0, LUNCH),
-                new Product("4", "Wrap", "A hip lunch bite.", 5.5, LUNCH),
-                new Product("4", "Soup", "For those colder days.", 3.5, LUNCH)
-        );
+        return catalog.products();
     }
 
     public List<Product> findProductsByCategory(String categoryName) {
         logger.info("Finding products by category: {}", categoryName);
-        return this.getAllProducts().stream()
-                .filter(product -> product.category().equals(Category.fromName(categoryName)))
-                .toList();
+        return catalog.findByCategory(Category.fromName(categoryName));
     }
 
     @PostConstruct
     public void initializeStore() {
-        Path filePath = Paths.get(System.getProperty("user.dir"), "data","vectorstore.ser");
-        if (filePath.toFile().exists()) {
-            logger.info("Loading vector store: {}", filePath);
-            if (vectorStore instanceof SimpleVectorStore simpleVectorStore) {
-                simpleVectorStore.load(filePath.toFile());
+        List<Product> products = catalog.products();
+        lookupCache.useCatalog(products);
+        nameMatcher.useCatalog(products);
+        Path filePath = Paths.get(System.getProperty("user.dir"), "data", vectorStoreFileName());
+        if (catalog.fingerprint() == savedFingerprint(filePath) && loadVectorStore(filePath)) {
+            indexedProducts = products;
+            if (vectorStore instanceof MappedVectorStore mapped && !mapped.fileMatchesSettings()) {
+                // The vectors are in the file, only the encoding or the quantized section changes
+                logger.info("Vector store file {} has other settings, writing it again", filePath);
+                mapped.save(filePath);
             }
         } else {
-            logger.info("Initializing vector store with sample products.");
-            List<Product> products = this.getAllProducts();
-            List<Document> documents = products.stream().map(product -> Document.builder()
-                    .text(product.name())
-                    .metadata(Map.of(
-                            "id", product.id(),
-                            "name", product.name(),
-                            "description", product.description(),
-                            "price", product.price(),
-                            "category", product.category().name()
-                    ))
-                    .build()).toList();
-            vectorStore.add(documents);
-
-            if (vectorStore instanceof SimpleVectorStore simpleVectorStore) {
-                simpleVectorStore.save(filePath.toFile());
+            logger.info("Initializing vector store with {} products.", products.size());
+            updateVectorStore(products, filePath);
+        }
+        catalog.onReload(reloaded -> {
+            lookupCache.useCatalog(reloaded);
+            nameMatcher.useCatalog(reloaded);
+            updateVectorStore(reloaded, filePath);
+        });
+    }
+
+    /**
+     * Embeds the products that are new or changed since the last update, removes the ones that are gone and saves
+     * the vector store with the fingerprint of the catalog.
+     */
+    private synchronized void updateVectorStore(List<Product> products, Path filePath) {
+        Map<String, Product> previous = new HashMap<>();
+        indexedProducts.forEach(product -> previous.put(product.id(), product));
+        List<Document> changed = new ArrayList<>();
+        for (Product product : products) {
+            if (!product.equals(previous.remove(product.id()))) {
+                changed.add(toDocument(product));
+            }
+        }
+        if (!previous.isEmpty()) {
+            vectorStore.delete(List.copyOf(previous.keySet()));
+        }
+        if (!changed.isEmpty()) {
+            vectorStore.add(changed);
+        }
+        logger.info("Embedded {} products, removed {}", changed.size(), previous.size());
+        indexedProducts = products;
+
+        switch (vectorStore) {
+            case MappedVectorStore mappedVectorStore -> mappedVectorStore.save(filePath);
+            case SimpleVectorStore simpleVectorStore -> simpleVectorStore.save(filePath.toFile());
+            case HnswVectorStore hnswVectorStore -> hnswVectorStore.save(filePath);
+            default -> {
+                return;
             }
         }
+        try {
+            Files.writeString(fingerprintFile(filePath), Long.toString(catalog.fingerprint()));
+        } catch (IOException e) {
+            logger.warn("Cannot write the catalog fingerprint of {}, the products are embedded again at startup",
+                    filePath, e);
+        }
+    }
+
+    private static Document toDocument(Product product) {
+        // Metadata values cannot be null, a product without a description has no description entry
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("id", product.id());
+        metadata.put("name", product.name());
+        if (product.description() != null) {
+            metadata.put("description", product.description());
+        }
+        metadata.put("price", product.price());
+        metadata.put("category", product.category().name());
+        return Document.builder()
+                .id(product.id())
+                .text(product.name())
+                .metadata(metadata)
+                .build();
+    }
+
+    /**
+     * Loads the saved products, returns false when there is no file or it cannot be read, for instance because an
+     * older version of the application wrote it.
+     */
+    private boolean loadVectorStore(Path filePath) {
+        if (!filePath.toFile().exists()) {
+            return false;
+        }
+        logger.info("Loading vector store: {}", filePath);
+        try {
+            switch (vectorStore) {
+                case MappedVectorStore mappedVectorStore -> mappedVectorStore.load(filePath);
+                case SimpleVectorStore simpleVectorStore -> simpleVectorStore.load(filePath.toFile());
+                case HnswVectorStore hnswVectorStore -> hnswVectorStore.load(filePath);
+                default -> logger.info("Vector store {} keeps its own products", vectorStore.getName());
+            }
+            return true;
+        } catch (UncheckedIOException e) {
+            logger.warn("Vector store file {} cannot be read, embedding the products again", filePath, e);
+            return false;
+        }
+    }
+
+    /**
+     * The fingerprint of the catalog the vector store file was saved with, or -1 when it is unknown.
+     */
+    private static long savedFingerprint(Path filePath) {
+        Path fingerprintFile = fingerprintFile(filePath);
+        if (!Files.exists(fingerprintFile)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(Files.readString(fingerprintFile).trim());
+        } catch (IOException | NumberFormatException e) {
+            logger.warn("Cannot read the catalog fingerprint {}", fingerprintFile, e);
+            return -1;
+        }
+    }
+
+    private static Path fingerprintFile(Path filePath) {
+        return filePath.resolveSibling(filePath.getFileName() + ".catalog");
+    }
+
+    private String vectorStoreFileName() {
+        String extension = switch (vectorStore) {
+            case MappedVectorStore ignored -> ".bin";
+            case HnswVectorStore ignored -> ".hnsw";
+            default -> ".ser";
+        };
+        return "vectorstore" + embeddingProperties.fileSuffix() + extension;
     }
 }
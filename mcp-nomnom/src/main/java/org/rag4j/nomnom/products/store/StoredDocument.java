@@ -0,0 +1,119 @@
+package org.rag4j.nomnom.products.store;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.DocumentMetadata;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A document as kept by the product vector stores, with a binary form for their files. Metadata values are written
+ * with a type tag so they are read back with the same type: strings, numbers and booleans are supported.
+ */
+public record StoredDocument(String id, String text, Map<String, Object> metadata) {
+
+    public static StoredDocument of(Document document) {
+        return new StoredDocument(document.getId(), document.getText(), document.getMetadata());
+    }
+
+    /**
+     * The document as a search result, with the similarity as score and the distance in the metadata.
+     */
+    public Document toDocument(double similarity) {
+        Map<String, Object> withDistance = new HashMap<>(metadata);
+        withDistance.put(DocumentMetadata.DISTANCE.value(), 1 - similarity);
+        return Document.builder()
+                .id(id)
+                .text(text)
+                .metadata(withDistance)
+                .score(similarity)
+                .build();
+    }
+
+    public void write(DataOutputStream out) throws IOException {
+        out.writeUTF(id);
+        writeText(out, text);
+        out.writeShort(metadata.size());
+        for (Map.Entry<String, Object> entry : metadata.entrySet()) {
+            out.writeUTF(entry.getKey());
+            writeValue(out, entry.getValue());
+        }
+    }
+
+    public static StoredDocument read(DataInputStream in) throws IOException {
+        String id = in.readUTF();
+        String text = readText(in);
+        int count = in.readUnsignedShort();
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            metadata.put(in.readUTF(), readValue(in));
+        }
+        return new StoredDocument(id, text, metadata);
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        switch (value) {
+            case null -> out.writeByte(0);
+            case String text -> {
+                out.writeByte(1);
+                writeText(out, text);
+            }
+            case Double number -> {
+                out.writeByte(2);
+                out.writeDouble(number);
+            }
+            case Float number -> {
+                out.writeByte(3);
+                out.writeFloat(number);
+            }
+            case Integer number -> {
+                out.writeByte(4);
+                out.writeInt(number);
+            }
+            case Long number -> {
+                out.writeByte(5);
+                out.writeLong(number);
+            }
+            case Boolean flag -> {
+                out.writeByte(6);
+                out.writeBoolean(flag);
+            }
+            default -> throw new IllegalArgumentException("Metadata of type %s cannot be saved"
+                    .formatted(value.getClass().getName()));
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        int type = in.readByte();
+        return switch (type) {
+            case 0 -> null;
+            case 1 -> readText(in);
+            case 2 -> in.readDouble();
+            case 3 -> in.readFloat();
+            case 4 -> in.readInt();
+            case 5 -> in.readLong();
+            case 6 -> in.readBoolean();
+            default -> throw new IOException("Unknown metadata type " + type);
+        };
+    }
+
+    private static void writeText(DataOutputStream out, String text) throws IOException {
+        if (text == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readText(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        return length < 0 ? null : new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+}
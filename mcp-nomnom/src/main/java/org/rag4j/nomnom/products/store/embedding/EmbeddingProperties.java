@@ -0,0 +1,37 @@
+package org.rag4j.nomnom.products.store.embedding;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration of the model that embeds the products and the searched names.
+ *
+ * @param provider   {@code openai} uses text-embedding-3-small and needs {@code OPENAI_API_KEY}, {@code hashed} uses
+ *                   the {@link HashedNGramEmbeddingModel} without network
+ * @param dimensions the size of the hashed vectors
+ */
+@ConfigurationProperties(prefix = "nomnom.embedding")
+public record EmbeddingProperties(Provider provider, Integer dimensions) {
+
+    public EmbeddingProperties {
+        provider = provider == null ? Provider.OPENAI : provider;
+        dimensions = dimensions == null ? 512 : dimensions;
+        if (dimensions <= 0) {
+            throw new IllegalArgumentException("Embedding dimensions must be positive: " + dimensions);
+        }
+    }
+
+    /**
+     * Added to the name of the vector store file, so vectors of different models are never searched together.
+     * Empty for OpenAI, which wrote the files before there was a choice.
+     */
+    public String fileSuffix() {
+        return switch (provider) {
+            case OPENAI -> "";
+            case HASHED -> "-hashed-" + dimensions;
+        };
+    }
+
+    public enum Provider {
+        OPENAI, HASHED
+    }
+}
@@ -0,0 +1,104 @@
+package org.rag4j.nomnom.products.store.embedding;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * An embedding model that runs in process: every word of the text and the character n-grams of 3 and 4 characters of
+ * each word are hashed to a position in the vector, with a sign from the same hash, and the vector is normalized.
+ * Texts that share words or parts of words, like "sandwich" and "sandwiches", get similar vectors.
+ * <p>
+ * It knows nothing about meaning, "espresso" is not close to "coffee", but it needs no network or key, always gives
+ * the same vector for the same text and embeds a product name in microseconds. Meant for tests, benchmarks and
+ * installations without access to OpenAI, together with aliases for the names that differ in meaning only.
+ */
+public class HashedNGramEmbeddingModel implements EmbeddingModel {
+    private static final Pattern NOT_A_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int MIN_N = 3;
+    private static final int MAX_N = 4;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final char WORD_MARKER = '\u0001';
+
+    private final int dimensions;
+
+    public HashedNGramEmbeddingModel(int dimensions) {
+        if (dimensions <= 0) {
+            throw new IllegalArgumentException("Embedding dimensions must be positive: " + dimensions);
+        }
+        this.dimensions = dimensions;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<Embedding> embeddings = new ArrayList<>(request.getInstructions().size());
+        for (String text : request.getInstructions()) {
+            embeddings.add(new Embedding(embed(text), embeddings.size()));
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(String text) {
+        float[] vector = new float[dimensions];
+        String normalized = NOT_A_WORD.matcher(text.toLowerCase(Locale.ROOT)).replaceAll(" ").strip();
+        if (normalized.isEmpty()) {
+            return vector;
+        }
+        for (String word : normalized.split(" ")) {
+            add(vector, WORD_MARKER + word, 0, word.length() + 1);
+            String padded = " " + word + " ";
+            for (int n = MIN_N; n <= MAX_N; n++) {
+                for (int start = 0; start + n <= padded.length(); start++) {
+                    add(vector, padded, start, start + n);
+                }
+            }
+        }
+        return normalize(vector);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return embed(document.getText() == null ? "" : document.getText());
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+
+    /**
+     * Adds the feature, the characters from start to end, with FNV-1a: the low bits pick the position and the top
+     * bit the sign, so features that collide cancel out instead of adding up.
+     */
+    private void add(float[] vector, CharSequence text, int start, int end) {
+        long hash = FNV_OFFSET;
+        for (int i = start; i < end; i++) {
+            hash = (hash ^ text.charAt(i)) * FNV_PRIME;
+        }
+        int position = (int) ((hash & Long.MAX_VALUE) % dimensions);
+        vector[position] += hash < 0 ? -1 : 1;
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        if (norm > 0) {
+            float scale = (float) (1 / Math.sqrt(norm));
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] *= scale;
+            }
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,588 @@
+package org.rag4j.nomnom.products.store.hnsw;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Predicate;
+
+/**
+ * Approximate nearest neighbour search with a Hierarchical Navigable Small World graph (Malkov and Yashunin). Every
+ * vector is a node on level 0 and, with a chance that drops by a factor {@code m} per level, on the levels above it.
+ * A search walks greedily from the entry point on the top level down to level 1 and then explores level 0 with a
+ * candidate list of {@code ef} nodes. A larger {@code ef} finds more of the true nearest neighbours and costs more
+ * distance computations.
+ * <p>
+ * Vectors are normalized when added and compared by cosine similarity. Nodes are never removed from the graph, a
+ * removed node is only skipped in the results so the graph stays connected.
+ * <p>
+ * Adds and searches can run concurrently. A node gets its number under a short lock, after that only the neighbour
+ * lists of the nodes it is linked to are locked. Neighbour lists are replaced, never changed in place, so a search
+ * always reads a complete list.
+ *
+ * @param <T> the item stored with each vector
+ */
+public class HnswIndex<T> {
+    private static final int MAGIC = 0x484E5357; // HNSW
+    private static final int VERSION = 1;
+    private static final int MAX_LEVEL = 16;
+    private static final int[] NO_NEIGHBOURS = new int[0];
+
+    private final int dimensions;
+    private final int m;
+    private final int efConstruction;
+    private final double levelMultiplier;
+
+    private final Object growLock = new Object();
+    private volatile Node<T>[] nodes;
+    private int size; // Guarded by growLock
+    private final AtomicInteger removed = new AtomicInteger();
+    private final AtomicLong levelDraws = new AtomicLong();
+    private final AtomicReference<EntryPoint> entryPoint = new AtomicReference<>();
+
+    /**
+     * @param dimensions     the length of the vectors
+     * @param m              the number of neighbours a node links to, twice as many on level 0
+     * @param efConstruction the candidate list size used to find the neighbours of a new node
+     */
+    @SuppressWarnings("unchecked")
+    public HnswIndex(int dimensions, int m, int efConstruction) {
+        if (dimensions <= 0) {
+            throw new IllegalArgumentException("Dimensions must be positive: " + dimensions);
+        }
+        checkParameters(m, efConstruction);
+        this.dimensions = dimensions;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1 / Math.log(m);
+        this.nodes = new Node[64];
+    }
+
+    static void checkParameters(int m, int efConstruction) {
+        if (m < 2 || m > 1000) {
+            throw new IllegalArgumentException("M must be between 2 and 1000: " + m);
+        }
+        if (efConstruction < m) {
+            throw new IllegalArgumentException("efConstruction cannot be smaller than M: " + efConstruction);
+        }
+    }
+
+    public int dimensions() {
+        return dimensions;
+    }
+
+    /**
+     * The number of items that can be found, added minus removed.
+     */
+    public int size() {
+        synchronized (growLock) {
+            return size - removed.get();
+        }
+    }
+
+    /**
+     * Adds the vector and returns the number of its node, used to remove it again.
+     */
+    public int add(float[] vector, T item) {
+        Node<T> node = new Node<>(normalized(vector), item, randomLevel());
+        int id = allocate(node);
+        EntryPoint entry = entryPoint.get();
+        if (entry == null) {
+            if (entryPoint.compareAndSet(null, new EntryPoint(id, node.level))) {
+                return id;
+            }
+            entry = entryPoint.get();
+        }
+
+        int current = entry.node();
+        for (int level = entry.level(); level > node.level; level--) {
+            current = closestOnLevel(node.vector, current, level);
+        }
+        int topLevel = Math.min(node.level, entry.level());
+        int[][] neighbours = new int[topLevel + 1][];
+        for (int level = topLevel; level >= 0; level--) {
+            NodeHeap found = searchLevel(node.vector, current, efConstruction, level, null);
+            int[] candidates = Arrays.stream(found.sortedNearestFirst()).filter(other -> other != id).toArray();
+            neighbours[level] = selectNeighbours(candidates, node.vector, m);
+            node.neighbours.set(level, neighbours[level]);
+            current = neighbours[level].length > 0 ? neighbours[level][0] : current;
+        }
+        // Other nodes link to this node only once all its own links are in place, a search that reaches it can
+        // always continue from it
+        for (int level = topLevel; level >= 0; level--) {
+            for (int neighbour : neighbours[level]) {
+                link(neighbour, new int[]{id}, level);
+            }
+        }
+
+        while (node.level > entry.level() && !entryPoint.compareAndSet(entry, new EntryPoint(id, node.level))) {
+            entry = entryPoint.get();
+        }
+        return id;
+    }
+
+    /**
+     * Leaves the node out of the results of later searches.
+     */
+    public void remove(int id) {
+        Node<T> node = node(id);
+        if (!node.removed) {
+            synchronized (node) {
+                if (!node.removed) {
+                    node.removed = true;
+                    removed.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * The at most {@code k} items nearest to the query that match the filter, most similar first.
+     *
+     * @param ef     the candidate list size, raised to {@code k} when smaller
+     * @param filter the items that can be returned, null for all of them
+     */
+    public List<Match<T>> search(float[] query, int k, int ef, Predicate<T> filter) {
+        if (query.length != dimensions) {
+            throw new IllegalArgumentException("Expected a vector of %d dimensions but got %d"
+                    .formatted(dimensions, query.length));
+        }
+        EntryPoint entry = entryPoint.get();
+        if (entry == null || k <= 0) {
+            return List.of();
+        }
+        float[] normalized = normalized(query);
+        int current = entry.node();
+        for (int level = entry.level(); level > 0; level--) {
+            current = closestOnLevel(normalized, current, level);
+        }
+        Predicate<Node<T>> accept = node -> !node.removed && (filter == null || filter.test(node.item));
+        NodeHeap found = searchLevel(normalized, current, Math.max(ef, k), 0, accept);
+        while (found.size() > k) {
+            found.poll();
+        }
+        int[] ids = found.sortedNearestFirst();
+        List<Match<T>> matches = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Node<T> node = node(id);
+            matches.add(new Match<>(id, node.item, dot(normalized, node.vector)));
+        }
+        return matches;
+    }
+
+    /**
+     * Visits the items that are not removed, in the order they were added.
+     */
+    public void forEach(ItemVisitor<T> visitor) {
+        int count;
+        synchronized (growLock) {
+            count = size;
+        }
+        for (int id = 0; id < count; id++) {
+            Node<T> node = node(id);
+            if (!node.removed) {
+                visitor.visit(id, node.item);
+            }
+        }
+    }
+
+    private int allocate(Node<T> node) {
+        synchronized (growLock) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+            }
+            nodes[size] = node;
+            return size++;
+        }
+    }
+
+    private Node<T> node(int id) {
+        return nodes[id];
+    }
+
+    /**
+     * Draws from a fixed sequence (SplitMix64), so adding the same vectors in the same order builds the same graph.
+     */
+    private int randomLevel() {
+        long z = (levelDraws.getAndIncrement() + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z ^= z >>> 31;
+        double random = 1 - (z >>> 11) * 0x1.0p-53;
+        return Math.min(MAX_LEVEL, (int) (-Math.log(random) * levelMultiplier));
+    }
+
+    /**
+     * Walks to the neighbour nearest to the query until no neighbour is nearer.
+     */
+    private int closestOnLevel(float[] query, int start, int level) {
+        int current = start;
+        float currentDistance = distance(query, node(current).vector);
+        boolean moved = true;
+        while (moved) {
+            moved = false;
+            for (int neighbour : node(current).neighbours(level)) {
+                float distance = distance(query, node(neighbour).vector);
+                if (distance < currentDistance) {
+                    current = neighbour;
+                    currentDistance = distance;
+                    moved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Best first search on one level. Nodes that are not accepted are explored but not returned, so a strict filter
+     * makes the search visit more of the graph instead of returning fewer results.
+     *
+     * @return the at most {@code ef} accepted nodes nearest to the query, farthest on top
+     */
+    private NodeHeap searchLevel(float[] query, int start, int ef, int level, Predicate<Node<T>> accept) {
+        BitSet visited = new BitSet();
+        NodeHeap candidates = NodeHeap.nearestOnTop(ef);
+        NodeHeap results = NodeHeap.farthestOnTop(ef + 1);
+        float startDistance = distance(query, node(start).vector);
+        visited.set(start);
+        candidates.add(start, startDistance);
+        if (accept == null || accept.test(node(start))) {
+            results.add(start, startDistance);
+        }
+        while (candidates.size() > 0) {
+            float distance = candidates.topDistance();
+            if (results.size() >= ef && distance > results.topDistance()) {
+                break;
+            }
+            int current = candidates.poll();
+            for (int neighbour : node(current).neighbours(level)) {
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+                Node<T> neighbourNode = node(neighbour);
+                float neighbourDistance = distance(query, neighbourNode.vector);
+                if (results.size() < ef || neighbourDistance < results.topDistance()) {
+                    candidates.add(neighbour, neighbourDistance);
+                    if (accept == null || accept.test(neighbourNode)) {
+                        results.add(neighbour, neighbourDistance);
+                        if (results.size() > ef) {
+                            results.poll();
+                        }
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * The neighbour selection heuristic of the paper: a candidate is skipped when it is nearer to an already
+     * selected neighbour than to the node itself. This keeps links in several directions, which matters for
+     * clustered data such as product embeddings.
+     *
+     * @param candidates candidate nodes, nearest first
+     */
+    private int[] selectNeighbours(int[] candidates, float[] vector, int max) {
+        int[] selected = new int[Math.min(max, candidates.length)];
+        int count = 0;
+        for (int i = 0; i < candidates.length && count < selected.length; i++) {
+            float[] candidate = node(candidates[i]).vector;
+            float distance = distance(vector, candidate);
+            boolean diverse = true;
+            for (int j = 0; j < count && diverse; j++) {
+                diverse = distance(candidate, node(selected[j]).vector) >= distance;
+            }
+            if (diverse) {
+                selected[count++] = candidates[i];
+            }
+        }
+        return count == selected.length ? selected : Arrays.copyOf(selected, count);
+    }
+
+    /**
+     * Adds links from the node to the other nodes, selects the neighbours again when the node has too many.
+     */
+    private void link(int id, int[] others, int level) {
+        Node<T> node = node(id);
+        int max = level == 0 ? 2 * m : m;
+        synchronized (node) {
+            int[] current = node.neighbours(level);
+            int[] extended = Arrays.copyOf(current, current.length + others.length);
+            System.arraycopy(others, 0, extended, current.length, others.length);
+            if (extended.length > max) {
+                NodeHeap byDistance = NodeHeap.farthestOnTop(extended.length);
+                for (int neighbour : Arrays.stream(extended).distinct().toArray()) {
+                    byDistance.add(neighbour, distance(node.vector, node(neighbour).vector));
+                }
+                extended = selectNeighbours(byDistance.sortedNearestFirst(), node.vector, max);
+            }
+            node.neighbours.set(level, extended);
+        }
+    }
+
+    private static float[] normalized(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        float[] normalized = vector.clone();
+        if (norm > 0) {
+            float scale = (float) (1 / Math.sqrt(norm));
+            for (int i = 0; i < normalized.length; i++) {
+                normalized[i] *= scale;
+            }
+        }
+        return normalized;
+    }
+
+    private static float distance(float[] a, float[] b) {
+        return 1 - dot(a, b);
+    }
+
+    private static float dot(float[] a, float[] b) {
+        float sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Writes the graph and the items. Adds that run while writing may be left out.
+     */
+    public void write(DataOutputStream out, ItemWriter<T> itemWriter) throws IOException {
+        int count;
+        synchronized (growLock) {
+            count = size;
+        }
+        EntryPoint entry = entryPoint.get();
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(dimensions);
+        out.writeInt(m);
+        out.writeInt(efConstruction);
+        out.writeInt(count);
+        out.writeInt(entry != null && entry.node() < count ? entry.node() : -1);
+        for (int id = 0; id < count; id++) {
+            Node<T> node = node(id);
+            out.writeByte(node.level);
+            out.writeBoolean(node.removed);
+            itemWriter.write(out, node.item);
+            for (float value : node.vector) {
+                out.writeFloat(value);
+            }
+            for (int level = 0; level <= node.level; level++) {
+                int[] neighbours = node.neighbours(level);
+                int valid = 0;
+                for (int neighbour : neighbours) {
+                    valid += neighbour < count ? 1 : 0;
+                }
+                out.writeShort(valid);
+                for (int neighbour : neighbours) {
+                    if (neighbour < count) {
+                        out.writeInt(neighbour);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a graph written by {@link #write}.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> HnswIndex<T> read(DataInputStream in, ItemReader<T> itemReader) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not an HNSW index");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported HNSW index version " + version);
+        }
+        HnswIndex<T> index = new HnswIndex<>(in.readInt(), in.readInt(), in.readInt());
+        int count = in.readInt();
+        int entry = in.readInt();
+        index.nodes = new Node[Math.max(64, count)];
+        for (int id = 0; id < count; id++) {
+            int level = in.readByte();
+            boolean removed = in.readBoolean();
+            T item = itemReader.read(in);
+            float[] vector = new float[index.dimensions];
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] = in.readFloat();
+            }
+            Node<T> node = new Node<>(vector, item, level);
+            node.removed = removed;
+            for (int l = 0; l <= level; l++) {
+                int[] neighbours = new int[in.readUnsignedShort()];
+                for (int i = 0; i < neighbours.length; i++) {
+                    neighbours[i] = in.readInt();
+                }
+                node.neighbours.set(l, neighbours);
+            }
+            index.nodes[id] = node;
+            if (removed) {
+                index.removed.incrementAndGet();
+            }
+        }
+        index.size = count;
+        if (entry >= 0) {
+            index.entryPoint.set(new EntryPoint(entry, index.nodes[entry].level));
+        }
+        return index;
+    }
+
+    /**
+     * A search result, the similarity is the cosine similarity with the query.
+     */
+    public record Match<T>(int id, T item, float similarity) {
+    }
+
+    @FunctionalInterface
+    public interface ItemVisitor<T> {
+        void visit(int id, T item);
+    }
+
+    @FunctionalInterface
+    public interface ItemWriter<T> {
+        void write(DataOutputStream out, T item) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface ItemReader<T> {
+        T read(DataInputStream in) throws IOException;
+    }
+
+    private record EntryPoint(int node, int level) {
+    }
+
+    private static final class Node<T> {
+        final float[] vector;
+        final T item;
+        final int level;
+        final AtomicReferenceArray<int[]> neighbours;
+        volatile boolean removed;
+
+        Node(float[] vector, T item, int level) {
+            this.vector = vector;
+            this.item = item;
+            this.level = level;
+            this.neighbours = new AtomicReferenceArray<>(level + 1);
+            for (int i = 0; i <= level; i++) {
+                neighbours.set(i, NO_NEIGHBOURS);
+            }
+        }
+
+        int[] neighbours(int level) {
+            return level < neighbours.length() ? neighbours.get(level) : NO_NEIGHBOURS;
+        }
+    }
+
+    /**
+     * A binary heap of node numbers ordered by distance, without boxing.
+     */
+    private static final class NodeHeap {
+        private final boolean farthestOnTop;
+        private int[] ids;
+        private float[] distances;
+        private int size;
+
+        private NodeHeap(boolean farthestOnTop, int capacity) {
+            this.farthestOnTop = farthestOnTop;
+            this.ids = new int[Math.max(capacity, 4)];
+            this.distances = new float[ids.length];
+        }
+
+        static NodeHeap nearestOnTop(int capacity) {
+            return new NodeHeap(false, capacity);
+        }
+
+        static NodeHeap farthestOnTop(int capacity) {
+            return new NodeHeap(true, capacity);
+        }
+
+        int size() {
+            return size;
+        }
+
+        float topDistance() {
+            return distances[0];
+        }
+
+        void add(int id, float distance) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                distances = Arrays.copyOf(distances, size * 2);
+            }
+            int position = size++;
+            while (position > 0) {
+                int parent = (position - 1) >>> 1;
+                if (!before(distance, distances[parent])) {
+                    break;
+                }
+                ids[position] = ids[parent];
+                distances[position] = distances[parent];
+                position = parent;
+            }
+            ids[position] = id;
+            distances[position] = distance;
+        }
+
+        int poll() {
+            int top = ids[0];
+            size--;
+            if (size > 0) {
+                int id = ids[size];
+                float distance = distances[size];
+                int position = 0;
+                while (true) {
+                    int child = 2 * position + 1;
+                    if (child >= size) {
+                        break;
+                    }
+                    if (child + 1 < size && before(distances[child + 1], distances[child])) {
+                        child++;
+                    }
+                    if (!before(distances[child], distance)) {
+                        break;
+                    }
+                    ids[position] = ids[child];
+                    distances[position] = distances[child];
+                    position = child;
+                }
+                ids[position] = id;
+                distances[position] = distance;
+            }
+            return top;
+        }
+
+        /**
+         * Empties the heap and returns the node numbers, nearest first.
+         */
+        int[] sortedNearestFirst() {
+            int[] sorted = new int[size];
+            if (farthestOnTop) {
+                for (int i = sorted.length - 1; i >= 0; i--) {
+                    sorted[i] = poll();
+                }
+            } else {
+                for (int i = 0; i < sorted.length; i++) {
+                    sorted[i] = poll();
+                }
+            }
+            return sorted;
+        }
+
+        private boolean before(float a, float b) {
+            return farthestOnTop ? a > b : a < b;
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package org.rag4j.nomnom.products.store.hnsw;
+
+import org.rag4j.nomnom.products.store.BatchSimilaritySearch;
+import org.rag4j.nomnom.products.store.StoredDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptionsBuilder;
+import org.springframework.ai.observation.conventions.VectorStoreSimilarityMetric;
+import org.springframework.ai.vectorstore.AbstractVectorStoreBuilder;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.converter.SimpleVectorStoreFilterExpressionConverter;
+import org.springframework.ai.vectorstore.observation.AbstractObservationVectorStore;
+import org.springframework.ai.vectorstore.observation.VectorStoreObservationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+/**
+ * A {@link org.springframework.ai.vectorstore.VectorStore} that keeps the documents in memory like the
+ * {@link org.springframework.ai.vectorstore.SimpleVectorStore}, but searches an {@link HnswIndex} instead of
+ * comparing the query with every document. Filter expressions use the same syntax as the simple store.
+ * <p>
+ * Adding a document with an existing id replaces it. {@link #save} and {@link #load} keep the documents, their
+ * embeddings and the graph in a binary file, so loading does not rebuild the graph.
+ */
+public class HnswVectorStore extends AbstractObservationVectorStore implements BatchSimilaritySearch {
+    private static final Logger logger = LoggerFactory.getLogger(HnswVectorStore.class);
+
+    private final int m;
+    private final int efConstruction;
+    private final int efSearch;
+    private final SpelExpressionParser expressionParser = new SpelExpressionParser();
+    private final SimpleVectorStoreFilterExpressionConverter filterConverter =
+            new SimpleVectorStoreFilterExpressionConverter();
+
+    private volatile HnswIndex<StoredDocument> index;
+    private final Map<String, Integer> nodesById = new ConcurrentHashMap<>();
+
+    protected HnswVectorStore(Builder builder) {
+        super(builder);
+        this.m = builder.m;
+        this.efConstruction = builder.efConstruction;
+        this.efSearch = builder.efSearch;
+    }
+
+    public static Builder builder(EmbeddingModel embeddingModel) {
+        return new Builder(embeddingModel);
+    }
+
+    public int size() {
+        HnswIndex<StoredDocument> current = index;
+        return current == null ? 0 : current.size();
+    }
+
+    @Override
+    public void doAdd(List<Document> documents) {
+        List<float[]> embeddings = embeddingModel.embed(documents, EmbeddingOptionsBuilder.builder().build(),
+                batchingStrategy);
+        for (int i = 0; i < documents.size(); i++) {
+            Document document = documents.get(i);
+            HnswIndex<StoredDocument> target = index(embeddings.get(i).length);
+            int node = target.add(embeddings.get(i), StoredDocument.of(document));
+            Integer replaced = nodesById.put(document.getId(), node);
+            if (replaced != null) {
+                target.remove(replaced);
+            }
+        }
+    }
+
+    @Override
+    public void doDelete(List<String> idList) {
+        for (String id : idList) {
+            Integer node = nodesById.remove(id);
+            if (node != null) {
+                index.remove(node);
+            }
+        }
+    }
+
+    @Override
+    protected void doDelete(Filter.Expression filterExpression) {
+        HnswIndex<StoredDocument> current = index;
+        if (current == null) {
+            return;
+        }
+        Predicate<StoredDocument> filter = filter(filterExpression);
+        List<String> ids = new ArrayList<>();
+        current.forEach((node, document) -> {
+            if (filter.test(document)) {
+                ids.add(document.id());
+            }
+        });
+        doDelete(ids);
+    }
+
+    @Override
+    public List<Document> doSimilaritySearch(SearchRequest request) {
+        if (index == null) {
+            return List.of();
+        }
+        return similaritySearch(request, embeddingModel.embed(request.getQuery()));
+    }
+
+    @Override
+    public List<List<Document>> similaritySearch(List<SearchRequest> requests) {
+        List<float[]> embeddings = embeddingModel.embed(requests.stream().map(SearchRequest::getQuery).toList());
+        return IntStream.range(0, requests.size()).parallel()
+                .mapToObj(i -> similaritySearch(requests.get(i), embeddings.get(i)))
+                .toList();
+    }
+
+    private List<Document> similaritySearch(SearchRequest request, float[] query) {
+        HnswIndex<StoredDocument> current = index;
+        if (current == null) {
+            return List.of();
+        }
+        Predicate<StoredDocument> filter = request.hasFilterExpression() ? filter(request.getFilterExpression()) : null;
+        List<Document> documents = new ArrayList<>();
+        for (HnswIndex.Match<StoredDocument> match : current.search(query, request.getTopK(), efSearch, filter)) {
+            if (match.similarity() >= request.getSimilarityThreshold()) {
+                documents.add(match.item().toDocument(match.similarity()));
+            }
+        }
+        return documents;
+    }
+
+    @Override
+    public VectorStoreObservationContext.Builder createObservationContextBuilder(String operationName) {
+        return VectorStoreObservationContext.builder("hnsw", operationName)
+                .dimensions(embeddingModel.dimensions())
+                .collectionName("in-memory-hnsw")
+                .similarityMetric(VectorStoreSimilarityMetric.COSINE.value());
+    }
+
+    /**
+     * Writes the documents and the graph to the file, replacing it when the write is complete.
+     */
+    public void save(Path file) {
+        HnswIndex<StoredDocument> current = index;
+        if (current == null) {
+            throw new IllegalStateException("Vector store is empty, nothing to save");
+        }
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+                current.write(out, (output, document) -> document.write(output));
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Saved {} documents to {}", current.size(), file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Saving vector store to %s failed".formatted(file), e);
+        }
+    }
+
+    /**
+     * Replaces the documents with the ones in the file.
+     */
+    public void load(Path file) {
+        HnswIndex<StoredDocument> loaded;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            loaded = HnswIndex.read(in, StoredDocument::read);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Loading vector store from %s failed".formatted(file), e);
+        }
+        synchronized (this) {
+            nodesById.clear();
+            loaded.forEach((node, document) -> nodesById.put(document.id(), node));
+            index = loaded;
+        }
+        logger.info("Loaded {} documents from {}", loaded.size(), file);
+    }
+
+    private HnswIndex<StoredDocument> index(int dimensions) {
+        HnswIndex<StoredDocument> current = index;
+        if (current == null) {
+            synchronized (this) {
+                current = index;
+                if (current == null) {
+                    current = new HnswIndex<>(dimensions, m, efConstruction);
+                    index = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private Predicate<StoredDocument> filter(Filter.Expression filterExpression) {
+        Expression expression = expressionParser.parseExpression(filterConverter.convertExpression(filterExpression));
+        return document -> {
+            StandardEvaluationContext context = new StandardEvaluationContext();
+            context.setVariable("metadata", document.metadata());
+            return Boolean.TRUE.equals(expression.getValue(context, Boolean.class));
+        };
+    }
+
+    public static final class Builder extends AbstractVectorStoreBuilder<Builder> {
+        private int m = 16;
+        private int efConstruction = 200;
+        private int efSearch = 64;
+
+        private Builder(EmbeddingModel embeddingModel) {
+            super(embeddingModel);
+        }
+
+        /**
+         * The number of neighbours per node, more gives a better recall and a larger index. Default 16.
+         */
+        public Builder m(int m) {
+            this.m = m;
+            return this;
+        }
+
+        /**
+         * The candidate list size while adding documents. Default 200.
+         */
+        public Builder efConstruction(int efConstruction) {
+            this.efConstruction = efConstruction;
+            return this;
+        }
+
+        /**
+         * The candidate list size while searching, at least the requested top k is used. Default 64.
+         */
+        public Builder efSearch(int efSearch) {
+            this.efSearch = efSearch;
+            return this;
+        }
+
+        @Override
+        public HnswVectorStore build() {
+            if (efSearch <= 0) {
+                throw new IllegalArgumentException("efSearch must be positive: " + efSearch);
+            }
+            HnswIndex.checkParameters(m, efConstruction);
+            return new HnswVectorStore(this);
+        }
+    }
+}
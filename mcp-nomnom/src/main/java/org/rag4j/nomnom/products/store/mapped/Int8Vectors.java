@@ -0,0 +1,75 @@
+package org.rag4j.nomnom.products.store.mapped;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Scalar quantization of vectors to one signed byte per value. Every vector gets its own scale and offset, the
+ * range between its smallest and largest value is divided in 256 steps: {@code value ≈ scale * code + offset}.
+ * <p>
+ * A stored vector is its scale, its offset, the sum of its codes and the codes. The dot product of two quantized
+ * vectors is mostly the integer dot product of their codes:
+ * <pre>
+ * Σ (sx·a + ox)(sq·b + oq) = sx·sq·Σab + sx·oq·Σa + ox·sq·Σb + n·ox·oq
+ * </pre>
+ * The result is close enough to find the candidates, the exact score comes from the float vectors.
+ */
+final class Int8Vectors {
+    private static final int STEPS = 255;
+    private static final int HEADER_BYTES = Float.BYTES + Float.BYTES + Integer.BYTES;
+
+    private Int8Vectors() {
+    }
+
+    /**
+     * The bytes of one stored vector.
+     */
+    static int bytes(int dimensions) {
+        return HEADER_BYTES + dimensions;
+    }
+
+    static void put(ByteBuffer buffer, float[] vector) {
+        Quantized quantized = quantize(vector);
+        buffer.putFloat(quantized.scale()).putFloat(quantized.offset()).putInt(quantized.sum()).put(quantized.codes());
+    }
+
+    static Quantized quantize(float[] vector) {
+        float min = Float.POSITIVE_INFINITY;
+        float max = Float.NEGATIVE_INFINITY;
+        for (float value : vector) {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        float scale = max > min ? (max - min) / STEPS : 1;
+        float offset = min + 128 * scale;
+        byte[] codes = new byte[vector.length];
+        int sum = 0;
+        for (int i = 0; i < vector.length; i++) {
+            int code = Math.clamp(Math.round((vector[i] - offset) / scale), Byte.MIN_VALUE, Byte.MAX_VALUE);
+            codes[i] = (byte) code;
+            sum += code;
+        }
+        return new Quantized(codes, scale, offset, sum);
+    }
+
+    /**
+     * The approximate dot product of the vector stored at the offset with the quantized query.
+     */
+    static float dot(ByteBuffer buffer, int offset, Quantized query) {
+        float scale = buffer.getFloat(offset);
+        float vectorOffset = buffer.getFloat(offset + Float.BYTES);
+        int sum = buffer.getInt(offset + 2 * Float.BYTES);
+        byte[] codes = query.codes();
+        int start = offset + HEADER_BYTES;
+        int products = 0;
+        for (int i = 0; i < codes.length; i++) {
+            products += buffer.get(start + i) * codes[i];
+        }
+        return scale * query.scale() * products
+                + scale * query.offset() * sum
+                + vectorOffset * query.scale() * query.sum()
+                + codes.length * vectorOffset * query.offset();
+    }
+
+    record Quantized(byte[] codes, float scale, float offset, int sum) {
+    }
+}
@@ -0,0 +1,410 @@
+package org.rag4j.nomnom.products.store.mapped;
+
+import org.rag4j.nomnom.products.store.BatchSimilaritySearch;
+import org.rag4j.nomnom.products.store.StoredDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptionsBuilder;
+import org.springframework.ai.observation.conventions.VectorStoreSimilarityMetric;
+import org.springframework.ai.vectorstore.AbstractVectorStoreBuilder;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.converter.SimpleVectorStoreFilterExpressionConverter;
+import org.springframework.ai.vectorstore.observation.AbstractObservationVectorStore;
+import org.springframework.ai.vectorstore.observation.VectorStoreObservationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+/**
+ * A {@link org.springframework.ai.vectorstore.VectorStore} that compares the query with every document, like the
+ * {@link org.springframework.ai.vectorstore.SimpleVectorStore}, but keeps the documents in a memory mapped
+ * {@link VectorFile} instead of on the heap. {@link #load} maps the file without reading it, a search reads the
+ * vectors from the mapping and only decodes the documents it returns.
+ * <p>
+ * With {@link Builder#quantized} the file also holds the vectors quantized to int8, a quarter of the bytes of float32.
+ * A search then scores all of them with integer arithmetic, keeps {@code rerankFactor} times the requested number of
+ * candidates and ranks those by their exact float vectors, so the scores are the same as without quantization.
+ * <p>
+ * Documents added after loading are kept in memory and deleted documents of the file are skipped, until
+ * {@link #save} writes them all to a new file and maps that one. Changes publish a new immutable state, so searches
+ * never wait for them.
+ */
+public class MappedVectorStore extends AbstractObservationVectorStore implements BatchSimilaritySearch {
+    private static final Logger logger = LoggerFactory.getLogger(MappedVectorStore.class);
+
+    private final VectorEncoding encoding;
+    private final boolean quantized;
+    private final int rerankFactor;
+    private final SpelExpressionParser expressionParser = new SpelExpressionParser();
+    private final SimpleVectorStoreFilterExpressionConverter filterConverter =
+            new SimpleVectorStoreFilterExpressionConverter();
+
+    private volatile State state = new State(null, new BitSet(), Map.of(), Map.of());
+
+    protected MappedVectorStore(Builder builder) {
+        super(builder);
+        this.encoding = builder.encoding;
+        this.quantized = builder.quantized;
+        this.rerankFactor = builder.rerankFactor;
+    }
+
+    public static Builder builder(EmbeddingModel embeddingModel) {
+        return new Builder(embeddingModel);
+    }
+
+    public int size() {
+        return state.size();
+    }
+
+    @Override
+    public void doAdd(List<Document> documents) {
+        List<float[]> embeddings = embeddingModel.embed(documents, EmbeddingOptionsBuilder.builder().build(),
+                batchingStrategy);
+        synchronized (this) {
+            State current = withOrdinals(state);
+            BitSet deleted = (BitSet) current.deleted().clone();
+            Map<String, Added> added = new LinkedHashMap<>(current.added());
+            for (int i = 0; i < documents.size(); i++) {
+                float[] vector = embeddings.get(i);
+                int dimensions = current.dimensions(added);
+                if (dimensions > 0 && vector.length != dimensions) {
+                    throw new IllegalArgumentException("Expected a vector of %d dimensions but got %d"
+                            .formatted(dimensions, vector.length));
+                }
+                Document document = documents.get(i);
+                Integer ordinal = current.ordinals().get(document.getId());
+                if (ordinal != null) {
+                    deleted.set(ordinal);
+                }
+                added.put(document.getId(), new Added(StoredDocument.of(document), VectorFile.normalized(vector)));
+            }
+            state = new State(current.file(), deleted, current.ordinals(), added);
+        }
+    }
+
+    @Override
+    public void doDelete(List<String> idList) {
+        synchronized (this) {
+            State current = withOrdinals(state);
+            BitSet deleted = (BitSet) current.deleted().clone();
+            Map<String, Added> added = new LinkedHashMap<>(current.added());
+            for (String id : idList) {
+                added.remove(id);
+                Integer ordinal = current.ordinals().get(id);
+                if (ordinal != null) {
+                    deleted.set(ordinal);
+                }
+            }
+            state = new State(current.file(), deleted, current.ordinals(), added);
+        }
+    }
+
+    @Override
+    protected void doDelete(Filter.Expression filterExpression) {
+        Predicate<StoredDocument> filter = filter(filterExpression);
+        List<String> ids = new ArrayList<>();
+        State current = state;
+        forEachDocument(current, (document, vector) -> {
+            if (filter.test(document)) {
+                ids.add(document.id());
+            }
+        });
+        doDelete(ids);
+    }
+
+    @Override
+    public List<Document> doSimilaritySearch(SearchRequest request) {
+        if (state.size() == 0 || request.getTopK() <= 0) {
+            return List.of();
+        }
+        return similaritySearch(request, embeddingModel.embed(request.getQuery()));
+    }
+
+    @Override
+    public List<List<Document>> similaritySearch(List<SearchRequest> requests) {
+        List<float[]> embeddings = embeddingModel.embed(requests.stream().map(SearchRequest::getQuery).toList());
+        return IntStream.range(0, requests.size()).parallel()
+                .mapToObj(i -> similaritySearch(requests.get(i), embeddings.get(i)))
+                .toList();
+    }
+
+    private List<Document> similaritySearch(SearchRequest request, float[] embedding) {
+        State current = state;
+        if (current.size() == 0 || request.getTopK() <= 0) {
+            return List.of();
+        }
+        float[] query = VectorFile.normalized(embedding);
+        Predicate<StoredDocument> filter = request.hasFilterExpression() ? filter(request.getFilterExpression()) : null;
+        int topK = request.getTopK();
+        double threshold = request.getSimilarityThreshold();
+        PriorityQueue<Scored> best = new PriorityQueue<>(topK + 1);
+
+        VectorFile file = current.file();
+        if (file != null && file.count() > 0) {
+            if (query.length != file.dimensions()) {
+                throw new IllegalArgumentException("Expected a vector of %d dimensions but got %d"
+                        .formatted(file.dimensions(), query.length));
+            }
+            if (quantized && file.quantized()) {
+                int candidateCount = (int) Math.min((long) topK * rerankFactor, file.count());
+                for (Scored candidate : candidates(current, query, candidateCount, filter)) {
+                    float similarity = file.dot(candidate.ordinal(), query);
+                    if (similarity >= threshold && isAmongBest(best, topK, similarity)) {
+                        add(best, topK, new Scored(similarity, candidate.ordinal(), null));
+                    }
+                }
+            } else {
+                for (int ordinal = 0; ordinal < file.count(); ordinal++) {
+                    if (current.deleted().get(ordinal)) {
+                        continue;
+                    }
+                    float similarity = file.dot(ordinal, query);
+                    if (similarity >= threshold && isAmongBest(best, topK, similarity)
+                            && (filter == null || filter.test(file.document(ordinal)))) {
+                        add(best, topK, new Scored(similarity, ordinal, null));
+                    }
+                }
+            }
+        }
+        for (Added added : current.added().values()) {
+            float similarity = dot(added.vector(), query);
+            if (similarity >= threshold && isAmongBest(best, topK, similarity)
+                    && (filter == null || filter.test(added.document()))) {
+                add(best, topK, new Scored(similarity, -1, added.document()));
+            }
+        }
+
+        List<Document> documents = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            Scored scored = best.poll();
+            StoredDocument document = scored.document() != null ? scored.document() : file.document(scored.ordinal());
+            documents.add(document.toDocument(scored.similarity()));
+        }
+        return documents.reversed();
+    }
+
+    /**
+     * The documents of the file with the best approximate scores of their quantized vectors.
+     */
+    private static PriorityQueue<Scored> candidates(State current, float[] query, int count,
+                                                    Predicate<StoredDocument> filter) {
+        VectorFile file = current.file();
+        Int8Vectors.Quantized quantizedQuery = Int8Vectors.quantize(query);
+        PriorityQueue<Scored> candidates = new PriorityQueue<>(count + 1);
+        for (int ordinal = 0; ordinal < file.count(); ordinal++) {
+            if (current.deleted().get(ordinal)) {
+                continue;
+            }
+            float approximation = file.quantizedDot(ordinal, quantizedQuery);
+            if (isAmongBest(candidates, count, approximation)
+                    && (filter == null || filter.test(file.document(ordinal)))) {
+                add(candidates, count, new Scored(approximation, ordinal, null));
+            }
+        }
+        return candidates;
+    }
+
+    @Override
+    public VectorStoreObservationContext.Builder createObservationContextBuilder(String operationName) {
+        return VectorStoreObservationContext.builder("mapped", operationName)
+                .dimensions(embeddingModel.dimensions())
+                .collectionName("memory-mapped-file")
+                .similarityMetric(VectorStoreSimilarityMetric.COSINE.value());
+    }
+
+    /**
+     * Maps the file and uses its documents instead of the current ones.
+     */
+    public void load(Path file) {
+        VectorFile vectorFile;
+        try {
+            vectorFile = VectorFile.open(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Loading vector store from %s failed".formatted(file), e);
+        }
+        synchronized (this) {
+            state = new State(vectorFile, new BitSet(), null, Map.of());
+        }
+        logger.info("Mapped {} documents of {} dimensions ({}) from {}", vectorFile.count(),
+                vectorFile.dimensions(), vectorFile.encoding(), file);
+    }
+
+    /**
+     * Whether the mapped file has the encoding of this store and, for a quantized store, the quantized vectors. A
+     * file written with other settings is still searched, but only {@link #save} applies the settings.
+     */
+    public boolean fileMatchesSettings() {
+        VectorFile file = state.file();
+        return file == null || file.encoding() == encoding && file.quantized() == quantized;
+    }
+
+    /**
+     * Writes all documents to the file and maps it, the added documents move from the heap into the file.
+     */
+    public synchronized void save(Path file) {
+        State current = state;
+        List<StoredDocument> documents = new ArrayList<>(size());
+        List<float[]> vectors = new ArrayList<>(size());
+        forEachDocument(current, (document, vector) -> {
+            documents.add(document);
+            vectors.add(vector);
+        });
+        try {
+            VectorFile.write(file, encoding, quantized, current.dimensions(current.added()), documents, vectors);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Saving vector store to %s failed".formatted(file), e);
+        }
+        logger.info("Saved {} documents to {}", documents.size(), file);
+        load(file);
+    }
+
+    private void forEachDocument(State current, DocumentVisitor visitor) {
+        VectorFile file = current.file();
+        if (file != null) {
+            for (int ordinal = 0; ordinal < file.count(); ordinal++) {
+                if (!current.deleted().get(ordinal)) {
+                    visitor.visit(file.document(ordinal), file.vector(ordinal));
+                }
+            }
+        }
+        for (Added added : current.added().values()) {
+            visitor.visit(added.document(), added.vector());
+        }
+    }
+
+    /**
+     * The state with the ordinals of the documents in the file by id. They are only read on the first add or delete,
+     * so mapping the file stays fast.
+     */
+    private static State withOrdinals(State current) {
+        if (current.ordinals() != null) {
+            return current;
+        }
+        VectorFile file = current.file();
+        Map<String, Integer> ordinals = new HashMap<>(file.count() * 2);
+        for (int ordinal = 0; ordinal < file.count(); ordinal++) {
+            ordinals.put(file.document(ordinal).id(), ordinal);
+        }
+        return new State(file, current.deleted(), ordinals, current.added());
+    }
+
+    private Predicate<StoredDocument> filter(Filter.Expression filterExpression) {
+        Expression expression = expressionParser.parseExpression(filterConverter.convertExpression(filterExpression));
+        return document -> {
+            StandardEvaluationContext context = new StandardEvaluationContext();
+            context.setVariable("metadata", document.metadata());
+            return Boolean.TRUE.equals(expression.getValue(context, Boolean.class));
+        };
+    }
+
+    private static boolean isAmongBest(PriorityQueue<Scored> best, int topK, float similarity) {
+        return best.size() < topK || similarity > best.peek().similarity();
+    }
+
+    private static void add(PriorityQueue<Scored> best, int topK, Scored scored) {
+        best.add(scored);
+        if (best.size() > topK) {
+            best.poll();
+        }
+    }
+
+    private static float dot(float[] a, float[] b) {
+        float sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    @FunctionalInterface
+    private interface DocumentVisitor {
+        void visit(StoredDocument document, float[] vector);
+    }
+
+    /**
+     * The mapped file, the ordinals in it that are deleted and the documents added since it was mapped. Never
+     * changed once published. The ordinals by id are null until they are needed.
+     */
+    private record State(VectorFile file, BitSet deleted, Map<String, Integer> ordinals, Map<String, Added> added) {
+
+        int size() {
+            int mapped = file == null ? 0 : file.count() - deleted.cardinality();
+            return mapped + added.size();
+        }
+
+        int dimensions(Map<String, Added> added) {
+            if (file != null && file.count() > 0) {
+                return file.dimensions();
+            }
+            return added.isEmpty() ? 0 : added.values().iterator().next().vector().length;
+        }
+    }
+
+    private record Added(StoredDocument document, float[] vector) {
+    }
+
+    private record Scored(float similarity, int ordinal, StoredDocument document) implements Comparable<Scored> {
+        @Override
+        public int compareTo(Scored other) {
+            return Float.compare(similarity, other.similarity);
+        }
+    }
+
+    public static final class Builder extends AbstractVectorStoreBuilder<Builder> {
+        private VectorEncoding encoding = VectorEncoding.FLOAT32;
+        private boolean quantized;
+        private int rerankFactor = 4;
+
+        private Builder(EmbeddingModel embeddingModel) {
+            super(embeddingModel);
+        }
+
+        /**
+         * How {@link #save} stores the vectors. Default {@link VectorEncoding#FLOAT32}.
+         */
+        public Builder encoding(VectorEncoding encoding) {
+            this.encoding = encoding;
+            return this;
+        }
+
+        /**
+         * Whether {@link #save} adds the vectors quantized to int8 and searches score those first. Default false.
+         */
+        public Builder quantized(boolean quantized) {
+            this.quantized = quantized;
+            return this;
+        }
+
+        /**
+         * How many candidates per requested document a quantized search ranks by the exact vectors. Default 4.
+         */
+        public Builder rerankFactor(int rerankFactor) {
+            this.rerankFactor = rerankFactor;
+            return this;
+        }
+
+        @Override
+        public MappedVectorStore build() {
+            if (rerankFactor <= 0) {
+                throw new IllegalArgumentException("rerankFactor must be positive: " + rerankFactor);
+            }
+            return new MappedVectorStore(this);
+        }
+    }
+}
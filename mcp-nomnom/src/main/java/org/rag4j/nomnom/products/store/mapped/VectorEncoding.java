@@ -0,0 +1,73 @@
+package org.rag4j.nomnom.products.store.mapped;
+
+import java.nio.ByteBuffer;
+
+/**
+ * How the values of the vectors are stored in a {@link VectorFile}. Half precision takes half the space and is
+ * precise enough to rank embeddings, the values of normalized vectors are far from its limits.
+ */
+public enum VectorEncoding {
+    FLOAT32(Float.BYTES) {
+        @Override
+        void put(ByteBuffer buffer, float[] vector) {
+            for (float value : vector) {
+                buffer.putFloat(value);
+            }
+        }
+
+        @Override
+        float get(ByteBuffer buffer, int offset) {
+            return buffer.getFloat(offset);
+        }
+
+        @Override
+        float dot(ByteBuffer buffer, int offset, float[] query) {
+            float sum = 0;
+            for (int i = 0; i < query.length; i++) {
+                sum += buffer.getFloat(offset + i * Float.BYTES) * query[i];
+            }
+            return sum;
+        }
+    },
+    FLOAT16(Short.BYTES) {
+        @Override
+        void put(ByteBuffer buffer, float[] vector) {
+            for (float value : vector) {
+                buffer.putShort(Float.floatToFloat16(value));
+            }
+        }
+
+        @Override
+        float get(ByteBuffer buffer, int offset) {
+            return Float.float16ToFloat(buffer.getShort(offset));
+        }
+
+        @Override
+        float dot(ByteBuffer buffer, int offset, float[] query) {
+            float sum = 0;
+            for (int i = 0; i < query.length; i++) {
+                sum += Float.float16ToFloat(buffer.getShort(offset + i * Short.BYTES)) * query[i];
+            }
+            return sum;
+        }
+    };
+
+    private final int bytes;
+
+    VectorEncoding(int bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * The bytes per value.
+     */
+    public int bytes() {
+        return bytes;
+    }
+
+    abstract void put(ByteBuffer buffer, float[] vector);
+
+    abstract float get(ByteBuffer buffer, int offset);
+
+    abstract float dot(ByteBuffer buffer, int offset, float[] query);
+}
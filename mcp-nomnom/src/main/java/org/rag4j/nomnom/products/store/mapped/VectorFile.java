@@ -0,0 +1,252 @@
+package org.rag4j.nomnom.products.store.mapped;
+
+import org.rag4j.nomnom.products.store.StoredDocument;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * A read only file of documents and their embeddings that is used through a memory mapping, so opening it does not
+ * read it and the vectors stay outside the heap. The layout, little endian:
+ * <pre>
+ * header     magic "NNVS", major and minor version (shorts), header size, encoding, count, dimensions,
+ *            offset of the vectors, offset of the record offsets, offset of the quantized vectors or 0 (since 1.1),
+ *            zero padding up to the header size
+ * vectors    count x dimensions float32 or float16 values, normalized, starting at a multiple of 64
+ * offsets    count + 1 longs, the start of each record and the end of the last one
+ * records    per document its id, text and metadata, see {@link StoredDocument#write}
+ * quantized  optional, per vector its int8 codes with their scale and offset, see {@link Int8Vectors}
+ * </pre>
+ * A reader accepts files of its own major version with any minor version: later minor versions may only add header
+ * fields in the padding or sections after the records, the sections are found through the offsets in the header.
+ */
+public final class VectorFile {
+    static final int MAGIC = 0x53564E4E; // NNVS read as little endian
+    static final short MAJOR_VERSION = 1;
+    static final short MINOR_VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    private static final int MIN_HEADER_SIZE = 40;
+
+    private final Path file;
+    private final ByteBuffer buffer;
+    private final VectorEncoding encoding;
+    private final int count;
+    private final int dimensions;
+    private final int vectorsOffset;
+    private final int offsetsOffset;
+    private final int quantizedOffset;
+
+    private VectorFile(Path file, ByteBuffer buffer) throws IOException {
+        this.file = file;
+        this.buffer = buffer;
+        if (buffer.capacity() < MIN_HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("%s is not a vector file".formatted(file));
+        }
+        int major = buffer.getShort(4);
+        if (major != MAJOR_VERSION) {
+            throw new IOException("%s has version %d.%d, this version reads %d.x"
+                    .formatted(file, major, buffer.getShort(6), MAJOR_VERSION));
+        }
+        int encodingNumber = buffer.get(12);
+        if (encodingNumber < 0 || encodingNumber >= VectorEncoding.values().length) {
+            throw new IOException("%s has an unknown vector encoding %d".formatted(file, encodingNumber));
+        }
+        this.encoding = VectorEncoding.values()[encodingNumber];
+        this.count = buffer.getInt(16);
+        this.dimensions = buffer.getInt(20);
+        this.vectorsOffset = Math.toIntExact(buffer.getLong(24));
+        this.offsetsOffset = Math.toIntExact(buffer.getLong(32));
+        // Version 1.0 files have no quantized vectors, their padding reads as 0
+        boolean hasQuantizedOffset = buffer.getInt(8) >= 48 && buffer.capacity() >= 48;
+        this.quantizedOffset = hasQuantizedOffset ? Math.toIntExact(buffer.getLong(40)) : 0;
+        long end = offsetsOffset + (count + 1L) * Long.BYTES;
+        if (end > buffer.capacity() || buffer.getLong(offsetsOffset + count * Long.BYTES) > buffer.capacity()
+                || quantizedOffset + (long) count * Int8Vectors.bytes(dimensions) > buffer.capacity()) {
+            throw new IOException("%s is incomplete".formatted(file));
+        }
+    }
+
+    /**
+     * Maps the file, only the header is read.
+     */
+    public static VectorFile open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("%s is larger than 2 GB, which a single mapping cannot hold".formatted(file));
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new VectorFile(file, mapped.order(ByteOrder.LITTLE_ENDIAN));
+        }
+    }
+
+    /**
+     * Writes the documents with their normalized vectors to a new file that replaces the old one when complete.
+     *
+     * @param quantized whether to add the vectors quantized to int8 as well, for a faster first pass of a search
+     */
+    public static void write(Path file, VectorEncoding encoding, boolean quantized, int dimensions,
+                             List<StoredDocument> documents, List<float[]> vectors) throws IOException {
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(records);
+        long[] recordOffsets = new long[documents.size() + 1];
+        long vectorsOffset = HEADER_SIZE;
+        long offsetsOffset = align(vectorsOffset + (long) documents.size() * dimensions * encoding.bytes(), 8);
+        long recordsOffset = offsetsOffset + (long) recordOffsets.length * Long.BYTES;
+        for (int i = 0; i < documents.size(); i++) {
+            recordOffsets[i] = recordsOffset + out.size();
+            documents.get(i).write(out);
+        }
+        recordOffsets[documents.size()] = recordsOffset + out.size();
+        long quantizedOffset = quantized ? align(recordOffsets[documents.size()], 8) : 0;
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN)
+                    .putInt(MAGIC)
+                    .putShort(MAJOR_VERSION)
+                    .putShort(MINOR_VERSION)
+                    .putInt(HEADER_SIZE)
+                    .put((byte) encoding.ordinal())
+                    .put(new byte[3])
+                    .putInt(documents.size())
+                    .putInt(dimensions)
+                    .putLong(vectorsOffset)
+                    .putLong(offsetsOffset)
+                    .putLong(quantizedOffset);
+            writeFully(channel, header.clear());
+
+            ByteBuffer chunk = ByteBuffer.allocate(Math.max(dimensions * encoding.bytes(), 1 << 16))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            for (float[] vector : vectors) {
+                if (vector.length != dimensions) {
+                    throw new IllegalArgumentException("Expected a vector of %d dimensions but got %d"
+                            .formatted(dimensions, vector.length));
+                }
+                if (chunk.remaining() < dimensions * encoding.bytes()) {
+                    writeFully(channel, chunk.flip());
+                    chunk.clear();
+                }
+                encoding.put(chunk, normalized(vector));
+            }
+            writeFully(channel, chunk.flip());
+            writeFully(channel, ByteBuffer.allocate((int) (offsetsOffset - channel.position())));
+
+            ByteBuffer offsets = ByteBuffer.allocate(recordOffsets.length * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            offsets.asLongBuffer().put(recordOffsets);
+            writeFully(channel, offsets);
+            writeFully(channel, ByteBuffer.wrap(records.toByteArray()));
+            if (quantized) {
+                writeFully(channel, ByteBuffer.allocate((int) (quantizedOffset - channel.position())));
+                chunk.clear();
+                for (float[] vector : vectors) {
+                    if (chunk.remaining() < Int8Vectors.bytes(dimensions)) {
+                        writeFully(channel, chunk.flip());
+                        chunk.clear();
+                    }
+                    Int8Vectors.put(chunk, normalized(vector));
+                }
+                writeFully(channel, chunk.flip());
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    public VectorEncoding encoding() {
+        return encoding;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public int dimensions() {
+        return dimensions;
+    }
+
+    /**
+     * Whether the file holds the vectors quantized to int8 as well.
+     */
+    public boolean quantized() {
+        return quantizedOffset > 0;
+    }
+
+    /**
+     * The dot product of the stored, normalized vector with the query.
+     */
+    public float dot(int ordinal, float[] query) {
+        return encoding.dot(buffer, vectorsOffset + ordinal * dimensions * encoding.bytes(), query);
+    }
+
+    /**
+     * The approximate dot product of the quantized vector with the quantized query, only for a {@link #quantized}
+     * file.
+     */
+    float quantizedDot(int ordinal, Int8Vectors.Quantized query) {
+        return Int8Vectors.dot(buffer, quantizedOffset + ordinal * Int8Vectors.bytes(dimensions), query);
+    }
+
+    public float[] vector(int ordinal) {
+        float[] vector = new float[dimensions];
+        int offset = vectorsOffset + ordinal * dimensions * encoding.bytes();
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] = encoding.get(buffer, offset + i * encoding.bytes());
+        }
+        return vector;
+    }
+
+    public StoredDocument document(int ordinal) {
+        int start = Math.toIntExact(buffer.getLong(offsetsOffset + ordinal * Long.BYTES));
+        int end = Math.toIntExact(buffer.getLong(offsetsOffset + (ordinal + 1) * Long.BYTES));
+        byte[] record = new byte[end - start];
+        buffer.get(start, record);
+        try {
+            return StoredDocument.read(new DataInputStream(new ByteArrayInputStream(record)));
+        } catch (IOException e) {
+            throw new IllegalStateException("Record %d of %s is damaged".formatted(ordinal, file), e);
+        }
+    }
+
+    static float[] normalized(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        float[] normalized = vector.clone();
+        if (norm > 0) {
+            float scale = (float) (1 / Math.sqrt(norm));
+            for (int i = 0; i < normalized.length; i++) {
+                normalized[i] *= scale;
+            }
+        }
+        return normalized;
+    }
+
+    private static long align(long offset, int alignment) {
+        return (offset + alignment - 1) / alignment * alignment;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package org.rag4j.nomnom.agent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.rag4j.nomnom.agent.model.OrderItem;
+import org.rag4j.nomnom.agent.model.OrderItemsList;
+import org.rag4j.nomnom.products.model.Category;
+import org.rag4j.nomnom.products.model.Product;
+import org.rag4j.nomnom.products.model.ProductMatch;
+import org.rag4j.nomnom.products.store.ProductNameMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderTextParserTest {
+    private static final Product COFFEE = new Product("6", "Coffee", "Keeps the engine running.", 1.5, Category.DRINKS);
+    private static final Product COOKIE = new Product("2", "Cookie", "A tasty cookie", 1.0, Category.SNACKS);
+    private static final Product TEA = new Product("7", "Tea", "Carbonated soft drink.", 1.5, Category.DRINKS);
+    private static final Map<String, ProductMatch> MATCHES = Map.of(
+            "coffee", new ProductMatch("coffee", COFFEE, 1),
+            "cookies", new ProductMatch("cookies", COOKIE, 1),
+            "teas", new ProductMatch("teas", TEA, 1));
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<List<String>> lookups = new ArrayList<>();
+    private final Function<List<String>, List<ProductMatch>> productLookup = names -> {
+        lookups.add(names);
+        return names.stream()
+                .map(name -> MATCHES.getOrDefault(name.toLowerCase(), ProductMatch.none(name)))
+                .toList();
+    };
+    private final OrderTextParser parser = new OrderTextParser(productLookup, registry);
+
+    @Test
+    @DisplayName("A list of quantities and products is parsed with one product lookup")
+    void parsesLists() {
+        OrderItemsList items = parser.parse("5 coffee, 5 cookies").orElseThrow();
+
+        assertEquals(List.of(new OrderItem(COFFEE, 5), new OrderItem(COOKIE, 5)), List.of(items.items()));
+        assertNull(items.note());
+        assertEquals(List.of(List.of("coffee", "cookies")), lookups);
+        assertEquals(1, count("parsed"));
+    }
+
+    @Test
+    @DisplayName("Quantities come before or after the name, as digits or words, with polite words around the list")
+    void parsesVariants() {
+        assertEquals(List.of(new OrderItem(COFFEE, 2), new OrderItem(TEA, 1), new OrderItem(COOKIE, 12)), List.of(
+                parser.parse("Hi, I'd like 2x coffee and a teas & cookies x 12 please!").orElseThrow().items()));
+        assertEquals(List.of(new OrderItem(COFFEE, 3), new OrderItem(TEA, 4)),
+                List.of(parser.parse("three coffee\nteas: 4").orElseThrow().items()));
+        assertEquals(List.of(new OrderItem(COFFEE, 10)), List.of(parser.parse("10 * Coffee.").orElseThrow().items()));
+        assertEquals(3, count("parsed"));
+    }
+
+    @Test
+    @DisplayName("Texts that are not a plain list go to the language model without a product lookup")
+    void leavesOtherTextsToTheModel() {
+        assertTrue(parser.parse("Lunch for 12 people, mostly vegetarian").isEmpty());
+        assertTrue(parser.parse("coffee and cookies").isEmpty());
+        assertTrue(parser.parse("5 coffee, deliver at noon").isEmpty());
+        assertTrue(parser.parse("0 coffee").isEmpty());
+        assertTrue(parser.parse("5000 coffee").isEmpty());
+        assertTrue(parser.parse("   ").isEmpty());
+
+        assertTrue(lookups.isEmpty(), lookups.toString());
+        assertEquals(6, count("unparsed"));
+    }
+
+    @Test
+    @DisplayName("One name that is not a product sends the whole order to the language model")
+    void leavesUnresolvedNamesToTheModel() {
+        assertTrue(parser.parse("2 coffee, 3 something fizzy").isEmpty());
+        assertTrue(parser.parse("2 coffee, 1 espresso").isEmpty());
+
+        assertEquals(2, count("unresolved"));
+        assertEquals(0, count("parsed"));
+    }
+
+    @Test
+    @DisplayName("With the name matcher only names, plurals and aliases are parsed, typos and wishes go to the model")
+    void resolvesOnlyProductNames() {
+        ProductNameMatcher matcher = new ProductNameMatcher(Map.of("Tea", List.of("Earl Grey")), 0.6, registry);
+        matcher.useCatalog(List.of(COFFEE, COOKIE, TEA));
+        OrderTextParser namesOnly = new OrderTextParser(matcher::matchNames, registry);
+
+        assertEquals(List.of(new OrderItem(COFFEE, 2), new OrderItem(COOKIE, 3), new OrderItem(TEA, 1)),
+                List.of(namesOnly.parse("2 Coffee, 3 cookies and an earl grey").orElseThrow().items()));
+        assertTrue(namesOnly.parse("3 coffee without milk").isEmpty());
+        assertTrue(namesOnly.parse("3 cofee").isEmpty());
+
+        assertEquals(1, count("parsed"));
+        assertEquals(2, count("unresolved"));
+        assertEquals(0, registry.get(ProductNameMatcher.MATCHES_COUNTER_NAME).tag("path", "fuzzy").counter().count());
+        assertEquals(0, registry.get(ProductNameMatcher.MATCHES_COUNTER_NAME).tag("path", "vector").counter().count());
+    }
+
+    @Test
+    @DisplayName("Every part is split into a quantity and a name")
+    void splits() {
+        assertEquals(List.of(new OrderTextParser.Part(2, "Cheese Burger"), new OrderTextParser.Part(1, "soup")),
+                OrderTextParser.split("please 2 Cheese Burger; an soup"));
+        assertEquals(List.of(new OrderTextParser.Part(5, "xylophone")), OrderTextParser.split("5 xylophone"));
+        assertEquals(List.of(), OrderTextParser.split("could you send coffee"));
+    }
+
+    private double count(String result) {
+        return registry.get(OrderTextParser.PARSE_COUNTER_NAME).tag("result", result).counter().count();
+    }
+}
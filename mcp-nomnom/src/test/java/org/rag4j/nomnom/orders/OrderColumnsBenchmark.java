@@ -0,0 +1,68 @@
+package org.rag4j.nomnom.orders;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.rag4j.nomnom.orders.model.Order;
+import org.rag4j.nomnom.orders.model.OrderSummaryReport;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Summary report for one location over a month of deliveries, computed from the order objects and from the column
+ * store, over 100k and 1M orders.
+ * <p>
+ * Run with:
+ * <pre>
+ * mvn -pl mcp-nomnom test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath org.rag4j.nomnom.orders.OrderColumnsBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class OrderColumnsBenchmark {
+    private static final String LOCATION = "location-7";
+    private static final LocalDate START = LocalDate.of(2025, 2, 1);
+    private static final LocalDate END = LocalDate.of(2025, 2, 28);
+
+    @Param({"100000", "1000000"})
+    public int orderCount;
+
+    private List<Order> orders;
+    private OrderColumns columns;
+
+    @Setup(Level.Trial)
+    public void createOrders() {
+        orders = SalesAggregationBenchmark.randomOrders(orderCount, new Random(42));
+        columns = new OrderColumns();
+        orders.forEach(columns::add);
+    }
+
+    @Benchmark
+    public OrderSummaryReport objects() {
+        return SalesAggregator.of(orders.stream()
+                        .filter(order -> !order.deliveryDate().isBefore(START) && !order.deliveryDate().isAfter(END))
+                        .filter(order -> order.location().equalsIgnoreCase(LOCATION))
+                        .toList())
+                .summaryReport(START, END);
+    }
+
+    @Benchmark
+    public OrderSummaryReport columns() {
+        return columns.aggregate(START, END, LOCATION).summaryReport(START, END);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OrderColumnsBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
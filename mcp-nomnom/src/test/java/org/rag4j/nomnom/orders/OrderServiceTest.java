@@ -0,0 +1,565 @@
+package org.rag4j.nomnom.orders;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.rag4j.nomnom.orders.model.CategorySalesReport;
+import org.rag4j.nomnom.orders.model.Order;
+import org.rag4j.nomnom.orders.model.OrderItem;
+import org.rag4j.nomnom.orders.model.OrderPage;
+import org.rag4j.nomnom.orders.model.OrderStatus;
+import org.rag4j.nomnom.orders.model.OrderSummaryReport;
+import org.rag4j.nomnom.orders.model.ProductSalesReport;
+import org.rag4j.nomnom.products.model.Category;
+import org.rag4j.nomnom.products.model.Product;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderServiceTest {
+    private static final Product COFFEE = new Product("1", "Coffee", "Black coffee", 2.5, Category.DRINKS);
+    private static final Product SANDWICH = new Product("7", "Sandwich", "Cheese sandwich", 5.0, Category.LUNCH);
+    private static final Product CHIPS = new Product("3", "Chips", "Salted chips", 1.5, Category.SNACKS);
+    private static final LocalDate MONDAY = LocalDate.of(2025, 6, 2);
+    private static final LocalDateTime MORNING = MONDAY.minusDays(7).atTime(9, 0);
+
+    private OrderService orderService;
+
+    @BeforeEach
+    void setUp() {
+        orderService = new OrderService();
+        store("o1", "Utrecht", MONDAY, 0, OrderStatus.PENDING, COFFEE);
+        store("o2", "Amsterdam", MONDAY.plusDays(1), 1, OrderStatus.CONFIRMED, SANDWICH, COFFEE);
+        store("o3", "utrecht", MONDAY.plusDays(1), 2, OrderStatus.PENDING, CHIPS);
+        store("o4", "Amsterdam", MONDAY.plusDays(3), 3, OrderStatus.DELIVERED, SANDWICH);
+    }
+
+    @Test
+    @DisplayName("Filters return the matching orders newest first")
+    void filtersReturnNewestFirst() {
+        assertEquals(List.of("o3", "o1"), ids(orderService.getOrdersByLocation("UTRECHT")));
+        assertEquals(List.of("o3", "o1"), ids(orderService.getOrdersByStatus(OrderStatus.PENDING)));
+        assertEquals(List.of("o2", "o1"), ids(orderService.getOrdersContainingProduct("1")));
+        assertEquals(List.of("o4", "o2"), ids(orderService.getOrdersContainingCategory("lunch")));
+        assertEquals(List.of("o4", "o3", "o2", "o1"), ids(orderService.getAllOrdersSorted()));
+        assertTrue(orderService.getOrdersContainingCategory("unknown").isEmpty());
+        assertTrue(orderService.getOrdersByLocation("Rotterdam").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Date filters return the orders in delivery and order date order")
+    void dateFilters() {
+        assertEquals(List.of("o2", "o3"), ids(orderService.getOrdersByDeliveryDate(MONDAY.plusDays(1))));
+        assertEquals(List.of("o1", "o2", "o3"), ids(orderService.getOrdersByDateRange(MONDAY, MONDAY.plusDays(2))));
+        assertEquals(List.of("o1", "o2", "o3", "o4"),
+                ids(orderService.getOrdersByOrderDate(MORNING.toLocalDate())));
+        assertTrue(orderService.getOrdersByDateRange(MONDAY.plusDays(2), MONDAY).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Indexes follow status updates, replaced orders and deletes")
+    void indexesFollowChanges() {
+        orderService.updateOrderStatus("o1", OrderStatus.READY);
+        assertEquals(List.of("o3"), ids(orderService.getOrdersByStatus(OrderStatus.PENDING)));
+        assertEquals(List.of("o1"), ids(orderService.getOrdersByStatus(OrderStatus.READY)));
+        assertEquals(OrderStatus.READY, orderService.getOrdersByLocation("utrecht").getLast().status());
+
+        store("o2", "Utrecht", MONDAY, 1, OrderStatus.CONFIRMED, CHIPS);
+        assertEquals(List.of("o3", "o2", "o1"), ids(orderService.getOrdersByLocation("utrecht")));
+        assertEquals(List.of("o4"), ids(orderService.getOrdersByLocation("amsterdam")));
+        assertEquals(List.of("o1"), ids(orderService.getOrdersContainingProduct("1")));
+        assertEquals(List.of("o3", "o2"), ids(orderService.getOrdersContainingCategory("SNACKS")));
+
+        assertTrue(orderService.deleteOrder("o3"));
+        assertFalse(orderService.deleteOrder("o3"));
+        assertEquals(List.of("o2"), ids(orderService.getOrdersContainingProduct("3")));
+        assertEquals(List.of("o2", "o1"), ids(orderService.getOrdersByLocation("utrecht")));
+
+        orderService.clearAllOrders();
+        assertTrue(orderService.getAllOrdersSorted().isEmpty());
+        assertTrue(orderService.getOrdersByStatus(OrderStatus.CONFIRMED).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Sales reports count quantities, revenue and distinct orders per product and category")
+    void salesReports() {
+        store("o5", "Utrecht", MONDAY, 4, OrderStatus.PENDING, COFFEE, COFFEE, COFFEE, CHIPS);
+
+        ProductSalesReport coffee = orderService.getMostPopularProducts(1).getFirst();
+        assertEquals(COFFEE, coffee.product());
+        assertEquals(5, coffee.totalQuantitySold());
+        assertEquals(3, coffee.numberOfOrders());
+        assertEquals(12.5, coffee.totalRevenue(), 0.001);
+
+        List<CategorySalesReport> categories = orderService.getCategorySalesReports();
+        assertEquals(List.of("DRINKS", "LUNCH", "SNACKS"),
+                categories.stream().map(CategorySalesReport::categoryName).toList());
+        CategorySalesReport snacks = categories.getLast();
+        assertEquals(2, snacks.totalQuantitySold());
+        assertEquals(2, snacks.numberOfOrders());
+        assertEquals(1, snacks.uniqueProducts());
+        assertEquals(3.0, snacks.totalRevenue(), 0.001);
+
+        OrderSummaryReport summary = orderService.generateSummaryReport();
+        assertEquals(5, summary.totalOrders());
+        assertEquals(categories, summary.categoryBreakdown());
+    }
+
+    @Test
+    @DisplayName("Indexes match a full scan after concurrent updates")
+    void indexesMatchScanAfterConcurrentUpdates() {
+        orderService.clearAllOrders();
+        List<OrderStatus> statuses = List.of(OrderStatus.values());
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            IntStream.range(0, 8).forEach(thread -> executor.submit(() -> {
+                Random random = new Random(thread);
+                for (int i = 0; i < 2_000; i++) {
+                    String orderId = "order-" + random.nextInt(200);
+                    switch (random.nextInt(3)) {
+                        case 0 -> store(orderId, "location-" + random.nextInt(5), MONDAY.plusDays(random.nextInt(10)),
+                                random.nextInt(1000), OrderStatus.PENDING, random.nextBoolean() ? COFFEE : CHIPS);
+                        case 1 -> {
+                            try {
+                                orderService.updateOrderStatus(orderId, statuses.get(random.nextInt(statuses.size())));
+                            } catch (IllegalStateException e) {
+                                // Not a valid transition for the current status
+                            }
+                        }
+                        default -> orderService.deleteOrder(orderId);
+                    }
+                }
+            }));
+        }
+
+        List<Order> all = orderService.getAllOrders();
+        for (OrderStatus status : OrderStatus.values()) {
+            assertEquals(all.stream().filter(order -> order.status() == status).count(),
+                    orderService.getOrdersByStatus(status).size());
+            OrderPage page = orderService.getOrderPage(OrderService.OrderFilter.byStatus(status), null, 1);
+            assertEquals(orderService.getOrdersByStatus(status).size(), page.totalOrders());
+            assertEquals(orderService.getOrdersByStatus(status).stream().mapToDouble(Order::totalAmount).sum(),
+                    page.totalRevenue(), 0.001);
+        }
+        for (int location = 0; location < 5; location++) {
+            String name = "location-" + location;
+            assertEquals(all.stream().filter(order -> order.location().equals(name)).count(),
+                    orderService.getOrdersByLocation(name).size());
+        }
+        assertEquals(all.stream().filter(order -> order.containsProduct("1")).count(),
+                orderService.getOrdersContainingProduct("1").size());
+        assertEquals(all.size(), orderService.getOrdersByDateRange(MONDAY, MONDAY.plusDays(10)).size());
+        assertEquals(all.size(), orderService.getAllOrdersSorted().size());
+
+        OrderSummaryReport recomputed = SalesAggregator.of(all).summaryReport(null, null);
+        OrderSummaryReport maintained = orderService.generateSummaryReport();
+        assertEquals(recomputed.totalOrders(), maintained.totalOrders());
+        assertEquals(recomputed.totalItemsSold(), maintained.totalItemsSold());
+        assertEquals(recomputed.totalRevenue(), maintained.totalRevenue(), 0.001);
+        assertEquals(recomputed.ordersByStatus(), maintained.ordersByStatus());
+        assertEquals(recomputed.categoryBreakdown(), maintained.categoryBreakdown());
+        assertEquals(Set.copyOf(SalesAggregator.of(all).productReports()),
+                Set.copyOf(orderService.getMostPopularProducts(100)));
+    }
+
+    @Test
+    @DisplayName("Running totals per location and delivery day follow status changes and deletes")
+    void runningTotals() {
+        assertEquals(Map.of("Utrecht", 2.5, "Amsterdam", 12.5, "utrecht", 1.5), orderService.getRevenueByLocation());
+        assertEquals(Map.of("Utrecht", 1L, "Amsterdam", 2L, "utrecht", 1L), orderService.getOrderCountByLocation());
+
+        OrderService.LocationStatistics utrecht = orderService.getLocationStatistics("UTRECHT");
+        assertEquals(2, utrecht.orderCount());
+        assertEquals(4.0, utrecht.totalRevenue(), 0.001);
+        assertEquals(List.of("1", "3"), orderService.getMostPopularProductsForLocation("utrecht", 10).stream()
+                .map(report -> report.product().id()).sorted().toList());
+
+        orderService.updateOrderStatus("o2", OrderStatus.CANCELLED);
+        OrderSummaryReport tuesday = orderService.generateSummaryReportForDateRange(MONDAY.plusDays(1),
+                MONDAY.plusDays(1));
+        assertEquals(2, tuesday.totalOrders());
+        assertEquals(1, tuesday.ordersByStatus().cancelled());
+        assertEquals(0, tuesday.ordersByStatus().confirmed());
+        assertEquals(9.0, orderService.getTotalRevenueForDateRange(MONDAY.plusDays(1), MONDAY.plusDays(1)), 0.001);
+
+        orderService.deleteOrder("o4");
+        assertEquals(Map.of("Utrecht", 2.5, "Amsterdam", 7.5, "utrecht", 1.5), orderService.getRevenueByLocation());
+        assertEquals(11.5, orderService.getTotalRevenue(), 0.001);
+        assertTrue(orderService.generateSummaryReportForDateRange(MONDAY.plusDays(3), MONDAY.plusDays(3))
+                .topProducts().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Date range reports from the day rollup match a recompute over the orders in the range")
+    void dateRangeReportsMatchRecompute() {
+        orderService.clearAllOrders();
+        Random random = new Random(34);
+        Product[] menu = {COFFEE, SANDWICH, CHIPS};
+        LocalDate firstDay = LocalDate.of(2024, 1, 1);
+        for (int i = 0; i < 2000; i++) {
+            LocalDate deliveryDate = i % 100 == 0 ? LocalDate.of(1999, 12, 31 - i / 100)
+                    : firstDay.plusDays(random.nextInt(730));
+            OrderStatus status = OrderStatus.values()[random.nextInt(OrderStatus.values().length)];
+            store("r" + i, "Utrecht", deliveryDate, i, status, menu[random.nextInt(menu.length)],
+                    menu[random.nextInt(menu.length)]);
+        }
+
+        for (int i = 0; i < 50; i++) {
+            LocalDate start = LocalDate.of(1999, 12, 1).plusDays(random.nextInt(800));
+            LocalDate end = start.plusDays(random.nextInt(400));
+            SalesAggregator expected = SalesAggregator.of(orderService.getOrdersByDateRange(start, end));
+            OrderSummaryReport report = orderService.generateSummaryReportForDateRange(start, end);
+            assertEquals(expected.orderCount(), report.totalOrders());
+            assertEquals(expected.itemCount(), report.totalItemsSold());
+            assertEquals(expected.revenue(), report.totalRevenue(), 0.001);
+            assertEquals(expected.summaryReport(start, end).ordersByStatus(), report.ordersByStatus());
+            assertEquals(quantities(expected.categoryReports()),
+                    quantities(orderService.getCategorySalesReportsForDateRange(start, end)));
+        }
+    }
+
+    @Test
+    @DisplayName("Column store scans match a recompute over the orders after updates, deletes and compaction")
+    void columnScansMatchRecompute() {
+        orderService.clearAllOrders();
+        Random random = new Random(35);
+        Product[] menu = {COFFEE, SANDWICH, CHIPS};
+        String[] locations = {"Utrecht", "utrecht", "Amsterdam", "Rotterdam"};
+        for (int i = 0; i < 5000; i++) {
+            store("c" + i, locations[random.nextInt(locations.length)], MONDAY.plusDays(random.nextInt(60)), i,
+                    OrderStatus.PENDING, menu[random.nextInt(menu.length)], menu[random.nextInt(menu.length)]);
+        }
+        for (int i = 0; i < 5000; i++) {
+            if (i % 3 == 0) {
+                orderService.deleteOrder("c" + i);
+            } else if (i % 3 == 1) {
+                orderService.updateOrderStatus("c" + i, OrderStatus.DELIVERED);
+            }
+        }
+        for (int i = 0; i < 3000; i += 2) {
+            orderService.deleteOrder("c" + i);
+        }
+
+        LocalDate start = MONDAY.plusDays(10);
+        LocalDate end = MONDAY.plusDays(40);
+        List<Order> inRange = orderService.getOrdersByDateRange(start, end);
+        List<Order> utrecht = inRange.stream().filter(order -> order.location().equalsIgnoreCase("utrecht")).toList();
+        SalesAggregator expected = SalesAggregator.of(utrecht);
+        OrderSummaryReport report = orderService.generateSummaryReportForLocation("UTRECHT", start, end);
+        assertEquals(utrecht.size(), report.totalOrders());
+        assertEquals(expected.itemCount(), report.totalItemsSold());
+        assertEquals(expected.revenue(), report.totalRevenue(), 0.001);
+        assertEquals(expected.summaryReport(start, end).ordersByStatus(), report.ordersByStatus());
+        assertEquals(quantities(expected.categoryReports()), quantities(report.categoryBreakdown()));
+
+        Map<String, Long> counts = new HashMap<>();
+        inRange.forEach(order -> counts.merge(order.location(), 1L, Long::sum));
+        assertEquals(counts, orderService.getOrderCountByLocationForDateRange(start, end));
+        assertEquals(expected.revenue(), orderService.getRevenueByLocationForDateRange(start, end).get("Utrecht")
+                + orderService.getRevenueByLocationForDateRange(start, end).get("utrecht"), 0.001);
+
+        List<Order> expensive = orderService.getOrdersWithMinAmount(10.0);
+        assertEquals(orderService.getAllOrders().stream().filter(order -> order.totalAmount() >= 10.0).count(),
+                expensive.size());
+        for (int i = 1; i < expensive.size(); i++) {
+            assertTrue(expensive.get(i - 1).totalAmount() >= expensive.get(i).totalAmount());
+        }
+    }
+
+    @Test
+    @DisplayName("Parallel column scans over several chunks give the same reports as a scan on one thread")
+    void parallelScansMatchSequentialScans() {
+        orderService.clearAllOrders();
+        Random random = new Random(37);
+        Product[] menu = {COFFEE, SANDWICH, CHIPS};
+        String[] locations = {"Utrecht", "Amsterdam", "Rotterdam"};
+        int orderCount = 3 * OrderColumns.CHUNK_SIZE + 100;
+        List<Order> orders = new ArrayList<>(orderCount);
+        for (int i = 0; i < orderCount; i++) {
+            OrderStatus status = OrderStatus.values()[random.nextInt(OrderStatus.values().length)];
+            orders.add(Order.create("p" + i, locations[random.nextInt(locations.length)],
+                    MONDAY.plusDays(random.nextInt(60)), MORNING.plusMinutes(i),
+                    List.of(new OrderItem(menu[random.nextInt(menu.length)], 1 + random.nextInt(5))), null, status));
+        }
+        orderService.storeNewOrders(orders);
+        LocalDate start = MONDAY.plusDays(5);
+        LocalDate end = MONDAY.plusDays(50);
+
+        orderService.setReportParallelism(ForkJoinPool.commonPool(), Integer.MAX_VALUE);
+        OrderSummaryReport sequential = orderService.generateSummaryReportForLocation("Utrecht", start, end);
+        Map<String, Double> sequentialRevenue = orderService.getRevenueByLocationForDateRange(start, end);
+        List<Order> sequentialExpensive = orderService.getOrdersWithMinAmount(20.0);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            orderService.setReportParallelism(pool, 1);
+            assertEquals(sequential, orderService.generateSummaryReportForLocation("Utrecht", start, end));
+            assertEquals(sequentialRevenue, orderService.getRevenueByLocationForDateRange(start, end));
+            assertEquals(sequentialExpensive, orderService.getOrdersWithMinAmount(20.0));
+        } finally {
+            pool.shutdown();
+        }
+        assertThrows(IllegalArgumentException.class, () -> orderService.setReportParallelism(pool, 0));
+    }
+
+    @Test
+    @DisplayName("Top product lists match the sales reports and the trending list only counts the last seven days")
+    void topProducts() {
+        MutableClock clock = new MutableClock(MONDAY.atStartOfDay(ZoneOffset.UTC).toInstant());
+        orderService = new OrderService(clock);
+        Random random = new Random(36);
+        Product[] menu = {COFFEE, SANDWICH, CHIPS};
+        for (int i = 0; i < 300; i++) {
+            LocalDateTime placed = MONDAY.minusDays(i % 10).atTime(12, 0).plusSeconds(i);
+            List<OrderItem> items = List.of(new OrderItem(menu[random.nextInt(menu.length)], 1 + random.nextInt(5)),
+                    new OrderItem(menu[random.nextInt(menu.length)], 1 + random.nextInt(5)));
+            orderService.storeOrder(Order.create("t" + i, i % 2 == 0 ? "Utrecht" : "Amsterdam", MONDAY, placed,
+                    items, null, OrderStatus.PENDING));
+        }
+        for (int i = 0; i < 300; i += 7) {
+            orderService.deleteOrder("t" + i);
+        }
+
+        List<ProductSalesReport> expected = SalesAggregator.of(orderService.getAllOrders()).productReports()
+                .stream().sorted().toList();
+        assertEquals(expected.stream().map(ProductSalesReport::totalQuantitySold).toList(),
+                orderService.getMostPopularProducts(10).stream().map(ProductSalesReport::totalQuantitySold).toList());
+        assertEquals(2, orderService.getMostPopularProducts(2).size());
+
+        List<ProductSalesReport> utrecht = SalesAggregator.of(orderService.getOrdersByLocation("UTRECHT"))
+                .productReports().stream().sorted().toList();
+        assertEquals(utrecht.stream().map(ProductSalesReport::totalQuantitySold).toList(),
+                orderService.getMostPopularProductsForLocation("utrecht", 10).stream()
+                        .map(ProductSalesReport::totalQuantitySold).toList());
+
+        assertEquals(quantitiesPlacedSince(MONDAY.minusDays(6)), trendingQuantities());
+
+        // Two days later the two oldest days of the window have rotated out
+        clock.instant = clock.instant.plus(Duration.ofDays(2));
+        assertEquals(quantitiesPlacedSince(MONDAY.minusDays(4)), trendingQuantities());
+        orderService.deleteOrder("t1");
+        assertEquals(quantitiesPlacedSince(MONDAY.minusDays(4)), trendingQuantities());
+    }
+
+    @Test
+    @DisplayName("A product that changed its price is reported once, as it was last ordered")
+    void productsAreCountedById() {
+        orderService = new OrderService(Clock.fixed(MORNING.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+        Product cheaperCoffee = new Product(COFFEE.id(), COFFEE.name(), "Filter coffee", 2.0, COFFEE.category());
+        store("p1", "Utrecht", MONDAY, 0, OrderStatus.PENDING, COFFEE, CHIPS);
+        store("p2", "Utrecht", MONDAY, 1, OrderStatus.PENDING, cheaperCoffee);
+
+        List<List<ProductSalesReport>> rankings = List.of(orderService.getMostPopularProducts(10),
+                orderService.getMostPopularProductsForLocation("Utrecht", 10), orderService.getTrendingProducts(10),
+                orderService.getMostPopularProductsForDateRange(MONDAY, MONDAY, 10),
+                orderService.generateSummaryReport().topProducts(),
+                orderService.generateSummaryReportForLocation("Utrecht", MONDAY, MONDAY).topProducts());
+        for (List<ProductSalesReport> ranking : rankings) {
+            assertEquals(List.of("1", "3"), ranking.stream().map(report -> report.product().id()).toList());
+            ProductSalesReport coffee = ranking.getFirst();
+            assertEquals(2, coffee.totalQuantitySold());
+            assertEquals(2, coffee.numberOfOrders());
+            assertEquals(4.5, coffee.totalRevenue(), 0.001);
+            assertEquals(cheaperCoffee, coffee.product());
+        }
+
+        orderService.deleteOrder("p2");
+        assertEquals(List.of(1, 1), orderService.getMostPopularProducts(10).stream()
+                .map(ProductSalesReport::totalQuantitySold).toList());
+    }
+
+    @Test
+    @DisplayName("Orders stored before their day was in the trending window are not subtracted from it")
+    void trendingIgnoresOrdersStoredAhead() {
+        MutableClock clock = new MutableClock(MONDAY.atStartOfDay(ZoneOffset.UTC).toInstant());
+        orderService = new OrderService(clock);
+        LocalDateTime tomorrow = MONDAY.plusDays(1).atTime(12, 0);
+        orderService.storeOrder(Order.create("today", "Utrecht", MONDAY, MONDAY.atTime(12, 0),
+                List.of(new OrderItem(COFFEE, 2), new OrderItem(CHIPS, 1)), null, OrderStatus.PENDING));
+        orderService.storeOrder(Order.create("ahead", "Utrecht", MONDAY, tomorrow,
+                List.of(new OrderItem(COFFEE, 5), new OrderItem(SANDWICH, 1)), null, OrderStatus.PENDING));
+        orderService.storeOrder(Order.create("changed", "Utrecht", MONDAY, tomorrow,
+                List.of(new OrderItem(CHIPS, 4)), null, OrderStatus.PENDING));
+        assertEquals(Map.of("1", 2, "3", 1), trendingQuantities());
+
+        clock.instant = clock.instant.plus(Duration.ofDays(1));
+        assertEquals(Map.of("1", 2, "3", 1), trendingQuantities());
+        orderService.deleteOrder("ahead");
+        assertEquals(Map.of("1", 2, "3", 1), trendingQuantities());
+        orderService.storeOrder(Order.create("changed", "Utrecht", MONDAY, tomorrow,
+                List.of(new OrderItem(CHIPS, 3)), null, OrderStatus.PENDING));
+        assertEquals(quantitiesPlacedSince(MONDAY), trendingQuantities());
+        assertEquals(Map.of("1", 2, "3", 4), trendingQuantities());
+    }
+
+    private Map<String, Integer> quantitiesPlacedSince(LocalDate firstDay) {
+        Map<String, Integer> quantities = new HashMap<>();
+        orderService.getAllOrders().stream()
+                .filter(order -> !order.orderTimestamp().toLocalDate().isBefore(firstDay))
+                .flatMap(order -> order.items().stream())
+                .forEach(item -> quantities.merge(item.product().id(), item.quantity(), Integer::sum));
+        return quantities;
+    }
+
+    private Map<String, Integer> trendingQuantities() {
+        Map<String, Integer> quantities = new HashMap<>();
+        orderService.getTrendingProducts(10)
+                .forEach(report -> quantities.put(report.product().id(), report.totalQuantitySold()));
+        return quantities;
+    }
+
+    @Test
+    @DisplayName("Status updates follow the transition table and can require the status they were decided on")
+    void statusTransitions() {
+        assertThrows(IllegalStateException.class, () -> orderService.updateOrderStatus("o4", OrderStatus.PENDING));
+        assertEquals(OrderStatus.DELIVERED, orderService.getOrderById("o4").orElseThrow().status());
+        assertEquals(OrderStatus.DELIVERED, orderService.updateOrderStatus("o4", OrderStatus.DELIVERED)
+                .orElseThrow().status());
+
+        assertTrue(orderService.updateOrderStatus("o1", OrderStatus.CONFIRMED, OrderStatus.READY).isEmpty());
+        assertEquals(OrderStatus.PENDING, orderService.getOrderById("o1").orElseThrow().status());
+        assertEquals(OrderStatus.READY, orderService.updateOrderStatus("o1", OrderStatus.PENDING, OrderStatus.READY)
+                .orElseThrow().status());
+        assertThrows(IllegalStateException.class, () -> orderService.updateOrderStatus("o1", OrderStatus.CONFIRMED));
+        assertTrue(orderService.updateOrderStatus("missing", OrderStatus.READY).isEmpty());
+        assertEquals(List.of("o1"), ids(orderService.getOrdersByStatus(OrderStatus.READY)));
+    }
+
+    @Test
+    @DisplayName("Delivering the ready orders of a location races safely with cancellations")
+    void deliverReadyOrders() throws Exception {
+        orderService.clearAllOrders();
+        for (int i = 0; i < 2_000; i++) {
+            store("r" + i, i % 4 == 0 ? "Amsterdam" : i % 2 == 0 ? "Utrecht" : "utrecht", MONDAY, i,
+                    OrderStatus.READY, COFFEE);
+        }
+
+        int delivered;
+        long cancelled;
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            var delivering = executor.submit(() -> orderService.deliverReadyOrders("UTRECHT"));
+            var cancelling = executor.submit(() -> IntStream.range(0, 2_000)
+                    .filter(i -> orderService.updateOrderStatus("r" + (1_999 - i), OrderStatus.READY,
+                            OrderStatus.CANCELLED).isPresent())
+                    .count());
+            delivered = delivering.get();
+            cancelled = cancelling.get();
+        }
+
+        assertEquals(delivered, orderService.getOrdersByStatus(OrderStatus.DELIVERED).size());
+        assertEquals(cancelled, orderService.getOrdersByStatus(OrderStatus.CANCELLED).size());
+        assertEquals(2_000, delivered + cancelled);
+        assertTrue(orderService.getOrdersByStatus(OrderStatus.READY).isEmpty());
+        assertTrue(orderService.getOrdersByStatus(OrderStatus.DELIVERED).stream()
+                .allMatch(order -> order.location().equalsIgnoreCase("utrecht")));
+        assertEquals(0, orderService.deliverReadyOrders("utrecht"));
+    }
+
+    @Test
+    @DisplayName("Order pages walk the filtered orders newest first and carry the totals of the filter")
+    void orderPages() {
+        orderService.clearAllOrders();
+        String[] locations = {"Utrecht", "Amsterdam", "utrecht"};
+        for (int i = 0; i < 95; i++) {
+            store("p" + i, locations[i % 3], MONDAY.plusDays(i % 4), i / 2, OrderStatus.PENDING, COFFEE, CHIPS);
+        }
+        for (int i = 0; i < 95; i += 5) {
+            orderService.updateOrderStatus("p" + i, OrderStatus.READY);
+        }
+
+        assertEquals(ids(orderService.getAllOrdersSorted()), pagedIds(OrderService.OrderFilter.all(), 10));
+        assertEquals(ids(orderService.getOrdersByLocation("UTRECHT")),
+                pagedIds(OrderService.OrderFilter.byLocation("UTRECHT"), 7));
+        assertEquals(ids(orderService.getOrdersByStatus(OrderStatus.READY)),
+                pagedIds(OrderService.OrderFilter.byStatus(OrderStatus.READY), 4));
+        assertEquals(ids(orderService.getOrdersByDeliveryDate(MONDAY.plusDays(2))).reversed(),
+                pagedIds(OrderService.OrderFilter.byDeliveryDate(MONDAY.plusDays(2)), 5));
+
+        OrderPage first = orderService.getOrderPage(OrderService.OrderFilter.byLocation("utrecht"), null, 10);
+        assertEquals(63, first.totalOrders());
+        assertEquals(126, first.totalItems());
+        assertEquals(63 * 4.0, first.totalRevenue(), 0.001);
+        OrderPage ready = orderService.getOrderPage(OrderService.OrderFilter.byStatus(OrderStatus.READY), null, 10);
+        assertEquals(19, ready.totalOrders());
+        assertEquals(19 * 4.0, ready.totalRevenue(), 0.001);
+
+        // A newer order does not shift the next page
+        store("newest", "Utrecht", MONDAY, 500, OrderStatus.PENDING, COFFEE);
+        OrderPage second = orderService.getOrderPage(OrderService.OrderFilter.byLocation("utrecht"),
+                first.nextCursor(), 10);
+        assertEquals(ids(orderService.getOrdersByLocation("utrecht")).subList(11, 21), ids(second.orders()));
+
+        assertEquals(List.of("Amsterdam", "Utrecht", "utrecht"), orderService.getLocations());
+        assertThrows(IllegalArgumentException.class,
+                () -> orderService.getOrderPage(OrderService.OrderFilter.all(), "not-a-cursor", 10));
+    }
+
+    private List<String> pagedIds(OrderService.OrderFilter filter, int size) {
+        List<String> result = new ArrayList<>();
+        OrderPage page = orderService.getOrderPage(filter, null, size);
+        result.addAll(ids(page.orders()));
+        while (page.hasNext()) {
+            assertEquals(size, page.orders().size());
+            page = orderService.getOrderPage(filter, page.nextCursor(), size);
+            result.addAll(ids(page.orders()));
+        }
+        return result;
+    }
+
+    private void store(String orderId, String location, LocalDate deliveryDate, int minutes, OrderStatus status,
+                       Product... products) {
+        List<OrderItem> items = List.of(products).stream().map(product -> new OrderItem(product, 1)).toList();
+        orderService.storeOrder(Order.create(orderId, location, deliveryDate, MORNING.plusMinutes(minutes), items,
+                null, status));
+    }
+
+    private static List<String> quantities(List<CategorySalesReport> reports) {
+        return reports.stream()
+                .map(report -> report.categoryName() + ":" + report.totalQuantitySold() + "/" + report.numberOfOrders())
+                .sorted()
+                .toList();
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+
+    private static List<String> ids(List<Order> orders) {
+        return orders.stream().map(Order::orderId).toList();
+    }
+}
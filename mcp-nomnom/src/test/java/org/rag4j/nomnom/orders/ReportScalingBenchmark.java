@@ -0,0 +1,80 @@
+package org.rag4j.nomnom.orders;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.rag4j.nomnom.orders.model.OrderSummaryReport;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scaling of the fork-join report scans over the column store with the number of threads. Scans a year of
+ * deliveries of all locations, so every row is read, for 1M and 2M orders. {@code threads} 0 is the scan on the
+ * calling thread without the fork-join pool, the others run the reduction in a pool with that parallelism. Threads
+ * beyond the cores of the machine only add overhead.
+ * <p>
+ * Run with:
+ * <pre>
+ * mvn -pl mcp-nomnom test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath org.rag4j.nomnom.orders.ReportScalingBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class ReportScalingBenchmark {
+    private static final LocalDate START = LocalDate.of(2025, 1, 1);
+    private static final LocalDate END = LocalDate.of(2025, 12, 31);
+
+    @Param({"1000000", "2000000"})
+    public int orderCount;
+
+    @Param({"0", "1", "2", "4", "8"})
+    public int threads;
+
+    private OrderColumns columns;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void createOrders() {
+        columns = new OrderColumns();
+        SalesAggregationBenchmark.randomOrders(orderCount, new Random(42)).forEach(columns::add);
+        if (threads == 0) {
+            columns.useParallelism(ForkJoinPool.commonPool(), Integer.MAX_VALUE);
+        } else {
+            pool = new ForkJoinPool(threads);
+            columns.useParallelism(pool, 1);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public OrderSummaryReport summaryReport() {
+        return columns.aggregate(START, END, null).summaryReport(START, END);
+    }
+
+    @Benchmark
+    public Map<String, OrderColumns.LocationTotals> totalsByLocation() {
+        return columns.totalsByLocation(START, END);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ReportScalingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,98 @@
+package org.rag4j.nomnom.orders;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.rag4j.nomnom.orders.model.CategorySalesReport;
+import org.rag4j.nomnom.orders.model.Order;
+import org.rag4j.nomnom.orders.model.OrderItem;
+import org.rag4j.nomnom.orders.model.OrderStatus;
+import org.rag4j.nomnom.orders.model.ProductSalesReport;
+import org.rag4j.nomnom.products.model.Product;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.rag4j.nomnom.products.model.Category.*;
+
+/**
+ * Product and category sales aggregation over 100k and 1M orders of one to four items from the menu.
+ * <p>
+ * Run with:
+ * <pre>
+ * mvn -pl mcp-nomnom test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath org.rag4j.nomnom.orders.SalesAggregationBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class SalesAggregationBenchmark {
+    static final List<Product> MENU = List.of(
+            new Product("1", "Chips", "Crispy potato chips.", 2.5, SNACKS),
+            new Product("2", "Cookie", "A tasty cookie", 1.0, SNACKS),
+            new Product("5", "Soda", "Carbonated soft drink.", 2.5, DRINKS),
+            new Product("6", "Coffee", "Keeps the engine running.", 1.5, DRINKS),
+            new Product("7", "Tea", "A warm cup of tea.", 1.5, DRINKS),
+            new Product("8", "Juice", "Fresh orange juice.", 3.0, DRINKS),
+            new Product("9", "Burger", "Juicy beef burger with cheese.", 15.0, DINER),
+            new Product("10", "Pizza", "Freshly ordered near you.", 12.5, DINER),
+            new Product("11", "Salad", "For the smaller appetite.", 9.5, DINER),
+            new Product("12", "Sushi", "Fashionable food, all fresh.", 23.0, DINER),
+            new Product("13", "Sandwich", "Have a Dutch lunch.", 5.0, LUNCH),
+            new Product("14", "Wrap", "A hip lunch bite.", 5.5, LUNCH),
+            new Product("15", "Soup", "For those colder days.", 3.5, LUNCH)
+    );
+
+    @Param({"100000", "1000000"})
+    public int orderCount;
+
+    private List<Order> orders;
+
+    @Setup(Level.Trial)
+    public void createOrders() {
+        orders = randomOrders(orderCount, new Random(42));
+    }
+
+    @Benchmark
+    public List<ProductSalesReport> productReports() {
+        return SalesAggregator.of(orders).productReports();
+    }
+
+    @Benchmark
+    public List<CategorySalesReport> categoryReports() {
+        return SalesAggregator.of(orders).categoryReports();
+    }
+
+    static List<Order> randomOrders(int count, Random random) {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 8, 0);
+        OrderStatus[] statuses = OrderStatus.values();
+        List<Order> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int itemCount = 1 + random.nextInt(4);
+            List<OrderItem> items = new ArrayList<>(itemCount);
+            for (int item = 0; item < itemCount; item++) {
+                items.add(new OrderItem(MENU.get(random.nextInt(MENU.size())), 1 + random.nextInt(10)));
+            }
+            LocalDateTime orderTimestamp = start.plusMinutes(i);
+            LocalDate deliveryDate = orderTimestamp.toLocalDate().plusDays(random.nextInt(14));
+            orders.add(Order.create("order-" + i, "location-" + random.nextInt(50), deliveryDate, orderTimestamp,
+                    items, null, statuses[random.nextInt(statuses.length)]));
+        }
+        return orders;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SalesAggregationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
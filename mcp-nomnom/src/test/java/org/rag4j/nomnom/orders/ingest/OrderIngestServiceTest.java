@@ -0,0 +1,151 @@
+package org.rag4j.nomnom.orders.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.rag4j.nomnom.orders.OrderService;
+import org.rag4j.nomnom.orders.model.Order;
+import org.rag4j.nomnom.orders.model.OrderItem;
+import org.rag4j.nomnom.orders.model.OrderStatus;
+import org.rag4j.nomnom.products.catalog.ProductCatalog;
+import org.rag4j.nomnom.products.model.Category;
+import org.rag4j.nomnom.products.model.Product;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderIngestServiceTest {
+    private static final Product CHIPS = new Product("1", "Chips", "Crispy potato chips.", 2.5, Category.SNACKS);
+    private static final Product SODA = new Product("2", "Soda", "Carbonated soft drink.", 2.5, Category.DRINKS);
+    private static final Product COFFEE = new Product("3", "Coffee", "Keeps the engine running.", 1.5, Category.DRINKS);
+
+    private OrderService orderService;
+    private OrderIngestService ingestService;
+
+    @BeforeEach
+    void setUp() {
+        orderService = new OrderService();
+        ingestService = new OrderIngestService(orderService, ProductCatalog.of(List.of(CHIPS, SODA, COFFEE)),
+                new ObjectMapper());
+    }
+
+    @Test
+    @DisplayName("A JSON array is stored in batches with products and prices from the menu, a name overrules an old id")
+    void ingestsJsonArray() throws IOException {
+        String body = IntStream.range(0, 2_500)
+                .mapToObj(i -> """
+                        {"orderId": "h%d", "location": "Utrecht", "deliveryDate": "2024-03-%02d",
+                         "orderTimestamp": "2024-03-01T08:%02d:00", "status": "delivered", "extra": {"ignored": [1]},
+                         "items": [{"productId": "1", "quantity": 2}, {"productId": "2", "productName": "coffee", "quantity": 1}]}
+                        """.formatted(i, 1 + i % 28, i % 60))
+                .collect(Collectors.joining(",", "[", "]"));
+
+        IngestResult result = ingest(body);
+
+        assertEquals(2_500, result.rows());
+        assertEquals(2_500, result.stored());
+        assertEquals(0, result.rejected());
+        assertNull(result.failure());
+        assertTrue(result.rowsPerSecond() > 0);
+        Order order = orderService.getOrderById("h30").orElseThrow();
+        assertEquals(LocalDate.of(2024, 3, 3), order.deliveryDate());
+        assertEquals(LocalDateTime.of(2024, 3, 1, 8, 30), order.orderTimestamp());
+        assertEquals(OrderStatus.DELIVERED, order.status());
+        assertEquals(List.of(CHIPS, COFFEE), order.items().stream().map(item -> item.product()).toList());
+        assertEquals(6.5, order.totalAmount(), 0.001);
+        assertEquals(2_500, orderService.getOrdersByLocation("utrecht").size());
+    }
+
+    @Test
+    @DisplayName("Invalid NDJSON rows are reported by row number and the other rows are stored")
+    void reportsInvalidRows() throws IOException {
+        String body = """
+                {"location": "Amsterdam", "deliveryDate": "2024-01-05", "items": [{"productName": "Chips", "quantity": 1}]}
+                {"location": "Amsterdam", "deliveryDate": "2024-13-05", "items": [{"productId": "1", "quantity": 1}]}
+                {"location": "Amsterdam", "deliveryDate": "2024-01-05", "items": [{"productId": "3", "productName": "Tea", "quantity": 1}]}
+                {"location": "Amsterdam", "deliveryDate": "2024-01-05", "items": [{"productId": "9", "quantity": 1}]}
+                {"location": "Amsterdam", "deliveryDate": "2024-01-05", "items": [{"productId": "1", "quantity": 0}]}
+                {"location": "Amsterdam", "deliveryDate": "2024-01-05", "status": "LOST", "items": [{"productId": "1", "quantity": 1}]}
+                {"deliveryDate": "2024-01-05", "items": [{"productId": "1", "quantity": 1}]}
+                {"location": "Amsterdam", "deliveryDate": "2024-01-05", "items": []}
+                "not an order"
+                {"location": "Amsterdam", "deliveryDate": "2024-01-06", "note": "Last", "items": [{"productId": "2", "productName": "Soda", "quantity": "3"}]}
+                """;
+
+        IngestResult result = ingest(body);
+
+        assertEquals(10, result.rows());
+        assertEquals(2, result.stored());
+        assertEquals(8, result.rejected());
+        assertNull(result.failure());
+        assertEquals(List.of(2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L),
+                result.errors().stream().map(IngestResult.RowError::row).toList());
+        assertEquals("Product id 3 is Coffee, not Tea",
+                result.errors().get(1).message());
+        List<Order> stored = orderService.getOrdersByLocation("Amsterdam");
+        assertEquals(2, stored.size());
+        assertEquals(LocalDate.of(2024, 1, 6).atStartOfDay(), stored.getFirst().orderTimestamp());
+        assertEquals(7.5, stored.getFirst().totalAmount(), 0.001);
+    }
+
+    @Test
+    @DisplayName("Rows with the id of a stored order or of an earlier row are rejected and do not change orders")
+    void rejectsExistingIds() throws IOException {
+        Order delivered = orderService.storeOrder(Order.create("h-1", "Utrecht", LocalDate.of(2024, 1, 5),
+                LocalDateTime.of(2024, 1, 4, 12, 0), List.of(new OrderItem(CHIPS, 1)), null, OrderStatus.DELIVERED));
+        String body = IntStream.range(0, OrderIngestService.BATCH_SIZE + 3)
+                .mapToObj(i -> switch (i) {
+                    case 1 -> order("h-1", "PENDING");
+                    case 2, 4, 1_001 -> order("h-2", "PENDING");
+                    default -> order("n-" + i, "DELIVERED");
+                })
+                .collect(Collectors.joining("\n"));
+
+        IngestResult result = ingest(body);
+
+        assertEquals(OrderIngestService.BATCH_SIZE, result.stored());
+        assertEquals(3, result.rejected());
+        assertEquals(List.of(new IngestResult.RowError(2, "Order h-1 already exists"),
+                new IngestResult.RowError(5, "Order id h-2 is already in the import"),
+                new IngestResult.RowError(1_002, "Order h-2 already exists")), result.errors());
+        assertEquals(delivered, orderService.getOrderById("h-1").orElseThrow());
+        assertEquals(OrderStatus.PENDING, orderService.getOrderById("h-2").orElseThrow().status());
+        assertEquals(OrderIngestService.BATCH_SIZE + 1, orderService.getOrderCount());
+    }
+
+    @Test
+    @DisplayName("Malformed JSON stops the import and keeps the orders read before it")
+    void stopsAtMalformedJson() throws IOException {
+        String body = """
+                [{"location": "Utrecht", "deliveryDate": "2024-01-05", "items": [{"productId": "1", "quantity": 1}]},
+                 {"location": "Utrecht", "deliveryDate": "2024-01-05", "items": [{"productId": "1", "quantity": 1}]},
+                 {"location": "Utrecht", "deliveryDate": "2024-01-05", "items": [{"productId": "1" "quantity": 1}]}]
+                """;
+
+        IngestResult result = ingest(body);
+
+        assertEquals(2, result.stored());
+        assertNotNull(result.failure());
+        assertTrue(result.failure().startsWith("Invalid JSON after row 3"), result.failure());
+        assertEquals(2, orderService.getOrderCount());
+    }
+
+    private static String order(String orderId, String status) {
+        return """
+                {"orderId": "%s", "location": "Utrecht", "deliveryDate": "2024-01-05", "status": "%s", \
+                "items": [{"productId": "1", "quantity": 1}]}""".formatted(orderId, status);
+    }
+
+    private IngestResult ingest(String body) throws IOException {
+        return ingestService.ingest(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+    }
+}
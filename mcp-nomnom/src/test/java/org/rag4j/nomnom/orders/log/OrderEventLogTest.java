@@ -0,0 +1,177 @@
+package org.rag4j.nomnom.orders.log;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.rag4j.nomnom.orders.OrderService;
+import org.rag4j.nomnom.orders.model.Order;
+import org.rag4j.nomnom.orders.model.OrderItem;
+import org.rag4j.nomnom.orders.model.OrderStatus;
+import org.rag4j.nomnom.products.catalog.ProductCatalog;
+import org.rag4j.nomnom.products.model.Category;
+import org.rag4j.nomnom.products.model.Product;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderEventLogTest {
+    private static final Product COFFEE = new Product("1", "Coffee", "Black coffee", 2.5, Category.DRINKS);
+    private static final Product SOUP = new Product("15", "Soup", null, 3.5, Category.LUNCH);
+    private static final LocalDateTime MORNING = LocalDateTime.of(2025, 6, 2, 9, 15, 30, 123_000_000);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Stored orders, status changes and deletes are restored after a restart")
+    void restoresChanges() {
+        OrderService orderService = new OrderService();
+        OrderEventLog log = start(orderService, 100);
+        for (int i = 0; i < 20; i++) {
+            orderService.storeOrder(order("o" + i, i % 2 == 0 ? null : "Note " + i));
+        }
+        orderService.updateOrderStatus("o3", OrderStatus.DELIVERED);
+        orderService.deleteOrder("o4");
+        orderService.storeOrder(order("o5", "Replaced"));
+        log.stop();
+
+        OrderService restored = new OrderService();
+        OrderEventLog restoredLog = start(restored, 100);
+        assertEquals(sorted(orderService.getAllOrders()), sorted(restored.getAllOrders()));
+        assertEquals(OrderStatus.DELIVERED, restored.getOrderById("o3").orElseThrow().status());
+        assertTrue(restored.getOrderById("o4").isEmpty());
+        assertEquals(1, restored.getOrdersByStatus(OrderStatus.DELIVERED).size());
+        restoredLog.stop();
+    }
+
+    @Test
+    @DisplayName("Snapshots replace the older log files and restore the same orders")
+    void snapshots() throws IOException {
+        OrderService orderService = new OrderService();
+        OrderEventLog log = start(orderService, 50);
+        for (int i = 0; i < 300; i++) {
+            orderService.storeOrder(order("o" + (i % 120), null));
+            if (i % 7 == 0) {
+                orderService.updateOrderStatus("o" + (i % 120), OrderStatus.READY);
+            }
+        }
+        log.stop();
+
+        List<String> files = fileNames();
+        assertEquals(1, files.stream().filter(name -> name.startsWith("snapshot-")).count(), files.toString());
+        assertTrue(files.size() <= 3, files.toString());
+
+        OrderService restored = new OrderService();
+        OrderEventLog restoredLog = start(restored, 50);
+        assertEquals(sorted(orderService.getAllOrders()), sorted(restored.getAllOrders()));
+        restoredLog.stop();
+    }
+
+    @Test
+    @DisplayName("Snapshots taken while other threads change orders keep every change")
+    void snapshotsWhileChanging() throws InterruptedException {
+        OrderService orderService = new OrderService();
+        OrderEventLog log = start(orderService, 20);
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            for (int thread = 0; thread < 4; thread++) {
+                int first = thread * 1000;
+                executor.submit(() -> {
+                    for (int i = first; i < first + 500; i++) {
+                        orderService.storeOrder(order("o" + i, null));
+                        if (i % 3 == 0) {
+                            orderService.updateOrderStatus("o" + i, OrderStatus.CONFIRMED);
+                        }
+                        if (i % 5 == 0) {
+                            orderService.deleteOrder("o" + (i - 1));
+                        }
+                    }
+                });
+            }
+        }
+        log.stop();
+
+        OrderService restored = new OrderService();
+        OrderEventLog restoredLog = start(restored, 20);
+        assertEquals(sorted(orderService.getAllOrders()), sorted(restored.getAllOrders()));
+        restoredLog.stop();
+    }
+
+    @Test
+    @DisplayName("A partly written last frame is ignored and the log keeps working")
+    void ignoresIncompleteWrite() throws IOException {
+        OrderService orderService = new OrderService();
+        OrderEventLog log = start(orderService, 100);
+        orderService.storeOrder(order("o1", null));
+        orderService.storeOrder(order("o2", null));
+        log.stop();
+        Path lastLog = directory.resolve(fileNames().getLast());
+        Files.write(lastLog, new byte[]{0, 0, 0, 40, 2, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        OrderService restored = new OrderService();
+        OrderEventLog restoredLog = start(restored, 100);
+        assertEquals(2, restored.getOrderCount());
+        restored.deleteOrder("o1");
+        restoredLog.stop();
+
+        OrderService restoredAgain = new OrderService();
+        OrderEventLog lastLogAgain = start(restoredAgain, 100);
+        assertEquals(List.of("o2"), restoredAgain.getAllOrders().stream().map(Order::orderId).toList());
+        lastLogAgain.stop();
+    }
+
+    @Test
+    @DisplayName("Restored orders get the current product ids of the catalog and keep their prices and totals")
+    void migratesProductIds() {
+        OrderService orderService = new OrderService();
+        OrderEventLog log = start(orderService, 100);
+        orderService.storeOrder(order("o1", null));
+        log.stop();
+
+        Product currentCoffee = new Product("6", "Coffee", "Keeps the engine running.", 1.5, Category.DRINKS);
+        ProductCatalog catalog = ProductCatalog.of(List.of(currentCoffee, SOUP));
+        OrderService restored = new OrderService();
+        OrderEventLog restoredLog = new OrderEventLog(restored, directory, 16, 100, catalog::withCurrentId);
+        restoredLog.start();
+
+        Order order = restored.getOrderById("o1").orElseThrow();
+        assertEquals(List.of(new OrderItem(new Product("6", "Coffee", "Black coffee", 2.5, Category.DRINKS), 3),
+                new OrderItem(SOUP, 1)), order.items());
+        assertEquals(orderService.getOrderById("o1").orElseThrow().totalAmount(), order.totalAmount());
+        assertEquals(List.of("o1"), restored.getOrdersContainingProduct("6").stream().map(Order::orderId).toList());
+        assertTrue(restored.getOrdersContainingProduct("1").isEmpty());
+        restoredLog.stop();
+    }
+
+    private OrderEventLog start(OrderService orderService, int snapshotEvery) {
+        OrderEventLog log = new OrderEventLog(orderService, directory, 16, snapshotEvery);
+        log.start();
+        return log;
+    }
+
+    private List<String> fileNames() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    private static Order order(String orderId, String note) {
+        List<OrderItem> items = List.of(new OrderItem(COFFEE, 3), new OrderItem(SOUP, 1));
+        return Order.create(orderId, "Luminis Utrecht", LocalDate.of(2025, 6, 3), MORNING, items, note,
+                OrderStatus.PENDING);
+    }
+
+    private static List<Order> sorted(List<Order> orders) {
+        return orders.stream().sorted(Comparator.comparing(Order::orderId)).toList();
+    }
+}
@@ -0,0 +1,118 @@
+package org.rag4j.nomnom.products.catalog;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.rag4j.nomnom.products.model.Category;
+import org.rag4j.nomnom.products.model.Product;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductCatalogTest {
+    private static final Product CHIPS = new Product("1", "Chips", "Crispy potato chips.", 2.5, Category.SNACKS);
+    private static final Product SODA = new Product("2", "Soda", "Carbonated soft drink.", 2.5, Category.DRINKS);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("The bundled products have unique ids and are indexed by id, name and category")
+    void loadsBundledProducts() {
+        ProductCatalog catalog = ProductCatalog.fromFile(null, objectMapper);
+
+        List<Product> products = catalog.products();
+        assertEquals(13, products.size());
+        assertEquals(13, new HashSet<>(products.stream().map(Product::id).toList()).size());
+        assertSame(products, catalog.products());
+        assertEquals("Coffee", catalog.findById("6").name());
+        assertEquals("6", catalog.findByName("COFFEE").id());
+        assertNull(catalog.findById("99"));
+        assertNull(catalog.findByName("Espresso"));
+        assertEquals(List.of("Soda", "Coffee", "Tea", "Juice"),
+                catalog.findByCategory(Category.DRINKS).stream().map(Product::name).toList());
+        assertSame(catalog.findByCategory(Category.LUNCH), catalog.findByCategory(Category.LUNCH));
+        for (Category category : Category.values()) {
+            assertFalse(catalog.findByCategory(category).isEmpty(), category.name());
+        }
+    }
+
+    @Test
+    @DisplayName("After a listener failed, the next reload of the same products calls the listeners again")
+    void retriesFailedListeners() throws IOException {
+        Path file = directory.resolve("products.json");
+        objectMapper.writeValue(file.toFile(), List.of(CHIPS));
+        ProductCatalog catalog = ProductCatalog.fromFile(file, objectMapper);
+        List<List<Product>> reloads = new ArrayList<>();
+        boolean[] failing = {true};
+        catalog.onReload(products -> {
+            if (failing[0]) {
+                throw new IllegalStateException("Embedding service unavailable");
+            }
+            reloads.add(products);
+        });
+
+        objectMapper.writeValue(file.toFile(), List.of(CHIPS, SODA));
+        assertThrows(IllegalStateException.class, catalog::reload);
+        failing[0] = false;
+
+        assertTrue(catalog.reload());
+        assertEquals(List.of(List.of(CHIPS, SODA)), reloads);
+        assertFalse(catalog.reload());
+    }
+
+    @Test
+    @DisplayName("A product of an old order gets the current id of the product with its name")
+    void currentIds() {
+        Product oldSoda = new Product("2", "Soda", "Fizzy", 2.0, Category.DRINKS);
+        Product nameless = new Product("9", null, null, 1.0, Category.SNACKS);
+        ProductCatalog catalog = ProductCatalog.of(List.of(CHIPS, new Product("5", "Soda", null, 2.5,
+                Category.DRINKS)));
+
+        assertEquals(new Product("5", "Soda", "Fizzy", 2.0, Category.DRINKS), catalog.withCurrentId(oldSoda));
+        assertSame(CHIPS, catalog.withCurrentId(CHIPS));
+        assertSame(nameless, catalog.withCurrentId(nameless));
+        assertNull(catalog.findById("5").description());
+    }
+
+    @Test
+    @DisplayName("A reload swaps in the changed products and notifies the listeners, invalid products are rejected")
+    void reloads() throws IOException {
+        Path file = directory.resolve("products.json");
+        objectMapper.writeValue(file.toFile(), List.of(CHIPS));
+        ProductCatalog catalog = ProductCatalog.fromFile(file, objectMapper);
+        List<List<Product>> reloads = new ArrayList<>();
+        catalog.onReload(reloads::add);
+
+        assertFalse(catalog.reload());
+        objectMapper.writeValue(file.toFile(), List.of(CHIPS, SODA));
+        long fingerprint = catalog.fingerprint();
+        assertTrue(catalog.reload());
+
+        assertEquals(List.of(List.of(CHIPS, SODA)), reloads);
+        assertEquals(SODA, catalog.findById("2"));
+        assertEquals(List.of(SODA), catalog.findByCategory(Category.DRINKS));
+        assertNotEquals(fingerprint, catalog.fingerprint());
+
+        Product duplicate = new Product("2", "Coffee", "Keeps the engine running.", 1.5, Category.DRINKS);
+        objectMapper.writeValue(file.toFile(), List.of(CHIPS, SODA, duplicate));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, catalog::reload);
+        assertEquals("Product id 2 is used by Soda and Coffee", e.getMessage());
+        assertEquals(List.of(CHIPS, SODA), catalog.products());
+        assertEquals(1, reloads.size());
+
+        Files.delete(file);
+        assertThrows(UncheckedIOException.class, catalog::reload);
+        assertEquals(List.of(CHIPS, SODA), catalog.products());
+    }
+}
@@ -0,0 +1,142 @@
+package org.rag4j.nomnom.products.store;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.rag4j.nomnom.products.model.Category;
+import org.rag4j.nomnom.products.model.Product;
+import org.rag4j.nomnom.products.model.ProductMatch;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductLookupCacheTest {
+    private static final Product COFFEE = new Product("2", "Coffee", "Keeps the engine running.", 1.5, Category.DRINKS);
+    private static final Product SOUP = new Product("4", "Soup", null, 3.5, Category.LUNCH);
+    private static final List<Product> CATALOG = List.of(COFFEE, SOUP);
+
+    @TempDir
+    Path directory;
+
+    private final List<String> searches = new ArrayList<>();
+    private final Function<String, ProductMatch> search = query -> {
+        searches.add(query);
+        Product product = query.toLowerCase().contains("coffee") ? COFFEE : query.contains("soup") ? SOUP : null;
+        return new ProductMatch(query, product, product == null ? 0 : 0.75);
+    };
+
+    @Test
+    @DisplayName("Repeated queries are answered from memory and the least recently used query is evicted")
+    void cachesInMemory() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ProductLookupCache cache = new ProductLookupCache(2, null, registry);
+        cache.useCatalog(CATALOG);
+
+        assertEquals(COFFEE, cache.lookup("Coffee", search).product());
+        assertEquals(COFFEE, cache.lookup("  coffee ", search).product());
+        assertNull(cache.lookup("pancakes", search).product());
+        assertNull(cache.lookup("Pancakes", search).product());
+        assertEquals(COFFEE, cache.lookup("COFFEE", search).product());
+        assertEquals(SOUP, cache.lookup("soup", search).product());
+        assertNull(cache.lookup("pancakes", search).product());
+
+        assertEquals(List.of("Coffee", "pancakes", "soup", "pancakes"), searches);
+        assertEquals(2, cache.size());
+        assertEquals(3, counter(registry, "memory"));
+        assertEquals(4, counter(registry, "miss"));
+    }
+
+    @Test
+    @DisplayName("The file keeps the queries across restarts until the catalog changes")
+    void keepsQueriesOnDisk() throws IOException {
+        Path file = directory.resolve("cache/product-cache.bin");
+        try (ProductLookupCache cache = new ProductLookupCache(1, file, new SimpleMeterRegistry())) {
+            cache.useCatalog(CATALOG);
+            cache.lookup("coffee", search);
+            cache.lookup("soup", search);
+            cache.lookup("pancakes", search);
+            assertEquals(COFFEE, cache.lookup("coffee", search).product());
+        }
+        assertEquals(3, searches.size());
+
+        // A partly written record at the end is dropped
+        Files.write(file, new byte[]{0, 0, 0, 50, 0, 6}, StandardOpenOption.APPEND);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        try (ProductLookupCache cache = new ProductLookupCache(1, file, registry)) {
+            cache.useCatalog(CATALOG);
+            assertEquals(new ProductMatch("Soup", SOUP, 0.75), cache.lookup("Soup", search));
+            assertEquals(COFFEE, cache.lookup("coffee", search).product());
+            assertNull(cache.lookup("pancakes", search).product());
+            assertEquals(3, searches.size());
+            assertEquals(3, counter(registry, "disk"));
+
+            cache.useCatalog(List.of(COFFEE));
+            assertEquals(COFFEE, cache.lookup("coffee", search).product());
+            assertEquals(4, searches.size());
+        }
+    }
+
+    @Test
+    @DisplayName("A file written with other settings starts empty")
+    void dropsQueriesOfOtherSettings() {
+        Path file = directory.resolve("product-cache.bin");
+        try (ProductLookupCache cache = new ProductLookupCache(1, file, "hashed 512", new SimpleMeterRegistry())) {
+            cache.useCatalog(CATALOG);
+            cache.lookup("coffee", search);
+        }
+        try (ProductLookupCache cache = new ProductLookupCache(1, file, "hashed 256", new SimpleMeterRegistry())) {
+            cache.useCatalog(CATALOG);
+            cache.lookup("coffee", search);
+        }
+        try (ProductLookupCache cache = new ProductLookupCache(1, file, "hashed 256", new SimpleMeterRegistry())) {
+            cache.useCatalog(CATALOG);
+            cache.lookup("coffee", search);
+        }
+        assertEquals(2, searches.size());
+    }
+
+    @Test
+    @DisplayName("A batch searches the queries that are not cached once, in one call")
+    void looksUpBatches() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ProductLookupCache cache = new ProductLookupCache(10, null, registry);
+        cache.useCatalog(CATALOG);
+        cache.lookup("soup", search);
+        List<List<String>> batches = new ArrayList<>();
+
+        List<ProductMatch> matches = cache.lookupAll(List.of("Coffee", "soup", "pancakes", "COFFEE "), queries -> {
+            batches.add(queries);
+            return queries.stream().map(search).toList();
+        });
+
+        assertEquals(List.of(List.of("Coffee", "pancakes")), batches);
+        assertEquals(List.of(new ProductMatch("Coffee", COFFEE, 0.75), new ProductMatch("soup", SOUP, 0.75),
+                ProductMatch.none("pancakes"), new ProductMatch("COFFEE ", COFFEE, 0.75)), matches);
+        assertEquals(1, counter(registry, "memory"));
+        assertEquals(4, counter(registry, "miss"));
+    }
+
+    @Test
+    @DisplayName("A cache without entries always searches")
+    void disabled() {
+        ProductLookupCache cache = new ProductLookupCache(0, directory.resolve("unused.bin"),
+                new SimpleMeterRegistry());
+        cache.useCatalog(CATALOG);
+        cache.lookup("coffee", search);
+        cache.lookup("coffee", search);
+        assertEquals(2, searches.size());
+        assertFalse(Files.exists(directory.resolve("unused.bin")));
+    }
+
+    private static double counter(SimpleMeterRegistry registry, String result) {
+        return registry.get(ProductLookupCache.LOOKUPS_COUNTER_NAME).tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,118 @@
+package org.rag4j.nomnom.products.store;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.rag4j.nomnom.products.model.Category;
+import org.rag4j.nomnom.products.model.Product;
+import org.rag4j.nomnom.products.model.ProductMatch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductNameMatcherTest {
+    private static final Product COFFEE = new Product("2", "Coffee", "Keeps the engine running.", 1.5, Category.DRINKS);
+    private static final Product SODA = new Product("2", "Soda", "Carbonated soft drink.", 2.5, Category.DRINKS);
+    private static final Product CHIPS = new Product("1", "Chips", "Crispy potato chips.", 2.5, Category.SNACKS);
+    private static final Product SANDWICH = new Product("4", "Sandwich", "Have a Dutch lunch.", 5.0, Category.LUNCH);
+    private static final Product PIZZA = new Product("3", "Pizza", "Freshly ordered near you.", 12.5, Category.DINER);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<String> semanticQueries = new ArrayList<>();
+    private final Function<String, ProductMatch> semanticSearch = query -> {
+        semanticQueries.add(query);
+        return new ProductMatch(query, SODA, 0.4);
+    };
+    private ProductNameMatcher matcher;
+
+    @BeforeEach
+    void createMatcher() {
+        matcher = new ProductNameMatcher(Map.of("Soda", List.of("Coke", "Soft drink"), "Coffee", List.of("drink")),
+                0.6, registry);
+        matcher.useCatalog(List.of(COFFEE, SODA, CHIPS, SANDWICH, PIZZA));
+    }
+
+    @Test
+    @DisplayName("Names, aliases, plurals and typos are matched without the semantic search")
+    void matchesNames() {
+        assertEquals(COFFEE, matcher.match("Coffee", semanticSearch).product());
+        assertEquals(COFFEE, matcher.match("  COFFEE! ", semanticSearch).product());
+        assertEquals(SODA, matcher.match("coke", semanticSearch).product());
+        assertEquals(SODA, matcher.match("soft-drinks", semanticSearch).product());
+        assertEquals(COFFEE, matcher.match("coffees", semanticSearch).product());
+        assertEquals(SANDWICH, matcher.match("Sandwiches", semanticSearch).product());
+        assertEquals(CHIPS, matcher.match("chip", semanticSearch).product());
+        assertEquals(COFFEE, matcher.match("cofee", semanticSearch).product());
+        assertEquals(PIZZA, matcher.match("pizzza", semanticSearch).product());
+        assertEquals(SANDWICH, matcher.match("sandwitch", semanticSearch).product());
+
+        assertTrue(semanticQueries.isEmpty(), semanticQueries.toString());
+        assertEquals(3, count("exact"));
+        assertEquals(4, count("stemmed"));
+        assertEquals(3, count("fuzzy"));
+        assertEquals(0, count("vector"));
+    }
+
+    @Test
+    @DisplayName("Queries that are not close to one product go to the semantic search")
+    void fallsBackToSemanticSearch() {
+        assertEquals(SODA, matcher.match("something fizzy", semanticSearch).product());
+        assertEquals(SODA, matcher.match("cookie", semanticSearch).product());
+        assertEquals(SODA, matcher.match("", semanticSearch).product());
+
+        assertEquals(List.of("something fizzy", "cookie", ""), semanticQueries);
+        assertEquals(3, count("vector"));
+    }
+
+    @Test
+    @DisplayName("A batch passes the queries that match no name to one semantic search")
+    void matchesBatches() {
+        List<List<String>> batches = new ArrayList<>();
+        List<ProductMatch> matches = matcher.matchAll(List.of("Coffee", "something fizzy", "pizzza", "cookie"),
+                queries -> {
+                    batches.add(queries);
+                    return queries.stream().map(query -> new ProductMatch(query, SODA, 0.4)).toList();
+                });
+
+        assertEquals(List.of(List.of("something fizzy", "cookie")), batches);
+        assertEquals(List.of("Coffee", "something fizzy", "pizzza", "cookie"),
+                matches.stream().map(ProductMatch::requestedName).toList());
+        assertEquals(List.of(COFFEE, SODA, PIZZA, SODA), matches.stream().map(ProductMatch::product).toList());
+        assertEquals(1, matches.get(0).score());
+        assertEquals(0.4, matches.get(1).score());
+        assertTrue(matches.get(2).score() >= 0.6 && matches.get(2).score() < 1, "Score " + matches.get(2).score());
+        assertEquals(2, count("vector"));
+    }
+
+    @Test
+    @DisplayName("A name used by several products is no match")
+    void ambiguousNames() {
+        matcher = new ProductNameMatcher(Map.of("Soda", List.of("drink"), "Coffee", List.of("drink")), 0.6, registry);
+        matcher.useCatalog(List.of(COFFEE, SODA));
+
+        matcher.match("drink", semanticSearch);
+        matcher.match("drinks", semanticSearch);
+
+        assertEquals(List.of("drink", "drinks"), semanticQueries);
+    }
+
+    @Test
+    @DisplayName("Plural endings are dropped from every word")
+    void stems() {
+        assertEquals("sandwich", ProductNameMatcher.stem("sandwiches"));
+        assertEquals("cherry pie", ProductNameMatcher.stem("cherries pies"));
+        assertEquals(ProductNameMatcher.stem("cookie"), ProductNameMatcher.stem("cookies"));
+        assertEquals("glass", ProductNameMatcher.stem("glass"));
+        assertEquals("hummus", ProductNameMatcher.stem("hummus"));
+        assertEquals("tea", ProductNameMatcher.stem("teas"));
+    }
+
+    private double count(String path) {
+        return registry.get(ProductNameMatcher.MATCHES_COUNTER_NAME).tag("path", path).counter().count();
+    }
+}
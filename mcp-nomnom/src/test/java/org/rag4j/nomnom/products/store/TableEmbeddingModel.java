@@ -0,0 +1,75 @@
+package org.rag4j.nomnom.products.store;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * An embedding model for tests that looks up the vector of a text in a table, so vector stores can be compared
+ * without calling a real model.
+ */
+public class TableEmbeddingModel implements EmbeddingModel {
+    private final Map<String, float[]> vectors;
+    private final int dimensions;
+
+    public TableEmbeddingModel(Map<String, float[]> vectors, int dimensions) {
+        this.vectors = vectors;
+        this.dimensions = dimensions;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<Embedding> embeddings = new ArrayList<>();
+        for (String text : request.getInstructions()) {
+            embeddings.add(new Embedding(vector(text), embeddings.size()));
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return vector(document.getText());
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+
+    private float[] vector(String text) {
+        float[] vector = vectors.get(text);
+        if (vector == null) {
+            throw new IllegalArgumentException("No vector for " + text);
+        }
+        return vector;
+    }
+
+    /**
+     * Vectors around a number of random centres, like embeddings of products that fall in a few groups.
+     */
+    public static List<float[]> clusteredVectors(int count, int dimensions, int clusters, Random random) {
+        float[][] centres = new float[clusters][dimensions];
+        for (float[] centre : centres) {
+            for (int i = 0; i < dimensions; i++) {
+                centre[i] = (float) random.nextGaussian();
+            }
+        }
+        List<float[]> vectors = new ArrayList<>(count);
+        for (int n = 0; n < count; n++) {
+            float[] centre = centres[random.nextInt(clusters)];
+            float[] vector = new float[dimensions];
+            for (int i = 0; i < dimensions; i++) {
+                vector[i] = centre[i] + 0.6f * (float) random.nextGaussian();
+            }
+            vectors.add(vector);
+        }
+        return vectors;
+    }
+}
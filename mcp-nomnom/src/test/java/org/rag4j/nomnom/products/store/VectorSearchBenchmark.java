@@ -0,0 +1,185 @@
+package org.rag4j.nomnom.products.store;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.rag4j.nomnom.products.store.hnsw.HnswVectorStore;
+import org.rag4j.nomnom.products.store.mapped.MappedVectorStore;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.SimpleVectorStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Search latency of the {@link HnswVectorStore} and the {@link MappedVectorStore} against the
+ * {@link SimpleVectorStore} for catalogs of 10k and 50k products with 256 dimensional embeddings in 50 groups. The
+ * setup prints how long adding the products took, how long loading the saved stores takes and the recall of the HNSW
+ * store: the share of the ten best products of the simple store that it also returns. For the quantized mapped store
+ * it prints the bytes of vectors a search reads and the recall without re-ranking and with the default re-ranking.
+ * <p>
+ * Run with:
+ * <pre>
+ * mvn -pl mcp-nomnom test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath org.rag4j.nomnom.products.store.VectorSearchBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class VectorSearchBenchmark {
+    private static final int DIMENSIONS = 256;
+    private static final int QUERIES = 200;
+    private static final int TOP_K = 10;
+
+    @Param({"10000", "50000"})
+    public int productCount;
+
+    private SimpleVectorStore simpleStore;
+    private HnswVectorStore hnswStore;
+    private MappedVectorStore mappedStore;
+    private MappedVectorStore quantizedStore;
+    private Path directory;
+    private List<SearchRequest> requests;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void createStores() throws IOException {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(SimpleVectorStore.class)).setLevel(
+                ch.qos.logback.classic.Level.WARN);
+        List<float[]> vectors = TableEmbeddingModel.clusteredVectors(productCount + QUERIES, DIMENSIONS, 50,
+                new Random(42));
+        Map<String, float[]> table = new HashMap<>();
+        List<Document> documents = new ArrayList<>(productCount);
+        for (int i = 0; i < productCount; i++) {
+            table.put("product " + i, vectors.get(i));
+            documents.add(Document.builder().id(String.valueOf(i)).text("product " + i)
+                    .metadata(Map.of("id", String.valueOf(i))).build());
+        }
+        requests = new ArrayList<>(QUERIES);
+        for (int i = 0; i < QUERIES; i++) {
+            table.put("query " + i, vectors.get(productCount + i));
+            requests.add(SearchRequest.builder().query("query " + i).topK(TOP_K).build());
+        }
+        TableEmbeddingModel embeddingModel = new TableEmbeddingModel(table, DIMENSIONS);
+
+        long start = System.nanoTime();
+        simpleStore = SimpleVectorStore.builder(embeddingModel).build();
+        simpleStore.add(documents);
+        long simpleMillis = (System.nanoTime() - start) / 1_000_000;
+        start = System.nanoTime();
+        hnswStore = HnswVectorStore.builder(embeddingModel).build();
+        hnswStore.add(documents);
+        long hnswMillis = (System.nanoTime() - start) / 1_000_000;
+
+        int found = 0;
+        for (SearchRequest request : requests) {
+            Set<String> exact = new HashSet<>(ids(simpleStore.similaritySearch(request)));
+            found += (int) ids(hnswStore.similaritySearch(request)).stream().filter(exact::contains).count();
+        }
+        System.out.printf("%n%d products added in %d ms (simple) and %d ms (hnsw), recall@%d %.3f%n",
+                productCount, simpleMillis, hnswMillis, TOP_K, found / (double) (QUERIES * TOP_K));
+
+        directory = Files.createTempDirectory("vector-search");
+        File simpleFile = directory.resolve("vectorstore.ser").toFile();
+        simpleStore.save(simpleFile);
+        MappedVectorStore saved = MappedVectorStore.builder(embeddingModel).build();
+        saved.add(documents);
+        saved.save(directory.resolve("vectorstore.bin"));
+
+        start = System.nanoTime();
+        SimpleVectorStore.builder(embeddingModel).build().load(simpleFile);
+        long simpleLoadMillis = (System.nanoTime() - start) / 1_000_000;
+        start = System.nanoTime();
+        mappedStore = MappedVectorStore.builder(embeddingModel).build();
+        mappedStore.load(directory.resolve("vectorstore.bin"));
+        long mappedLoadMillis = (System.nanoTime() - start) / 1_000_000;
+        System.out.printf("Loaded in %d ms (simple, %d MB) and %d ms (mapped, %d MB)%n", simpleLoadMillis,
+                simpleFile.length() >> 20, mappedLoadMillis, Files.size(directory.resolve("vectorstore.bin")) >> 20);
+
+        Path quantizedFile = directory.resolve("quantized.bin");
+        saved = MappedVectorStore.builder(embeddingModel).quantized(true).build();
+        saved.add(documents);
+        saved.save(quantizedFile);
+        quantizedStore = MappedVectorStore.builder(embeddingModel).quantized(true).build();
+        quantizedStore.load(quantizedFile);
+        MappedVectorStore withoutRerank = MappedVectorStore.builder(embeddingModel).quantized(true).rerankFactor(1)
+                .build();
+        withoutRerank.load(quantizedFile);
+        int foundQuantized = 0;
+        int foundReranked = 0;
+        for (SearchRequest request : requests) {
+            Set<String> exact = new HashSet<>(ids(mappedStore.similaritySearch(request)));
+            foundQuantized += (int) ids(withoutRerank.similaritySearch(request)).stream().filter(exact::contains)
+                    .count();
+            foundReranked += (int) ids(quantizedStore.similaritySearch(request)).stream().filter(exact::contains)
+                    .count();
+        }
+        System.out.printf("Vectors read per search: %d KB float32, %d KB int8, recall@%d %.3f int8 only and "
+                        + "%.3f re-ranked%n",
+                (long) productCount * DIMENSIONS * Float.BYTES >> 10, (long) productCount * (DIMENSIONS + 12) >> 10,
+                TOP_K, foundQuantized / (double) (QUERIES * TOP_K), foundReranked / (double) (QUERIES * TOP_K));
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public List<Document> simpleSearch() {
+        return simpleStore.similaritySearch(nextRequest());
+    }
+
+    @Benchmark
+    public List<Document> hnswSearch() {
+        return hnswStore.similaritySearch(nextRequest());
+    }
+
+    @Benchmark
+    public List<Document> mappedSearch() {
+        return mappedStore.similaritySearch(nextRequest());
+    }
+
+    @Benchmark
+    public List<Document> quantizedSearch() {
+        return quantizedStore.similaritySearch(nextRequest());
+    }
+
+    private SearchRequest nextRequest() {
+        next = (next + 1) % QUERIES;
+        return requests.get(next);
+    }
+
+    private static List<String> ids(List<Document> documents) {
+        return documents.stream().map(Document::getId).toList();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(VectorSearchBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,64 @@
+package org.rag4j.nomnom.products.store.embedding;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.rag4j.nomnom.products.store.mapped.MappedVectorStore;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedNGramEmbeddingModelTest {
+    private final HashedNGramEmbeddingModel model = new HashedNGramEmbeddingModel(256);
+
+    @Test
+    @DisplayName("The same text always gives the same normalized vector, also in a batch")
+    void deterministic() {
+        float[] vector = model.embed("Coffee");
+
+        assertEquals(256, vector.length);
+        assertEquals(256, model.dimensions());
+        assertArrayEquals(vector, new HashedNGramEmbeddingModel(256).embed("  COFFEE!"));
+        assertArrayEquals(vector, model.embed(List.of("Tea", "Coffee")).get(1));
+        assertEquals(1, dot(vector, vector), 1e-5);
+        assertArrayEquals(new float[256], model.embed(" - "));
+    }
+
+    @Test
+    @DisplayName("Texts that share words or parts of words are closer than other texts")
+    void similarity() {
+        float[] sandwich = model.embed("sandwich");
+
+        assertTrue(dot(sandwich, model.embed("sandwiches")) > 0.6);
+        assertTrue(dot(sandwich, model.embed("sandwich")) > dot(sandwich, model.embed("sandwitch")));
+        assertTrue(dot(sandwich, model.embed("sandwitch")) > dot(sandwich, model.embed("soup")));
+        assertTrue(dot(model.embed("beef burger"), model.embed("burger")) > 0.5);
+    }
+
+    @Test
+    @DisplayName("A vector store searches the products without a remote model")
+    void searchesProducts() {
+        MappedVectorStore store = MappedVectorStore.builder(model).build();
+        store.add(List.of("Chips", "Cookie", "Coffee", "Burger", "Sandwich", "Soup").stream()
+                .map(name -> Document.builder().id(name).text(name).build()).toList());
+
+        assertEquals("Coffee", first(store, "coffees"));
+        assertEquals("Sandwich", first(store, "club sandwiches"));
+        assertEquals("Cookie", first(store, "cookeis"));
+        assertEquals("Burger", first(store, "cheeseburger"));
+    }
+
+    private static String first(MappedVectorStore store, String query) {
+        return store.similaritySearch(SearchRequest.builder().query(query).topK(1).build()).getFirst().getId();
+    }
+
+    private static float dot(float[] a, float[] b) {
+        float sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
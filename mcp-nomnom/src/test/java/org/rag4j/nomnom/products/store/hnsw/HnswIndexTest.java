@@ -0,0 +1,135 @@
+package org.rag4j.nomnom.products.store.hnsw;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.rag4j.nomnom.products.store.TableEmbeddingModel;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HnswIndexTest {
+    private static final int DIMENSIONS = 32;
+
+    @Test
+    @DisplayName("Searches find nearly all of the exact nearest neighbours")
+    void recall() {
+        List<float[]> vectors = TableEmbeddingModel.clusteredVectors(3000, DIMENSIONS, 20, new Random(1));
+        HnswIndex<Integer> index = new HnswIndex<>(DIMENSIONS, 16, 100);
+        for (int i = 0; i < vectors.size(); i++) {
+            index.add(vectors.get(i), i);
+        }
+
+        double recall = recall(index, vectors, 100, new Random(2));
+        assertTrue(recall >= 0.95, "Recall " + recall);
+    }
+
+    @Test
+    @DisplayName("Vectors added from several threads can all be found")
+    void concurrentAdds() throws Exception {
+        List<float[]> vectors = TableEmbeddingModel.clusteredVectors(2000, DIMENSIONS, 20, new Random(3));
+        HnswIndex<Integer> index = new HnswIndex<>(DIMENSIONS, 12, 80);
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            List<Future<?>> adds = IntStream.range(0, 4).<Future<?>>mapToObj(thread -> executor.submit(() -> {
+                for (int i = thread; i < vectors.size(); i += 4) {
+                    index.add(vectors.get(i), i);
+                }
+            })).toList();
+            for (Future<?> add : adds) {
+                add.get();
+            }
+        }
+
+        assertEquals(2000, index.size());
+        int found = 0;
+        for (int i = 0; i < vectors.size(); i++) {
+            found += index.search(vectors.get(i), 1, 32, null).getFirst().item() == i ? 1 : 0;
+        }
+        assertTrue(found >= 1990, "Found " + found);
+        assertTrue(recall(index, vectors, 50, new Random(4)) >= 0.9);
+    }
+
+    @Test
+    @DisplayName("Removed and filtered items are left out but still lead to the others")
+    void removeAndFilter() {
+        List<float[]> vectors = TableEmbeddingModel.clusteredVectors(500, DIMENSIONS, 5, new Random(5));
+        HnswIndex<Integer> index = new HnswIndex<>(DIMENSIONS, 8, 40);
+        for (int i = 0; i < vectors.size(); i++) {
+            index.add(vectors.get(i), i);
+        }
+        for (int i = 0; i < 250; i++) {
+            index.remove(i);
+        }
+
+        assertEquals(250, index.size());
+        List<HnswIndex.Match<Integer>> matches = index.search(vectors.get(10), 10, 40, item -> item % 2 == 0);
+        assertEquals(10, matches.size());
+        assertTrue(matches.stream().allMatch(match -> match.item() >= 250 && match.item() % 2 == 0));
+        for (int i = 1; i < matches.size(); i++) {
+            assertTrue(matches.get(i - 1).similarity() >= matches.get(i).similarity());
+        }
+    }
+
+    @Test
+    @DisplayName("A written index is read back with the same graph and results")
+    void writeAndRead() throws IOException {
+        List<float[]> vectors = TableEmbeddingModel.clusteredVectors(1000, DIMENSIONS, 10, new Random(6));
+        HnswIndex<String> index = new HnswIndex<>(DIMENSIONS, 8, 40);
+        for (int i = 0; i < vectors.size(); i++) {
+            index.add(vectors.get(i), "v" + i);
+        }
+        index.remove(7);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.write(new DataOutputStream(bytes), DataOutputStream::writeUTF);
+
+        HnswIndex<String> read = HnswIndex.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())),
+                in -> in.readUTF());
+
+        assertEquals(999, read.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(index.search(vectors.get(i), 5, 20, null), read.search(vectors.get(i), 5, 20, null));
+        }
+    }
+
+    /**
+     * The share of the exact ten nearest neighbours of random queries that the index finds.
+     */
+    private static double recall(HnswIndex<Integer> index, List<float[]> vectors, int queries, Random random) {
+        int found = 0;
+        for (float[] query : TableEmbeddingModel.clusteredVectors(queries, DIMENSIONS, 20, random)) {
+            Set<Integer> exact = new HashSet<>(IntStream.range(0, vectors.size()).boxed()
+                    .sorted(Comparator.comparingDouble(i -> -cosine(query, vectors.get(i))))
+                    .limit(10)
+                    .toList());
+            for (HnswIndex.Match<Integer> match : index.search(query, 10, 64, null)) {
+                found += exact.contains(match.item()) ? 1 : 0;
+            }
+        }
+        return found / (queries * 10.0);
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return dot / Math.sqrt(normA * normB);
+    }
+}
@@ -0,0 +1,95 @@
+package org.rag4j.nomnom.products.store.hnsw;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.rag4j.nomnom.products.store.TableEmbeddingModel;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HnswVectorStoreTest {
+    private static final Map<String, float[]> VECTORS = Map.of(
+            "Coffee", new float[]{1, 0, 0},
+            "Tea", new float[]{0.9f, 0.3f, 0},
+            "Soup", new float[]{0, 1, 0},
+            "Pizza", new float[]{0, 0.2f, 1},
+            "espresso", new float[]{1, 0.05f, 0},
+            "something warm", new float[]{0.6f, 0.6f, 0});
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Searches return the nearest documents with score and metadata")
+    void search() {
+        HnswVectorStore store = store();
+
+        List<Document> found = store.similaritySearch(SearchRequest.builder().query("espresso").topK(2).build());
+
+        assertEquals(List.of("Coffee", "Tea"), found.stream().map(Document::getText).toList());
+        assertEquals("DRINKS", found.getFirst().getMetadata().get("category"));
+        assertEquals(2.5, found.getFirst().getMetadata().get("price"));
+        assertTrue(found.getFirst().getScore() > 0.99);
+    }
+
+    @Test
+    @DisplayName("Filter expressions, thresholds, replacing and deleting documents")
+    void filterAndDelete() {
+        HnswVectorStore store = store();
+
+        List<Document> lunch = store.similaritySearch(SearchRequest.builder().query("something warm").topK(5)
+                .filterExpression("category == 'LUNCH'").build());
+        assertEquals(List.of("Soup"), lunch.stream().map(Document::getText).toList());
+        assertEquals(1, store.similaritySearch(SearchRequest.builder().query("espresso").topK(4)
+                .similarityThreshold(0.99).build()).size());
+
+        store.add(List.of(document("Tea", "DRINKS", 1.0)));
+        store.delete(List.of("Coffee"));
+        List<Document> found = store.similaritySearch(SearchRequest.builder().query("espresso").topK(5).build());
+        assertEquals(List.of("Tea", "Soup", "Pizza"), found.stream().map(Document::getText).toList());
+        assertEquals(1.0, found.getFirst().getMetadata().get("price"));
+        assertEquals(3, store.size());
+    }
+
+    @Test
+    @DisplayName("A saved store is loaded with its documents")
+    void saveAndLoad() {
+        HnswVectorStore store = store();
+        store.delete(List.of("Pizza"));
+        Path file = directory.resolve("data/vectorstore.hnsw");
+        store.save(file);
+
+        HnswVectorStore loaded = HnswVectorStore.builder(new TableEmbeddingModel(VECTORS, 3)).build();
+        loaded.load(file);
+
+        SearchRequest request = SearchRequest.builder().query("something warm").topK(4).build();
+        assertEquals(texts(store.similaritySearch(request)), texts(loaded.similaritySearch(request)));
+        assertEquals(3, loaded.size());
+        loaded.delete(List.of("Soup"));
+        assertEquals(List.of("Tea", "Coffee"), texts(loaded.similaritySearch(request)));
+    }
+
+    private static HnswVectorStore store() {
+        HnswVectorStore store = HnswVectorStore.builder(new TableEmbeddingModel(VECTORS, 3)).m(4).efConstruction(8)
+                .build();
+        store.add(List.of(document("Coffee", "DRINKS", 2.5), document("Tea", "DRINKS", 1.5),
+                document("Soup", "LUNCH", 3.5), document("Pizza", "DINER", 12.5)));
+        return store;
+    }
+
+    private static Document document(String name, String category, double price) {
+        Map<String, Object> metadata = new HashMap<>(Map.of("name", name, "category", category, "price", price));
+        return Document.builder().id(name).text(name).metadata(metadata).build();
+    }
+
+    private static List<String> texts(List<Document> documents) {
+        return documents.stream().map(Document::getText).toList();
+    }
+}
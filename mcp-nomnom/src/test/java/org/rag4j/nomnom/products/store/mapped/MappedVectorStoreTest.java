@@ -0,0 +1,217 @@
+package org.rag4j.nomnom.products.store.mapped;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.rag4j.nomnom.products.store.TableEmbeddingModel;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.SimpleVectorStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedVectorStoreTest {
+    private static final int DIMENSIONS = 16;
+    private static final int PRODUCTS = 300;
+
+    @TempDir
+    Path directory;
+
+    private final Map<String, float[]> vectors = new HashMap<>();
+    private final TableEmbeddingModel embeddingModel = new TableEmbeddingModel(vectors, DIMENSIONS);
+    private final List<Document> documents = new ArrayList<>();
+
+    MappedVectorStoreTest() {
+        List<float[]> random = TableEmbeddingModel.clusteredVectors(PRODUCTS + 20, DIMENSIONS, 5, new Random(7));
+        for (int i = 0; i < PRODUCTS; i++) {
+            vectors.put("product " + i, random.get(i));
+            documents.add(Document.builder().id(String.valueOf(i)).text("product " + i)
+                    .metadata(Map.of("category", i % 2 == 0 ? "LUNCH" : "DRINKS", "price", i / 10.0)).build());
+        }
+        for (int i = 0; i < 20; i++) {
+            vectors.put("query " + i, random.get(PRODUCTS + i));
+        }
+    }
+
+    @Test
+    @DisplayName("A saved and mapped store finds the same products as the simple store")
+    void sameResultsAsSimpleStore() {
+        SimpleVectorStore simple = SimpleVectorStore.builder(embeddingModel).build();
+        simple.add(documents);
+        MappedVectorStore mapped = saveAndLoad(VectorEncoding.FLOAT32, documents);
+
+        for (int i = 0; i < 20; i++) {
+            SearchRequest request = SearchRequest.builder().query("query " + i).topK(5).build();
+            List<Document> expected = simple.similaritySearch(request);
+            List<Document> found = mapped.similaritySearch(request);
+            assertEquals(ids(expected), ids(found));
+            assertEquals(expected.getFirst().getScore(), found.getFirst().getScore(), 1e-5);
+            assertEquals(expected.getFirst().getMetadata().get("price"), found.getFirst().getMetadata().get("price"));
+        }
+        SearchRequest lunch = SearchRequest.builder().query("query 1").topK(10).filterExpression("category == 'LUNCH'")
+                .build();
+        assertEquals(ids(simple.similaritySearch(lunch)), ids(mapped.similaritySearch(lunch)));
+    }
+
+    @Test
+    @DisplayName("A batch of searches finds the same products as the searches one by one")
+    void batchSearch() {
+        MappedVectorStore store = saveAndLoad(VectorEncoding.FLOAT32, documents);
+        List<SearchRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            requests.add(SearchRequest.builder().query("query " + i).topK(3).build());
+        }
+
+        List<List<Document>> results = store.similaritySearch(requests);
+
+        assertEquals(requests.size(), results.size());
+        for (int i = 0; i < requests.size(); i++) {
+            assertEquals(ids(store.similaritySearch(requests.get(i))), ids(results.get(i)));
+        }
+    }
+
+    @Test
+    @DisplayName("Half precision vectors halve the vectors and keep the ranking")
+    void halfPrecision() throws IOException {
+        MappedVectorStore full = saveAndLoad(VectorEncoding.FLOAT32, documents);
+        long fullSize = Files.size(directory.resolve("vectorstore.bin"));
+        MappedVectorStore half = saveAndLoad(VectorEncoding.FLOAT16, documents);
+        long halfSize = Files.size(directory.resolve("vectorstore.bin"));
+
+        assertEquals(PRODUCTS * DIMENSIONS * 2, fullSize - halfSize);
+        for (int i = 0; i < 20; i++) {
+            SearchRequest request = SearchRequest.builder().query("query " + i).topK(3).build();
+            List<Document> expected = full.similaritySearch(request);
+            List<Document> found = half.similaritySearch(request);
+            assertEquals(expected.getFirst().getId(), found.getFirst().getId());
+            assertEquals(expected.getFirst().getScore(), found.getFirst().getScore(), 1e-3);
+        }
+    }
+
+    @Test
+    @DisplayName("A quantized search ranks its candidates by the exact vectors")
+    void quantized() throws IOException {
+        MappedVectorStore full = saveAndLoad(VectorEncoding.FLOAT32, documents);
+        long fullSize = Files.size(directory.resolve("vectorstore.bin"));
+        MappedVectorStore store = MappedVectorStore.builder(embeddingModel).quantized(true).build();
+        store.add(documents);
+        store.save(directory.resolve("vectorstore.bin"));
+        long quantizedSize = Files.size(directory.resolve("vectorstore.bin"));
+
+        assertTrue(quantizedSize - fullSize >= PRODUCTS * (DIMENSIONS + 12L), "Size " + quantizedSize);
+        for (int i = 0; i < 20; i++) {
+            SearchRequest request = SearchRequest.builder().query("query " + i).topK(5).build();
+            List<Document> expected = full.similaritySearch(request);
+            List<Document> found = store.similaritySearch(request);
+            assertEquals(ids(expected), ids(found));
+            for (int j = 0; j < found.size(); j++) {
+                assertEquals(expected.get(j).getScore(), found.get(j).getScore(), 1e-6);
+            }
+        }
+        SearchRequest lunch = SearchRequest.builder().query("query 1").topK(10).filterExpression("category == 'LUNCH'")
+                .build();
+        assertEquals(ids(full.similaritySearch(lunch)), ids(store.similaritySearch(lunch)));
+    }
+
+    @Test
+    @DisplayName("A file written with other settings is reported and saving writes it with the current settings")
+    void fileSettings() {
+        saveAndLoad(VectorEncoding.FLOAT32, documents);
+        Path file = directory.resolve("vectorstore.bin");
+        MappedVectorStore quantized = MappedVectorStore.builder(embeddingModel).quantized(true).build();
+        assertTrue(quantized.fileMatchesSettings());
+        quantized.load(file);
+        assertFalse(quantized.fileMatchesSettings());
+
+        quantized.save(file);
+        assertTrue(quantized.fileMatchesSettings());
+        MappedVectorStore halfPrecision = MappedVectorStore.builder(embeddingModel).encoding(VectorEncoding.FLOAT16)
+                .quantized(true).build();
+        halfPrecision.load(file);
+        assertFalse(halfPrecision.fileMatchesSettings());
+        MappedVectorStore reloaded = MappedVectorStore.builder(embeddingModel).quantized(true).build();
+        reloaded.load(file);
+        assertTrue(reloaded.fileMatchesSettings());
+        assertEquals(PRODUCTS, reloaded.size());
+        SearchRequest request = SearchRequest.builder().query("query 0").topK(5).build();
+        assertEquals(ids(quantized.similaritySearch(request)), ids(reloaded.similaritySearch(request)));
+    }
+
+    @Test
+    @DisplayName("Added and deleted documents are searched before and after the next save")
+    void changesAfterLoading() {
+        MappedVectorStore store = saveAndLoad(VectorEncoding.FLOAT32, documents.subList(0, 200));
+        vectors.put("new product", vectors.get("query 3"));
+        store.add(List.of(Document.builder().id("new").text("new product").build()));
+        store.add(List.of(Document.builder().id("5").text("query 4").build()));
+        store.delete(List.of("6", "7"));
+
+        SearchRequest request = SearchRequest.builder().query("query 3").topK(1).build();
+        assertEquals(List.of("new"), ids(store.similaritySearch(request)));
+        assertEquals(List.of("5"), ids(store.similaritySearch(SearchRequest.builder().query("query 4").topK(1)
+                .build())));
+        assertEquals(199, store.size());
+
+        store.save(directory.resolve("vectorstore.bin"));
+        MappedVectorStore reloaded = MappedVectorStore.builder(embeddingModel).build();
+        reloaded.load(directory.resolve("vectorstore.bin"));
+        assertEquals(199, reloaded.size());
+        assertEquals(List.of("new"), ids(reloaded.similaritySearch(request)));
+        SearchRequest all = SearchRequest.builder().query("query 0").topK(300).build();
+        assertFalse(ids(reloaded.similaritySearch(all)).contains("6"));
+    }
+
+    @Test
+    @DisplayName("Files of a newer minor version are read, other major versions and incomplete files are not")
+    void versions() throws IOException {
+        saveAndLoad(VectorEncoding.FLOAT32, documents);
+        Path file = directory.resolve("vectorstore.bin");
+        writeShort(file, 6, (short) 3);
+        MappedVectorStore store = MappedVectorStore.builder(embeddingModel).build();
+        store.load(file);
+        assertEquals(PRODUCTS, store.size());
+
+        writeShort(file, 4, (short) 2);
+        UncheckedIOException newer = assertThrows(UncheckedIOException.class, () -> store.load(file));
+        assertTrue(newer.getCause().getMessage().contains("version 2.3"), newer.getCause().getMessage());
+
+        writeShort(file, 4, VectorFile.MAJOR_VERSION);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 10);
+        }
+        assertThrows(UncheckedIOException.class, () -> store.load(file));
+    }
+
+    private MappedVectorStore saveAndLoad(VectorEncoding encoding, List<Document> added) {
+        MappedVectorStore store = MappedVectorStore.builder(embeddingModel).encoding(encoding).build();
+        store.add(added);
+        store.save(directory.resolve("vectorstore.bin"));
+        MappedVectorStore loaded = MappedVectorStore.builder(embeddingModel).encoding(encoding).build();
+        loaded.load(directory.resolve("vectorstore.bin"));
+        return loaded;
+    }
+
+    private static void writeShort(Path file, int position, short value) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(2).order(ByteOrder.LITTLE_ENDIAN).putShort(value).flip(), position);
+        }
+    }
+
+    private static List<String> ids(List<Document> documents) {
+        return documents.stream().map(Document::getId).toList();
+    }
+}